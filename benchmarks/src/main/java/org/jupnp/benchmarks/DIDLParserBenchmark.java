@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.benchmarks;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.jupnp.support.contentdirectory.DIDLParser;
+import org.jupnp.support.model.DIDLContent;
+import org.jupnp.support.model.DIDLObject;
+import org.jupnp.support.model.ProtocolInfo;
+import org.jupnp.support.model.Res;
+import org.jupnp.support.model.container.MusicAlbum;
+import org.jupnp.support.model.item.MusicTrack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses and generates the DIDL-Lite result of a ContentDirectory browse, an album container with music tracks
+ * which have the properties and resources a media server typically returns.
+ * <p>
+ * The core test resources have no DIDL-Lite documents, the content is built with the support model instead.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DIDLParserBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int items;
+
+    private final DIDLParser parser = new DIDLParser();
+    private DIDLContent content;
+    private String xml;
+
+    @Setup
+    public void setup() throws Exception {
+        content = new DIDLContent();
+        MusicAlbum album = new MusicAlbum("album-1", "0", "Kind of Blue", "Miles Davis", items);
+        content.addContainer(album);
+        ProtocolInfo protocolInfo = new ProtocolInfo(
+                "http-get:*:audio/x-flac:DLNA.ORG_OP=01;DLNA.ORG_CI=0;DLNA.ORG_FLAGS=01700000000000000000000000000000");
+        for (int i = 1; i <= items; i++) {
+            String id = "track-" + i;
+            Res res = new Res(protocolInfo, 31_457_280L + i, "0:05:37.000", 1_411_200L,
+                    "http://192.168.1.20:9000/music/" + id + ".flac");
+            res.setSampleFrequency(44100L);
+            res.setNrAudioChannels(2L);
+            MusicTrack track = new MusicTrack(id, album.getId(), "Track " + i + " & Interlude <Live>", "Miles Davis",
+                    album.getTitle(), "Miles Davis", res);
+            track.setOriginalTrackNumber(i);
+            track.setGenres(new String[] { "Jazz", "Modal Jazz" });
+            track.setDate("1959-08-17");
+            track.addProperty(new DIDLObject.Property.UPNP.ALBUM_ART_URI(
+                    URI.create("http://192.168.1.20:9000/art/album-1.jpg")));
+            content.addItem(track);
+        }
+        xml = parser.generate(content);
+    }
+
+    @Benchmark
+    public DIDLContent parse() throws Exception {
+        return parser.parse(xml);
+    }
+
+    @Benchmark
+    public String generate() throws Exception {
+        return parser.generate(content);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.benchmarks;
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.jupnp.model.message.IncomingDatagramMessage;
+import org.jupnp.model.message.OutgoingDatagramMessage;
+import org.jupnp.model.message.UpnpHeaders;
+import org.jupnp.model.message.UpnpOperation;
+import org.jupnp.model.message.header.UpnpHeader;
+import org.jupnp.transport.impl.DatagramProcessorImpl;
+import org.jupnp.transport.spi.DatagramProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parses SSDP datagrams like the multicast receiver does, from a single reused receive buffer, writes them again,
+ * and parses their headers only.
+ * <p>
+ * Run with <code>-prof gc</code> to see the allocation rate per received datagram.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatagramProcessorBenchmark {
+
+    public static final String NOTIFY_ALIVE = "NOTIFY * HTTP/1.1\r\n" + "HOST: 239.255.255.250:1900\r\n"
+            + "CACHE-CONTROL: max-age=1800\r\n" + "LOCATION: http://192.168.1.20:49152/description.xml\r\n"
+            + "OPT: \"http://schemas.upnp.org/upnp/1/0/\"; ns=01\r\n"
+            + "01-NLS: 2e8b4c6a-1dd2-11b2-a8c4-b8a9c7e1f4a2\r\n" + "NT: urn:schemas-upnp-org:service:AVTransport:1\r\n"
+            + "NTS: ssdp:alive\r\n" + "SERVER: Linux/5.10 UPnP/1.0 jUPnP/3.0\r\n" + "X-User-Agent: redsonic\r\n"
+            + "USN: uuid:4d696e69-444c-164e-9d41-b8a9c7e1f4a2::urn:schemas-upnp-org:service:AVTransport:1\r\n"
+            + "\r\n";
+
+    public static final String NOTIFY_BYEBYE = "NOTIFY * HTTP/1.1\r\n" + "HOST: 239.255.255.250:1900\r\n"
+            + "NT: upnp:rootdevice\r\n" + "NTS: ssdp:byebye\r\n"
+            + "USN: uuid:4d696e69-444c-164e-9d41-b8a9c7e1f4a2::upnp:rootdevice\r\n" + "\r\n";
+
+    public static final String MSEARCH = "M-SEARCH * HTTP/1.1\r\n" + "HOST: 239.255.255.250:1900\r\n"
+            + "MAN: \"ssdp:discover\"\r\n" + "MX: 3\r\n" + "ST: ssdp:all\r\n"
+            + "USER-AGENT: Android/13 UPnP/1.1 BubbleUPnP/3.7\r\n" + "\r\n";
+
+    public static final String SEARCH_RESPONSE = "HTTP/1.1 200 OK\r\n" + "CACHE-CONTROL: max-age=1800\r\n"
+            + "DATE: Fri, 16 Oct 2026 09:12:44 GMT\r\n" + "EXT:\r\n"
+            + "LOCATION: http://192.168.1.20:49152/description.xml\r\n" + "SERVER: Linux/5.10 UPnP/1.0 jUPnP/3.0\r\n"
+            + "ST: urn:schemas-upnp-org:device:MediaRenderer:1\r\n"
+            + "USN: uuid:4d696e69-444c-164e-9d41-b8a9c7e1f4a2::urn:schemas-upnp-org:device:MediaRenderer:1\r\n"
+            + "\r\n";
+
+    @Param({ "NOTIFY_ALIVE", "NOTIFY_BYEBYE", "MSEARCH", "SEARCH_RESPONSE" })
+    public String payload;
+
+    private final DatagramProcessor processor = new DatagramProcessorImpl();
+
+    private InetAddress receivedOnAddress;
+    private byte[] data;
+    private byte[] buf;
+    private DatagramPacket datagram;
+    private int headersOffset;
+    private OutgoingDatagramMessage<UpnpOperation> outgoingMessage;
+
+    @Setup
+    public void setup() throws Exception {
+        data = ((String) getClass().getField(payload).get(null)).getBytes(StandardCharsets.US_ASCII);
+        buf = new byte[640];
+        datagram = new DatagramPacket(buf, buf.length, new InetSocketAddress("192.168.1.20", 1900));
+        receivedOnAddress = InetAddress.getByName("192.168.1.10");
+
+        // The headers start after the request or status line
+        String text = new String(data, StandardCharsets.US_ASCII);
+        headersOffset = text.indexOf("\r\n") + 2;
+
+        System.arraycopy(data, 0, buf, 0, data.length);
+        datagram.setLength(data.length);
+        IncomingDatagramMessage<UpnpOperation> incoming = processor.read(receivedOnAddress, datagram);
+        outgoingMessage = new OutgoingDatagramMessage<>(incoming.getOperation(),
+                InetAddress.getByName("239.255.255.250"), 1900) {
+        };
+        outgoingMessage.getHeaders().putAll(incoming.getHeaders());
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws Exception {
+        // Simulates the receive into the reused buffer of the socket
+        System.arraycopy(data, 0, buf, 0, data.length);
+        datagram.setLength(data.length);
+
+        IncomingDatagramMessage<?> message = processor.read(receivedOnAddress, datagram);
+
+        // The protocol factory looks at these headers for every received datagram
+        blackhole.consume(message.getHeaders().getFirstHeader(UpnpHeader.Type.NTS));
+        blackhole.consume(message.getHeaders().getFirstHeader(UpnpHeader.Type.ST));
+        blackhole.consume(message);
+    }
+
+    @Benchmark
+    public DatagramPacket write() throws Exception {
+        return processor.write(outgoingMessage);
+    }
+
+    @Benchmark
+    public void parseHeaders(Blackhole blackhole) {
+        UpnpHeaders headers = new UpnpHeaders(data, headersOffset, data.length - headersOffset);
+        blackhole.consume(headers.getFirstHeader(UpnpHeader.Type.NTS));
+        blackhole.consume(headers.getFirstHeader(UpnpHeader.Type.ST));
+        blackhole.consume(headers);
+    }
+}
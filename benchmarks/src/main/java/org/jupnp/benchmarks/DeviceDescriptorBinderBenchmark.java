@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jupnp.binding.xml.DeviceDescriptorBinder;
+import org.jupnp.binding.xml.UDA10DeviceDescriptorBinderImpl;
+import org.jupnp.binding.xml.UDA10DeviceDescriptorBinderSAXImpl;
+import org.jupnp.model.Namespace;
+import org.jupnp.model.meta.RemoteDevice;
+import org.jupnp.model.profile.RemoteClientInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Describes a remote device from its descriptor with the DOM and the SAX binder, and generates the descriptor of
+ * the described device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceDescriptorBinderBenchmark {
+
+    @Param({ "dom", "sax" })
+    public String binder;
+
+    @Param({ "descriptors/device/uda10.xml", "descriptors/device/uda10_withbase.xml" })
+    public String descriptor;
+
+    private DeviceDescriptorBinder deviceBinder;
+    private String descriptorXml;
+    private RemoteDevice undescribedDevice;
+    private RemoteDevice describedDevice;
+    private final RemoteClientInfo info = new RemoteClientInfo();
+    private final Namespace namespace = new Namespace();
+
+    @Setup
+    public void setup() throws Exception {
+        deviceBinder = "sax".equals(binder) ? new UDA10DeviceDescriptorBinderSAXImpl()
+                : new UDA10DeviceDescriptorBinderImpl();
+        descriptorXml = Payloads.read(descriptor);
+        undescribedDevice = Payloads.createUndescribedDevice();
+        describedDevice = deviceBinder.describe(undescribedDevice, descriptorXml);
+    }
+
+    @Benchmark
+    public RemoteDevice describe() throws Exception {
+        return deviceBinder.describe(undescribedDevice, descriptorXml);
+    }
+
+    @Benchmark
+    public String generate() throws Exception {
+        return deviceBinder.generate(describedDevice, info, namespace);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.benchmarks;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jupnp.model.gena.CancelReason;
+import org.jupnp.model.gena.LocalGENASubscription;
+import org.jupnp.model.message.StreamRequestMessage;
+import org.jupnp.model.message.UpnpRequest;
+import org.jupnp.model.message.gena.IncomingEventRequestMessage;
+import org.jupnp.model.message.gena.OutgoingEventRequestMessage;
+import org.jupnp.model.meta.RemoteService;
+import org.jupnp.transport.impl.GENAEventProcessorImpl;
+import org.jupnp.transport.impl.StreamingGENAEventProcessorImpl;
+import org.jupnp.transport.spi.GENAEventProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes the initial event of a ConnectionManager subscription, with the evented protocol infos of the service
+ * implementation, and reads it for the service described from its captured descriptor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GENAEventProcessorBenchmark {
+
+    @Param({ "dom", "streaming" })
+    public String processor;
+
+    private GENAEventProcessor eventProcessor;
+    private LocalGENASubscription subscription;
+    private URL callbackURL;
+    private URI callbackURI;
+    private RemoteService remoteService;
+    private String eventBody;
+
+    @Setup
+    public void setup() throws Exception {
+        eventProcessor = "streaming".equals(processor) ? new StreamingGENAEventProcessorImpl()
+                : new GENAEventProcessorImpl();
+        callbackURL = new URL("http://192.168.1.10:8080/upnp/event/cb");
+        callbackURI = callbackURL.toURI();
+        subscription = new LocalGENASubscription(Payloads.createConnectionManager(), 1800, List.of(callbackURL)) {
+            @Override
+            public void established() {
+            }
+
+            @Override
+            public void eventReceived() {
+            }
+
+            @Override
+            public void ended(CancelReason reason) {
+            }
+        };
+        remoteService = Payloads.describeService(Payloads.CONNECTION_MANAGER);
+
+        OutgoingEventRequestMessage message = new OutgoingEventRequestMessage(subscription, callbackURL);
+        eventProcessor.writeBody(message);
+        eventBody = message.getBodyString();
+    }
+
+    @Benchmark
+    public Object write() throws Exception {
+        OutgoingEventRequestMessage message = new OutgoingEventRequestMessage(subscription, callbackURL);
+        eventProcessor.writeBody(message);
+        return message.getBody();
+    }
+
+    @Benchmark
+    public Object read() throws Exception {
+        IncomingEventRequestMessage message = new IncomingEventRequestMessage(
+                new StreamRequestMessage(UpnpRequest.Method.NOTIFY, callbackURI, eventBody), remoteService);
+        eventProcessor.readBody(message);
+        return message.getStateVariableValues();
+    }
+}
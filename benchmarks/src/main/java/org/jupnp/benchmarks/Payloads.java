@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.benchmarks;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URL;
+import java.util.Locale;
+
+import org.jupnp.binding.annotations.AnnotationLocalServiceBinder;
+import org.jupnp.binding.xml.UDA10ServiceDescriptorBinderImpl;
+import org.jupnp.model.DefaultServiceManager;
+import org.jupnp.model.meta.DeviceDetails;
+import org.jupnp.model.meta.LocalService;
+import org.jupnp.model.meta.RemoteDevice;
+import org.jupnp.model.meta.RemoteDeviceIdentity;
+import org.jupnp.model.meta.RemoteService;
+import org.jupnp.model.types.UDADeviceType;
+import org.jupnp.model.types.UDAServiceId;
+import org.jupnp.model.types.UDAServiceType;
+import org.jupnp.model.types.UDN;
+import org.jupnp.support.connectionmanager.ConnectionManagerService;
+import org.jupnp.support.model.ProtocolInfo;
+import org.jupnp.support.model.ProtocolInfos;
+import org.jupnp.util.io.IO;
+
+/**
+ * Reads the descriptors and messages of the core test resources, which the build copies into this module, and
+ * creates the services of the control and eventing benchmarks.
+ */
+final class Payloads {
+
+    static final String CONNECTION_MANAGER = "ConnectionManager";
+    static final String AV_TRANSPORT = "AVTransport";
+
+    // What a typical media renderer announces as its sink, and a media server as its source
+    static final String[] MIME_TYPES = { "audio/mpeg", "audio/mp4", "audio/x-flac", "audio/flac", "audio/wav",
+            "audio/L16;rate=44100;channels=2", "audio/L16;rate=48000;channels=2", "audio/x-ms-wma", "audio/ogg",
+            "audio/x-aiff", "video/mp4", "video/mpeg", "video/x-matroska", "video/x-msvideo", "video/quicktime",
+            "video/vnd.dlna.mpeg-tts", "image/jpeg", "image/png", "image/gif", "application/vnd.apple.mpegurl" };
+
+    private Payloads() {
+    }
+
+    static String read(String resource) throws Exception {
+        try (InputStream in = Payloads.class.getResourceAsStream("/" + resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Payload not found: " + resource);
+            }
+            return IO.readLines(in);
+        }
+    }
+
+    static RemoteDevice createUndescribedDevice() throws Exception {
+        return new RemoteDevice(new RemoteDeviceIdentity(new UDN("MY-DEVICE-123"), 1800,
+                new URL("http://192.168.1.20:49152/description.xml"), null, InetAddress.getByName("192.168.1.10")));
+    }
+
+    static String getServiceDescriptor(String serviceName) {
+        return "descriptors/service/uda10_" + serviceName.toLowerCase(Locale.ROOT) + ".xml";
+    }
+
+    /**
+     * @return A service of a media renderer as discovered, before its descriptor has been retrieved.
+     */
+    static RemoteService createUndescribedService(String serviceName) throws Exception {
+        RemoteService service = new RemoteService(new UDAServiceType(serviceName, 1), new UDAServiceId(serviceName),
+                URI.create("/" + serviceName + "/desc.xml"), URI.create("/" + serviceName + "/ctrl"),
+                URI.create("/" + serviceName + "/evt"));
+        createRenderer(service);
+        return service;
+    }
+
+    /**
+     * @return A media renderer with the given service, the service is attached to the device.
+     */
+    static RemoteDevice createRenderer(RemoteService service) throws Exception {
+        return new RemoteDevice(createUndescribedDevice().getIdentity(), new UDADeviceType("MediaRenderer", 1),
+                new DeviceDetails("Renderer"), service);
+    }
+
+    /**
+     * The captured ConnectionManager descriptor has a line break in a related state variable name, the binders
+     * don't trim element values, so whitespace before closing tags is removed.
+     */
+    static RemoteService describeService(String serviceName) throws Exception {
+        String descriptorXml = read(getServiceDescriptor(serviceName)).replaceAll("\\s+</", "</");
+        return new UDA10ServiceDescriptorBinderImpl().describe(createUndescribedService(serviceName), descriptorXml);
+    }
+
+    /**
+     * @return A local connection manager with a manager, so actions can be executed and state variables evented.
+     */
+    @SuppressWarnings("unchecked")
+    static LocalService<ConnectionManagerService> createConnectionManager() {
+        LocalService<ConnectionManagerService> service = new AnnotationLocalServiceBinder()
+                .read(ConnectionManagerService.class);
+        ProtocolInfos source = new ProtocolInfos();
+        for (String mimeType : MIME_TYPES) {
+            source.add(new ProtocolInfo("http-get:*:" + mimeType + ":DLNA.ORG_OP=01;DLNA.ORG_CI=0;"
+                    + "DLNA.ORG_FLAGS=01700000000000000000000000000000"));
+        }
+        service.setManager(new DefaultServiceManager<>(service, ConnectionManagerService.class) {
+            @Override
+            protected ConnectionManagerService createServiceInstance() {
+                return new ConnectionManagerService(source, new ProtocolInfos());
+            }
+        });
+        return service;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.benchmarks;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.jupnp.DefaultUpnpServiceConfiguration;
+import org.jupnp.UpnpService;
+import org.jupnp.UpnpServiceConfiguration;
+import org.jupnp.controlpoint.ControlPoint;
+import org.jupnp.model.meta.DeviceDetails;
+import org.jupnp.model.meta.RemoteDevice;
+import org.jupnp.model.meta.RemoteDeviceIdentity;
+import org.jupnp.model.meta.RemoteService;
+import org.jupnp.model.types.ServiceType;
+import org.jupnp.model.types.UDADeviceType;
+import org.jupnp.model.types.UDAServiceId;
+import org.jupnp.model.types.UDAServiceType;
+import org.jupnp.model.types.UDN;
+import org.jupnp.protocol.ProtocolFactory;
+import org.jupnp.protocol.ProtocolFactoryImpl;
+import org.jupnp.registry.Registry;
+import org.jupnp.registry.RegistryImpl;
+import org.jupnp.registry.RegistryMaintainer;
+import org.jupnp.transport.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adds, updates and looks up remote media renderers in a registry which already knows 10, 1k or 10k devices.
+ * <p>
+ * The registry runs without network transports and without background maintenance, update and refresh are the
+ * paths of repeated SSDP ALIVE notifications and search responses.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistryBenchmark {
+
+    /**
+     * Provides the configuration and protocol factory to the registry, without a router.
+     */
+    static class RegistryOnlyUpnpService implements UpnpService {
+
+        private final UpnpServiceConfiguration configuration = new DefaultUpnpServiceConfiguration();
+        private final ProtocolFactory protocolFactory = new ProtocolFactoryImpl(this);
+        private final Registry registry = new RegistryImpl(this) {
+            @Override
+            protected RegistryMaintainer createRegistryMaintainer() {
+                return null;
+            }
+        };
+
+        @Override
+        public UpnpServiceConfiguration getConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public ControlPoint getControlPoint() {
+            return null;
+        }
+
+        @Override
+        public ProtocolFactory getProtocolFactory() {
+            return protocolFactory;
+        }
+
+        @Override
+        public Registry getRegistry() {
+            return registry;
+        }
+
+        @Override
+        public Router getRouter() {
+            return null;
+        }
+
+        @Override
+        public void shutdown() {
+            registry.shutdown();
+            configuration.shutdown();
+        }
+
+        @Override
+        public void startup() {
+        }
+    }
+
+    static final ServiceType AV_TRANSPORT = new UDAServiceType("AVTransport", 1);
+
+    @Param({ "10", "1000", "10000" })
+    public int devices;
+
+    private RegistryOnlyUpnpService upnpService;
+    private Registry registry;
+    private RemoteDeviceIdentity[] identities;
+    private String[] locations;
+    private RemoteDevice spareDevice;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        upnpService = new RegistryOnlyUpnpService();
+        registry = upnpService.getRegistry();
+        identities = new RemoteDeviceIdentity[devices];
+        locations = new String[devices];
+        for (int i = 0; i < devices; i++) {
+            RemoteDevice device = createDevice(i);
+            identities[i] = device.getIdentity();
+            locations[i] = device.getIdentity().getDescriptorURL().toString();
+            registry.addDevice(device);
+        }
+        spareDevice = createDevice(devices);
+    }
+
+    @TearDown
+    public void tearDown() {
+        upnpService.shutdown();
+    }
+
+    static RemoteDevice createDevice(int i) throws Exception {
+        String host = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+        RemoteDeviceIdentity identity = new RemoteDeviceIdentity(
+                new UDN("4d696e69-444c-164e-9d41-" + String.format("%012x", i)), 1800,
+                new URL("http://" + host + ":49152/description.xml"), null, InetAddress.getByName("10.255.0.1"));
+        RemoteService[] services = { createService("AVTransport"), createService("RenderingControl"),
+                createService("ConnectionManager") };
+        return new RemoteDevice(identity, new UDADeviceType("MediaRenderer", 1), new DeviceDetails("Renderer " + i),
+                services);
+    }
+
+    static RemoteService createService(String name) throws Exception {
+        return new RemoteService(new UDAServiceType(name, 1), new UDAServiceId(name),
+                URI.create("/" + name + "/desc.xml"), URI.create("/" + name + "/ctrl"),
+                URI.create("/" + name + "/evt"));
+    }
+
+    private int nextIndex() {
+        if (++next == devices) {
+            next = 0;
+        }
+        return next;
+    }
+
+    @Benchmark
+    public RemoteDevice lookup() {
+        return registry.getRemoteDevice(identities[nextIndex()].getUdn(), true);
+    }
+
+    @Benchmark
+    public Object lookupByServiceType() {
+        return registry.getDevices(AV_TRANSPORT);
+    }
+
+    @Benchmark
+    public boolean update() {
+        return registry.update(identities[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean refreshAlive() {
+        int i = nextIndex();
+        return registry.refreshAlive(identities[i].getUdn(), locations[i], null, 1800);
+    }
+
+    @Benchmark
+    public boolean addRemove() throws Exception {
+        registry.addDevice(spareDevice);
+        return registry.removeDevice(spareDevice);
+    }
+}
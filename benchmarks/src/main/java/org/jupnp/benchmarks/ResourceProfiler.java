@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports the peak number of platform threads and the used heap at the end of each iteration as secondary results,
+ * the maximum of all iterations is the score. Enabled with <code>-prof org.jupnp.benchmarks.ResourceProfiler</code>.
+ */
+public class ResourceProfiler implements InternalProfiler {
+
+    @Override
+    public String getDescription() {
+        return "Peak platform threads and used heap";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+
+    @Override
+    public List<Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+            IterationResult result) {
+        int peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+        long usedHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        return List.of(new ScalarResult("resources.peakThreads", peakThreads, "threads", AggregationPolicy.MAX),
+                new ScalarResult("resources.usedHeap", usedHeap / 1024.0, "KiB", AggregationPolicy.MAX));
+    }
+}
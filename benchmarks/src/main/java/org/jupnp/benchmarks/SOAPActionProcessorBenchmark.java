@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.benchmarks;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.jupnp.model.action.ActionInvocation;
+import org.jupnp.model.message.StreamRequestMessage;
+import org.jupnp.model.message.StreamResponseMessage;
+import org.jupnp.model.message.control.IncomingActionRequestMessage;
+import org.jupnp.model.message.control.IncomingActionResponseMessage;
+import org.jupnp.model.message.control.OutgoingActionRequestMessage;
+import org.jupnp.model.message.control.OutgoingActionResponseMessage;
+import org.jupnp.model.meta.Action;
+import org.jupnp.model.meta.LocalService;
+import org.jupnp.model.meta.RemoteService;
+import org.jupnp.model.meta.Service;
+import org.jupnp.transport.impl.SOAPActionProcessorImpl;
+import org.jupnp.transport.impl.StreamingSOAPActionProcessorImpl;
+import org.jupnp.transport.spi.SOAPActionProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes and reads the SOAP messages of a ConnectionManager action, on the control point side with the service
+ * described from its captured descriptor and on the device side with the annotated service implementation.
+ * <p>
+ * <code>GetProtocolInfo</code> responds with a long list of protocol infos, <code>GetCurrentConnectionInfo</code>
+ * has one input and many small output arguments.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SOAPActionProcessorBenchmark {
+
+    @Param({ "dom", "streaming" })
+    public String processor;
+
+    @Param({ "GetProtocolInfo", "GetCurrentConnectionInfo" })
+    public String actionName;
+
+    private SOAPActionProcessor soapProcessor;
+    private URL controlURL;
+    private Action<RemoteService> remoteAction;
+    private Action<LocalService> localAction;
+    private LocalService<?> localService;
+    private ActionInvocation<RemoteService> requestInvocation;
+    private ActionInvocation<LocalService> responseInvocation;
+    private StreamRequestMessage request;
+    private String responseBody;
+
+    @Setup
+    public void setup() throws Exception {
+        soapProcessor = "streaming".equals(processor) ? new StreamingSOAPActionProcessorImpl()
+                : new SOAPActionProcessorImpl();
+        controlURL = new URL("http://192.168.1.20:49152/upnp/control/ConnectionManager");
+
+        RemoteService remoteService = Payloads.describeService(Payloads.CONNECTION_MANAGER);
+        remoteAction = remoteService.getAction(actionName);
+        requestInvocation = createInvocation(remoteAction);
+
+        localService = Payloads.createConnectionManager();
+        localAction = localService.getAction(actionName);
+        responseInvocation = createInvocation(localAction);
+        localService.getExecutor(localAction).execute(responseInvocation);
+        if (responseInvocation.getFailure() != null) {
+            throw responseInvocation.getFailure();
+        }
+
+        OutgoingActionRequestMessage outgoingRequest = new OutgoingActionRequestMessage(requestInvocation,
+                controlURL);
+        soapProcessor.writeBody(outgoingRequest, requestInvocation);
+        request = new StreamRequestMessage(outgoingRequest);
+
+        OutgoingActionResponseMessage outgoingResponse = new OutgoingActionResponseMessage(localAction);
+        soapProcessor.writeBody(outgoingResponse, responseInvocation);
+        responseBody = outgoingResponse.getBodyString();
+    }
+
+    private static <S extends Service> ActionInvocation<S> createInvocation(Action<S> action) {
+        ActionInvocation<S> invocation = new ActionInvocation<>(action);
+        if (action.getInputArgument("ConnectionID") != null) {
+            invocation.setInput("ConnectionID", 0);
+        }
+        return invocation;
+    }
+
+    @Benchmark
+    public Object writeRequest() throws Exception {
+        OutgoingActionRequestMessage message = new OutgoingActionRequestMessage(requestInvocation, controlURL);
+        soapProcessor.writeBody(message, requestInvocation);
+        return message.getBody();
+    }
+
+    @Benchmark
+    public Object readRequest() throws Exception {
+        IncomingActionRequestMessage message = new IncomingActionRequestMessage(new StreamRequestMessage(request),
+                localService);
+        ActionInvocation<LocalService> invocation = new ActionInvocation<>(localAction);
+        soapProcessor.readBody(message, invocation);
+        return invocation.getInput();
+    }
+
+    @Benchmark
+    public Object writeResponse() throws Exception {
+        OutgoingActionResponseMessage message = new OutgoingActionResponseMessage(localAction);
+        soapProcessor.writeBody(message, responseInvocation);
+        return message.getBody();
+    }
+
+    @Benchmark
+    public Object readResponse() throws Exception {
+        IncomingActionResponseMessage message = new IncomingActionResponseMessage(
+                new StreamResponseMessage(responseBody));
+        ActionInvocation<RemoteService> invocation = new ActionInvocation<>(remoteAction);
+        soapProcessor.readBody(message, invocation);
+        return invocation.getOutput();
+    }
+}
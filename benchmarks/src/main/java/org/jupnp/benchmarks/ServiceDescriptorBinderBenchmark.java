@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jupnp.binding.xml.ServiceDescriptorBinder;
+import org.jupnp.binding.xml.UDA10ServiceDescriptorBinderImpl;
+import org.jupnp.binding.xml.UDA10ServiceDescriptorBinderSAXImpl;
+import org.jupnp.model.meta.RemoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Describes a remote service from its descriptor with the DOM and the SAX binder, and generates the descriptor of
+ * the described service. The AVTransport descriptor is one of the largest a control point retrieves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceDescriptorBinderBenchmark {
+
+    @Param({ "dom", "sax" })
+    public String binder;
+
+    @Param({ Payloads.CONNECTION_MANAGER, Payloads.AV_TRANSPORT })
+    public String service;
+
+    private ServiceDescriptorBinder serviceBinder;
+    private String descriptorXml;
+    private RemoteService undescribedService;
+    private RemoteService describedService;
+
+    @Setup
+    public void setup() throws Exception {
+        serviceBinder = "sax".equals(binder) ? new UDA10ServiceDescriptorBinderSAXImpl()
+                : new UDA10ServiceDescriptorBinderImpl();
+        descriptorXml = Payloads.read(Payloads.getServiceDescriptor(service));
+        undescribedService = Payloads.createUndescribedService(service);
+        describedService = serviceBinder.describe(undescribedService, descriptorXml);
+        // Like the hydrated device of the descriptor retrieval
+        Payloads.createRenderer(describedService);
+    }
+
+    @Benchmark
+    public RemoteService describe() throws Exception {
+        return serviceBinder.describe(undescribedService, descriptorXml);
+    }
+
+    @Benchmark
+    public String generate() throws Exception {
+        return serviceBinder.generate(describedService);
+    }
+}
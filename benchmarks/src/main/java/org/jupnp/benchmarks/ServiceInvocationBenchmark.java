@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.jupnp.util.Reflections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calls action methods and reads state variables of a service implementation like the action executors and state
+ * variable accessors do, through core reflection or through the method handles created when the service is bound.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceInvocationBenchmark {
+
+    public static class SwitchPower {
+
+        private boolean target;
+        private boolean status;
+
+        public void setTarget(boolean newTargetValue, String instance) {
+            target = newTargetValue;
+            status = newTargetValue;
+        }
+
+        public boolean getStatus() {
+            return status;
+        }
+    }
+
+    @Param({ "reflection", "handle" })
+    public String path;
+
+    private final SwitchPower service = new SwitchPower();
+    private final Object[] arguments = { Boolean.TRUE, "0" };
+
+    private Method action;
+    private Method getter;
+    private Field field;
+
+    private MethodHandle actionInvoker;
+    private MethodHandle getterInvoker;
+    private MethodHandle fieldGetter;
+
+    private boolean handles;
+
+    @Setup
+    public void setup() throws Exception {
+        action = SwitchPower.class.getMethod("setTarget", boolean.class, String.class);
+        getter = SwitchPower.class.getMethod("getStatus");
+        field = SwitchPower.class.getDeclaredField("target");
+
+        actionInvoker = Reflections.createInvoker(action);
+        getterInvoker = Reflections.createInvoker(getter);
+        fieldGetter = Reflections.createGetter(field);
+
+        handles = "handle".equals(path);
+    }
+
+    @Benchmark
+    public Object invokeAction() throws Exception {
+        return handles ? Reflections.invoke(actionInvoker, service, arguments)
+                : Reflections.invoke(action, service, arguments);
+    }
+
+    @Benchmark
+    public Object readGetter() throws Exception {
+        return handles ? Reflections.invoke(getterInvoker, service) : Reflections.invoke(getter, service);
+    }
+
+    @Benchmark
+    public Object readField() throws Exception {
+        return handles ? Reflections.get(fieldGetter, service) : Reflections.get(field, service);
+    }
+}
@@ -80,7 +80,7 @@ public class AndroidUpnpServiceConfiguration extends DefaultUpnpServiceConfigura
     @Override
     public StreamClient createStreamClient() {
         // Use Jetty
-        return new JettyStreamClientImpl(new StreamClientConfigurationImpl(getSyncProtocolExecutorService()) {
+        return new JettyStreamClientImpl(new StreamClientConfigurationImpl(getDefaultExecutorService()) {
             @Override
             public String getUserAgentValue(int majorVersion, int minorVersion) {
                 // TODO: UPNP VIOLATION: Synology NAS requires User-Agent to contain
@@ -15,10 +15,14 @@
  */
 package org.jupnp;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -55,6 +59,7 @@ import org.jupnp.transport.spi.StreamClient;
 import org.jupnp.transport.spi.StreamClientConfiguration;
 import org.jupnp.transport.spi.StreamServer;
 import org.jupnp.util.Exceptions;
+import org.jupnp.util.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,6 +82,17 @@ import org.slf4j.LoggerFactory;
  * grow (and shrink) as needed - or restricted by your JVM.
  * </p>
  * <p>
+ * Protocols and listeners run on a {@link PrioritizedExecutor}, received stream requests have the
+ * highest priority, followed by synchronous protocols, discovery and listener callbacks. Each of them
+ * has a bounded queue and may use only some of the threads, so a flood of discovery or listener tasks
+ * can't delay the processing of control requests. The listening background threads of the transports
+ * and the stream client requests are run by the default executor.
+ * </p>
+ * <p>
+ * On Java 21 and newer, override {@link #isVirtualThreadsEnabled()} to run all protocols and
+ * listeners on virtual threads instead, most of them only wait for network I/O.
+ * </p>
+ * <p>
  * The default {@link org.jupnp.model.Namespace} is configured without any
  * base path or prefix.
  * </p>
@@ -105,6 +121,9 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
     private final int multicastResponsePort;
 
     private final ExecutorService defaultExecutorService;
+    private final PrioritizedExecutor prioritizedExecutor;
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final UpnpMetrics metrics;
 
     private final DatagramProcessor datagramProcessor;
     private final SOAPActionProcessor soapActionProcessor;
@@ -148,6 +167,11 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
         this.multicastResponsePort = multicastResponsePort;
 
         defaultExecutorService = createDefaultExecutorService();
+        prioritizedExecutor = createPrioritizedExecutor();
+        scheduledExecutorService = createScheduledExecutorService();
+
+        metrics = createMetrics();
+        registerExecutorGauges(metrics);
 
         datagramProcessor = createDatagramProcessor();
         soapActionProcessor = createSOAPActionProcessor();
@@ -180,7 +204,10 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
     @Override
     @SuppressWarnings("rawtypes")
     public StreamClient createStreamClient() {
-        return transportConfiguration.createStreamClient(getSyncProtocolExecutorService(), configuration);
+        // Synchronous protocols wait for the requests, don't queue them in the same lane
+        return transportConfiguration.createStreamClient(
+                prioritizedExecutor != null ? getDefaultExecutorService() : getSyncProtocolExecutorService(),
+                configuration);
     }
 
     @Override
@@ -271,12 +298,33 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
 
     @Override
     public ExecutorService getAsyncProtocolExecutor() {
-        return getDefaultExecutorService();
+        return getExecutorService(PrioritizedExecutor.Lane.DISCOVERY);
+    }
+
+    @Override
+    public ScheduledExecutorService getScheduledExecutorService() {
+        return scheduledExecutorService;
     }
 
     @Override
     public ExecutorService getSyncProtocolExecutorService() {
-        return getDefaultExecutorService();
+        return getExecutorService(PrioritizedExecutor.Lane.OUTBOUND);
+    }
+
+    @Override
+    public ExecutorService getEventDeliveryExecutorService() {
+        ExecutorService executor = getSyncProtocolExecutorService();
+        if (prioritizedExecutor != null && executor == prioritizedExecutor.getLane(PrioritizedExecutor.Lane.OUTBOUND)) {
+            // Events are queued when a state variable changes, the lane mustn't run a delivery on that thread
+            return prioritizedExecutor.getLane(PrioritizedExecutor.Lane.OUTBOUND,
+                    PrioritizedExecutor.RejectionPolicy.ABORT);
+        }
+        return executor;
+    }
+
+    @Override
+    public ExecutorService getStreamRequestExecutorService() {
+        return getExecutorService(PrioritizedExecutor.Lane.INBOUND);
     }
 
     @Override
@@ -291,12 +339,17 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
 
     @Override
     public Executor getRegistryListenerExecutor() {
-        return getDefaultExecutorService();
+        return getExecutorService(PrioritizedExecutor.Lane.LISTENER);
     }
 
     @Override
     public Executor getRemoteListenerExecutor() {
-        return getDefaultExecutorService();
+        return getExecutorService(PrioritizedExecutor.Lane.LISTENER);
+    }
+
+    @Override
+    public UpnpMetrics getMetrics() {
+        return metrics;
     }
 
     @Override
@@ -308,6 +361,11 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
     public void shutdown() {
         logger.trace("Shutting down default executor service");
         getDefaultExecutorService().shutdownNow();
+        if (prioritizedExecutor != null) {
+            prioritizedExecutor.shutdownNow();
+        }
+        scheduledExecutorService.shutdownNow();
+        metrics.shutdown();
     }
 
     protected NetworkAddressFactory createNetworkAddressFactory(int streamListenPort, int multicastResponsePort) {
@@ -342,10 +400,98 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
         return defaultExecutorService;
     }
 
+    /**
+     * @return The executor of the lane, or the default executor if no prioritized executor is used.
+     */
+    protected ExecutorService getExecutorService(PrioritizedExecutor.Lane lane) {
+        return prioritizedExecutor != null ? prioritizedExecutor.getLane(lane) : getDefaultExecutorService();
+    }
+
+    /**
+     * Called once by the constructor, after the default executor has been created.
+     *
+     * @return The executor of protocols and listeners, or <code>null</code> to run them with the default
+     *         executor. Not used with virtual threads.
+     */
+    protected PrioritizedExecutor createPrioritizedExecutor() {
+        if (!(defaultExecutorService instanceof ThreadPoolExecutor)) {
+            // Virtual threads, or a custom executor
+            return null;
+        }
+        Map<PrioritizedExecutor.Lane, PrioritizedExecutor.LaneSettings> lanes = new EnumMap<>(
+                PrioritizedExecutor.Lane.class);
+        lanes.put(PrioritizedExecutor.Lane.INBOUND, new PrioritizedExecutor.LaneSettings(THREAD_POOL_SIZE / 2,
+                THREAD_QUEUE_SIZE, PrioritizedExecutor.RejectionPolicy.CALLER_RUNS));
+        lanes.put(PrioritizedExecutor.Lane.OUTBOUND, new PrioritizedExecutor.LaneSettings(THREAD_POOL_SIZE / 2,
+                THREAD_QUEUE_SIZE, PrioritizedExecutor.RejectionPolicy.CALLER_RUNS));
+        lanes.put(PrioritizedExecutor.Lane.DISCOVERY, new PrioritizedExecutor.LaneSettings(THREAD_POOL_SIZE / 4,
+                THREAD_QUEUE_SIZE, PrioritizedExecutor.RejectionPolicy.DISCARD_OLDEST));
+        lanes.put(PrioritizedExecutor.Lane.LISTENER, new PrioritizedExecutor.LaneSettings(THREAD_POOL_SIZE / 4,
+                THREAD_QUEUE_SIZE, PrioritizedExecutor.RejectionPolicy.DISCARD));
+        return new PrioritizedExecutor(new JUPnPThreadFactory("jupnp-lane-"), THREAD_POOL_SIZE, lanes);
+    }
+
+    /**
+     * Called once by the constructor, after the executors have been created. Return e.g. a registered
+     * {@link JmxUpnpMetrics} to monitor the stack.
+     *
+     * @return The receiver of measurements, {@link UpnpMetrics#NOOP} by default.
+     */
+    protected UpnpMetrics createMetrics() {
+        return UpnpMetrics.NOOP;
+    }
+
+    /**
+     * Reports the queue depths of the executors, and the number of running tasks of each lane.
+     */
+    protected void registerExecutorGauges(UpnpMetrics metrics) {
+        if (defaultExecutorService instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor executor = (ThreadPoolExecutor) defaultExecutorService;
+            metrics.registerGauge("Executor.Default.QueueSize", () -> executor.getQueue().size());
+            metrics.registerGauge("Executor.Default.ActiveCount", executor::getActiveCount);
+            metrics.registerGauge("Executor.Default.PoolSize", executor::getPoolSize);
+        }
+        if (prioritizedExecutor != null) {
+            metrics.registerGauge("Executor.Lanes.PoolSize", prioritizedExecutor::getPoolSize);
+            for (PrioritizedExecutor.Lane lane : PrioritizedExecutor.Lane.values()) {
+                String prefix = "Executor." + lane.name() + ".";
+                metrics.registerGauge(prefix + "QueueSize", () -> prioritizedExecutor.getQueueSize(lane));
+                metrics.registerGauge(prefix + "ActiveCount", () -> prioritizedExecutor.getActiveCount(lane));
+                metrics.registerGauge(prefix + "RejectedTaskCount",
+                        () -> prioritizedExecutor.getRejectedTaskCount(lane));
+            }
+        }
+    }
+
     protected ExecutorService createDefaultExecutorService() {
+        if (isVirtualThreadsEnabled()) {
+            ExecutorService executorService = VirtualThreads.newExecutorService("jupnp-");
+            if (executorService != null) {
+                return executorService;
+            }
+            logger.warn("Virtual threads are not available on this runtime, using a pool of platform threads");
+        }
         return new JUPnPExecutor();
     }
 
+    /**
+     * Called once by the constructor, before any other configuration value is created.
+     *
+     * @return <code>true</code> if the default executor should start a virtual thread for each task, if
+     *         supported by the runtime.
+     */
+    protected boolean isVirtualThreadsEnabled() {
+        return false;
+    }
+
+    protected ScheduledExecutorService createScheduledExecutorService() {
+        // A single thread is enough, scheduled tasks hand off their work to the default executor
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                new JUPnPThreadFactory("jupnp-scheduler-"));
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
     public static class JUPnPExecutor extends ThreadPoolExecutor {
 
         public JUPnPExecutor() {
@@ -391,9 +537,14 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
 
         protected final ThreadGroup group;
         protected final AtomicInteger threadNumber = new AtomicInteger(1);
-        protected final String namePrefix = "jupnp-";
+        protected final String namePrefix;
 
         public JUPnPThreadFactory() {
+            this("jupnp-");
+        }
+
+        public JUPnPThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
             group = Thread.currentThread().getThreadGroup();
         }
 
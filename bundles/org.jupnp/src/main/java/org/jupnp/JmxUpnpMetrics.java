@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the measurements of the UPnP stack and exposes them as read-only attributes of a JMX MBean.
+ * <p>
+ * Counters and histograms only add to {@link LongAdder}s, so recording doesn't contend between threads. Histograms
+ * count the durations in cumulative buckets, e.g. <code>StreamClient.GET.LE100ms</code> is the number of GET
+ * requests which completed within 100 milliseconds, and report their count, total and maximum. Gauges are read
+ * when the attributes are read.
+ * </p>
+ * <p>
+ * Create an instance in {@link DefaultUpnpServiceConfiguration#createMetrics()} and {@link #register()} it, it is
+ * unregistered again when the configuration is shut down:
+ * </p>
+ *
+ * <pre>
+ * protected UpnpMetrics createMetrics() {
+ *     return new JmxUpnpMetrics("MyControlPoint").register();
+ * }
+ * </pre>
+ */
+public class JmxUpnpMetrics implements UpnpMetrics, DynamicMBean {
+
+    public static final String DOMAIN = "org.jupnp";
+
+    /**
+     * The upper bounds of the histogram buckets in milliseconds, the last bucket is unbounded.
+     */
+    public static final long[] BUCKET_MILLIS = { 1, 5, 10, 50, 100, 500, 1000, 5000, 10000 };
+
+    /**
+     * Counts durations in buckets, and their total and maximum.
+     */
+    public static class Histogram {
+
+        protected final LongAdder[] buckets = new LongAdder[BUCKET_MILLIS.length + 1];
+        protected final LongAdder count = new LongAdder();
+        protected final LongAdder failures = new LongAdder();
+        protected final LongAdder totalNanos = new LongAdder();
+        protected final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        public Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long durationNanos, boolean failed) {
+            long nanos = Math.max(0, durationNanos);
+            int bucket = 0;
+            // A duration equal to the bound belongs to the bucket, the buckets are reported as "less or equal"
+            while (bucket < BUCKET_MILLIS.length && nanos > TimeUnit.MILLISECONDS.toNanos(BUCKET_MILLIS[bucket])) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            count.increment();
+            if (failed) {
+                failures.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * @return The number of durations shorter than or equal to the bound of the bucket, including all smaller
+         *         buckets.
+         */
+        public long getCumulativeCount(int bucket) {
+            long sum = 0;
+            for (int i = 0; i <= bucket; i++) {
+                sum += buckets[i].sum();
+            }
+            return sum;
+        }
+
+        protected void addTo(Map<String, Long> values, String prefix) {
+            values.put(prefix + "Count", getCount());
+            values.put(prefix + "Failures", getFailures());
+            values.put(prefix + "TotalMillis", TimeUnit.NANOSECONDS.toMillis(totalNanos.sum()));
+            values.put(prefix + "MaxMillis", TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+            for (int i = 0; i < BUCKET_MILLIS.length; i++) {
+                values.put(prefix + "LE" + BUCKET_MILLIS[i] + "ms", getCumulativeCount(i));
+            }
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(JmxUpnpMetrics.class);
+
+    protected final ObjectName objectName;
+    protected final MBeanServer mbeanServer;
+    protected volatile boolean registered;
+
+    protected final LongAdder datagramsReceived = new LongAdder();
+    protected final LongAdder datagramsDispatched = new LongAdder();
+    protected final LongAdder datagramReadFailures = new LongAdder();
+    protected final LongAdder datagramsSent = new LongAdder();
+    protected final LongAdder streamRequestsReceived = new LongAdder();
+    protected final Map<String, Histogram> streamRequestsSent = new ConcurrentHashMap<>();
+    protected final Histogram registryMaintenance = new Histogram();
+    protected final Histogram eventLag = new Histogram();
+    protected final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * @param name Distinguishes several UPnP stacks in the same JVM, the MBean is named
+     *            <code>org.jupnp:type=UpnpMetrics,name=[name]</code>.
+     */
+    public JmxUpnpMetrics(String name) {
+        this(name, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxUpnpMetrics(String name, MBeanServer mbeanServer) {
+        try {
+            this.objectName = new ObjectName(DOMAIN + ":type=UpnpMetrics,name=" + ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid metrics name: " + name, e);
+        }
+        this.mbeanServer = mbeanServer;
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * Registers the MBean, a failure is logged and the measurements are still collected.
+     *
+     * @return This instance.
+     */
+    public JmxUpnpMetrics register() {
+        try {
+            mbeanServer.registerMBean(this, objectName);
+            registered = true;
+        } catch (JMException e) {
+            logger.warn("Could not register metrics MBean: {}", objectName, e);
+        }
+        return this;
+    }
+
+    @Override
+    public void shutdown() {
+        if (!registered) {
+            return;
+        }
+        registered = false;
+        try {
+            mbeanServer.unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.debug("Could not unregister metrics MBean: {}", objectName, e);
+        }
+    }
+
+    @Override
+    public void datagramReceived() {
+        datagramsReceived.increment();
+    }
+
+    @Override
+    public void datagramDispatched() {
+        datagramsDispatched.increment();
+    }
+
+    @Override
+    public void datagramReadFailed() {
+        datagramReadFailures.increment();
+    }
+
+    @Override
+    public void datagramSent() {
+        datagramsSent.increment();
+    }
+
+    @Override
+    public void streamRequestReceived() {
+        streamRequestsReceived.increment();
+    }
+
+    @Override
+    public void streamRequestSent(String method, long durationNanos, boolean responded) {
+        getStreamRequestHistogram(method).record(durationNanos, !responded);
+    }
+
+    @Override
+    public void registryMaintained(long durationNanos) {
+        registryMaintenance.record(durationNanos, false);
+    }
+
+    @Override
+    public void eventDelivered(long lagNanos, boolean delivered) {
+        eventLag.record(lagNanos, !delivered);
+    }
+
+    @Override
+    public void registerGauge(String name, LongSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    @Override
+    public void unregisterGauge(String name) {
+        gauges.remove(name);
+    }
+
+    public Histogram getStreamRequestHistogram(String method) {
+        return streamRequestsSent.computeIfAbsent(method, m -> new Histogram());
+    }
+
+    public Histogram getRegistryMaintenanceHistogram() {
+        return registryMaintenance;
+    }
+
+    public Histogram getEventLagHistogram() {
+        return eventLag;
+    }
+
+    /**
+     * @return The current values of all attributes, sorted by name.
+     */
+    public Map<String, Long> getValues() {
+        Map<String, Long> values = new TreeMap<>();
+        values.put("Datagram.Received", datagramsReceived.sum());
+        values.put("Datagram.Dispatched", datagramsDispatched.sum());
+        values.put("Datagram.ReadFailures", datagramReadFailures.sum());
+        values.put("Datagram.Sent", datagramsSent.sum());
+        values.put("Stream.Received", streamRequestsReceived.sum());
+        for (Map.Entry<String, Histogram> entry : streamRequestsSent.entrySet()) {
+            entry.getValue().addTo(values, "StreamClient." + entry.getKey() + ".");
+        }
+        registryMaintenance.addTo(values, "Registry.Maintenance.");
+        eventLag.addTo(values, "GENA.EventLag.");
+        for (Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+            try {
+                values.put(entry.getKey(), entry.getValue().getAsLong());
+            } catch (RuntimeException e) {
+                logger.debug("Could not read gauge: {}", entry.getKey(), e);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Long value = getValues().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Long> values = getValues();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Long value = values.get(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Read-only attribute: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        Map<String, Long> values = getValues();
+        MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+        int i = 0;
+        for (String name : values.keySet()) {
+            attributes[i++] = new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false);
+        }
+        return new MBeanInfo(getClass().getName(), "Metrics of the UPnP stack", attributes, null, null, null);
+    }
+}
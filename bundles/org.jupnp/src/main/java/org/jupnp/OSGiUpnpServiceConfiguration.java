@@ -19,6 +19,8 @@ import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.jupnp.binding.xml.DeviceDescriptorBinder;
@@ -54,6 +56,7 @@ import org.jupnp.transport.spi.SOAPActionProcessor;
 import org.jupnp.transport.spi.StreamClient;
 import org.jupnp.transport.spi.StreamClientConfiguration;
 import org.jupnp.transport.spi.StreamServer;
+import org.jupnp.util.VirtualThreads;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -77,6 +80,10 @@ import org.slf4j.LoggerFactory;
  * QueueingThreadFactory.
  * </p>
  * <p>
+ * Set <code>virtualThreads</code> to <code>true</code> to run the main, async and remote executors on virtual
+ * threads when running on Java 21 or newer, the thread pool sizes are ignored then.
+ * </p>
+ * <p>
  * The default {@link org.jupnp.model.Namespace} is configured without any base path or prefix.
  * </p>
  * This component is enabled by the {@link OSGiUpnpServiceConfigurationEnabler} based on the <code>autoEnable</code>
@@ -108,11 +115,13 @@ public class OSGiUpnpServiceConfiguration implements UpnpServiceConfiguration {
     protected boolean asyncThreadPool = true;
     protected boolean mainThreadPool = true;
     protected boolean remoteThreadPool = true;
+    protected boolean virtualThreads = false;
     protected Namespace callbackURI = new Namespace("http://localhost/upnpcallback");
 
     protected ExecutorService mainExecutorService;
     protected ExecutorService asyncExecutorService;
     protected ExecutorService remoteExecutorService;
+    protected ScheduledExecutorService scheduledExecutorService;
 
     protected DatagramProcessor datagramProcessor;
     protected SOAPActionProcessor soapActionProcessor;
@@ -332,6 +341,11 @@ public class OSGiUpnpServiceConfiguration implements UpnpServiceConfiguration {
         }
     }
 
+    @Override
+    public ScheduledExecutorService getScheduledExecutorService() {
+        return scheduledExecutorService;
+    }
+
     @Override
     public ExecutorService getSyncProtocolExecutorService() {
         return getMainExecutorService();
@@ -381,6 +395,9 @@ public class OSGiUpnpServiceConfiguration implements UpnpServiceConfiguration {
         if (remoteExecutorService != null) {
             remoteExecutorService.shutdownNow();
         }
+        if (scheduledExecutorService != null) {
+            scheduledExecutorService.shutdownNow();
+        }
     }
 
     protected NetworkAddressFactory createNetworkAddressFactory(int streamListenPort, int multicastResponsePort) {
@@ -448,18 +465,40 @@ public class OSGiUpnpServiceConfiguration implements UpnpServiceConfiguration {
         } else {
             logger.debug("Skipping remoteThreadPool creation.");
         }
+
+        scheduledExecutorService = createScheduledExecutorService();
     }
 
     protected ExecutorService createMainExecutorService() {
-        return QueueingThreadPoolExecutor.createInstance("upnp-main", threadPoolSize);
+        return createExecutorService("upnp-main", threadPoolSize);
+    }
+
+    protected ScheduledExecutorService createScheduledExecutorService() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                new DefaultUpnpServiceConfiguration.JUPnPThreadFactory("upnp-scheduler-"));
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
     }
 
     protected ExecutorService createAsyncProtocolExecutorService() {
-        return QueueingThreadPoolExecutor.createInstance("upnp-async", asyncThreadPoolSize);
+        return createExecutorService("upnp-async", asyncThreadPoolSize);
     }
 
     protected ExecutorService createRemoteProtocolExecutorService() {
-        return QueueingThreadPoolExecutor.createInstance("upnp-remote", remoteThreadPoolSize);
+        return createExecutorService("upnp-remote", remoteThreadPoolSize);
+    }
+
+    protected ExecutorService createExecutorService(String name, int threadPoolSize) {
+        if (virtualThreads) {
+            // The pool size doesn't apply, virtual threads are cheap enough to start one for each task
+            ExecutorService executorService = VirtualThreads.newExecutorService(name + "-");
+            if (executorService != null) {
+                return executorService;
+            }
+            logger.warn("Virtual threads are not available on this runtime, creating {} with {} threads", name,
+                    threadPoolSize);
+        }
+        return QueueingThreadPoolExecutor.createInstance(name, threadPoolSize);
     }
 
     protected void setConfigValues(Map<String, Object> properties) {
@@ -492,6 +531,14 @@ public class OSGiUpnpServiceConfiguration implements UpnpServiceConfiguration {
         logger.info("OSGiUpnpServiceConfiguration createConfiguration asyncThreadPoolSize = {} {}", asyncThreadPoolSize,
                 asyncThreadPool);
 
+        prop = properties.get("virtualThreads");
+        if (prop instanceof String) {
+            virtualThreads = Boolean.parseBoolean((String) prop);
+        } else if (prop instanceof Boolean) {
+            virtualThreads = (Boolean) prop;
+        }
+        logger.info("OSGiUpnpServiceConfiguration createConfiguration virtualThreads = {}", virtualThreads);
+
         prop = properties.get("multicastResponsePort");
         if (prop instanceof String) {
             try {
@@ -0,0 +1,560 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jupnp.util.Exceptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A thread pool which runs the tasks of several lanes with different priorities.
+ * <p>
+ * Each {@link Lane} has its own bounded queue, a maximum number of threads and a {@link RejectionPolicy} for tasks
+ * which don't fit in its queue. Threads are not bound to a lane, an idle thread takes the next task of the lane with
+ * the highest priority, which is below its maximum number of threads. So a flood of tasks in one lane can't occupy
+ * all threads, and idle threads always pick up the work of busy lanes. To avoid starvation, every
+ * {@link #FAIRNESS_INTERVAL}th task is taken from the lane with the lowest priority instead.
+ * </p>
+ * <p>
+ * Threads are started on demand and terminated after being idle for {@link #KEEP_ALIVE_SECONDS} seconds. The
+ * executor of a lane is returned by {@link #getLane(Lane)}, shutting it down shuts down all lanes.
+ * </p>
+ */
+public class PrioritizedExecutor {
+
+    private final Logger logger = LoggerFactory.getLogger(PrioritizedExecutor.class);
+
+    public static final int FAIRNESS_INTERVAL = 8;
+    public static final long KEEP_ALIVE_SECONDS = 10;
+
+    /**
+     * The lanes, from highest to lowest priority.
+     */
+    public enum Lane {
+        /**
+         * Received stream requests, such as action invocations and GENA event messages.
+         */
+        INBOUND,
+        /**
+         * Synchronous protocols, such as GENA event delivery, subscriptions and action calls.
+         */
+        OUTBOUND,
+        /**
+         * Asynchronous discovery protocols and descriptor retrieval.
+         */
+        DISCOVERY,
+        /**
+         * Callbacks of registry and remote listeners.
+         */
+        LISTENER
+    }
+
+    public enum RejectionPolicy {
+        /**
+         * Throws a {@link RejectedExecutionException}.
+         */
+        ABORT,
+        /**
+         * Drops the task with a warning.
+         */
+        DISCARD,
+        /**
+         * Drops the oldest queued task of the lane and queues the task.
+         */
+        DISCARD_OLDEST,
+        /**
+         * Runs the task on the calling thread.
+         */
+        CALLER_RUNS
+    }
+
+    public static class LaneSettings {
+
+        private final int maxThreads;
+        private final int queueCapacity;
+        private final RejectionPolicy rejectionPolicy;
+
+        public LaneSettings(int maxThreads, int queueCapacity, RejectionPolicy rejectionPolicy) {
+            if (maxThreads < 1 || queueCapacity < 1 || rejectionPolicy == null) {
+                throw new IllegalArgumentException("Invalid lane settings");
+            }
+            this.maxThreads = maxThreads;
+            this.queueCapacity = queueCapacity;
+            this.rejectionPolicy = rejectionPolicy;
+        }
+
+        public int getMaxThreads() {
+            return maxThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public RejectionPolicy getRejectionPolicy() {
+            return rejectionPolicy;
+        }
+    }
+
+    protected class LaneExecutor extends AbstractExecutorService {
+
+        protected final Lane lane;
+        protected final LaneSettings settings;
+
+        // Guarded by the lock of the executor
+        protected final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        protected int activeCount;
+        protected long completedCount;
+        protected long rejectedCount;
+
+        protected LaneExecutor(Lane lane, LaneSettings settings) {
+            this.lane = lane;
+            this.settings = settings;
+        }
+
+        protected boolean hasRunnableTask() {
+            return !tasks.isEmpty() && activeCount < settings.getMaxThreads();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            PrioritizedExecutor.this.execute(this, settings.getRejectionPolicy(), command);
+        }
+
+        @Override
+        public void shutdown() {
+            PrioritizedExecutor.this.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return PrioritizedExecutor.this.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return PrioritizedExecutor.this.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return PrioritizedExecutor.this.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return PrioritizedExecutor.this.awaitTermination(timeout, unit);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + getClass().getSimpleName() + ") " + lane;
+        }
+    }
+
+    /**
+     * Queues its tasks in a lane, but handles a full queue with another {@link RejectionPolicy}.
+     */
+    protected class OverflowLaneExecutor extends AbstractExecutorService {
+
+        protected final LaneExecutor target;
+        protected final RejectionPolicy rejectionPolicy;
+
+        protected OverflowLaneExecutor(LaneExecutor target, RejectionPolicy rejectionPolicy) {
+            this.target = target;
+            this.rejectionPolicy = rejectionPolicy;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            PrioritizedExecutor.this.execute(target, rejectionPolicy, command);
+        }
+
+        @Override
+        public void shutdown() {
+            PrioritizedExecutor.this.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return PrioritizedExecutor.this.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return PrioritizedExecutor.this.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return PrioritizedExecutor.this.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return PrioritizedExecutor.this.awaitTermination(timeout, unit);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + getClass().getSimpleName() + ") " + target.lane + " " + rejectionPolicy;
+        }
+    }
+
+    private final ThreadFactory threadFactory;
+    private final int maxThreads;
+    private final Map<Lane, LaneExecutor> lanes = new EnumMap<>(Lane.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition taskAvailable = lock.newCondition();
+    private final Condition terminated = lock.newCondition();
+
+    // Guarded by the lock
+    private final Set<Thread> threads = new HashSet<>();
+    private int idleThreads;
+    private long dispatchedTasks;
+    private boolean shutdown;
+
+    /**
+     * @param maxThreads The maximum number of threads of all lanes.
+     * @param laneSettings The settings of each lane, all lanes must be configured.
+     */
+    public PrioritizedExecutor(ThreadFactory threadFactory, int maxThreads, Map<Lane, LaneSettings> laneSettings) {
+        this.threadFactory = threadFactory;
+        this.maxThreads = maxThreads;
+        for (Lane lane : Lane.values()) {
+            LaneSettings settings = laneSettings.get(lane);
+            if (settings == null) {
+                throw new IllegalArgumentException("Missing settings of lane: " + lane);
+            }
+            lanes.put(lane, new LaneExecutor(lane, settings));
+        }
+    }
+
+    /**
+     * @return The executor of the lane, its tasks share the threads of this executor.
+     */
+    public ExecutorService getLane(Lane lane) {
+        return lanes.get(lane);
+    }
+
+    /**
+     * Submitters which must not run a task themselves, e.g. while holding a lock, use
+     * {@link RejectionPolicy#ABORT} and handle the rejection.
+     *
+     * @return An executor which queues its tasks in the lane, but rejects them as configured when the queue of the
+     *         lane is full.
+     */
+    public ExecutorService getLane(Lane lane, RejectionPolicy rejectionPolicy) {
+        if (rejectionPolicy == null) {
+            throw new IllegalArgumentException("Missing rejection policy");
+        }
+        return new OverflowLaneExecutor(lanes.get(lane), rejectionPolicy);
+    }
+
+    public int getPoolSize() {
+        lock.lock();
+        try {
+            return threads.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueSize(Lane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).tasks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveCount(Lane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).activeCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCompletedTaskCount(Lane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).completedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedTaskCount(Lane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).rejectedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected void execute(LaneExecutor lane, RejectionPolicy rejectionPolicy, Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        Runnable discarded = null;
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor has been shut down, rejected task of " + lane);
+            }
+            if (lane.tasks.size() >= lane.settings.getQueueCapacity()) {
+                lane.rejectedCount++;
+                switch (rejectionPolicy) {
+                    case ABORT:
+                        throw new RejectedExecutionException("Queue is full, rejected task of " + lane);
+                    case DISCARD:
+                        logger.warn("Queue of lane {} is full, discarding task: {}", lane.lane, command.getClass());
+                        return;
+                    case DISCARD_OLDEST:
+                        discarded = lane.tasks.poll();
+                        break;
+                    case CALLER_RUNS:
+                    default:
+                        discarded = command;
+                        break;
+                }
+            }
+            if (discarded != command) {
+                lane.tasks.add(command);
+                startThreadIfNeeded();
+                taskAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (discarded == command) {
+            logger.debug("Queue of lane {} is full, running task on the calling thread: {}", lane.lane,
+                    command.getClass());
+            command.run();
+        } else if (discarded != null) {
+            logger.debug("Queue of lane {} is full, discarded oldest task: {}", lane.lane, discarded.getClass());
+        }
+    }
+
+    // Called with the lock held
+    private void startThreadIfNeeded() {
+        if (threads.size() >= maxThreads) {
+            return;
+        }
+        int runnableTasks = 0;
+        for (LaneExecutor lane : lanes.values()) {
+            runnableTasks += Math.min(lane.tasks.size(), lane.settings.getMaxThreads() - lane.activeCount);
+        }
+        if (runnableTasks > idleThreads) {
+            Thread thread = threadFactory.newThread(this::runWorker);
+            if (thread == null) {
+                throw new RejectedExecutionException("Thread factory didn't create a thread");
+            }
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    // Called with the lock held, the task is removed from the returned lane
+    private LaneExecutor nextLane() {
+        LaneExecutor next = null;
+        boolean lowestFirst = (dispatchedTasks + 1) % FAIRNESS_INTERVAL == 0;
+        for (LaneExecutor lane : lanes.values()) {
+            if (lane.hasRunnableTask()) {
+                next = lane;
+                if (!lowestFirst) {
+                    break;
+                }
+            }
+        }
+        if (next != null) {
+            dispatchedTasks++;
+        }
+        return next;
+    }
+
+    private void runWorker() {
+        try {
+            runTasks();
+        } finally {
+            lock.lock();
+            try {
+                threads.remove(Thread.currentThread());
+                if (shutdown && threads.isEmpty()) {
+                    terminated.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void runTasks() {
+        while (true) {
+            LaneExecutor lane = null;
+            Runnable task = null;
+            lock.lock();
+            try {
+                while (task == null) {
+                    lane = nextLane();
+                    if (lane != null) {
+                        task = lane.tasks.poll();
+                        lane.activeCount++;
+                    } else if (shutdown || !awaitTask()) {
+                        return;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Throwable cause = Exceptions.unwrap(e);
+                // Might happen when we shutdownNow() the executor
+                if (!(cause instanceof InterruptedException)) {
+                    logger.warn("Task of lane {} terminated abruptly: {}", lane.lane, task, e);
+                }
+            } finally {
+                lock.lock();
+                try {
+                    lane.activeCount--;
+                    lane.completedCount++;
+                    if (!shutdown) {
+                        // Don't leak the interrupt of a task into the next task
+                        Thread.interrupted();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Called with the lock held, returns false if the thread was idle for too long
+    private boolean awaitTask() {
+        idleThreads++;
+        try {
+            return taskAvailable.awaitNanos(TimeUnit.SECONDS.toNanos(KEEP_ALIVE_SECONDS)) > 0 || nextLaneAvailable();
+        } catch (InterruptedException e) {
+            return !shutdown;
+        } finally {
+            idleThreads--;
+        }
+    }
+
+    private boolean nextLaneAvailable() {
+        for (LaneExecutor lane : lanes.values()) {
+            if (lane.hasRunnableTask()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            taskAvailable.signalAll();
+            if (threads.isEmpty()) {
+                terminated.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The queued tasks of all lanes which were never started.
+     */
+    public List<Runnable> shutdownNow() {
+        lock.lock();
+        try {
+            shutdown = true;
+            List<Runnable> tasks = new ArrayList<>();
+            for (LaneExecutor lane : lanes.values()) {
+                tasks.addAll(lane.tasks);
+                lane.tasks.clear();
+            }
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            taskAvailable.signalAll();
+            if (threads.isEmpty()) {
+                terminated.signalAll();
+            }
+            return tasks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isTerminated() {
+        lock.lock();
+        try {
+            return shutdown && threads.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!(shutdown && threads.isEmpty())) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = terminated.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Receives measurements of the UPnP stack, all methods do nothing by default.
+ * <p>
+ * Implementations are called from many threads and on the hot paths of the stack, they have to be thread-safe and
+ * must not block. Gauges are registered once and read by the implementation whenever it reports them.
+ * </p>
+ *
+ * @see UpnpServiceConfiguration#getMetrics()
+ * @see JmxUpnpMetrics
+ */
+public interface UpnpMetrics {
+
+    String GAUGE_LOCAL_DEVICES = "Registry.LocalDevices";
+    String GAUGE_REMOTE_DEVICES = "Registry.RemoteDevices";
+    String GAUGE_LOCAL_SUBSCRIPTIONS = "GENA.LocalSubscriptions";
+    String GAUGE_REMOTE_SUBSCRIPTIONS = "GENA.RemoteSubscriptions";
+
+    /**
+     * Discards all measurements.
+     */
+    UpnpMetrics NOOP = new UpnpMetrics() {
+    };
+
+    /**
+     * A UDP datagram was read and passed to the router.
+     */
+    default void datagramReceived() {
+    }
+
+    /**
+     * A protocol was created for a received UDP datagram and handed to an executor. Datagrams which only refresh a
+     * known device, or which are ignored, are not dispatched.
+     */
+    default void datagramDispatched() {
+    }
+
+    /**
+     * A received UDP datagram could not be read by the {@link org.jupnp.transport.spi.DatagramProcessor}.
+     */
+    default void datagramReadFailed() {
+    }
+
+    /**
+     * A UDP datagram was sent on all bound interfaces.
+     */
+    default void datagramSent() {
+    }
+
+    /**
+     * A TCP (HTTP) stream request was received and passed to the stream request executor.
+     */
+    default void streamRequestReceived() {
+    }
+
+    /**
+     * @param method The HTTP method of the request.
+     * @param durationNanos The time until the response was received or the request failed.
+     * @param responded <code>false</code> if the request failed or expired without a response.
+     */
+    default void streamRequestSent(String method, long durationNanos, boolean responded) {
+    }
+
+    /**
+     * @param durationNanos The duration of one maintenance run of the registry.
+     */
+    default void registryMaintained(long durationNanos) {
+    }
+
+    /**
+     * @param lagNanos The time from the state change of the local service until the event was sent.
+     * @param delivered <code>false</code> if the subscriber didn't accept the event.
+     */
+    default void eventDelivered(long lagNanos, boolean delivered) {
+    }
+
+    /**
+     * Registers a value which is read when it's reported, such as the size of the registry or of an executor queue.
+     * A gauge with the same name replaces the previous gauge.
+     */
+    default void registerGauge(String name, LongSupplier gauge) {
+    }
+
+    default void unregisterGauge(String name) {
+    }
+
+    /**
+     * Called by the {@link UpnpServiceConfiguration} on shutdown.
+     */
+    default void shutdown() {
+    }
+}
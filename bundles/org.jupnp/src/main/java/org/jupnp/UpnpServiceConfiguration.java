@@ -17,6 +17,7 @@ package org.jupnp;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.jupnp.binding.xml.DeviceDescriptorBinder;
 import org.jupnp.binding.xml.ServiceDescriptorBinder;
@@ -25,6 +26,7 @@ import org.jupnp.model.message.UpnpHeaders;
 import org.jupnp.model.meta.RemoteDeviceIdentity;
 import org.jupnp.model.meta.RemoteService;
 import org.jupnp.model.types.ServiceType;
+import org.jupnp.protocol.RemoteDescriptorCache;
 import org.jupnp.transport.spi.DatagramIO;
 import org.jupnp.transport.spi.DatagramProcessor;
 import org.jupnp.transport.spi.GENAEventProcessor;
@@ -213,6 +215,33 @@ public interface UpnpServiceConfiguration {
      */
     UpnpHeaders getDescriptorRetrievalHeaders(RemoteDeviceIdentity identity);
 
+    /**
+     * The service descriptors of a remote device are retrieved concurrently, with at most this many requests to
+     * the same host at a time.
+     *
+     * @return The maximum number of concurrent service descriptor retrievals per host, <code>1</code> retrieves
+     *         the descriptors one after another.
+     */
+    default int getMaxDescriptorRetrievalsPerHost() {
+        return 2;
+    }
+
+    /**
+     * Optional persistent cache of remote device and service descriptors, for example a
+     * {@link org.jupnp.protocol.FileRemoteDescriptorCache}.
+     * <p>
+     * Cached device descriptors are revalidated with a conditional GET request. The service descriptors of an
+     * unchanged device are then read from the cache, so known devices are described without retrieving them
+     * again after a restart.
+     * </p>
+     *
+     * @return The shared cache of remote descriptors, or <code>null</code> (the default) to always retrieve all
+     *         descriptors.
+     */
+    default RemoteDescriptorCache getRemoteDescriptorCache() {
+        return null;
+    }
+
     /**
      * Optional extra headers for event subscription (almost HTTP) messages.
      * <p>
@@ -225,17 +254,70 @@ public interface UpnpServiceConfiguration {
      */
     UpnpHeaders getEventSubscriptionHeaders(RemoteService service);
 
+    /**
+     * Events of a local service are queued for each subscriber until they have been sent. When the queue of a slow
+     * subscriber is full, further state changes are merged into the last queued event.
+     *
+     * @return The maximum number of undelivered events per incoming subscription.
+     */
+    default int getMaxQueuedEventsPerSubscription() {
+        return 16;
+    }
+
+    /**
+     * @return The number of consecutive failed event deliveries after which an incoming subscription is removed,
+     *         <code>0</code> never removes the subscription.
+     */
+    default int getMaxEventDeliveryFailures() {
+        return 3;
+    }
+
     /**
      * @return The executor which runs the processing of asynchronous aspects of the UPnP stack (discovery).
      */
     Executor getAsyncProtocolExecutor();
 
+    /**
+     * Delayed protocol steps, such as randomly delayed search responses, are scheduled with this executor instead
+     * of waiting on a pooled thread. Scheduled tasks only hand off their work to the other executors.
+     *
+     * @return The executor which runs delayed tasks, or <code>null</code> if protocols should wait on their own
+     *         thread.
+     */
+    default ScheduledExecutorService getScheduledExecutorService() {
+        return null;
+    }
+
     /**
      * @return The executor service which runs the processing of synchronous aspects of the UPnP stack (description,
      *         control, GENA).
      */
     ExecutorService getSyncProtocolExecutorService();
 
+    /**
+     * Received stream requests, such as action invocations and GENA event messages, are processed with this
+     * executor. Return a separate executor to keep processing them when the synchronous protocol executor is busy.
+     *
+     * @return The executor service which processes received TCP (HTTP) stream requests, defaults to the
+     *         {@link #getSyncProtocolExecutorService()}.
+     */
+    default ExecutorService getStreamRequestExecutorService() {
+        return getSyncProtocolExecutorService();
+    }
+
+    /**
+     * GENA events of local subscriptions are delivered with this executor. Events are queued while the state of a
+     * service is locked, so the executor should throw a {@link java.util.concurrent.RejectedExecutionException}
+     * instead of running a task on the calling thread when it is busy. Rejected deliveries are retried with the
+     * {@link #getScheduledExecutorService()}.
+     *
+     * @return The executor service which delivers GENA events, defaults to the
+     *         {@link #getSyncProtocolExecutorService()}.
+     */
+    default ExecutorService getEventDeliveryExecutorService() {
+        return getSyncProtocolExecutorService();
+    }
+
     /**
      * @return An instance of {@link org.jupnp.model.Namespace} for this UPnP stack.
      */
@@ -256,6 +338,16 @@ public interface UpnpServiceConfiguration {
      */
     Executor getRemoteListenerExecutor();
 
+    /**
+     * The metrics are shared by all components of the stack and must be available before the router and the
+     * registry are created.
+     *
+     * @return The receiver of measurements of the UPnP stack, defaults to {@link UpnpMetrics#NOOP}.
+     */
+    default UpnpMetrics getMetrics() {
+        return UpnpMetrics.NOOP;
+    }
+
     /**
      * Called by the {@link org.jupnp.UpnpService} on shutdown, useful to e.g. shutdown thread pools.
      */
@@ -16,7 +16,10 @@
 package org.jupnp.controlpoint;
 
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import org.jupnp.model.action.ActionCancelledException;
 import org.jupnp.model.action.ActionException;
 import org.jupnp.model.action.ActionInvocation;
 import org.jupnp.model.message.UpnpResponse;
@@ -24,7 +27,9 @@ import org.jupnp.model.message.control.IncomingActionResponseMessage;
 import org.jupnp.model.meta.LocalService;
 import org.jupnp.model.meta.RemoteService;
 import org.jupnp.model.meta.Service;
+import org.jupnp.model.types.ErrorCode;
 import org.jupnp.protocol.sync.SendingAction;
+import org.jupnp.util.Exceptions;
 
 /**
  * Execute actions on any service.
@@ -87,6 +92,18 @@ public abstract class ActionCallback implements Runnable {
         }
     }
 
+    // Subclasses which override run() are always executed with it
+    private static final ClassValue<Boolean> RUN_OVERRIDDEN = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("run").getDeclaringClass() != ActionCallback.class;
+            } catch (NoSuchMethodException e) {
+                return true;
+            }
+        }
+    };
+
     protected final ActionInvocation actionInvocation;
 
     protected ControlPoint controlPoint;
@@ -153,15 +170,92 @@ public abstract class ActionCallback implements Runnable {
                     controLURL);
             prot.run();
 
-            IncomingActionResponseMessage response = prot.getOutputMessage();
+            handleResponse(prot.getOutputMessage());
+        }
+    }
 
-            if (response == null) {
-                failure(actionInvocation, null);
-            } else if (response.getOperation().isFailed()) {
-                failure(actionInvocation, response.getOperation());
-            } else {
-                success(actionInvocation);
+    /**
+     * @return <code>true</code> if {@link #runAsync(Executor)} doesn't block a thread while waiting for the response,
+     *         that is if the action is invoked on a remote service and this callback doesn't override {@link #run()}.
+     */
+    public boolean isRunAsync() {
+        return actionInvocation.getAction().getService() instanceof RemoteService && !RUN_OVERRIDDEN.get(getClass());
+    }
+
+    /**
+     * Executes the action like {@link #run()}, but doesn't block a thread while waiting for the response of a remote
+     * service. Cancelling the returned future aborts the request, the callback then receives an
+     * {@link ActionCancelledException} failure.
+     * <p>
+     * If this callback can't {@link #isRunAsync() run asynchronously}, {@link #run()} is called with the executor.
+     * </p>
+     *
+     * @param executor The executor which calls {@link #success(ActionInvocation)} or
+     *            {@link #failure(ActionInvocation, UpnpResponse, String)}.
+     * @return A future completed with the action invocation when the callback method has been called.
+     */
+    public CompletableFuture<ActionInvocation> runAsync(Executor executor) {
+        if (!isRunAsync()) {
+            return CompletableFuture.supplyAsync(() -> {
+                run();
+                return actionInvocation;
+            }, executor);
+        }
+
+        if (getControlPoint() == null) {
+            throw new IllegalStateException("Callback must be executed through ControlPoint");
+        }
+
+        RemoteService remoteService = (RemoteService) actionInvocation.getAction().getService();
+
+        URL controLURL;
+        try {
+            controLURL = remoteService.getDevice().normalizeURI(remoteService.getControlURI());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.supplyAsync(() -> {
+                failure(actionInvocation, null, "bad control URL: " + remoteService.getControlURI());
+                return actionInvocation;
+            }, executor);
+        }
+
+        // The request is sent now, the response is handled with the executor when it arrives
+        SendingAction prot = getControlPoint().getProtocolFactory().createSendingAction(actionInvocation, controLURL);
+        CompletableFuture<IncomingActionResponseMessage> sending = prot.executeAsync();
+        CompletableFuture<ActionInvocation> result = new CompletableFuture<>();
+        sending.whenCompleteAsync((response, e) -> {
+            try {
+                if (e == null) {
+                    handleResponse(response);
+                } else if (sending.isCancelled()) {
+                    actionInvocation
+                            .setFailure(new ActionCancelledException(new InterruptedException("Action cancelled")));
+                    failure(actionInvocation, null);
+                } else {
+                    actionInvocation.setFailure(new ActionException(ErrorCode.ACTION_FAILED,
+                            "Sending action request failed: " + Exceptions.unwrap(e).getMessage()));
+                    failure(actionInvocation, null);
+                }
+                result.complete(actionInvocation);
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
             }
+        }, executor);
+        // The callback is notified of the cancellation when the request has been aborted
+        result.whenComplete((invocation, e) -> {
+            if (result.isCancelled()) {
+                sending.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    protected void handleResponse(IncomingActionResponseMessage response) {
+        if (response == null) {
+            failure(actionInvocation, null);
+        } else if (response.getOperation().isFailed()) {
+            failure(actionInvocation, response.getOperation());
+        } else {
+            success(actionInvocation);
         }
     }
 
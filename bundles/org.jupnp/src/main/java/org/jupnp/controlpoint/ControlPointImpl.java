@@ -103,11 +103,19 @@ public class ControlPointImpl implements ControlPoint {
         execute(executeAction.getCallback());
     }
 
+    /**
+     * Invokes the action in background. No thread waits for the response of a remote service if the callback
+     * {@link ActionCallback#isRunAsync() runs asynchronously}, the returned future is then a
+     * {@link java.util.concurrent.CompletableFuture}.
+     */
     @Override
     public Future execute(ActionCallback callback) {
         logger.trace("Invoking action in background: {}", callback);
         callback.setControlPoint(this);
         ExecutorService executor = getConfiguration().getSyncProtocolExecutorService();
+        if (callback.isRunAsync()) {
+            return callback.runAsync(executor);
+        }
         return executor.submit(callback);
     }
 
@@ -16,9 +16,10 @@
 package org.jupnp.http;
 
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -76,6 +77,81 @@ public class Headers implements Map<String, List<String>> {
         putAll(headers);
     }
 
+    /**
+     * Reads header lines until an empty line or the end of the given range.
+     * <p>
+     * The lines are tokenized directly on the bytes, no intermediate strings are created for lines. Like
+     * {@link #readLine(StringBuilder, ByteArrayInputStream)}, every byte is read as an ISO-8859-1 character.
+     * The given array is not referenced after construction.
+     * </p>
+     *
+     * @param data The buffer containing the header lines.
+     * @param offset The index of the first byte of the first header line.
+     * @param length The number of bytes which can be read.
+     */
+    public Headers(byte[] data, int offset, int length) {
+        int end = offset + length;
+        int lineStart = offset;
+        List<String> lastValues = null;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && data[lineEnd] != LF) {
+                lineEnd++;
+            }
+            int nextLineStart = lineEnd + 1;
+            if (lineEnd > lineStart && data[lineEnd - 1] == CR) {
+                lineEnd--;
+            }
+            if (lineEnd == lineStart) {
+                break;
+            }
+
+            if (lastValues != null && (data[lineStart] == ' ' || data[lineStart] == '\t')) {
+                // Folded header line, append to the last value
+                int valueStart = lineStart;
+                int valueEnd = lineEnd;
+                while (valueStart < valueEnd && (data[valueStart] & 0xff) <= ' ') {
+                    valueStart++;
+                }
+                while (valueEnd > valueStart && (data[valueEnd - 1] & 0xff) <= ' ') {
+                    valueEnd--;
+                }
+                int lastPos = lastValues.size() - 1;
+                lastValues.set(lastPos, lastValues.get(lastPos) + decode(data, valueStart, valueEnd));
+            } else {
+                int nameStart = lineStart;
+                while (nameStart < lineEnd && isWhitespace(data[nameStart])) {
+                    nameStart++;
+                }
+                int nameEnd = nameStart;
+                while (nameEnd < lineEnd && data[nameEnd] != ':' && !isWhitespace(data[nameEnd])) {
+                    nameEnd++;
+                }
+                int colonEnd = nameEnd;
+                while (colonEnd < lineEnd && data[colonEnd] != ':') {
+                    colonEnd++;
+                }
+                if (colonEnd < lineEnd) {
+                    colonEnd++;
+                }
+                int valueStart = colonEnd;
+                while (valueStart < lineEnd && isWhitespace(data[valueStart])) {
+                    valueStart++;
+                }
+                int valueEnd = lineEnd;
+                while (valueEnd > valueStart && isWhitespace(data[valueEnd - 1])) {
+                    valueEnd--;
+                }
+
+                // There are really HTTP headers without values
+                String value = valueStart < valueEnd ? decode(data, valueStart, valueEnd) : null;
+                lastValues = map.computeIfAbsent(decodeName(data, nameStart, nameEnd), k -> new ArrayList<>(1));
+                lastValues.add(value);
+            }
+            lineStart = nextLineStart;
+        }
+    }
+
     public Headers(boolean normalizeHeaders) {
         this.normalizeHeaders = normalizeHeaders;
     }
@@ -158,12 +234,12 @@ public class Headers implements Map<String, List<String>> {
 
     public void add(String key, String value) {
         String k = normalize(key);
-        List<String> l = map.computeIfAbsent(k, k1 -> new LinkedList<>());
+        List<String> l = map.computeIfAbsent(k, k1 -> new ArrayList<>(1));
         l.add(value);
     }
 
     public void set(String key, String value) {
-        LinkedList<String> l = new LinkedList<>();
+        List<String> l = new ArrayList<>(1);
         l.add(value);
         put(key, l);
     }
@@ -196,6 +272,34 @@ public class Headers implements Map<String, List<String>> {
         return result;
     }
 
+    private String decodeName(byte[] data, int start, int end) {
+        if (!normalizeHeaders || start == end) {
+            return decode(data, start, end);
+        }
+        // Same result as normalize(), without decoding the name twice
+        char[] b = new char[end - start];
+        for (int i = 0; i < b.length; i++) {
+            char c = (char) (data[start + i] & 0xff);
+            if (i == 0 && c >= 'a' && c <= 'z') {
+                c = (char) (c - ('a' - 'A'));
+            } else if (i > 0 && c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            b[i] = c;
+        }
+        return new String(b);
+    }
+
+    private static String decode(byte[] data, int start, int end) {
+        return new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    // Same as Character.isWhitespace() for ISO-8859-1 characters
+    private static boolean isWhitespace(byte b) {
+        int c = b & 0xff;
+        return c == ' ' || (c >= 0x09 && c <= 0x0D) || (c >= 0x1C && c <= 0x1F);
+    }
+
     public static String readLine(ByteArrayInputStream is) {
         return readLine(new StringBuilder(256), is);
     }
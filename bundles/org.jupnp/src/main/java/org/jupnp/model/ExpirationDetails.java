@@ -25,7 +25,8 @@ public class ExpirationDetails {
     public static final int UNLIMITED_AGE = 0;
 
     private int maxAgeSeconds = UNLIMITED_AGE;
-    private long lastRefreshTimestampSeconds = getCurrentTimestampSeconds();
+    // Refreshed by known device notifications without holding the registry lock
+    private volatile long lastRefreshTimestampSeconds = getCurrentTimestampSeconds();
 
     private int renewAttempts;
 
@@ -74,6 +75,16 @@ public class ExpirationDetails {
                 && (lastRefreshTimestampSeconds + (maxAgeSeconds / (halfTime ? 2 : 1))) < getCurrentTimestampSeconds();
     }
 
+    /**
+     * @param halfTime If <code>true</code> then half maximum age is used to determine expiration.
+     * @return The first timestamp in seconds for which {@link #hasExpired(boolean)} returns <code>true</code>,
+     *         or <code>Long.MAX_VALUE</code> if the maximum age is unlimited.
+     */
+    public long getExpirationTimestampSeconds(boolean halfTime) {
+        return maxAgeSeconds == UNLIMITED_AGE ? Long.MAX_VALUE
+                : lastRefreshTimestampSeconds + (maxAgeSeconds / (halfTime ? 2 : 1)) + 1;
+    }
+
     public long getSecondsUntilExpiration() {
         // Note: Uses direct field access for performance reasons on Android
         return maxAgeSeconds == UNLIMITED_AGE ? Integer.MAX_VALUE
@@ -15,6 +15,7 @@
  */
 package org.jupnp.model.action;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -48,14 +49,19 @@ public class MethodActionExecutor extends AbstractActionExecutor {
 
     protected Method method;
 
+    // Created once when the service is bound, null if the method isn't accessible through a handle
+    protected MethodHandle invoker;
+
     public MethodActionExecutor(Method method) {
         this.method = method;
+        this.invoker = Reflections.createInvoker(method);
     }
 
     public MethodActionExecutor(Map<ActionArgument<LocalService>, StateVariableAccessor> outputArgumentAccessors,
             Method method) {
         super(outputArgumentAccessors);
         this.method = method;
+        this.invoker = Reflections.createInvoker(method);
     }
 
     public Method getMethod() {
@@ -71,7 +77,7 @@ public class MethodActionExecutor extends AbstractActionExecutor {
         // Simple case: no output arguments
         if (!actionInvocation.getAction().hasOutputArguments()) {
             logger.trace("Calling local service method with no output arguments: {}", method);
-            Reflections.invoke(method, serviceImpl, inputArgumentValues);
+            invokeMethod(serviceImpl, inputArgumentValues);
             return;
         }
 
@@ -84,20 +90,20 @@ public class MethodActionExecutor extends AbstractActionExecutor {
 
             logger.trace(
                     "Action method is void, calling declared accessors(s) on service instance to retrieve output argument(s)");
-            Reflections.invoke(method, serviceImpl, inputArgumentValues);
+            invokeMethod(serviceImpl, inputArgumentValues);
             result = readOutputArgumentValues(actionInvocation.getAction(), serviceImpl);
 
         } else if (isUseOutputArgumentAccessors(actionInvocation)) {
 
             logger.trace(
                     "Action method is not void, calling declared accessor(s) on returned instance to retrieve output argument(s)");
-            Object returnedInstance = Reflections.invoke(method, serviceImpl, inputArgumentValues);
+            Object returnedInstance = invokeMethod(serviceImpl, inputArgumentValues);
             result = readOutputArgumentValues(actionInvocation.getAction(), returnedInstance);
 
         } else {
 
             logger.trace("Action method is not void, using returned value as (single) output argument");
-            result = Reflections.invoke(method, serviceImpl, inputArgumentValues);
+            result = invokeMethod(serviceImpl, inputArgumentValues);
             isArrayResultProcessed = false; // We never want to process e.g. byte[] as individual variable values
         }
 
@@ -117,6 +123,11 @@ public class MethodActionExecutor extends AbstractActionExecutor {
         }
     }
 
+    protected Object invokeMethod(Object serviceImpl, Object[] inputArgumentValues) throws Exception {
+        return invoker != null ? Reflections.invoke(invoker, serviceImpl, inputArgumentValues)
+                : Reflections.invoke(method, serviceImpl, inputArgumentValues);
+    }
+
     protected boolean isUseOutputArgumentAccessors(ActionInvocation<LocalService> actionInvocation) {
         for (ActionArgument argument : actionInvocation.getAction().getOutputArguments()) {
             // If there is one output argument for which we have an accessor, all arguments need accessors
@@ -25,5 +25,6 @@ public enum CancelReason {
     RENEWAL_FAILED,
     DEVICE_WAS_REMOVED,
     UNSUBSCRIBE_FAILED,
-    EXPIRED
+    EXPIRED,
+    EVENT_DELIVERY_FAILED
 }
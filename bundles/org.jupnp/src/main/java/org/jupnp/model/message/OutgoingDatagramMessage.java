@@ -19,6 +19,10 @@ import java.net.InetAddress;
 
 /**
  * A UDP datagram request or response message for sending, with destination address and port.
+ * <p>
+ * The datagram payload is encoded when the message is written for the first time, and then reused whenever the
+ * message or a copy of it is sent again. Headers must not be modified after a message has been sent.
+ * </p>
  *
  * @author Christian Bauer
  */
@@ -28,6 +32,7 @@ public abstract class OutgoingDatagramMessage<O extends UpnpOperation> extends U
     private int destinationPort;
     // For performance reasons, headers of this message are not normalized
     private UpnpHeaders headers = new UpnpHeaders(false);
+    private volatile byte[] encoded;
 
     protected OutgoingDatagramMessage(O operation, InetAddress destinationAddress, int destinationPort) {
         super(operation);
@@ -42,6 +47,18 @@ public abstract class OutgoingDatagramMessage<O extends UpnpOperation> extends U
         this.destinationPort = destinationPort;
     }
 
+    /**
+     * Creates a copy of the given message for another destination, sharing its headers and encoded payload.
+     */
+    protected OutgoingDatagramMessage(OutgoingDatagramMessage<O> source, InetAddress destinationAddress,
+            int destinationPort) {
+        super(source);
+        this.headers = source.getHeaders();
+        this.encoded = source.getEncoded();
+        this.destinationAddress = destinationAddress;
+        this.destinationPort = destinationPort;
+    }
+
     public InetAddress getDestinationAddress() {
         return destinationAddress;
     }
@@ -54,4 +71,15 @@ public abstract class OutgoingDatagramMessage<O extends UpnpOperation> extends U
     public UpnpHeaders getHeaders() {
         return this.headers;
     }
+
+    /**
+     * @return The payload of the datagram, or <code>null</code> if this message has not been encoded yet.
+     */
+    public byte[] getEncoded() {
+        return encoded;
+    }
+
+    public void setEncoded(byte[] encoded) {
+        this.encoded = encoded;
+    }
 }
@@ -16,10 +16,12 @@
 package org.jupnp.model.message;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.jupnp.http.Headers;
 import org.jupnp.model.message.header.UpnpHeader;
@@ -38,6 +40,9 @@ public class UpnpHeaders extends Headers {
 
     protected Map<UpnpHeader.Type, List<UpnpHeader>> parsedHeaders;
 
+    // The types for which the raw values have been parsed into parsedHeaders
+    protected Set<UpnpHeader.Type> parsedTypes;
+
     public UpnpHeaders() {
     }
 
@@ -49,6 +54,10 @@ public class UpnpHeaders extends Headers {
         super(inputStream);
     }
 
+    public UpnpHeaders(byte[] data, int offset, int length) {
+        super(data, offset, length);
+    }
+
     public UpnpHeaders(boolean normalizeHeaders) {
         super(normalizeHeaders);
     }
@@ -56,6 +65,7 @@ public class UpnpHeaders extends Headers {
     protected void parseHeaders() {
         // This runs as late as possible and only when necessary (getter called and map is dirty)
         parsedHeaders = new LinkedHashMap<>();
+        parsedTypes = EnumSet.allOf(UpnpHeader.Type.class);
         logger.trace("Parsing all HTTP headers for known UPnP headers: {}", size());
         for (Entry<String, List<String>> entry : entrySet()) {
 
@@ -69,22 +79,43 @@ public class UpnpHeaders extends Headers {
                 continue;
             }
 
-            for (String value : entry.getValue()) {
-                UpnpHeader upnpHeader = UpnpHeader.newInstance(type, value);
-                if (upnpHeader == null || upnpHeader.getValue() == null) {
-                    logger.trace(
-                            "Ignoring known but irrelevant header (value violates the UDA specification?) '{}': {}",
-                            type.getHttpName(), value);
-                } else {
-                    addParsedValue(type, upnpHeader);
-                }
+            parseValues(type, entry.getValue());
+        }
+    }
+
+    /**
+     * Parses only the raw values of the given type, received messages are usually dispatched on a few headers.
+     */
+    protected void parseHeaders(UpnpHeader.Type type) {
+        if (parsedHeaders == null) {
+            parsedHeaders = new LinkedHashMap<>();
+            parsedTypes = EnumSet.noneOf(UpnpHeader.Type.class);
+        }
+        if (!parsedTypes.add(type)) {
+            return;
+        }
+        for (Entry<String, List<String>> entry : entrySet()) {
+            if (entry.getKey() != null && UpnpHeader.Type.getByHttpName(entry.getKey()) == type) {
+                parseValues(type, entry.getValue());
+            }
+        }
+    }
+
+    protected void parseValues(UpnpHeader.Type type, List<String> values) {
+        for (String value : values) {
+            UpnpHeader upnpHeader = UpnpHeader.newInstance(type, value);
+            if (upnpHeader == null || upnpHeader.getValue() == null) {
+                logger.trace("Ignoring known but irrelevant header (value violates the UDA specification?) '{}': {}",
+                        type.getHttpName(), value);
+            } else {
+                addParsedValue(type, upnpHeader);
             }
         }
     }
 
     protected void addParsedValue(UpnpHeader.Type type, UpnpHeader value) {
         logger.trace("Adding parsed header: {}", value);
-        List<UpnpHeader> list = parsedHeaders.computeIfAbsent(type, k -> new LinkedList<>());
+        List<UpnpHeader> list = parsedHeaders.computeIfAbsent(type, k -> new ArrayList<>(1));
         list.add(value);
     }
 
@@ -113,22 +144,18 @@ public class UpnpHeaders extends Headers {
     }
 
     public boolean containsKey(UpnpHeader.Type type) {
-        if (parsedHeaders == null) {
-            parseHeaders();
-        }
+        parseHeaders(type);
         return parsedHeaders.containsKey(type);
     }
 
     public List<UpnpHeader> get(UpnpHeader.Type type) {
-        if (parsedHeaders == null) {
-            parseHeaders();
-        }
+        parseHeaders(type);
         return parsedHeaders.get(type);
     }
 
     public void add(UpnpHeader.Type type, UpnpHeader value) {
         super.add(type.getHttpName(), value.getString());
-        if (parsedHeaders != null) {
+        if (parsedHeaders != null && parsedTypes.contains(type)) {
             addParsedValue(type, value);
         }
     }
@@ -141,9 +168,7 @@ public class UpnpHeaders extends Headers {
     }
 
     public UpnpHeader[] getAsArray(UpnpHeader.Type type) {
-        if (parsedHeaders == null) {
-            parseHeaders();
-        }
+        parseHeaders(type);
         return parsedHeaders.get(type) != null
                 ? parsedHeaders.get(type).toArray(new UpnpHeader[parsedHeaders.get(type).size()])
                 : new UpnpHeader[0];
@@ -48,4 +48,11 @@ public class OutgoingSearchResponse extends OutgoingDatagramMessage<UpnpResponse
                     new InterfaceMacHeader(location.getNetworkAddress().getHardwareAddress()));
         }
     }
+
+    /**
+     * Creates a response to the given request with the headers and encoded payload of another response.
+     */
+    public OutgoingSearchResponse(OutgoingSearchResponse source, IncomingDatagramMessage request) {
+        super(source, request.getSourceAddress(), request.getSourcePort());
+    }
 }
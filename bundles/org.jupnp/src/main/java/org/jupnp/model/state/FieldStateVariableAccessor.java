@@ -15,6 +15,7 @@
  */
 package org.jupnp.model.state;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 
 import org.jupnp.util.Reflections;
@@ -27,9 +28,11 @@ import org.jupnp.util.Reflections;
 public class FieldStateVariableAccessor extends StateVariableAccessor {
 
     protected Field field;
+    protected MethodHandle getter;
 
     public FieldStateVariableAccessor(Field field) {
         this.field = field;
+        this.getter = Reflections.createGetter(field);
     }
 
     public Field getField() {
@@ -43,7 +46,7 @@ public class FieldStateVariableAccessor extends StateVariableAccessor {
 
     @Override
     public Object read(Object serviceImpl) throws Exception {
-        return Reflections.get(field, serviceImpl);
+        return getter != null ? Reflections.get(getter, serviceImpl) : Reflections.get(field, serviceImpl);
     }
 
     @Override
@@ -15,6 +15,7 @@
  */
 package org.jupnp.model.state;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 
 import org.jupnp.util.Reflections;
@@ -27,9 +28,11 @@ import org.jupnp.util.Reflections;
 public class GetterStateVariableAccessor extends StateVariableAccessor {
 
     private Method getter;
+    private MethodHandle invoker;
 
     public GetterStateVariableAccessor(Method getter) {
         this.getter = getter;
+        this.invoker = Reflections.createInvoker(getter);
     }
 
     public Method getGetter() {
@@ -43,6 +46,9 @@ public class GetterStateVariableAccessor extends StateVariableAccessor {
 
     @Override
     public Object read(Object serviceImpl) throws Exception {
+        if (invoker != null) {
+            return Reflections.invoke(invoker, serviceImpl);
+        }
         return Reflections.invoke(getGetter(), serviceImpl);
     }
 
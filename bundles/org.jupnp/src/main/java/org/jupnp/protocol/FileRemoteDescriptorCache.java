@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.protocol;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jupnp.model.types.UDN;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores each remote descriptor in a file of the given directory.
+ * <p>
+ * The file name is a hash of the UDN and descriptor URL. A file starts with three lines, the key, the entity tag
+ * and the last modification date of the descriptor, followed by the descriptor XML. Unreadable files are treated
+ * as missing entries.
+ * </p>
+ * <p>
+ * The modification time of a file is updated whenever the descriptor is read. Files which haven't been used for
+ * the maximum age are deleted, and the least recently used files are deleted when there are more than the maximum
+ * number of entries. The directory is pruned when the cache is created and after a descriptor has been stored.
+ * </p>
+ */
+public class FileRemoteDescriptorCache implements RemoteDescriptorCache {
+
+    private final Logger logger = LoggerFactory.getLogger(FileRemoteDescriptorCache.class);
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_MAX_AGE_SECONDS = TimeUnit.DAYS.toSeconds(30);
+
+    private static final String FILE_EXTENSION = ".descriptor";
+
+    private final Path directory;
+    private final int maxEntries;
+    private final long maxAgeSeconds;
+
+    public FileRemoteDescriptorCache(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_AGE_SECONDS);
+    }
+
+    /**
+     * @param maxEntries The maximum number of cached descriptors.
+     * @param maxAgeSeconds Descriptors which haven't been stored or read for this many seconds are deleted.
+     */
+    public FileRemoteDescriptorCache(Path directory, int maxEntries, long maxAgeSeconds) throws IOException {
+        if (maxEntries < 1 || maxAgeSeconds < 1) {
+            throw new IllegalArgumentException("Invalid cache bounds");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxEntries = maxEntries;
+        this.maxAgeSeconds = maxAgeSeconds;
+        prune();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    @Override
+    public Descriptor get(UDN udn, URL descriptorURL) {
+        String key = getKey(udn, descriptorURL);
+        Path file = getFile(key);
+        Descriptor descriptor;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!key.equals(reader.readLine())) {
+                return null;
+            }
+            String entityTag = emptyToNull(reader.readLine());
+            String lastModified = emptyToNull(reader.readLine());
+            StringBuilder xml = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                xml.append(buffer, 0, read);
+            }
+            if (xml.length() == 0) {
+                return null;
+            }
+            descriptor = new Descriptor(xml.toString(), entityTag, lastModified);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.debug("Cannot read cached descriptor: {}", key, e);
+            return null;
+        }
+        try {
+            // Descriptors of devices which are still around are kept
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.trace("Cannot update modification time of cached descriptor: {}", key, e);
+        }
+        return descriptor;
+    }
+
+    @Override
+    public void put(UDN udn, URL descriptorURL, Descriptor descriptor) {
+        String key = getKey(udn, descriptorURL);
+        Path file = getFile(key);
+        try {
+            // Readers never see a partially written file
+            Path temp = Files.createTempFile(directory, null, ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write(key);
+                    writer.write('\n');
+                    writer.write(nullToEmpty(descriptor.getEntityTag()));
+                    writer.write('\n');
+                    writer.write(nullToEmpty(descriptor.getLastModified()));
+                    writer.write('\n');
+                    writer.write(descriptor.getXml());
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.debug("Cannot write cached descriptor: {}", key, e);
+            return;
+        }
+        prune();
+    }
+
+    @Override
+    public void remove(UDN udn, URL descriptorURL) {
+        String key = getKey(udn, descriptorURL);
+        try {
+            Files.deleteIfExists(getFile(key));
+        } catch (IOException e) {
+            logger.debug("Cannot remove cached descriptor: {}", key, e);
+        }
+    }
+
+    /**
+     * Deletes the descriptors which are older than the maximum age, then the least recently used descriptors
+     * exceeding the maximum number of entries.
+     */
+    public synchronized void prune() {
+        long oldestMillis = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(maxAgeSeconds);
+        List<CachedFile> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+            for (Path file : stream) {
+                try {
+                    long modifiedMillis = Files.getLastModifiedTime(file).toMillis();
+                    if (modifiedMillis < oldestMillis) {
+                        delete(file);
+                    } else {
+                        files.add(new CachedFile(file, modifiedMillis));
+                    }
+                } catch (NoSuchFileException e) {
+                    // Removed concurrently
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Cannot prune cached descriptors: {}", directory, e);
+            return;
+        }
+        if (files.size() > maxEntries) {
+            files.sort(Comparator.comparingLong(file -> file.modifiedMillis));
+            for (CachedFile file : files.subList(0, files.size() - maxEntries)) {
+                delete(file.path);
+            }
+        }
+    }
+
+    protected void delete(Path file) {
+        logger.trace("Deleting cached descriptor: {}", file);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Cannot delete cached descriptor: {}", file, e);
+        }
+    }
+
+    protected String getKey(UDN udn, URL descriptorURL) {
+        // Neither contains whitespace
+        return udn.getIdentifierString() + " " + descriptorURL;
+    }
+
+    protected Path getFile(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + FILE_EXTENSION.length());
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return directory.resolve(name.append(FILE_EXTENSION).toString());
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CachedFile {
+
+        private final Path path;
+        private final long modifiedMillis;
+
+        private CachedFile(Path path, long modifiedMillis) {
+            this.path = path;
+            this.modifiedMillis = modifiedMillis;
+        }
+    }
+
+    private static String emptyToNull(String s) {
+        return s == null || s.isEmpty() ? null : s;
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+}
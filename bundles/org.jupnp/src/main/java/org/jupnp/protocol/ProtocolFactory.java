@@ -87,6 +87,33 @@ public interface ProtocolFactory {
      */
     SendingNotificationByebye createSendingNotificationByebye(LocalDevice localDevice);
 
+    /**
+     * Called by the {@link org.jupnp.registry.Registry} when a local device is added or removed, and by the
+     * {@link org.jupnp.transport.Router} when it is enabled or disabled, discards cached discovery messages.
+     *
+     * @param localDevice The device of the discarded messages, or <code>null</code> to discard all messages.
+     */
+    default void invalidateDiscoveryMessages(LocalDevice localDevice) {
+    }
+
+    /**
+     * Called by the {@link org.jupnp.registry.Registry} when a local device is added or removed, discards cached
+     * device and service descriptors.
+     *
+     * @param localDevice The device of the discarded descriptors.
+     */
+    default void invalidateDescriptors(LocalDevice localDevice) {
+    }
+
+    /**
+     * Called by the {@link org.jupnp.registry.Registry} when a local device is removed, discards the shared
+     * GENA event bodies of its services.
+     *
+     * @param localDevice The device of the discarded event bodies.
+     */
+    default void invalidateEventBodies(LocalDevice localDevice) {
+    }
+
     /**
      * Called by the {@link org.jupnp.controlpoint.ControlPoint}, creates a protocol for a multicast search.
      */
@@ -116,4 +143,21 @@ public interface ProtocolFactory {
      * Called by the {@link org.jupnp.model.gena.GENASubscription}, creates a protocol for sending GENA events.
      */
     SendingEvent createSendingEvent(LocalGENASubscription subscription);
+
+    /**
+     * Called by the {@link org.jupnp.model.gena.LocalGENASubscription}, sends an event with its current state
+     * variable values.
+     * <p>
+     * Executes the protocol of {@link #createSendingEvent(LocalGENASubscription)} by default.
+     * </p>
+     */
+    default void deliverEvent(LocalGENASubscription subscription) {
+        getUpnpService().getConfiguration().getSyncProtocolExecutorService().execute(createSendingEvent(subscription));
+    }
+
+    /**
+     * Called by the {@link org.jupnp.model.gena.LocalGENASubscription} when it ended, drops its undelivered events.
+     */
+    default void discardEvents(LocalGENASubscription subscription) {
+    }
 }
@@ -18,6 +18,9 @@ package org.jupnp.protocol;
 import java.net.URI;
 import java.net.URL;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jupnp.UpnpService;
 import org.jupnp.UpnpServiceConfiguration;
@@ -36,12 +39,17 @@ import org.jupnp.model.types.InvalidValueException;
 import org.jupnp.model.types.NamedServiceType;
 import org.jupnp.model.types.NotificationSubtype;
 import org.jupnp.model.types.ServiceType;
+import org.jupnp.model.types.UDN;
+import org.jupnp.protocol.async.DiscoveryMessageCache;
 import org.jupnp.protocol.async.ReceivingNotification;
 import org.jupnp.protocol.async.ReceivingSearch;
 import org.jupnp.protocol.async.ReceivingSearchResponse;
 import org.jupnp.protocol.async.SendingNotificationAlive;
 import org.jupnp.protocol.async.SendingNotificationByebye;
 import org.jupnp.protocol.async.SendingSearch;
+import org.jupnp.protocol.sync.DescriptorCache;
+import org.jupnp.protocol.sync.EventBodyCache;
+import org.jupnp.protocol.sync.EventDelivery;
 import org.jupnp.protocol.sync.ReceivingAction;
 import org.jupnp.protocol.sync.ReceivingEvent;
 import org.jupnp.protocol.sync.ReceivingRetrieval;
@@ -52,6 +60,7 @@ import org.jupnp.protocol.sync.SendingEvent;
 import org.jupnp.protocol.sync.SendingRenewal;
 import org.jupnp.protocol.sync.SendingSubscribe;
 import org.jupnp.protocol.sync.SendingUnsubscribe;
+import org.jupnp.registry.Registry;
 import org.jupnp.transport.RouterException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,8 +74,26 @@ public class ProtocolFactoryImpl implements ProtocolFactory {
 
     private final Logger logger = LoggerFactory.getLogger(ProtocolFactory.class);
 
+    // UDA 1.1 boot identifier of a device, increased whenever it rejoins the network
+    protected static final String BOOTID_HEADER = "BOOTID.UPNP.ORG";
+
     protected final UpnpService upnpService;
 
+    // Requester and search target of the search responses waiting for their random delay
+    protected final Set<String> pendingSearchResponses = ConcurrentHashMap.newKeySet();
+
+    // Encoded advertisements and search responses of local devices
+    protected final DiscoveryMessageCache discoveryMessageCache = new DiscoveryMessageCache();
+
+    // Generated descriptors of local devices and services
+    protected final DescriptorCache descriptorCache = new DescriptorCache();
+
+    // Event bodies of the latest state change of local services, shared by their subscribers
+    protected final EventBodyCache eventBodyCache = new EventBodyCache();
+
+    // Ordered event queues of local subscriptions
+    protected final EventDelivery eventDelivery = new EventDelivery(this, eventBodyCache);
+
     protected ProtocolFactoryImpl() {
         upnpService = null;
     }
@@ -88,6 +115,9 @@ public class ProtocolFactoryImpl implements ProtocolFactory {
         if (message.getOperation() instanceof UpnpRequest) {
             switch (((IncomingDatagramMessage<UpnpRequest>) message).getOperation().getMethod()) {
                 case NOTIFY:
+                    if (isRefreshedAlive(message)) {
+                        return null;
+                    }
                     return isByeBye(message) || isSupportedServiceAdvertisement(message)
                             ? createReceivingNotification(message)
                             : null;
@@ -107,7 +137,8 @@ public class ProtocolFactoryImpl implements ProtocolFactory {
     }
 
     protected ReceivingAsync createReceivingSearch(IncomingDatagramMessage<UpnpRequest> incomingRequest) {
-        return new ReceivingSearch(getUpnpService(), incomingRequest);
+        return new ReceivingSearch(getUpnpService(), incomingRequest, pendingSearchResponses,
+                discoveryMessageCache);
     }
 
     protected ReceivingAsync createReceivingSearchResponse(IncomingDatagramMessage<UpnpResponse> incomingResponse) {
@@ -121,6 +152,71 @@ public class ProtocolFactoryImpl implements ProtocolFactory {
         return ntsHeader != null && ntsHeader.equals(NotificationSubtype.BYEBYE.getHeaderString());
     }
 
+    /**
+     * Most ALIVE notifications repeat the advertisement of a device which is already registered, these
+     * only refresh the expiration of the device in the registry, without creating a protocol.
+     *
+     * @return <code>true</code> if the message announced a known device unchanged and can be dropped.
+     */
+    protected boolean isRefreshedAlive(IncomingDatagramMessage message) {
+        String ntsHeader = message.getHeaders().getFirstHeader(UpnpHeader.Type.NTS.getHttpName());
+        if (ntsHeader == null || !ntsHeader.equals(NotificationSubtype.ALIVE.getHeaderString())) {
+            return false;
+        }
+        Registry registry = upnpService.getRegistry();
+        if (registry == null) {
+            return false;
+        }
+
+        String usnHeader = message.getHeaders().getFirstHeader(UpnpHeader.Type.USN.getHttpName());
+        String locationHeader = message.getHeaders().getFirstHeader(UpnpHeader.Type.LOCATION.getHttpName());
+        String maxAgeHeader = message.getHeaders().getFirstHeader(UpnpHeader.Type.MAX_AGE.getHttpName());
+        if (usnHeader == null || locationHeader == null || maxAgeHeader == null
+                || !usnHeader.startsWith(UDN.PREFIX)) {
+            return false;
+        }
+        int maxAgeSeconds = parseMaxAgeSeconds(maxAgeHeader);
+        if (maxAgeSeconds < 0) {
+            return false;
+        }
+
+        // The UDN is the part of the USN before any "::urn:..." or "::upnp:rootdevice" suffix
+        int end = usnHeader.indexOf("::");
+        UDN udn = new UDN(usnHeader.substring(UDN.PREFIX.length(), end < 0 ? usnHeader.length() : end));
+
+        return registry.refreshAlive(udn, locationHeader.trim(), message.getHeaders().getFirstHeader(BOOTID_HEADER),
+                maxAgeSeconds);
+    }
+
+    /**
+     * @return The <code>max-age</code> directive of a <code>CACHE-CONTROL</code> header value, or <code>-1</code>.
+     */
+    protected static int parseMaxAgeSeconds(String cacheControl) {
+        int index = cacheControl.toLowerCase(Locale.ENGLISH).indexOf("max-age");
+        if (index < 0) {
+            return -1;
+        }
+        index += "max-age".length();
+        while (index < cacheControl.length() && cacheControl.charAt(index) == ' ') {
+            index++;
+        }
+        if (index >= cacheControl.length() || cacheControl.charAt(index++) != '=') {
+            return -1;
+        }
+        while (index < cacheControl.length() && cacheControl.charAt(index) == ' ') {
+            index++;
+        }
+        int start = index;
+        while (index < cacheControl.length() && Character.isDigit(cacheControl.charAt(index))) {
+            index++;
+        }
+        try {
+            return start < index ? Integer.parseInt(cacheControl.substring(start, index)) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     protected boolean isSupportedServiceAdvertisement(IncomingDatagramMessage message) {
         UpnpServiceConfiguration config = upnpService.getConfiguration();
         if (config == null) {
@@ -202,7 +298,7 @@ public class ProtocolFactoryImpl implements ProtocolFactory {
 
     @Override
     public SendingNotificationAlive createSendingNotificationAlive(LocalDevice localDevice) {
-        return new SendingNotificationAlive(getUpnpService(), localDevice);
+        return new SendingNotificationAlive(getUpnpService(), localDevice, discoveryMessageCache);
     }
 
     @Override
@@ -210,6 +306,25 @@ public class ProtocolFactoryImpl implements ProtocolFactory {
         return new SendingNotificationByebye(getUpnpService(), localDevice);
     }
 
+    @Override
+    public void invalidateDiscoveryMessages(LocalDevice localDevice) {
+        if (localDevice != null) {
+            discoveryMessageCache.invalidate(localDevice);
+        } else {
+            discoveryMessageCache.invalidate();
+        }
+    }
+
+    @Override
+    public void invalidateDescriptors(LocalDevice localDevice) {
+        descriptorCache.invalidate(localDevice);
+    }
+
+    @Override
+    public void invalidateEventBodies(LocalDevice localDevice) {
+        eventBodyCache.invalidate(localDevice);
+    }
+
     @Override
     public SendingSearch createSendingSearch(UpnpHeader searchTarget, int mxSeconds) {
         return new SendingSearch(getUpnpService(), searchTarget, mxSeconds);
@@ -245,11 +360,21 @@ public class ProtocolFactoryImpl implements ProtocolFactory {
 
     @Override
     public SendingEvent createSendingEvent(LocalGENASubscription subscription) {
-        return new SendingEvent(getUpnpService(), subscription);
+        return new SendingEvent(getUpnpService(), subscription, eventBodyCache);
+    }
+
+    @Override
+    public void deliverEvent(LocalGENASubscription subscription) {
+        eventDelivery.deliver(subscription);
+    }
+
+    @Override
+    public void discardEvents(LocalGENASubscription subscription) {
+        eventDelivery.discard(subscription);
     }
 
     protected ReceivingRetrieval createReceivingRetrieval(StreamRequestMessage message) {
-        return new ReceivingRetrieval(getUpnpService(), message);
+        return new ReceivingRetrieval(getUpnpService(), message, descriptorCache);
     }
 
     protected ReceivingAction createReceivingAction(StreamRequestMessage message) {
@@ -67,16 +67,23 @@ public abstract class ReceivingAsync<M extends UpnpMessage> implements Runnable
         }
 
         if (proceed) {
-            try {
-                execute();
-            } catch (Exception e) {
-                Throwable cause = Exceptions.unwrap(e);
-                if (cause instanceof InterruptedException) {
-                    logger.info("Interrupted protocol '{}'", getClass().getSimpleName(), e);
-                } else {
-                    throw new RuntimeException(
-                            "Fatal error while executing protocol '" + getClass().getSimpleName() + "'", e);
-                }
+            executeProtocol();
+        }
+    }
+
+    /**
+     * Calls {@link #execute()}, also used by protocols which schedule their execution instead of waiting.
+     */
+    protected void executeProtocol() {
+        try {
+            execute();
+        } catch (Exception e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof InterruptedException) {
+                logger.info("Interrupted protocol '{}'", getClass().getSimpleName(), e);
+            } else {
+                throw new RuntimeException(
+                        "Fatal error while executing protocol '" + getClass().getSimpleName() + "'", e);
             }
         }
     }
@@ -84,7 +91,8 @@ public abstract class ReceivingAsync<M extends UpnpMessage> implements Runnable
     /**
      * Provides an opportunity to pause before executing the protocol.
      *
-     * @return <code>true</code> (default) if execution should continue after waiting.
+     * @return <code>true</code> (default) if execution should continue after waiting, <code>false</code> if the
+     *         protocol should not be executed or its execution has been scheduled.
      *
      * @throws InterruptedException If waiting has been interrupted, which also stops execution.
      */
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.protocol;
+
+import java.net.URL;
+
+import org.jupnp.model.types.UDN;
+
+/**
+ * Keeps the XML descriptors of remote devices across restarts of the UPnP stack.
+ * <p>
+ * {@link RetrieveRemoteDescriptors} revalidates a cached device descriptor with a conditional GET request. If the
+ * device descriptor has not changed, the cached service descriptors of the device are used without sending any
+ * further requests. Implementations have to be thread-safe.
+ * </p>
+ *
+ * @see org.jupnp.UpnpServiceConfiguration#getRemoteDescriptorCache()
+ */
+public interface RemoteDescriptorCache {
+
+    /**
+     * @param udn The UDN of the (root or embedded) device the descriptor belongs to.
+     * @param descriptorURL The URL the descriptor was retrieved from.
+     * @return The cached descriptor, or <code>null</code>.
+     */
+    Descriptor get(UDN udn, URL descriptorURL);
+
+    void put(UDN udn, URL descriptorURL, Descriptor descriptor);
+
+    void remove(UDN udn, URL descriptorURL);
+
+    /**
+     * The raw XML of a descriptor and the validators of the response it was received with.
+     */
+    class Descriptor {
+
+        private final String xml;
+        private final String entityTag;
+        private final String lastModified;
+
+        public Descriptor(String xml, String entityTag, String lastModified) {
+            this.xml = xml;
+            this.entityTag = entityTag;
+            this.lastModified = lastModified;
+        }
+
+        public String getXml() {
+            return xml;
+        }
+
+        /**
+         * @return The <code>ETag</code> header value of the response, or <code>null</code>.
+         */
+        public String getEntityTag() {
+            return entityTag;
+        }
+
+        /**
+         * @return The <code>Last-Modified</code> header value of the response, or <code>null</code>.
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public boolean hasValidator() {
+            return entityTag != null || lastModified != null;
+        }
+    }
+}
@@ -18,8 +18,18 @@ package org.jupnp.protocol;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jupnp.UpnpService;
 import org.jupnp.UpnpServiceConfiguration;
@@ -32,13 +42,16 @@ import org.jupnp.model.message.StreamRequestMessage;
 import org.jupnp.model.message.StreamResponseMessage;
 import org.jupnp.model.message.UpnpHeaders;
 import org.jupnp.model.message.UpnpRequest;
+import org.jupnp.model.message.UpnpResponse;
 import org.jupnp.model.meta.Icon;
 import org.jupnp.model.meta.RemoteDevice;
 import org.jupnp.model.meta.RemoteService;
 import org.jupnp.model.types.ServiceType;
 import org.jupnp.model.types.UDN;
+import org.jupnp.protocol.sync.ReceivingRetrieval;
 import org.jupnp.registry.RegistrationException;
 import org.jupnp.transport.RouterException;
+import org.jupnp.transport.spi.HostHealthTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,9 +69,22 @@ import org.slf4j.LoggerFactory;
  * hydrated device is then added to the {@link org.jupnp.registry.Registry}.
  * </p>
  * <p>
+ * The service descriptors of the root device and all embedded devices are retrieved concurrently on the
+ * {@link UpnpServiceConfiguration#getAsyncProtocolExecutor()}, with at most
+ * {@link UpnpServiceConfiguration#getMaxDescriptorRetrievalsPerHost()} requests to the same host at a time.
+ * The thread running this protocol takes part in the retrieval, it doesn't depend on free threads in the
+ * executor.
+ * </p>
+ * <p>
  * Any descriptor retrieval, parsing, or validation error of the metadata will abort this protocol
  * with a warning message in the log.
  * </p>
+ * <p>
+ * If a {@link UpnpServiceConfiguration#getRemoteDescriptorCache()} is configured, retrieved descriptors are
+ * stored in the cache. A cached device descriptor is revalidated with its <code>ETag</code> and
+ * <code>Last-Modified</code> validators, if the device responds with <em>304 Not Modified</em> or the same
+ * descriptor, the cached service descriptors are used instead of retrieving them.
+ * </p>
  *
  * @author Christian Bauer
  * @author Kai Kreuzer - fixed service and embedded device processing
@@ -70,9 +96,15 @@ public class RetrieveRemoteDescriptors implements Runnable {
     private final UpnpService upnpService;
     private RemoteDevice rd;
 
+    public static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    public static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
     private static final ConcurrentHashMap<URL, Boolean> activeRetrievals = new ConcurrentHashMap<>();
     protected List<UDN> errorsAlreadyLogged = new ArrayList<>();
 
+    // Set before the service descriptors are retrieved
+    protected boolean deviceDescriptorUnchanged;
+
     public RetrieveRemoteDescriptors(UpnpService upnpService, RemoteDevice rd) {
         this.upnpService = upnpService;
         this.rd = rd;
@@ -98,6 +130,14 @@ public class RetrieveRemoteDescriptors implements Runnable {
         // if we retrieve it once, we have the hydrated device. There is no different outcome
         // processing this several times concurrently.
 
+        HostHealthTracker hostHealth = getUpnpService().getRouter() != null
+                ? getUpnpService().getRouter().getHostHealthTracker()
+                : null;
+        if (hostHealth != null && !hostHealth.isAvailable(HostHealthTracker.getHost(deviceURL))) {
+            logger.debug("Exiting early, host is backed off after failed requests: {}", deviceURL);
+            return;
+        }
+
         if (activeRetrievals.putIfAbsent(deviceURL, Boolean.TRUE) != null) {
             logger.trace("Exiting early, active retrieval for URL already in progress: {}", deviceURL);
             return;
@@ -127,6 +167,10 @@ public class RetrieveRemoteDescriptors implements Runnable {
         StreamRequestMessage deviceDescRetrievalMsg;
         StreamResponseMessage deviceDescMsg;
 
+        UDN udn = rd.getIdentity().getUdn();
+        URL descriptorURL = rd.getIdentity().getDescriptorURL();
+        RemoteDescriptorCache.Descriptor cached = getCachedDescriptor(udn, descriptorURL);
+
         try {
 
             deviceDescRetrievalMsg = new StreamRequestMessage(UpnpRequest.Method.GET,
@@ -142,6 +186,7 @@ public class RetrieveRemoteDescriptors implements Runnable {
             } else {
                 logger.debug("Configuration not available, skipping descriptor retrieval headers");
             }
+            addValidators(deviceDescRetrievalMsg, cached);
 
             logger.debug("Sending device descriptor retrieval message: {}", deviceDescRetrievalMsg);
             deviceDescMsg = getUpnpService().getRouter().send(deviceDescRetrievalMsg);
@@ -159,6 +204,13 @@ public class RetrieveRemoteDescriptors implements Runnable {
             return;
         }
 
+        if (isNotModified(deviceDescMsg, cached)) {
+            logger.debug("Device descriptor not modified, using cached descriptors: {}", descriptorURL);
+            deviceDescriptorUnchanged = true;
+            describe(cached.getXml());
+            return;
+        }
+
         if (deviceDescMsg.getOperation().isFailed()) {
             logger.warn("Device descriptor retrieval failed: {}, {}", rd.getIdentity().getDescriptorURL(),
                     deviceDescMsg.getOperation().getResponseDetails());
@@ -178,6 +230,8 @@ public class RetrieveRemoteDescriptors implements Runnable {
         }
 
         logger.debug("Received root device descriptor: {}", deviceDescMsg);
+        deviceDescriptorUnchanged = cached != null && cached.getXml().equals(descriptorContent);
+        cacheDescriptor(udn, descriptorURL, descriptorContent, deviceDescMsg, cached);
         describe(descriptorContent);
     }
 
@@ -226,6 +280,7 @@ public class RetrieveRemoteDescriptors implements Runnable {
                 getUpnpService().getRegistry().addDevice(hydratedDevice);
             }
         } catch (ValidationException e) {
+            removeCachedDescriptor(rd.getIdentity().getUdn(), rd.getIdentity().getDescriptorURL());
             // Avoid error log spam each time device is discovered, errors are logged once per device.
             if (!errorsAlreadyLogged.contains(rd.getIdentity().getUdn())) {
                 errorsAlreadyLogged.add(rd.getIdentity().getUdn());
@@ -239,6 +294,7 @@ public class RetrieveRemoteDescriptors implements Runnable {
             }
 
         } catch (DescriptorBindingException e) {
+            removeCachedDescriptor(rd.getIdentity().getUdn(), rd.getIdentity().getDescriptorURL());
             logger.warn("Could not hydrate device or its services from descriptor: {}", rd, e);
             if (describedDevice != null && notifiedStart) {
                 getUpnpService().getRegistry().notifyDiscoveryFailure(describedDevice, e);
@@ -255,11 +311,97 @@ public class RetrieveRemoteDescriptors implements Runnable {
     protected RemoteDevice describeServices(RemoteDevice currentDevice)
             throws RouterException, DescriptorBindingException, ValidationException {
 
+        List<RemoteService> services = new ArrayList<>();
+        collectServices(currentDevice, services);
+
+        return hydrateDevice(currentDevice, describeServices(services));
+    }
+
+    protected void collectServices(RemoteDevice currentDevice, List<RemoteService> services) {
+        if (currentDevice.hasServices()) {
+            services.addAll(filterExclusiveServices(currentDevice.getServices()));
+        }
+        if (currentDevice.hasEmbeddedDevices()) {
+            for (RemoteDevice embeddedDevice : currentDevice.getEmbeddedDevices()) {
+                if (embeddedDevice != null) {
+                    collectServices(embeddedDevice, services);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the descriptors of all given services concurrently and waits until all are described.
+     *
+     * @return The described services, a service is missing if it could not be described.
+     * @throws RouterException The first exception in the order of the given services, as if the services had
+     *             been described one after another.
+     */
+    protected Map<RemoteService, RemoteService> describeServices(List<RemoteService> services)
+            throws RouterException, DescriptorBindingException, ValidationException {
+
+        Map<String, HostRetrievals> hosts = new LinkedHashMap<>();
+        List<ServiceRetrieval> retrievals = new ArrayList<>(services.size());
+        for (RemoteService service : services) {
+            ServiceRetrieval retrieval = new ServiceRetrieval(service);
+            retrievals.add(retrieval);
+            hosts.computeIfAbsent(getHost(service), host -> new HostRetrievals()).queue.add(retrieval);
+        }
+
+        CountDownLatch described = new CountDownLatch(retrievals.size());
+        UpnpServiceConfiguration config = getUpnpService().getConfiguration();
+        int maxPerHost = config != null ? Math.max(1, config.getMaxDescriptorRetrievalsPerHost()) : 1;
+        Executor executor = config != null ? config.getAsyncProtocolExecutor() : null;
+
+        if (executor != null && maxPerHost > 1) {
+            try {
+                for (HostRetrievals host : hosts.values()) {
+                    for (int i = 1; i < Math.min(maxPerHost, host.queue.size()); i++) {
+                        executor.execute(() -> host.describe(maxPerHost, described));
+                    }
+                }
+            } catch (RejectedExecutionException e) {
+                logger.debug("Executor rejected concurrent service descriptor retrieval, continuing on this thread");
+            }
+        }
+
+        // Whatever has not been started by the executor is retrieved by this thread
+        for (HostRetrievals host : hosts.values()) {
+            host.describe(maxPerHost, described);
+        }
+        try {
+            described.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RouterException("Interrupted while retrieving service descriptors", e);
+        }
+
+        Map<RemoteService, RemoteService> describedServices = new IdentityHashMap<>();
+        for (ServiceRetrieval retrieval : retrievals) {
+            if (retrieval.exception instanceof RouterException) {
+                throw (RouterException) retrieval.exception;
+            } else if (retrieval.exception instanceof DescriptorBindingException) {
+                throw (DescriptorBindingException) retrieval.exception;
+            } else if (retrieval.exception instanceof ValidationException) {
+                throw (ValidationException) retrieval.exception;
+            } else if (retrieval.exception instanceof RuntimeException) {
+                throw (RuntimeException) retrieval.exception;
+            }
+            if (retrieval.describedService != null) {
+                describedServices.put(retrieval.service, retrieval.describedService);
+            }
+        }
+        return describedServices;
+    }
+
+    protected RemoteDevice hydrateDevice(RemoteDevice currentDevice, Map<RemoteService, RemoteService> described)
+            throws ValidationException {
+
         List<RemoteService> describedServices = new ArrayList<>();
         if (currentDevice.hasServices()) {
             List<RemoteService> filteredServices = filterExclusiveServices(currentDevice.getServices());
             for (RemoteService service : filteredServices) {
-                RemoteService svc = describeService(service);
+                RemoteService svc = described.get(service);
                 if (svc != null) {
                     describedServices.add(svc);
                 }
@@ -272,7 +414,7 @@ public class RetrieveRemoteDescriptors implements Runnable {
                 if (embeddedDevice == null) {
                     continue;
                 }
-                RemoteDevice describedEmbeddedDevice = describeServices(embeddedDevice);
+                RemoteDevice describedEmbeddedDevice = hydrateDevice(embeddedDevice, described);
                 if (describedEmbeddedDevice != null) {
                     describedEmbeddedDevices.add(describedEmbeddedDevice);
                 }
@@ -297,6 +439,16 @@ public class RetrieveRemoteDescriptors implements Runnable {
                 currentDevice.toServiceArray(describedServices), describedEmbeddedDevices);
     }
 
+    protected String getHost(RemoteService service) {
+        try {
+            URL descriptorURL = service.getDevice().normalizeURI(service.getDescriptorURI());
+            return descriptorURL.getHost() + ":" + descriptorURL.getPort();
+        } catch (IllegalArgumentException e) {
+            // Fails again when the descriptor is retrieved
+            return "";
+        }
+    }
+
     protected RemoteService describeService(RemoteService service)
             throws RouterException, DescriptorBindingException, ValidationException {
 
@@ -314,43 +466,119 @@ public class RetrieveRemoteDescriptors implements Runnable {
             return null;
         }
 
-        StreamRequestMessage serviceDescRetrievalMsg = new StreamRequestMessage(UpnpRequest.Method.GET, descriptorURL);
+        UDN udn = service.getDevice().getIdentity().getUdn();
+        RemoteDescriptorCache.Descriptor cached = getCachedDescriptor(udn, descriptorURL);
+        String descriptorContent;
 
-        // Extra headers
-        UpnpHeaders headers = config.getDescriptorRetrievalHeaders(service.getDevice().getIdentity());
-        if (headers != null) {
-            serviceDescRetrievalMsg.getHeaders().putAll(headers);
-        }
+        if (cached != null && deviceDescriptorUnchanged) {
+            logger.debug("Device descriptor unchanged, using cached service descriptor: {}", descriptorURL);
+            descriptorContent = cached.getXml();
+        } else {
+            StreamRequestMessage serviceDescRetrievalMsg = new StreamRequestMessage(UpnpRequest.Method.GET,
+                    descriptorURL);
 
-        logger.debug("Sending service descriptor retrieval message: {}", serviceDescRetrievalMsg);
-        StreamResponseMessage serviceDescMsg = getUpnpService().getRouter().send(serviceDescRetrievalMsg);
+            // Extra headers
+            UpnpHeaders headers = config.getDescriptorRetrievalHeaders(service.getDevice().getIdentity());
+            if (headers != null) {
+                serviceDescRetrievalMsg.getHeaders().putAll(headers);
+            }
+            addValidators(serviceDescRetrievalMsg, cached);
 
-        if (serviceDescMsg == null) {
-            logger.warn("Could not retrieve service descriptor, no response: {}", service);
-            return null;
+            logger.debug("Sending service descriptor retrieval message: {}", serviceDescRetrievalMsg);
+            StreamResponseMessage serviceDescMsg = getUpnpService().getRouter().send(serviceDescRetrievalMsg);
+
+            if (serviceDescMsg == null) {
+                logger.warn("Could not retrieve service descriptor, no response: {}", service);
+                return null;
+            }
+
+            if (isNotModified(serviceDescMsg, cached)) {
+                logger.debug("Service descriptor not modified, using cached descriptor: {}", descriptorURL);
+                descriptorContent = cached.getXml();
+            } else {
+                if (serviceDescMsg.getOperation().isFailed()) {
+                    logger.warn("Service descriptor retrieval failed: {}, {}", descriptorURL,
+                            serviceDescMsg.getOperation().getResponseDetails());
+                    return null;
+                }
+
+                if (!serviceDescMsg.isContentTypeTextUDA()) {
+                    logger.debug("Received service descriptor without or with invalid Content-Type: {}",
+                            descriptorURL);
+                    // We continue despite the invalid UPnP message because we can still hope to convert the content
+                }
+
+                descriptorContent = serviceDescMsg.getBodyString();
+                if (descriptorContent == null || descriptorContent.isEmpty()) {
+                    logger.warn("Received empty service descriptor: {}", descriptorURL);
+                    return null;
+                }
+
+                logger.debug("Received service descriptor, hydrating service model: {}", serviceDescMsg);
+                cacheDescriptor(udn, descriptorURL, descriptorContent, serviceDescMsg, cached);
+            }
         }
 
-        if (serviceDescMsg.getOperation().isFailed()) {
-            logger.warn("Service descriptor retrieval failed: {}, {}", descriptorURL,
-                    serviceDescMsg.getOperation().getResponseDetails());
-            return null;
+        ServiceDescriptorBinder serviceDescriptorBinder = config.getServiceDescriptorBinderUDA10();
+        try {
+            return serviceDescriptorBinder.describe(service, descriptorContent);
+        } catch (DescriptorBindingException | ValidationException e) {
+            removeCachedDescriptor(udn, descriptorURL);
+            throw e;
         }
+    }
 
-        if (!serviceDescMsg.isContentTypeTextUDA()) {
-            logger.debug("Received service descriptor without or with invalid Content-Type: {}", descriptorURL);
-            // We continue despite the invalid UPnP message because we can still hope to convert the content
+    protected RemoteDescriptorCache getDescriptorCache() {
+        UpnpServiceConfiguration config = getUpnpService().getConfiguration();
+        return config != null ? config.getRemoteDescriptorCache() : null;
+    }
+
+    protected RemoteDescriptorCache.Descriptor getCachedDescriptor(UDN udn, URL descriptorURL) {
+        RemoteDescriptorCache cache = getDescriptorCache();
+        return cache != null && udn != null && descriptorURL != null ? cache.get(udn, descriptorURL) : null;
+    }
+
+    protected void removeCachedDescriptor(UDN udn, URL descriptorURL) {
+        RemoteDescriptorCache cache = getDescriptorCache();
+        if (cache != null && udn != null && descriptorURL != null) {
+            cache.remove(udn, descriptorURL);
         }
+    }
 
-        String descriptorContent = serviceDescMsg.getBodyString();
-        if (descriptorContent == null || descriptorContent.isEmpty()) {
-            logger.warn("Received empty service descriptor: {}", descriptorURL);
-            return null;
+    /**
+     * Stores a retrieved descriptor, unless the cached descriptor is unchanged.
+     */
+    protected void cacheDescriptor(UDN udn, URL descriptorURL, String descriptorXML, StreamResponseMessage response,
+            RemoteDescriptorCache.Descriptor cached) {
+        RemoteDescriptorCache cache = getDescriptorCache();
+        if (cache == null || udn == null || descriptorURL == null) {
+            return;
         }
+        String entityTag = response.getHeaders().getFirstHeader(ReceivingRetrieval.HEADER_ETAG);
+        String lastModified = response.getHeaders().getFirstHeader(HEADER_LAST_MODIFIED);
+        if (cached != null && cached.getXml().equals(descriptorXML)
+                && Objects.equals(cached.getEntityTag(), entityTag)
+                && Objects.equals(cached.getLastModified(), lastModified)) {
+            return;
+        }
+        cache.put(udn, descriptorURL, new RemoteDescriptorCache.Descriptor(descriptorXML, entityTag, lastModified));
+    }
 
-        logger.debug("Received service descriptor, hydrating service model: {}", serviceDescMsg);
-        ServiceDescriptorBinder serviceDescriptorBinder = config.getServiceDescriptorBinderUDA10();
+    protected void addValidators(StreamRequestMessage request, RemoteDescriptorCache.Descriptor cached) {
+        if (cached == null) {
+            return;
+        }
+        if (cached.getEntityTag() != null) {
+            request.getHeaders().add(ReceivingRetrieval.HEADER_IF_NONE_MATCH, cached.getEntityTag());
+        }
+        if (cached.getLastModified() != null) {
+            request.getHeaders().add(HEADER_IF_MODIFIED_SINCE, cached.getLastModified());
+        }
+    }
 
-        return serviceDescriptorBinder.describe(service, descriptorContent);
+    protected boolean isNotModified(StreamResponseMessage response, RemoteDescriptorCache.Descriptor cached) {
+        return cached != null && cached.hasValidator()
+                && response.getOperation().getStatusCode() == UpnpResponse.Status.NOT_MODIFIED.getStatusCode();
     }
 
     protected List<RemoteService> filterExclusiveServices(RemoteService[] services) {
@@ -380,6 +608,51 @@ public class RetrieveRemoteDescriptors implements Runnable {
         return exclusiveServices;
     }
 
+    private class ServiceRetrieval {
+
+        final RemoteService service;
+        RemoteService describedService;
+        Exception exception;
+
+        ServiceRetrieval(RemoteService service) {
+            this.service = service;
+        }
+    }
+
+    private class HostRetrievals {
+
+        final Queue<ServiceRetrieval> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger workers = new AtomicInteger();
+
+        /**
+         * Describes queued services until the queue is empty, unless the host already has enough workers.
+         */
+        void describe(int maxWorkers, CountDownLatch described) {
+            int current;
+            do {
+                current = workers.get();
+                if (current >= maxWorkers) {
+                    return;
+                }
+            } while (!workers.compareAndSet(current, current + 1));
+
+            try {
+                ServiceRetrieval retrieval;
+                while ((retrieval = queue.poll()) != null) {
+                    try {
+                        retrieval.describedService = describeService(retrieval.service);
+                    } catch (Exception e) {
+                        retrieval.exception = e;
+                    } finally {
+                        described.countDown();
+                    }
+                }
+            } finally {
+                workers.decrementAndGet();
+            }
+        }
+    }
+
     /**
      * Check if the descriptor that is going to be retrieved by this task is already being retrieved by another task.
      * Can be used for optimization to prevent submitting tasks that are not going to retrieve a new descriptor.
@@ -15,6 +15,10 @@
  */
 package org.jupnp.protocol;
 
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import org.jupnp.UpnpService;
 import org.jupnp.transport.RouterException;
 import org.jupnp.util.Exceptions;
@@ -65,6 +69,58 @@ public abstract class SendingAsync implements Runnable {
 
     protected abstract void execute() throws RouterException;
 
+    /**
+     * Sends one bulk of messages.
+     */
+    protected interface Repetition {
+        void send() throws RouterException;
+    }
+
+    /**
+     * Sends the first bulk on the calling thread and schedules the following ones with the
+     * {@link org.jupnp.UpnpServiceConfiguration#getScheduledExecutorService()}, no thread waits in between.
+     *
+     * @return <code>false</code> if the configuration has no scheduler, nothing has been sent.
+     */
+    protected boolean scheduleRepetitions(int repeat, int intervalMilliseconds, Repetition repetition)
+            throws RouterException {
+        ScheduledExecutorService scheduler = getUpnpService().getConfiguration().getScheduledExecutorService();
+        if (scheduler == null) {
+            return false;
+        }
+        if (repeat <= 0) {
+            return true;
+        }
+
+        repetition.send();
+
+        for (int i = 1; i < repeat; i++) {
+            logger.trace("Scheduling repetition {} in {} milliseconds", i, (long) i * intervalMilliseconds);
+            try {
+                scheduler.schedule(() -> getUpnpService().getConfiguration().getAsyncProtocolExecutor()
+                        .execute(() -> sendRepetition(repetition)), (long) i * intervalMilliseconds,
+                        TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.trace("Scheduler rejected repetition (on shutdown?): {}", this);
+                break;
+            }
+        }
+        return true;
+    }
+
+    protected void sendRepetition(Repetition repetition) {
+        try {
+            repetition.send();
+        } catch (RouterException e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof InterruptedException) {
+                logger.info("Interrupted protocol", e);
+            } else {
+                logger.warn("Sending repetition of protocol '{}' failed", getClass().getSimpleName(), e);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "(" + getClass().getSimpleName() + ")";
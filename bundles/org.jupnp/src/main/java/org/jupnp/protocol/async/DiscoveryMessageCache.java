@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.protocol.async;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.jupnp.model.Location;
+import org.jupnp.model.message.OutgoingDatagramMessage;
+import org.jupnp.model.meta.LocalDevice;
+import org.jupnp.model.types.UDN;
+import org.jupnp.transport.spi.DatagramProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pre-encoded discovery messages of local devices, for each descriptor location.
+ * <p>
+ * Advertisements and search responses of a device don't change between cycles, they are created and encoded by
+ * the {@link DatagramProcessor} once and then only sent again. The messages of a device have to be invalidated
+ * when the device is added to or removed from the registry, and all messages when the network addresses of the
+ * stream servers might change.
+ * </p>
+ */
+public class DiscoveryMessageCache {
+
+    private final Logger logger = LoggerFactory.getLogger(DiscoveryMessageCache.class);
+
+    // Root device UDN -> Location and message kind -> messages
+    private final Map<UDN, Map<List<Object>, List<? extends OutgoingDatagramMessage>>> messages
+            = new ConcurrentHashMap<>();
+
+    /**
+     * @param device The root or embedded device of the messages.
+     * @param location The descriptor location advertised by the messages.
+     * @param kind Identifies the messages of the device and location, e.g. the notification subtype.
+     * @param processor Encodes the created messages, might be <code>null</code>.
+     * @param factory Creates the messages if they are not cached.
+     * @return The cached messages, not to be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public <M extends OutgoingDatagramMessage> List<M> get(LocalDevice device, Location location, Object kind,
+            DatagramProcessor processor, Supplier<List<M>> factory) {
+        UDN rootUdn = device.getRoot().getIdentity().getUdn();
+        return (List<M>) messages.computeIfAbsent(rootUdn, udn -> new ConcurrentHashMap<>())
+                .computeIfAbsent(List.of(device.getIdentity().getUdn(), location, kind), key -> {
+                    logger.trace("Creating and encoding {} messages of {} for: {}", kind, device, location);
+                    List<M> msgs = List.copyOf(factory.get());
+                    if (processor != null) {
+                        for (M msg : msgs) {
+                            processor.write(msg);
+                        }
+                    }
+                    return msgs;
+                });
+    }
+
+    /**
+     * Discards the messages of the given device and its embedded devices.
+     */
+    public void invalidate(LocalDevice device) {
+        if (messages.remove(device.getRoot().getIdentity().getUdn()) != null) {
+            logger.trace("Discarded cached discovery messages of: {}", device);
+        }
+    }
+
+    /**
+     * Discards all messages.
+     */
+    public void invalidate() {
+        messages.clear();
+        logger.trace("Discarded all cached discovery messages");
+    }
+}
@@ -19,6 +19,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.jupnp.UpnpService;
 import org.jupnp.model.DiscoveryOptions;
@@ -54,11 +60,16 @@ import org.slf4j.LoggerFactory;
  * <p>
  * Waits a random time between 0 and the requested <em>MX</em> (maximum 120 seconds)
  * before executing. Only waits if there are actually any registered local devices.
+ * If the configuration provides a {@link org.jupnp.UpnpServiceConfiguration#getScheduledExecutorService()},
+ * the execution is scheduled and no thread is blocked while waiting. A search from the same requester with
+ * the same search target, received while a response is still waiting, is answered by that response.
  * </p>
  * <p>
  * Extracts the <em>search target</em>, builds and sends the dozens of messages
  * required by the UPnP specification, depending on the search target and what
  * local devices and services are found in the {@link org.jupnp.registry.Registry}.
+ * The responses are taken from a {@link DiscoveryMessageCache} if one is provided, they are then only
+ * created and encoded once for each descriptor location and copied for each requester.
  * </p>
  *
  * @author Christian Bauer
@@ -71,8 +82,31 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
 
     protected final Random randomGenerator = new Random();
 
+    protected final Set<String> pendingResponses;
+
+    protected final DiscoveryMessageCache messageCache;
+
     public ReceivingSearch(UpnpService upnpService, IncomingDatagramMessage<UpnpRequest> inputMessage) {
+        this(upnpService, inputMessage, ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * @param pendingResponses Shared by all search protocols of a UPnP stack to coalesce duplicate searches.
+     */
+    public ReceivingSearch(UpnpService upnpService, IncomingDatagramMessage<UpnpRequest> inputMessage,
+            Set<String> pendingResponses) {
+        this(upnpService, inputMessage, pendingResponses, null);
+    }
+
+    /**
+     * @param pendingResponses Shared by all search protocols of a UPnP stack to coalesce duplicate searches.
+     * @param messageCache Shared by all discovery protocols of a UPnP stack, might be <code>null</code>.
+     */
+    public ReceivingSearch(UpnpService upnpService, IncomingDatagramMessage<UpnpRequest> inputMessage,
+            Set<String> pendingResponses, DiscoveryMessageCache messageCache) {
         super(upnpService, new IncomingSearchRequest(inputMessage));
+        this.pendingResponses = pendingResponses;
+        this.messageCache = messageCache;
     }
 
     @Override
@@ -124,13 +158,45 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
             mx = MXHeader.DEFAULT_VALUE;
 
         // Only wait if there is something to wait for
-        if (!getUpnpService().getRegistry().getLocalDevices().isEmpty()) {
-            int sleepTime = randomGenerator.nextInt(mx * 1000);
+        if (getUpnpService().getRegistry().getLocalDevices().isEmpty()) {
+            return true;
+        }
+
+        String pendingKey = getPendingResponseKey();
+        if (!pendingResponses.add(pendingKey)) {
+            logger.trace("Search response for the same requester and search target already pending: {}", pendingKey);
+            return false;
+        }
+
+        int sleepTime = randomGenerator.nextInt(mx * 1000);
+        ScheduledExecutorService scheduler = getUpnpService().getConfiguration().getScheduledExecutorService();
+        if (scheduler == null) {
             logger.trace("Sleeping {} milliseconds to avoid flooding with search responses", sleepTime);
-            Thread.sleep(sleepTime);
+            try {
+                Thread.sleep(sleepTime);
+            } finally {
+                pendingResponses.remove(pendingKey);
+            }
+            return true;
+        }
+
+        logger.trace("Scheduling search response in {} milliseconds to avoid flooding", sleepTime);
+        try {
+            scheduler.schedule(() -> {
+                pendingResponses.remove(pendingKey);
+                getUpnpService().getConfiguration().getAsyncProtocolExecutor().execute(this::executeProtocol);
+            }, sleepTime, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingResponses.remove(pendingKey);
+            logger.trace("Scheduler rejected search response (on shutdown?): {}", getInputMessage());
         }
+        return false;
+    }
 
-        return true;
+    protected String getPendingResponseKey() {
+        return getInputMessage().getSourceAddress() + ":" + getInputMessage().getSourcePort() + " on "
+                + getInputMessage().getLocalAddress() + " for "
+                + getInputMessage().getHeaders().getFirstHeaderString(UpnpHeader.Type.ST);
     }
 
     protected void sendResponses(UpnpHeader searchTarget, NetworkAddress activeStreamServer) throws RouterException {
@@ -169,39 +235,29 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
                 continue;
             }
 
-            // We are re-using the regular notification messages here but override the NT with the ST header
             if (LOG_ENABLED) {
-                logger.trace("Sending root device messages: {}", localDevice);
+                logger.trace("Sending all device and service type messages: {}", localDevice);
             }
-            List<OutgoingSearchResponse> rootDeviceMsgs = createDeviceMessages(localDevice, activeStreamServer);
-            for (OutgoingSearchResponse upnpMessage : rootDeviceMsgs) {
+            for (OutgoingSearchResponse upnpMessage : getResponses(localDevice, activeStreamServer,
+                    STAllHeader.class, () -> createAllMessages(localDevice, activeStreamServer))) {
                 getUpnpService().getRouter().send(upnpMessage);
             }
+        }
+    }
 
-            if (localDevice.hasEmbeddedDevices()) {
-                for (LocalDevice embeddedDevice : localDevice.findEmbeddedDevices()) {
-                    if (LOG_ENABLED) {
-                        logger.trace("Sending embedded device messages: {}", embeddedDevice);
-                    }
-                    List<OutgoingSearchResponse> embeddedDeviceMsgs = createDeviceMessages(embeddedDevice,
-                            activeStreamServer);
-                    for (OutgoingSearchResponse upnpMessage : embeddedDeviceMsgs) {
-                        getUpnpService().getRouter().send(upnpMessage);
-                    }
-                }
-            }
+    protected List<OutgoingSearchResponse> createAllMessages(LocalDevice localDevice,
+            NetworkAddress activeStreamServer) {
+        // We are re-using the regular notification messages here but override the NT with the ST header
+        List<OutgoingSearchResponse> msgs = new ArrayList<>(createDeviceMessages(localDevice, activeStreamServer));
 
-            List<OutgoingSearchResponse> serviceTypeMsgs = createServiceTypeMessages(localDevice, activeStreamServer);
-            if (!serviceTypeMsgs.isEmpty()) {
-                if (LOG_ENABLED) {
-                    logger.trace("Sending service type messages");
-                }
-                for (OutgoingSearchResponse upnpMessage : serviceTypeMsgs) {
-                    getUpnpService().getRouter().send(upnpMessage);
-                }
+        if (localDevice.hasEmbeddedDevices()) {
+            for (LocalDevice embeddedDevice : localDevice.findEmbeddedDevices()) {
+                msgs.addAll(createDeviceMessages(embeddedDevice, activeStreamServer));
             }
-
         }
+
+        msgs.addAll(createServiceTypeMessages(localDevice, activeStreamServer));
+        return msgs;
     }
 
     protected List<OutgoingSearchResponse> createDeviceMessages(LocalDevice device, NetworkAddress activeStreamServer) {
@@ -247,10 +303,11 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
                 continue;
             }
 
-            OutgoingSearchResponse message = new OutgoingSearchResponseRootDevice(getInputMessage(),
-                    getDescriptorLocation(activeStreamServer, device), device);
-            prepareOutgoingSearchResponse(message);
-            getUpnpService().getRouter().send(message);
+            for (OutgoingSearchResponse message : getResponses(device, activeStreamServer, RootDeviceHeader.class,
+                    () -> prepareOutgoingSearchResponses(new OutgoingSearchResponseRootDevice(
+                            getInputMessage(), getDescriptorLocation(activeStreamServer, device), device)))) {
+                getUpnpService().getRouter().send(message);
+            }
         }
     }
 
@@ -263,10 +320,12 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
             }
 
             logger.trace("Responding to UDN device search: {}", udn);
-            OutgoingSearchResponse message = new OutgoingSearchResponseUDN(getInputMessage(),
-                    getDescriptorLocation(activeStreamServer, (LocalDevice) device), (LocalDevice) device);
-            prepareOutgoingSearchResponse(message);
-            getUpnpService().getRouter().send(message);
+            LocalDevice localDevice = (LocalDevice) device;
+            for (OutgoingSearchResponse message : getResponses(localDevice, activeStreamServer, UDNHeader.class,
+                    () -> prepareOutgoingSearchResponses(new OutgoingSearchResponseUDN(getInputMessage(),
+                            getDescriptorLocation(activeStreamServer, localDevice), localDevice)))) {
+                getUpnpService().getRouter().send(message);
+            }
         }
     }
 
@@ -282,10 +341,14 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
                 }
 
                 logger.trace("Sending matching device type search result for: {}", device);
-                OutgoingSearchResponse message = new OutgoingSearchResponseDeviceType(getInputMessage(),
-                        getDescriptorLocation(activeStreamServer, (LocalDevice) device), (LocalDevice) device);
-                prepareOutgoingSearchResponse(message);
-                getUpnpService().getRouter().send(message);
+                LocalDevice localDevice = (LocalDevice) device;
+                for (OutgoingSearchResponse message : getResponses(localDevice, activeStreamServer,
+                        DeviceTypeHeader.class,
+                        () -> prepareOutgoingSearchResponses(new OutgoingSearchResponseDeviceType(
+                                getInputMessage(), getDescriptorLocation(activeStreamServer, localDevice),
+                                localDevice)))) {
+                    getUpnpService().getRouter().send(message);
+                }
             }
         }
     }
@@ -302,15 +365,36 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
                 }
 
                 logger.trace("Sending matching service type search result: {}", device);
-                OutgoingSearchResponse message = new OutgoingSearchResponseServiceType(getInputMessage(),
-                        getDescriptorLocation(activeStreamServer, (LocalDevice) device), (LocalDevice) device,
-                        serviceType);
-                prepareOutgoingSearchResponse(message);
-                getUpnpService().getRouter().send(message);
+                LocalDevice localDevice = (LocalDevice) device;
+                for (OutgoingSearchResponse message : getResponses(localDevice, activeStreamServer, serviceType,
+                        () -> prepareOutgoingSearchResponses(new OutgoingSearchResponseServiceType(
+                                getInputMessage(), getDescriptorLocation(activeStreamServer, localDevice),
+                                localDevice, serviceType)))) {
+                    getUpnpService().getRouter().send(message);
+                }
             }
         }
     }
 
+    /**
+     * @param kind Identifies the responses of the device, they are only created if they are not cached.
+     * @return The responses addressed to the requester of this search.
+     */
+    protected List<OutgoingSearchResponse> getResponses(LocalDevice device, NetworkAddress activeStreamServer,
+            Object kind, Supplier<List<OutgoingSearchResponse>> factory) {
+        if (messageCache == null) {
+            return factory.get();
+        }
+        List<OutgoingSearchResponse> cached = messageCache.get(device,
+                getDescriptorLocation(activeStreamServer, device), kind,
+                getUpnpService().getConfiguration().getDatagramProcessor(), factory);
+        List<OutgoingSearchResponse> msgs = new ArrayList<>(cached.size());
+        for (OutgoingSearchResponse msg : cached) {
+            msgs.add(new OutgoingSearchResponse(msg, getInputMessage()));
+        }
+        return msgs;
+    }
+
     protected Location getDescriptorLocation(NetworkAddress activeStreamServer, LocalDevice device) {
         return new Location(activeStreamServer,
                 getUpnpService().getConfiguration().getNamespace().getDescriptorPathString(device));
@@ -323,7 +407,15 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
 
     /**
      * Override this to edit the outgoing message, e.g. by adding headers.
+     * <p>
+     * If responses are cached, this is called once when a response is created, not for every search request.
+     * </p>
      */
     protected void prepareOutgoingSearchResponse(OutgoingSearchResponse message) {
     }
+
+    private List<OutgoingSearchResponse> prepareOutgoingSearchResponses(OutgoingSearchResponse message) {
+        prepareOutgoingSearchResponse(message);
+        return List.of(message);
+    }
 }
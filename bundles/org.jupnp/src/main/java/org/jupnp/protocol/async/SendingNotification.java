@@ -40,6 +40,15 @@ import org.slf4j.LoggerFactory;
  * Sends all required (dozens) of messages three times, waits between 0 and 150
  * milliseconds between each bulk sending procedure.
  * </p>
+ * <p>
+ * The repetitions are scheduled if the configuration provides a
+ * {@link org.jupnp.UpnpServiceConfiguration#getScheduledExecutorService()}, unless this protocol is
+ * {@link #setBlocking(boolean) blocking}.
+ * </p>
+ * <p>
+ * The messages are taken from a {@link DiscoveryMessageCache} if one is provided, they are only created and
+ * encoded once for each descriptor location.
+ * </p>
  *
  * @author Christian Bauer
  */
@@ -49,15 +58,36 @@ public abstract class SendingNotification extends SendingAsync {
 
     private LocalDevice device;
 
+    private boolean blocking;
+
+    private final DiscoveryMessageCache messageCache;
+
     protected SendingNotification(UpnpService upnpService, LocalDevice device) {
+        this(upnpService, device, null);
+    }
+
+    protected SendingNotification(UpnpService upnpService, LocalDevice device, DiscoveryMessageCache messageCache) {
         super(upnpService);
         this.device = device;
+        this.messageCache = messageCache;
     }
 
     public LocalDevice getDevice() {
         return device;
     }
 
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    /**
+     * @param blocking <code>true</code> if all repetitions have to be sent before {@link #run()} returns, e.g. when
+     *            the UPnP stack shuts down after sending.
+     */
+    public void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
     @Override
     protected void execute() throws RouterException {
 
@@ -74,6 +104,14 @@ public abstract class SendingNotification extends SendingAsync {
                     getUpnpService().getConfiguration().getNamespace().getDescriptorPathString(getDevice())));
         }
 
+        if (!isBlocking() && scheduleRepetitions(getBulkRepeat(), getBulkIntervalMilliseconds(), () -> {
+            for (Location descriptorLocation : descriptorLocations) {
+                sendMessages(descriptorLocation);
+            }
+        })) {
+            return;
+        }
+
         for (int i = 0; i < getBulkRepeat(); i++) {
             try {
 
@@ -100,30 +138,31 @@ public abstract class SendingNotification extends SendingAsync {
     }
 
     public void sendMessages(Location descriptorLocation) throws RouterException {
-        logger.trace("Sending root device messages: {}", getDevice());
-        List<OutgoingNotificationRequest> rootDeviceMsgs = createDeviceMessages(getDevice(), descriptorLocation);
-        for (OutgoingNotificationRequest upnpMessage : rootDeviceMsgs) {
+        logger.trace("Sending notification messages: {}", getDevice());
+        for (OutgoingNotificationRequest upnpMessage : getMessages(descriptorLocation)) {
             getUpnpService().getRouter().send(upnpMessage);
         }
+    }
+
+    protected List<OutgoingNotificationRequest> getMessages(Location descriptorLocation) {
+        if (messageCache == null) {
+            return createMessages(descriptorLocation);
+        }
+        return messageCache.get(getDevice(), descriptorLocation, getNotificationSubtype(),
+                getUpnpService().getConfiguration().getDatagramProcessor(), () -> createMessages(descriptorLocation));
+    }
+
+    protected List<OutgoingNotificationRequest> createMessages(Location descriptorLocation) {
+        List<OutgoingNotificationRequest> msgs = new ArrayList<>(createDeviceMessages(getDevice(), descriptorLocation));
 
         if (getDevice().hasEmbeddedDevices()) {
             for (LocalDevice embeddedDevice : getDevice().findEmbeddedDevices()) {
-                logger.trace("Sending embedded device messages: {}", embeddedDevice);
-                List<OutgoingNotificationRequest> embeddedDeviceMsgs = createDeviceMessages(embeddedDevice,
-                        descriptorLocation);
-                for (OutgoingNotificationRequest upnpMessage : embeddedDeviceMsgs) {
-                    getUpnpService().getRouter().send(upnpMessage);
-                }
+                msgs.addAll(createDeviceMessages(embeddedDevice, descriptorLocation));
             }
         }
 
-        List<OutgoingNotificationRequest> serviceTypeMsgs = createServiceTypeMessages(getDevice(), descriptorLocation);
-        if (!serviceTypeMsgs.isEmpty()) {
-            logger.trace("Sending service type messages");
-            for (OutgoingNotificationRequest upnpMessage : serviceTypeMsgs) {
-                getUpnpService().getRouter().send(upnpMessage);
-            }
-        }
+        msgs.addAll(createServiceTypeMessages(getDevice(), descriptorLocation));
+        return msgs;
     }
 
     protected List<OutgoingNotificationRequest> createDeviceMessages(LocalDevice device, Location descriptorLocation) {
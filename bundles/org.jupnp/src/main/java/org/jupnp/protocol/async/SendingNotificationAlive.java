@@ -35,6 +35,10 @@ public class SendingNotificationAlive extends SendingNotification {
         super(upnpService, device);
     }
 
+    public SendingNotificationAlive(UpnpService upnpService, LocalDevice device, DiscoveryMessageCache messageCache) {
+        super(upnpService, device, messageCache);
+    }
+
     @Override
     protected void execute() throws RouterException {
         logger.trace("Sending alive messages ({} times) for: {}", getBulkRepeat(), getDevice());
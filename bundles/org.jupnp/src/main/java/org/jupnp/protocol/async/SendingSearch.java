@@ -31,6 +31,10 @@ import org.slf4j.LoggerFactory;
  * Sends all search messages 5 times, waits 0 to 500
  * milliseconds between each sending procedure.
  * </p>
+ * <p>
+ * The repetitions are scheduled if the configuration provides a
+ * {@link org.jupnp.UpnpServiceConfiguration#getScheduledExecutorService()}.
+ * </p>
  *
  * @author Christian Bauer
  */
@@ -85,6 +89,11 @@ public class SendingSearch extends SendingAsync {
         OutgoingSearchRequest msg = new OutgoingSearchRequest(searchTarget, getMxSeconds());
         prepareOutgoingSearchRequest(msg);
 
+        if (scheduleRepetitions(getBulkRepeat(), getBulkIntervalMilliseconds(),
+                () -> getUpnpService().getRouter().send(msg))) {
+            return;
+        }
+
         for (int i = 0; i < getBulkRepeat(); i++) {
             try {
 
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.protocol.sync;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jupnp.binding.xml.DescriptorBindingException;
+import org.jupnp.model.meta.LocalDevice;
+import org.jupnp.model.types.UDN;
+import org.jupnp.util.io.HexBin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generated device and service descriptors of local devices, encoded as UTF-8 with a strong entity tag.
+ * <p>
+ * A descriptor is generated once for each variation, e.g. for the request headers which select the
+ * {@link org.jupnp.model.meta.DeviceDetails} provided to different control points. The descriptors of a device
+ * have to be invalidated when the device is added to or removed from the registry.
+ * </p>
+ */
+public class DescriptorCache {
+
+    /**
+     * Variations of a device kept at most, in case many different control points request its descriptors.
+     */
+    public static final int MAX_VARIATIONS = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(DescriptorCache.class);
+
+    // Root device UDN -> variation -> descriptor
+    private final Map<UDN, Map<Object, Descriptor>> descriptors = new ConcurrentHashMap<>();
+
+    public interface Generator {
+        String generate() throws DescriptorBindingException;
+    }
+
+    /**
+     * An encoded descriptor and its entity tag.
+     */
+    public static class Descriptor {
+
+        private final byte[] data;
+        private final String entityTag;
+
+        public Descriptor(String descriptor) {
+            this.data = descriptor.getBytes(StandardCharsets.UTF_8);
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+                this.entityTag = "\"" + HexBin.bytesToString(Arrays.copyOf(digest, 16)) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * @return The quoted strong entity tag, for the <code>ETag</code> header.
+         */
+        public String getEntityTag() {
+            return entityTag;
+        }
+
+        /**
+         * @param ifNoneMatch The value of an <code>If-None-Match</code> request header, might be <code>null</code>.
+         * @return <code>true</code> if the requester already has this descriptor.
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                // The weak comparison applies to If-None-Match
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if ("*".equals(tag) || entityTag.equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @param device The root or embedded device of the descriptor.
+     * @param variation Identifies the descriptor of the device, must implement <code>equals()</code> and
+     *            <code>hashCode()</code>.
+     * @param generator Generates the descriptor if it is not cached.
+     */
+    public Descriptor get(LocalDevice device, Object variation, Generator generator)
+            throws DescriptorBindingException {
+        Map<Object, Descriptor> variations = descriptors.computeIfAbsent(device.getRoot().getIdentity().getUdn(),
+                udn -> new ConcurrentHashMap<>());
+        Descriptor descriptor = variations.get(variation);
+        if (descriptor == null) {
+            logger.trace("Generating descriptor of: {}", device);
+            descriptor = new Descriptor(generator.generate());
+            if (variations.size() >= MAX_VARIATIONS) {
+                logger.trace("Too many descriptor variations, discarding cached descriptors of: {}", device);
+                variations.clear();
+            }
+            variations.put(variation, descriptor);
+        }
+        return descriptor;
+    }
+
+    /**
+     * Discards the descriptors of the given device and its embedded devices.
+     */
+    public void invalidate(LocalDevice device) {
+        if (descriptors.remove(device.getRoot().getIdentity().getUdn()) != null) {
+            logger.trace("Discarded cached descriptors of: {}", device);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.protocol.sync;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jupnp.model.message.UpnpMessage;
+import org.jupnp.model.message.gena.OutgoingEventRequestMessage;
+import org.jupnp.model.meta.LocalDevice;
+import org.jupnp.model.meta.LocalService;
+import org.jupnp.model.state.StateVariableValue;
+import org.jupnp.transport.spi.GENAEventProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serialized GENA event bodies of local services, shared by all subscribers of a state change.
+ * <p>
+ * A state change of a {@link LocalService} is propagated to every subscription with the same
+ * {@link StateVariableValue} instances. The body of the first event message of such a generation is written
+ * by the {@link GENAEventProcessor}, all further messages with the same values reuse it and only differ in
+ * their subscription headers. Only the latest generation of each service is kept, the bodies of a device
+ * have to be invalidated when the device is removed from the registry.
+ * </p>
+ */
+public class EventBodyCache {
+
+    private final Logger logger = LoggerFactory.getLogger(EventBodyCache.class);
+
+    private final Map<LocalService, Generation> generations = new ConcurrentHashMap<>();
+
+    protected static class Generation {
+
+        private final Set<StateVariableValue> values = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Object body;
+
+        protected Generation(Collection<StateVariableValue> values, Object body) {
+            this.values.addAll(values);
+            this.body = body;
+        }
+
+        protected boolean matches(Collection<StateVariableValue> otherValues) {
+            if (otherValues.size() != values.size()) {
+                return false;
+            }
+            for (StateVariableValue value : otherValues) {
+                if (!values.contains(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sets the shared body of the generation of the message's state variable values, writes and stores it if
+     * the values differ from the latest generation of the service.
+     */
+    public void writeBody(LocalService service, OutgoingEventRequestMessage requestMessage,
+            GENAEventProcessor processor) {
+        Collection<StateVariableValue> values = requestMessage.getStateVariableValues();
+        Generation generation = generations.get(service);
+        if (generation != null && generation.matches(values)) {
+            logger.trace("Reusing event body of state variable values: {}", values);
+            requestMessage.setBody(UpnpMessage.BodyType.STRING, generation.body);
+            return;
+        }
+        processor.writeBody(requestMessage);
+        generations.put(service, new Generation(values, requestMessage.getBody()));
+    }
+
+    public void invalidate(LocalDevice localDevice) {
+        for (LocalService service : localDevice.findServices()) {
+            generations.remove(service);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.protocol.sync;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jupnp.UpnpService;
+import org.jupnp.model.gena.CancelReason;
+import org.jupnp.model.gena.LocalGENASubscription;
+import org.jupnp.model.message.StreamResponseMessage;
+import org.jupnp.model.state.StateVariableValue;
+import org.jupnp.protocol.ProtocolFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers the GENA events of local subscriptions in order, sending to different subscribers concurrently.
+ * <p>
+ * Each subscription has its own FIFO queue of state variable values, which is drained by at most one task on the
+ * {@link org.jupnp.UpnpServiceConfiguration#getEventDeliveryExecutorService()} at a time. The event sequence
+ * number is assigned when a message is sent, so it is always consecutive. When a subscriber can't keep up and its queue
+ * is full, the newest queued event absorbs the values of the next one, newer values (such as
+ * <code>LastChange</code>) replacing older values of the same state variable.
+ * </p>
+ * <p>
+ * Events are queued while the subscription is locked, so the queue is never drained on the calling thread. When the
+ * executor is busy and rejects the task, the events stay queued and draining is retried after
+ * {@link #BUSY_RETRY_MILLIS} milliseconds with the scheduled executor, or when the next event is queued.
+ * </p>
+ * <p>
+ * A subscription is removed from the registry after
+ * {@link org.jupnp.UpnpServiceConfiguration#getMaxEventDeliveryFailures()} consecutive failed deliveries.
+ * </p>
+ */
+public class EventDelivery {
+
+    private final Logger logger = LoggerFactory.getLogger(EventDelivery.class);
+
+    public static final long BUSY_RETRY_MILLIS = 100;
+
+    protected final ProtocolFactory protocolFactory;
+    protected final EventBodyCache eventBodyCache;
+
+    protected final Map<LocalGENASubscription, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    protected static class Subscriber {
+
+        // Guarded by this
+        protected final Deque<Map<String, StateVariableValue>> events = new ArrayDeque<>();
+        // When each queued event was queued, merged events keep the time of the older event
+        protected final Deque<Long> queuedNanos = new ArrayDeque<>();
+        protected boolean draining;
+        protected boolean discarded;
+        protected int failures;
+    }
+
+    /**
+     * @param eventBodyCache Shares event bodies between subscribers, or <code>null</code>.
+     */
+    public EventDelivery(ProtocolFactory protocolFactory, EventBodyCache eventBodyCache) {
+        this.protocolFactory = protocolFactory;
+        this.eventBodyCache = eventBodyCache;
+    }
+
+    public UpnpService getUpnpService() {
+        return protocolFactory.getUpnpService();
+    }
+
+    /**
+     * Queues an event with the current state variable values of the subscription.
+     */
+    public void deliver(LocalGENASubscription subscription) {
+        Map<String, StateVariableValue> values = new LinkedHashMap<>((Map) subscription.getCurrentValues());
+        int maxQueued = getUpnpService().getConfiguration().getMaxQueuedEventsPerSubscription();
+        Subscriber subscriber;
+        while (true) {
+            subscriber = subscribers.computeIfAbsent(subscription, s -> new Subscriber());
+            synchronized (subscriber) {
+                if (subscriber.discarded) {
+                    // Removed concurrently, the next queue has to be in the map
+                    continue;
+                }
+                if (!subscriber.events.isEmpty() && subscriber.events.size() >= maxQueued) {
+                    logger.trace("Event queue full, merging with last queued event of subscription: {}",
+                            subscription);
+                    subscriber.events.getLast().putAll(values);
+                } else {
+                    subscriber.events.addLast(values);
+                    subscriber.queuedNanos.addLast(System.nanoTime());
+                }
+                if (subscriber.draining) {
+                    return;
+                }
+                subscriber.draining = true;
+                break;
+            }
+        }
+        startDrain(subscription, subscriber);
+    }
+
+    /**
+     * Drops the queued events of a subscription, e.g. when it ended.
+     */
+    public void discard(LocalGENASubscription subscription) {
+        Subscriber subscriber = subscribers.remove(subscription);
+        if (subscriber != null) {
+            synchronized (subscriber) {
+                subscriber.discarded = true;
+                subscriber.events.clear();
+                subscriber.queuedNanos.clear();
+            }
+        }
+    }
+
+    protected void startDrain(LocalGENASubscription subscription, Subscriber subscriber) {
+        ExecutorService executor = getUpnpService().getConfiguration().getEventDeliveryExecutorService();
+        try {
+            executor.execute(() -> drain(subscription, subscriber));
+            return;
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                logger.trace("Executor rejected event delivery on shutdown: {}", subscription);
+                discard(subscription);
+                return;
+            }
+        }
+
+        ScheduledExecutorService scheduler = getUpnpService().getConfiguration().getScheduledExecutorService();
+        if (scheduler != null) {
+            logger.trace("Executor is busy, retrying event delivery in {} ms: {}", BUSY_RETRY_MILLIS, subscription);
+            try {
+                scheduler.schedule(() -> startDrain(subscription, subscriber), BUSY_RETRY_MILLIS,
+                        TimeUnit.MILLISECONDS);
+                return;
+            } catch (RejectedExecutionException e) {
+                logger.trace("Scheduler rejected event delivery (on shutdown?): {}", subscription);
+                discard(subscription);
+                return;
+            }
+        }
+
+        logger.trace("Executor is busy, keeping events queued until the next event: {}", subscription);
+        synchronized (subscriber) {
+            subscriber.draining = false;
+        }
+    }
+
+    protected void drain(LocalGENASubscription subscription, Subscriber subscriber) {
+        while (true) {
+            Map<String, StateVariableValue> values;
+            long queuedNanos;
+            synchronized (subscriber) {
+                values = subscriber.events.pollFirst();
+                if (values == null) {
+                    subscriber.draining = false;
+                    if (subscriber.failures == 0 && !subscriber.discarded) {
+                        subscriber.discarded = true;
+                        subscribers.remove(subscription, subscriber);
+                    }
+                    return;
+                }
+                queuedNanos = subscriber.queuedNanos.pollFirst();
+            }
+
+            if (getUpnpService().getRegistry().getLocalSubscription(subscription.getSubscriptionId()) == null) {
+                logger.trace("Subscription is no longer registered, dropping its events: {}", subscription);
+                discard(subscription);
+                return;
+            }
+
+            boolean delivered = send(subscription, values.values());
+            getUpnpService().getConfiguration().getMetrics().eventDelivered(System.nanoTime() - queuedNanos,
+                    delivered);
+            if (delivered) {
+                synchronized (subscriber) {
+                    subscriber.failures = 0;
+                }
+                continue;
+            }
+
+            int failures;
+            synchronized (subscriber) {
+                failures = ++subscriber.failures;
+            }
+            int maxFailures = getUpnpService().getConfiguration().getMaxEventDeliveryFailures();
+            if (maxFailures > 0 && failures >= maxFailures) {
+                logger.debug("Removing subscription after {} failed event deliveries: {}", failures, subscription);
+                discard(subscription);
+                if (getUpnpService().getRegistry().removeLocalSubscription(subscription)) {
+                    subscription.end(CancelReason.EVENT_DELIVERY_FAILED);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the subscriber accepted the event.
+     */
+    protected boolean send(LocalGENASubscription subscription, Collection<StateVariableValue> values) {
+        SendingEvent protocol = createSendingEvent(subscription, values);
+        try {
+            protocol.run();
+        } catch (RuntimeException e) {
+            logger.debug("Sending event failed: {}", subscription, e);
+            return false;
+        }
+        StreamResponseMessage response = protocol.getOutputMessage();
+        if (response == null || response.getOperation().isFailed()) {
+            logger.trace("Event not accepted by subscriber, response: {}", response);
+            return false;
+        }
+        return true;
+    }
+
+    protected SendingEvent createSendingEvent(LocalGENASubscription subscription,
+            Collection<StateVariableValue> values) {
+        return new SendingEvent(getUpnpService(), subscription, values, eventBodyCache);
+    }
+}
@@ -16,6 +16,8 @@
 package org.jupnp.protocol.sync;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.jupnp.UpnpService;
 import org.jupnp.binding.xml.DescriptorBindingException;
@@ -30,6 +32,9 @@ import org.jupnp.model.message.header.UpnpHeader;
 import org.jupnp.model.meta.Icon;
 import org.jupnp.model.meta.LocalDevice;
 import org.jupnp.model.meta.LocalService;
+import org.jupnp.model.profile.DeviceDetailsProvider;
+import org.jupnp.model.profile.HeaderDeviceDetailsProvider;
+import org.jupnp.model.profile.RemoteClientInfo;
 import org.jupnp.model.resource.DeviceDescriptorResource;
 import org.jupnp.model.resource.IconResource;
 import org.jupnp.model.resource.Resource;
@@ -43,11 +48,21 @@ import org.slf4j.LoggerFactory;
  * Handles reception of device/service descriptor and icon retrieval messages.
  *
  * <p>
- * Requested device and service XML descriptors are generated on-the-fly for every request.
+ * Requested device and service XML descriptors are generated on-the-fly for every request,
+ * or taken from a {@link DescriptorCache} if one is provided.
  * </p>
  * <p>
  * Descriptor XML is dynamically generated depending on the control point - some control
- * points require different metadata than others for the same device and services.
+ * points require different metadata than others for the same device and services. Cached
+ * device descriptors are therefore kept for each user agent, and for each combination of the
+ * request header values read by {@link HeaderDeviceDetailsProvider}s of the device. Device
+ * descriptors of devices with any other {@link DeviceDetailsProvider} are not cached, override
+ * {@link #getDescriptorVariation(LocalDevice)} if a custom binder or provider depends on other
+ * information about the control point.
+ * </p>
+ * <p>
+ * Descriptors are sent with an <code>ETag</code> header, a request with a matching
+ * <code>If-None-Match</code> header is answered with <em>304 Not Modified</em>.
  * </p>
  *
  * @author Christian Bauer
@@ -56,8 +71,22 @@ public class ReceivingRetrieval extends ReceivingSync<StreamRequestMessage, Stre
 
     private final Logger logger = LoggerFactory.getLogger(ReceivingRetrieval.class);
 
+    public static final String HEADER_ETAG = "ETag";
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    protected final DescriptorCache descriptorCache;
+
     public ReceivingRetrieval(UpnpService upnpService, StreamRequestMessage inputMessage) {
+        this(upnpService, inputMessage, null);
+    }
+
+    /**
+     * @param descriptorCache Shared by all retrieval protocols of a UPnP stack, might be <code>null</code>.
+     */
+    public ReceivingRetrieval(UpnpService upnpService, StreamRequestMessage inputMessage,
+            DescriptorCache descriptorCache) {
         super(upnpService, inputMessage);
+        this.descriptorCache = descriptorCache;
     }
 
     @Override
@@ -96,10 +125,12 @@ public class ReceivingRetrieval extends ReceivingSync<StreamRequestMessage, Stre
 
                 DeviceDescriptorBinder deviceDescriptorBinder = getUpnpService().getConfiguration()
                         .getDeviceDescriptorBinderUDA10();
-                String deviceDescriptor = deviceDescriptorBinder.generate(device, getRemoteClientInfo(),
-                        getUpnpService().getConfiguration().getNamespace());
-                response = new StreamResponseMessage(deviceDescriptor,
-                        new ContentTypeHeader(ContentTypeHeader.DEFAULT_CONTENT_TYPE));
+                DescriptorCache.Generator generator = () -> deviceDescriptorBinder.generate(device,
+                        getRemoteClientInfo(), getUpnpService().getConfiguration().getNamespace());
+                Object variation = descriptorCache != null ? getDescriptorVariation(device) : null;
+                response = createDescriptorResponse(variation != null
+                        ? descriptorCache.get(device, variation, generator)
+                        : new DescriptorCache.Descriptor(generator.generate()));
             } else if (ServiceDescriptorResource.class.isAssignableFrom(resource.getClass())) {
 
                 logger.trace("Found local service matching relative request URI: {}", requestedURI);
@@ -107,9 +138,12 @@ public class ReceivingRetrieval extends ReceivingSync<StreamRequestMessage, Stre
 
                 ServiceDescriptorBinder serviceDescriptorBinder = getUpnpService().getConfiguration()
                         .getServiceDescriptorBinderUDA10();
-                String serviceDescriptor = serviceDescriptorBinder.generate(service);
-                response = new StreamResponseMessage(serviceDescriptor,
-                        new ContentTypeHeader(ContentTypeHeader.DEFAULT_CONTENT_TYPE));
+                LocalDevice device = (LocalDevice) service.getDevice();
+                DescriptorCache.Generator generator = () -> serviceDescriptorBinder.generate(service);
+                response = createDescriptorResponse(descriptorCache != null
+                        ? descriptorCache.get(device, List.of(device.getIdentity().getUdn(), service.getServiceId()),
+                                generator)
+                        : new DescriptorCache.Descriptor(generator.generate()));
 
             } else if (IconResource.class.isAssignableFrom(resource.getClass())) {
 
@@ -133,6 +167,51 @@ public class ReceivingRetrieval extends ReceivingSync<StreamRequestMessage, Stre
         return response;
     }
 
+    protected StreamResponseMessage createDescriptorResponse(DescriptorCache.Descriptor descriptor) {
+        StreamResponseMessage response;
+        if (descriptor.matches(getInputMessage().getHeaders().getFirstHeader(HEADER_IF_NONE_MATCH))) {
+            logger.trace("Descriptor not modified, entity tag: {}", descriptor.getEntityTag());
+            response = new StreamResponseMessage(UpnpResponse.Status.NOT_MODIFIED);
+        } else {
+            response = new StreamResponseMessage(descriptor.getData(),
+                    new ContentTypeHeader(ContentTypeHeader.DEFAULT_CONTENT_TYPE));
+        }
+        response.getHeaders().add(HEADER_ETAG, descriptor.getEntityTag());
+        return response;
+    }
+
+    /**
+     * Identifies the device descriptor generated for the requesting control point, by the values of the request
+     * the descriptor depends on.
+     *
+     * @return The key of the cached descriptor, or <code>null</code> if the descriptor can't be cached.
+     */
+    protected Object getDescriptorVariation(LocalDevice device) {
+        RemoteClientInfo info = getRemoteClientInfo();
+        List<Object> variation = new ArrayList<>();
+        variation.add(device.getIdentity().getUdn());
+        // The default binder does not, but a binder might work around quirks of some user agents
+        variation.add(info.getRequestUserAgent());
+        List<LocalDevice> devices = new ArrayList<>(List.of(device.findEmbeddedDevices()));
+        devices.add(0, device);
+        for (LocalDevice candidate : devices) {
+            DeviceDetailsProvider provider = candidate.getDeviceDetailsProvider();
+            if (provider == null) {
+                continue;
+            }
+            if (!(provider instanceof HeaderDeviceDetailsProvider)) {
+                logger.trace("Unknown device details provider, not caching descriptor of: {}", device);
+                return null;
+            }
+            for (HeaderDeviceDetailsProvider.Key key : ((HeaderDeviceDetailsProvider) provider).getHeaderDetails()
+                    .keySet()) {
+                variation.add(key.getHeaderName());
+                variation.add(info.getRequestHeaders().get(key.getHeaderName()));
+            }
+        }
+        return variation;
+    }
+
     /**
      * Called if the {@link org.jupnp.registry.Registry} had no result.
      *
@@ -167,13 +167,13 @@ public class ReceivingSubscribe extends ReceivingSync<StreamRequestMessage, Outg
 
                 @Override
                 public void ended(CancelReason reason) {
+                    getUpnpService().getProtocolFactory().discardEvents(this);
                 }
 
                 @Override
                 public void eventReceived() {
                     // The only thing we are interested in, sending an event when the state changes
-                    getUpnpService().getConfiguration().getSyncProtocolExecutorService()
-                            .execute(getUpnpService().getProtocolFactory().createSendingEvent(this));
+                    getUpnpService().getProtocolFactory().deliverEvent(this);
                 }
             };
         } catch (Exception e) {
@@ -196,18 +196,16 @@ public class ReceivingSubscribe extends ReceivingSync<StreamRequestMessage, Outg
         if (responseMessage != null && !responseMessage.getOperation().isFailed()
                 && subscription.getCurrentSequence().getValue() == 0) { // Note that renewals should not have 0
 
-            // This is a minor concurrency issue: If we now register on the service and henceforth send a new
-            // event message whenever the state of the service changes, there is still a chance that the initial
-            // event message arrives later than the first on-change event message. Shouldn't be a problem as the
-            // subscriber is supposed to figure out what to do with out-of-sequence messages. I would be
-            // surprised though if actual implementations won't crash!
-            logger.trace("Establishing subscription");
-            subscription.registerOnService();
-            subscription.establish();
-
-            logger.trace("Response to subscription sent successfully, now sending initial event asynchronously");
-            getUpnpService().getConfiguration().getAsyncProtocolExecutor()
-                    .execute(getUpnpService().getProtocolFactory().createSendingEvent(subscription));
+            // Queue the initial event before any state change can be propagated to the subscription, events are
+            // delivered in order and the initial event can't arrive later than the first on-change event
+            synchronized (subscription) {
+                logger.trace("Establishing subscription");
+                subscription.registerOnService();
+                subscription.establish();
+
+                logger.trace("Response to subscription sent successfully, now sending initial event asynchronously");
+                getUpnpService().getProtocolFactory().deliverEvent(subscription);
+            }
 
         } else if (subscription.getCurrentSequence().getValue() == 0) {
             logger.trace("Subscription request's response aborted, not sending initial event");
@@ -16,6 +16,7 @@
 package org.jupnp.protocol.sync;
 
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
 
 import org.jupnp.UpnpService;
 import org.jupnp.model.UnsupportedDataException;
@@ -30,6 +31,7 @@ import org.jupnp.model.meta.Device;
 import org.jupnp.model.types.ErrorCode;
 import org.jupnp.protocol.SendingSync;
 import org.jupnp.transport.RouterException;
+import org.jupnp.transport.spi.HostHealthTracker;
 import org.jupnp.util.Exceptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,16 +66,56 @@ public class SendingAction extends SendingSync<OutgoingActionRequestMessage, Inc
         return invokeRemote(getInputMessage());
     }
 
+    /**
+     * Sends the action request without blocking the calling thread while waiting for the response.
+     *
+     * @return The future {@link #getOutputMessage() output message}, completed exceptionally with a
+     *         {@link RouterException} if the request couldn't be sent. Cancelling it aborts the request.
+     */
+    public CompletableFuture<IncomingActionResponseMessage> executeAsync() {
+        OutgoingActionRequestMessage requestMessage = getInputMessage();
+        logger.trace("Sending outgoing action call '{}' asynchronously to remote service of: {}",
+                actionInvocation.getAction().getName(), actionInvocation.getAction().getService().getDevice());
+        try {
+            checkHostAvailable(requestMessage);
+            writeRequestBody(requestMessage);
+        } catch (ActionException e) {
+            outputMessage = handleFailure(e, null);
+            return CompletableFuture.completedFuture(outputMessage);
+        }
+
+        logger.trace("Sending SOAP body of message as stream to remote device");
+        CompletableFuture<StreamResponseMessage> sending = getUpnpService().getRouter().sendAsync(requestMessage);
+        CompletableFuture<IncomingActionResponseMessage> result = sending.thenApply(streamResponse -> {
+            outputMessage = readResponse(streamResponse);
+            return outputMessage;
+        });
+        result.whenComplete((response, e) -> {
+            if (result.isCancelled()) {
+                sending.cancel(true);
+            }
+        });
+        return result;
+    }
+
     protected IncomingActionResponseMessage invokeRemote(OutgoingActionRequestMessage requestMessage)
             throws RouterException {
         Device device = actionInvocation.getAction().getService().getDevice();
 
         logger.trace("Sending outgoing action call '{}' to remote service of: {}",
                 actionInvocation.getAction().getName(), device);
-        IncomingActionResponseMessage responseMessage = null;
+        StreamResponseMessage streamResponse;
         try {
+            streamResponse = sendRemoteRequest(requestMessage);
+        } catch (ActionException e) {
+            return handleFailure(e, null);
+        }
+        return readResponse(streamResponse);
+    }
 
-            StreamResponseMessage streamResponse = sendRemoteRequest(requestMessage);
+    protected IncomingActionResponseMessage readResponse(StreamResponseMessage streamResponse) {
+        IncomingActionResponseMessage responseMessage = null;
+        try {
 
             if (streamResponse == null) {
                 logger.trace("No connection or no no response received, returning null");
@@ -97,23 +139,27 @@ public class SendingAction extends SendingSync<OutgoingActionRequestMessage, Inc
             return responseMessage;
 
         } catch (ActionException e) {
-            logger.trace("Remote action invocation failed, returning Internal Server Error message", e);
-            actionInvocation.setFailure(e);
-            if (responseMessage == null || !responseMessage.getOperation().isFailed()) {
-                return new IncomingActionResponseMessage(new UpnpResponse(UpnpResponse.Status.INTERNAL_SERVER_ERROR));
-            } else {
-                return responseMessage;
-            }
+            return handleFailure(e, responseMessage);
+        }
+    }
+
+    protected IncomingActionResponseMessage handleFailure(ActionException e,
+            IncomingActionResponseMessage responseMessage) {
+        logger.trace("Remote action invocation failed, returning Internal Server Error message", e);
+        actionInvocation.setFailure(e);
+        if (responseMessage == null || !responseMessage.getOperation().isFailed()) {
+            return new IncomingActionResponseMessage(new UpnpResponse(UpnpResponse.Status.INTERNAL_SERVER_ERROR));
+        } else {
+            return responseMessage;
         }
     }
 
     protected StreamResponseMessage sendRemoteRequest(OutgoingActionRequestMessage requestMessage)
             throws ActionException, RouterException {
 
+        checkHostAvailable(requestMessage);
+        writeRequestBody(requestMessage);
         try {
-            logger.trace("Writing SOAP request body of: {}", requestMessage);
-            getUpnpService().getConfiguration().getSoapActionProcessor().writeBody(requestMessage, actionInvocation);
-
             logger.trace("Sending SOAP body of message as stream to remote device");
             return getUpnpService().getRouter().send(requestMessage);
         } catch (RouterException e) {
@@ -123,6 +169,25 @@ public class SendingAction extends SendingSync<OutgoingActionRequestMessage, Inc
                 throw new ActionCancelledException((InterruptedException) cause);
             }
             throw e;
+        }
+    }
+
+    /**
+     * Fails the action immediately if the remote host is backed off after failed requests.
+     */
+    protected void checkHostAvailable(OutgoingActionRequestMessage requestMessage) throws ActionException {
+        HostHealthTracker hostHealth = getUpnpService().getRouter().getHostHealthTracker();
+        String host = HostHealthTracker.getHost(requestMessage.getUri());
+        if (hostHealth != null && !hostHealth.isAvailable(host)) {
+            throw new ActionException(ErrorCode.ACTION_FAILED,
+                    "Remote host is backed off after failed requests: " + host);
+        }
+    }
+
+    protected void writeRequestBody(OutgoingActionRequestMessage requestMessage) throws ActionException {
+        try {
+            logger.trace("Writing SOAP request body of: {}", requestMessage);
+            getUpnpService().getConfiguration().getSoapActionProcessor().writeBody(requestMessage, actionInvocation);
         } catch (UnsupportedDataException e) {
             logger.trace("Error writing SOAP body", e);
             throw new ActionException(ErrorCode.ACTION_FAILED, "Error writing request message. " + e.getMessage());
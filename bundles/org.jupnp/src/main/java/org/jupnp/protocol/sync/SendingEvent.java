@@ -16,14 +16,18 @@
 package org.jupnp.protocol.sync;
 
 import java.net.URL;
+import java.util.Collection;
 
 import org.jupnp.UpnpService;
 import org.jupnp.model.gena.LocalGENASubscription;
 import org.jupnp.model.message.StreamResponseMessage;
+import org.jupnp.model.message.UpnpMessage;
 import org.jupnp.model.message.gena.OutgoingEventRequestMessage;
+import org.jupnp.model.state.StateVariableValue;
 import org.jupnp.model.types.UnsignedIntegerFourBytes;
 import org.jupnp.protocol.SendingSync;
 import org.jupnp.transport.RouterException;
+import org.jupnp.transport.spi.HostHealthTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +52,24 @@ public class SendingEvent extends SendingSync<OutgoingEventRequestMessage, Strea
     protected final UnsignedIntegerFourBytes currentSequence;
 
     public SendingEvent(UpnpService upnpService, LocalGENASubscription subscription) {
+        this(upnpService, subscription, null);
+    }
+
+    /**
+     * @param eventBodyCache Shares the event body with all other subscribers of the same state change, or
+     *            <code>null</code> to write the body for this subscription.
+     */
+    public SendingEvent(UpnpService upnpService, LocalGENASubscription subscription, EventBodyCache eventBodyCache) {
+        this(upnpService, subscription, (Collection) subscription.getCurrentValues().values(), eventBodyCache);
+    }
+
+    /**
+     * @param values The state variable values of the event, instead of the current values of the subscription.
+     * @param eventBodyCache Shares the event body with all other subscribers of the same state change, or
+     *            <code>null</code> to write the body for this subscription.
+     */
+    public SendingEvent(UpnpService upnpService, LocalGENASubscription subscription,
+            Collection<StateVariableValue> values, EventBodyCache eventBodyCache) {
         super(upnpService, null); // Special case, we actually need to send several messages to each callback URL
 
         // TODO: Ugly design! It is critical (concurrency) that we prepare the event messages here, in the constructor
@@ -58,8 +80,17 @@ public class SendingEvent extends SendingSync<OutgoingEventRequestMessage, Strea
         requestMessages = new OutgoingEventRequestMessage[subscription.getCallbackURLs().size()];
         int i = 0;
         for (URL url : subscription.getCallbackURLs()) {
-            requestMessages[i] = new OutgoingEventRequestMessage(subscription, url);
-            getUpnpService().getConfiguration().getGenaEventProcessor().writeBody(requestMessages[i]);
+            requestMessages[i] = new OutgoingEventRequestMessage(subscription, url, subscription.getCurrentSequence(),
+                    values);
+            if (i > 0) {
+                // Same values, only the callback URL differs
+                requestMessages[i].setBody(UpnpMessage.BodyType.STRING, requestMessages[0].getBody());
+            } else if (eventBodyCache != null) {
+                eventBodyCache.writeBody(subscription.getService(), requestMessages[i],
+                        getUpnpService().getConfiguration().getGenaEventProcessor());
+            } else {
+                getUpnpService().getConfiguration().getGenaEventProcessor().writeBody(requestMessages[i]);
+            }
             i++;
         }
 
@@ -76,9 +107,18 @@ public class SendingEvent extends SendingSync<OutgoingEventRequestMessage, Strea
         logger.trace("Sending event for subscription: {}", subscriptionId);
 
         StreamResponseMessage lastResponse = null;
+        HostHealthTracker hostHealth = getUpnpService().getRouter().getHostHealthTracker();
 
         for (OutgoingEventRequestMessage requestMessage : requestMessages) {
 
+            // Counts as a failed delivery, the subscription is removed if the subscriber stays unreachable
+            if (hostHealth != null
+                    && !hostHealth.isAvailable(HostHealthTracker.getHost(requestMessage.getUri()))) {
+                logger.trace("Skipping event message, callback host is backed off: {}", requestMessage.getUri());
+                lastResponse = null;
+                continue;
+            }
+
             if (currentSequence.getValue() == 0) {
                 logger.trace("Sending initial event message to callback URL: {}", requestMessage.getUri());
             } else {
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.registry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.jupnp.model.ExpirationDetails;
+
+/**
+ * Internal class, required by {@link RegistryImpl}.
+ * <p>
+ * Orders keys of registry items by the timestamp at which their {@link ExpirationDetails} expire, so
+ * maintenance only has to look at the items which are due. Scheduling, rescheduling, and cancellation
+ * are logarithmic in the number of scheduled keys. Items with unlimited age are never scheduled.
+ * </p>
+ */
+class ExpirationQueue<K> {
+
+    private final boolean halfTime;
+
+    private final TreeSet<Entry<K>> entries = new TreeSet<>(Comparator
+            .<Entry<K>> comparingLong(entry -> entry.timestampSeconds).thenComparingLong(entry -> entry.sequence));
+    private final Map<K, Entry<K>> entriesByKey = new HashMap<>();
+    private long sequence;
+
+    /**
+     * @param halfTime If <code>true</code> then half maximum age is used to determine expiration.
+     */
+    ExpirationQueue(boolean halfTime) {
+        this.halfTime = halfTime;
+    }
+
+    boolean isHalfTime() {
+        return halfTime;
+    }
+
+    /**
+     * Schedules the key for the expiration of the given details, replacing any previous schedule of the key.
+     */
+    void schedule(K key, ExpirationDetails expirationDetails) {
+        long timestampSeconds = expirationDetails.getExpirationTimestampSeconds(halfTime);
+        Entry<K> previous = entriesByKey.get(key);
+        if (previous != null) {
+            if (previous.timestampSeconds == timestampSeconds) {
+                return;
+            }
+            entries.remove(previous);
+            entriesByKey.remove(key);
+        }
+        if (timestampSeconds != Long.MAX_VALUE) {
+            Entry<K> entry = new Entry<>(key, timestampSeconds, sequence++);
+            entries.add(entry);
+            entriesByKey.put(key, entry);
+        }
+    }
+
+    void cancel(K key) {
+        Entry<K> entry = entriesByKey.remove(key);
+        if (entry != null) {
+            entries.remove(entry);
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        entriesByKey.clear();
+    }
+
+    int size() {
+        return entriesByKey.size();
+    }
+
+    /**
+     * Removes all keys due at the given timestamp from the queue.
+     *
+     * @param nowSeconds The current timestamp in seconds.
+     * @return The due keys in order of their expiration, callers have to reschedule keys they want to keep.
+     */
+    List<K> poll(long nowSeconds) {
+        List<K> due = new ArrayList<>();
+        while (!entries.isEmpty() && entries.first().timestampSeconds <= nowSeconds) {
+            Entry<K> entry = entries.pollFirst();
+            entriesByKey.remove(entry.key);
+            due.add(entry.key);
+        }
+        return due;
+    }
+
+    private static class Entry<K> {
+
+        private final K key;
+        private final long timestampSeconds;
+        private final long sequence;
+
+        private Entry(K key, long timestampSeconds, long sequence) {
+            this.key = key;
+            this.timestampSeconds = timestampSeconds;
+            this.sequence = sequence;
+        }
+    }
+}
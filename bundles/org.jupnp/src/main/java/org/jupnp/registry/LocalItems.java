@@ -15,14 +15,17 @@
  */
 package org.jupnp.registry;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.jupnp.model.DiscoveryOptions;
 import org.jupnp.model.gena.CancelReason;
@@ -31,6 +34,7 @@ import org.jupnp.model.meta.LocalDevice;
 import org.jupnp.model.resource.Resource;
 import org.jupnp.model.types.UDN;
 import org.jupnp.protocol.SendingAsync;
+import org.jupnp.protocol.async.SendingNotificationByebye;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,11 +47,13 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
 
     private final Logger logger = LoggerFactory.getLogger(Registry.class);
 
-    protected Map<UDN, DiscoveryOptions> discoveryOptions = new HashMap<>();
+    // Read without holding the lock of the local items
+    protected Map<UDN, DiscoveryOptions> discoveryOptions = new ConcurrentHashMap<>();
     protected long lastAliveIntervalTimestamp = 0;
 
     LocalItems(RegistryImpl registry) {
-        super(registry);
+        // Devices are advertised again at half time, incoming subscriptions are removed when they expire
+        super(registry, true, false);
     }
 
     protected void setDiscoveryOptions(UDN udn, DiscoveryOptions options) {
@@ -56,6 +62,11 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
         } else {
             this.discoveryOptions.remove(udn);
         }
+        // Expired devices which weren't advertised have been dropped from the schedule
+        RegistryItem<UDN, LocalDevice> localItem = deviceItems.get(udn);
+        if (localItem != null) {
+            rescheduleDeviceItem(localItem);
+        }
     }
 
     protected DiscoveryOptions getDiscoveryOptions(UDN udn) {
@@ -107,9 +118,12 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
         RegistryItem<UDN, LocalDevice> localItem = new RegistryItem<>(localDevice.getIdentity().getUdn(), localDevice,
                 localDevice.getIdentity().getMaxAgeSeconds());
 
-        getDeviceItems().add(localItem);
+        putDeviceItem(localItem);
         logger.trace("Registered local device: {}", localItem);
 
+        registry.getProtocolFactory().invalidateDiscoveryMessages(localDevice);
+        registry.getProtocolFactory().invalidateDescriptors(localDevice);
+
         if (isByeByeBeforeFirstAlive(localItem.getKey())) {
             advertiseByebye(localDevice, true);
         }
@@ -118,6 +132,7 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
             advertiseAlive(localDevice);
         }
 
+        publishSnapshot();
         for (final RegistryListener listener : registry.getListeners()) {
             registry.getConfiguration().getRegistryListenerExecutor()
                     .execute(() -> listener.localDeviceAdded(registry, localDevice));
@@ -146,7 +161,10 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
             logger.trace("Removing local device from registry: {}", localDevice);
 
             setDiscoveryOptions(localDevice.getIdentity().getUdn(), null);
-            getDeviceItems().remove(new RegistryItem<>(localDevice.getIdentity().getUdn()));
+            removeDeviceItem(localDevice.getIdentity().getUdn());
+            registry.getProtocolFactory().invalidateDiscoveryMessages(localDevice);
+            registry.getProtocolFactory().invalidateDescriptors(localDevice);
+            registry.getProtocolFactory().invalidateEventBodies(localDevice);
 
             for (Resource deviceResource : getResources(localDevice)) {
                 if (registry.removeResource(deviceResource)) {
@@ -155,15 +173,14 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
             }
 
             // Active subscriptions
-            Iterator<RegistryItem<String, LocalGENASubscription>> it = getSubscriptionItems().iterator();
-            while (it.hasNext()) {
-                final RegistryItem<String, LocalGENASubscription> incomingSubscription = it.next();
+            for (final RegistryItem<String, LocalGENASubscription> incomingSubscription : new ArrayList<>(
+                    getSubscriptionItems())) {
 
                 UDN subscriptionForUDN = incomingSubscription.getItem().getService().getDevice().getIdentity().getUdn();
 
                 if (subscriptionForUDN.equals(registeredDevice.getIdentity().getUdn())) {
                     logger.trace("Removing incoming subscription: {}", incomingSubscription.getKey());
-                    it.remove();
+                    removeSubscription(incomingSubscription.getItem());
                     if (!shuttingDown) {
                         registry.getConfiguration().getRegistryListenerExecutor()
                                 .execute(() -> incomingSubscription.getItem().end(CancelReason.DEVICE_WAS_REMOVED));
@@ -176,6 +193,7 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
             }
 
             if (!shuttingDown) {
+                publishSnapshot();
                 for (final RegistryListener listener : registry.getListeners()) {
                     registry.getConfiguration().getRegistryListenerExecutor()
                             .execute(() -> listener.localDeviceRemoved(registry, localDevice));
@@ -203,7 +221,7 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
     /* ############################################################################################################ */
 
     public void advertiseLocalDevices() {
-        for (RegistryItem<UDN, LocalDevice> localItem : deviceItems) {
+        for (RegistryItem<UDN, LocalDevice> localItem : getDeviceItems()) {
             if (isAdvertised(localItem.getKey())) {
                 advertiseAlive(localItem.getItem());
             }
@@ -238,9 +256,9 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
             // Reset, the configuration might dynamically switch the alive interval
             lastAliveIntervalTimestamp = 0;
 
-            // Alive interval is not enabled, regular expiration check of all devices
-            for (RegistryItem<UDN, LocalDevice> localItem : getDeviceItems()) {
-                if (isAdvertised(localItem.getKey()) && localItem.getExpirationDetails().hasExpired(true)) {
+            // Alive interval is not enabled, regular expiration check of all due devices
+            for (RegistryItem<UDN, LocalDevice> localItem : pollExpiredDeviceItems()) {
+                if (isAdvertised(localItem.getKey())) {
                     logger.trace("Local item has expired: {}", localItem);
                     expiredLocalItems.add(localItem);
                 }
@@ -252,16 +270,11 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
             logger.trace("Refreshing local device advertisement: {}", expiredLocalItem.getItem());
             advertiseAlive(expiredLocalItem.getItem());
             expiredLocalItem.getExpirationDetails().stampLastRefresh();
+            rescheduleDeviceItem(expiredLocalItem);
         }
 
         // Expire incoming subscriptions
-        Set<RegistryItem<String, LocalGENASubscription>> expiredIncomingSubscriptions = new HashSet<>();
-        for (RegistryItem<String, LocalGENASubscription> item : getSubscriptionItems()) {
-            if (item.getExpirationDetails().hasExpired(false)) {
-                expiredIncomingSubscriptions.add(item);
-            }
-        }
-        for (RegistryItem<String, LocalGENASubscription> subscription : expiredIncomingSubscriptions) {
+        for (RegistryItem<String, LocalGENASubscription> subscription : pollExpiredSubscriptionItems()) {
             logger.trace("Removing expired: {}", subscription);
             removeSubscription(subscription.getItem());
             subscription.getItem().end(CancelReason.EXPIRED);
@@ -271,7 +284,7 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
     @Override
     void shutdown() {
         logger.trace("Clearing all registered subscriptions to local devices during shutdown");
-        getSubscriptionItems().clear();
+        removeAllSubscriptions();
 
         logger.trace("Removing all local devices from registry during shutdown");
         removeAll(true);
@@ -283,21 +296,37 @@ class LocalItems extends RegistryItems<LocalDevice, LocalGENASubscription> {
 
     protected void advertiseAlive(final LocalDevice localDevice) {
         registry.executeAsyncProtocol(() -> {
+            int delay = randomGenerator.nextInt(100);
+            SendingAsync prot = registry.getProtocolFactory().createSendingNotificationAlive(localDevice);
+            ScheduledExecutorService scheduler = registry.getConfiguration().getScheduledExecutorService();
+            if (scheduler != null) {
+                logger.trace("Scheduling ALIVE msgs in {} milliseconds to avoid flooding the network", delay);
+                try {
+                    scheduler.schedule(() -> registry.getConfiguration().getAsyncProtocolExecutor().execute(prot),
+                            delay, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    logger.trace("Scheduler rejected ALIVE msgs (on shutdown?): {}", localDevice);
+                }
+                return;
+            }
             try {
                 logger.trace("Sleeping some milliseconds to avoid flooding the network with ALIVE msgs");
-                Thread.sleep(randomGenerator.nextInt(100));
+                Thread.sleep(delay);
             } catch (InterruptedException e) {
                 logger.error("Background execution interrupted", e);
             }
-            registry.getProtocolFactory().createSendingNotificationAlive(localDevice).run();
+            prot.run();
         });
     }
 
     protected void advertiseByebye(final LocalDevice localDevice, boolean asynchronous) {
-        final SendingAsync prot = registry.getProtocolFactory().createSendingNotificationByebye(localDevice);
+        final SendingNotificationByebye prot = registry.getProtocolFactory()
+                .createSendingNotificationByebye(localDevice);
         if (asynchronous) {
             registry.executeAsyncProtocol(prot);
         } else {
+            // All repetitions have to be sent now, the stack might shut down when this returns
+            prot.setBlocking(true);
             prot.run();
         }
     }
@@ -227,6 +227,24 @@ public interface Registry {
      */
     boolean update(RemoteDeviceIdentity rdIdentity);
 
+    /**
+     * Called internally by the UPnP discovery protocol, before an ALIVE notification is parsed.
+     * <p>
+     * Refreshes the expiration of an already registered remote device if the notification announces it
+     * unchanged, without acquiring any registry locks.
+     * </p>
+     *
+     * @param udn The root or embedded device UDN of the notification.
+     * @param location The raw <code>LOCATION</code> header value.
+     * @param bootId The raw <code>BOOTID.UPNP.ORG</code> header value, or <code>null</code>.
+     * @param maxAgeSeconds The maximum age of the notification.
+     * @return <code>true</code> if the device was refreshed, <code>false</code> if the notification has to
+     *         be processed completely.
+     */
+    default boolean refreshAlive(UDN udn, String location, String bootId, int maxAgeSeconds) {
+        return false;
+    }
+
     /**
      * Call this to remove your local device metadata.
      *
@@ -22,11 +22,13 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.jupnp.UpnpMetrics;
 import org.jupnp.UpnpService;
 import org.jupnp.UpnpServiceConfiguration;
 import org.jupnp.model.DiscoveryOptions;
@@ -79,6 +81,31 @@ public class RegistryImpl implements Registry {
                 getConfiguration().getRegistryMaintainerExecutor().execute(registryMaintainer);
             }
         }
+        registerGauges(getMetrics());
+    }
+
+    protected UpnpMetrics getMetrics() {
+        UpnpServiceConfiguration configuration = upnpService != null ? getConfiguration() : null;
+        return configuration != null ? configuration.getMetrics() : UpnpMetrics.NOOP;
+    }
+
+    /**
+     * Reports the sizes of the last published snapshots, reading them doesn't lock the registry.
+     */
+    protected void registerGauges(UpnpMetrics metrics) {
+        metrics.registerGauge(UpnpMetrics.GAUGE_LOCAL_DEVICES, () -> localItems.getSnapshot().getDeviceCount());
+        metrics.registerGauge(UpnpMetrics.GAUGE_REMOTE_DEVICES, () -> remoteItems.getSnapshot().getDeviceCount());
+        metrics.registerGauge(UpnpMetrics.GAUGE_LOCAL_SUBSCRIPTIONS,
+                () -> localItems.getSnapshot().getSubscriptionCount());
+        metrics.registerGauge(UpnpMetrics.GAUGE_REMOTE_SUBSCRIPTIONS,
+                () -> remoteItems.getSnapshot().getSubscriptionCount());
+    }
+
+    protected void unregisterGauges(UpnpMetrics metrics) {
+        metrics.unregisterGauge(UpnpMetrics.GAUGE_LOCAL_DEVICES);
+        metrics.unregisterGauge(UpnpMetrics.GAUGE_REMOTE_DEVICES);
+        metrics.unregisterGauge(UpnpMetrics.GAUGE_LOCAL_SUBSCRIPTIONS);
+        metrics.unregisterGauge(UpnpMetrics.GAUGE_REMOTE_SUBSCRIPTIONS);
     }
 
     @Override
@@ -105,9 +132,13 @@ public class RegistryImpl implements Registry {
     protected final Set<RegistryListener> registryListeners = new CopyOnWriteArraySet<>();
     protected final Set<RegistryItem<URI, Resource>> resourceItems = Collections
             .newSetFromMap(new ConcurrentHashMap<>());
+    // Routes request paths without scanning all resources, resources with their own matching rules are scanned
+    protected final Map<URI, Resource> resourcesByPathQuery = new ConcurrentHashMap<>();
+    protected final Set<Resource> matchingResources = new CopyOnWriteArraySet<>();
     protected final List<Runnable> pendingExecutions = new LinkedList<>();
 
-    // in the methods that acquire both locks at the same time always acquire remoteItemsLock first
+    // Only writers acquire these locks, readers use the last published snapshot of the items.
+    // In the methods that acquire both locks at the same time always acquire remoteItemsLock first.
     protected final ReentrantReadWriteLock remoteItemsLock = new ReentrantReadWriteLock(true);
     protected final ReentrantReadWriteLock localItemsLock = new ReentrantReadWriteLock(true);
     protected final RemoteItems remoteItems = new RemoteItems(this);
@@ -164,6 +195,7 @@ public class RegistryImpl implements Registry {
             try {
                 localItems.add(localDevice);
             } finally {
+                localItems.publishSnapshot();
                 localItemsLock.writeLock().unlock();
             }
         } finally {
@@ -179,6 +211,7 @@ public class RegistryImpl implements Registry {
             try {
                 localItems.add(localDevice, options);
             } finally {
+                localItems.publishSnapshot();
                 localItemsLock.writeLock().unlock();
             }
         } finally {
@@ -192,18 +225,14 @@ public class RegistryImpl implements Registry {
         try {
             localItems.setDiscoveryOptions(udn, options);
         } finally {
+            localItems.publishSnapshot();
             localItemsLock.writeLock().unlock();
         }
     }
 
     @Override
     public DiscoveryOptions getDiscoveryOptions(UDN udn) {
-        localItemsLock.readLock().lock();
-        try {
-            return localItems.getDiscoveryOptions(udn);
-        } finally {
-            localItemsLock.readLock().unlock();
-        }
+        return localItems.getDiscoveryOptions(udn);
     }
 
     @Override
@@ -217,6 +246,7 @@ public class RegistryImpl implements Registry {
                 localItemsLock.readLock().unlock();
             }
         } finally {
+            remoteItems.publishSnapshot();
             remoteItemsLock.writeLock().unlock();
         }
     }
@@ -232,16 +262,24 @@ public class RegistryImpl implements Registry {
                 localItemsLock.readLock().unlock();
             }
         } finally {
+            remoteItems.publishSnapshot();
             remoteItemsLock.writeLock().unlock();
         }
     }
 
+    @Override
+    public boolean refreshAlive(UDN udn, String location, String bootId, int maxAgeSeconds) {
+        // Lock-free, the remote items only refresh devices which are already registered unchanged
+        return remoteItems.refreshAlive(udn, location, bootId, maxAgeSeconds);
+    }
+
     @Override
     public boolean removeDevice(LocalDevice localDevice) {
         localItemsLock.writeLock().lock();
         try {
             return localItems.remove(localDevice);
         } finally {
+            localItems.publishSnapshot();
             localItemsLock.writeLock().unlock();
         }
     }
@@ -252,6 +290,7 @@ public class RegistryImpl implements Registry {
         try {
             return remoteItems.remove(remoteDevice);
         } finally {
+            remoteItems.publishSnapshot();
             remoteItemsLock.writeLock().unlock();
         }
     }
@@ -262,6 +301,7 @@ public class RegistryImpl implements Registry {
         try {
             localItems.removeAll();
         } finally {
+            localItems.publishSnapshot();
             localItemsLock.writeLock().unlock();
         }
     }
@@ -272,6 +312,7 @@ public class RegistryImpl implements Registry {
         try {
             remoteItems.removeAll();
         } finally {
+            remoteItems.publishSnapshot();
             remoteItemsLock.writeLock().unlock();
         }
     }
@@ -304,104 +345,45 @@ public class RegistryImpl implements Registry {
 
     @Override
     public LocalDevice getLocalDevice(UDN udn, boolean rootOnly) {
-        localItemsLock.readLock().lock();
-        try {
-            return localItems.get(udn, rootOnly);
-        } finally {
-            localItemsLock.readLock().unlock();
-        }
+        return localItems.getSnapshot().getDevice(udn, rootOnly);
     }
 
     @Override
     public RemoteDevice getRemoteDevice(UDN udn, boolean rootOnly) {
-        remoteItemsLock.readLock().lock();
-        try {
-            return remoteItems.get(udn, rootOnly);
-        } finally {
-            remoteItemsLock.readLock().unlock();
-        }
+        return remoteItems.getSnapshot().getDevice(udn, rootOnly);
     }
 
     @Override
     public Collection<LocalDevice> getLocalDevices() {
-        localItemsLock.readLock().lock();
-        try {
-            return Collections.unmodifiableCollection(localItems.get());
-        } finally {
-            localItemsLock.readLock().unlock();
-        }
+        return Collections.unmodifiableCollection(localItems.getSnapshot().getDevices());
     }
 
     @Override
     public Collection<RemoteDevice> getRemoteDevices() {
-        remoteItemsLock.readLock().lock();
-        try {
-            return Collections.unmodifiableCollection(remoteItems.get());
-        } finally {
-            remoteItemsLock.readLock().unlock();
-        }
+        return Collections.unmodifiableCollection(remoteItems.getSnapshot().getDevices());
     }
 
     @Override
     public Collection<Device> getDevices() {
         Set<Device> all = new HashSet<>();
-
-        remoteItemsLock.readLock().lock();
-        try {
-            all.addAll(remoteItems.get());
-        } finally {
-            remoteItemsLock.readLock().unlock();
-        }
-
-        localItemsLock.readLock().lock();
-        try {
-            all.addAll(localItems.get());
-        } finally {
-            localItemsLock.readLock().unlock();
-        }
-
+        all.addAll(remoteItems.getSnapshot().getDevices());
+        all.addAll(localItems.getSnapshot().getDevices());
         return Collections.unmodifiableCollection(all);
     }
 
     @Override
     public Collection<Device> getDevices(DeviceType deviceType) {
         Collection<Device> devices = new HashSet<>();
-
-        remoteItemsLock.readLock().lock();
-        try {
-            devices.addAll(remoteItems.get(deviceType));
-        } finally {
-            remoteItemsLock.readLock().unlock();
-        }
-
-        localItemsLock.readLock().lock();
-        try {
-            devices.addAll(localItems.get(deviceType));
-        } finally {
-            localItemsLock.readLock().unlock();
-        }
-
+        devices.addAll(remoteItems.getSnapshot().getDevices(deviceType));
+        devices.addAll(localItems.getSnapshot().getDevices(deviceType));
         return Collections.unmodifiableCollection(devices);
     }
 
     @Override
     public Collection<Device> getDevices(ServiceType serviceType) {
         Collection<Device> devices = new HashSet<>();
-
-        remoteItemsLock.readLock().lock();
-        try {
-            devices.addAll(remoteItems.get(serviceType));
-        } finally {
-            remoteItemsLock.readLock().unlock();
-        }
-
-        localItemsLock.readLock().lock();
-        try {
-            devices.addAll(localItems.get(serviceType));
-        } finally {
-            localItemsLock.readLock().unlock();
-        }
-
+        devices.addAll(remoteItems.getSnapshot().getDevices(serviceType));
+        devices.addAll(localItems.getSnapshot().getDevices(serviceType));
         return Collections.unmodifiableCollection(devices);
     }
 
@@ -422,13 +404,9 @@ public class RegistryImpl implements Registry {
             throw new IllegalArgumentException("Resource URI can not be absolute, only path and query:" + pathQuery);
         }
 
-        // Note: Uses field access on resourceItems for performance reasons
-
-        for (RegistryItem<URI, Resource> resourceItem : resourceItems) {
-            Resource resource = resourceItem.getItem();
-            if (resource.matches(pathQuery)) {
-                return resource;
-            }
+        Resource resource = routeResource(pathQuery);
+        if (resource != null) {
+            return resource;
         }
 
         // TODO: UPNP VIOLATION: Fuppes on my ReadyNAS thinks it's a cool idea to add a slash at the end of the callback
@@ -438,17 +416,25 @@ public class RegistryImpl implements Registry {
             URI pathQueryWithoutSlash = URI
                     .create(pathQuery.toString().substring(0, pathQuery.toString().length() - 1));
 
-            for (RegistryItem<URI, Resource> resourceItem : resourceItems) {
-                Resource resource = resourceItem.getItem();
-                if (resource.matches(pathQueryWithoutSlash)) {
-                    return resource;
-                }
-            }
+            return routeResource(pathQueryWithoutSlash);
         }
 
         return null;
     }
 
+    protected Resource routeResource(URI pathQuery) {
+        Resource resource = resourcesByPathQuery.get(pathQuery);
+        if (resource != null) {
+            return resource;
+        }
+        for (Resource matchingResource : matchingResources) {
+            if (matchingResource.matches(pathQuery)) {
+                return matchingResource;
+            }
+        }
+        return null;
+    }
+
     @Override
     public <T extends Resource> T getResource(Class<T> resourceType, URI pathQuery) throws IllegalArgumentException {
         Resource resource = getResource(pathQuery);
@@ -490,11 +476,40 @@ public class RegistryImpl implements Registry {
 
         resourceItems.remove(resourceItem);
         resourceItems.add(resourceItem);
+        unindexResource(resource.getPathQuery());
+        indexResource(resource);
     }
 
     @Override
     public boolean removeResource(Resource resource) {
-        return resourceItems.remove(new RegistryItem<>(resource.getPathQuery()));
+        boolean removed = resourceItems.remove(new RegistryItem<>(resource.getPathQuery()));
+        unindexResource(resource.getPathQuery());
+        return removed;
+    }
+
+    protected void indexResource(Resource resource) {
+        if (hasCustomMatching(resource)) {
+            matchingResources.add(resource);
+        } else {
+            resourcesByPathQuery.put(resource.getPathQuery(), resource);
+        }
+    }
+
+    protected void unindexResource(URI pathQuery) {
+        resourcesByPathQuery.remove(pathQuery);
+        matchingResources.removeIf(resource -> resource.getPathQuery().equals(pathQuery));
+    }
+
+    /**
+     * @return <code>true</code> if the resource overrides {@link Resource#matches(URI)} and can't be found by its
+     *         path and query alone.
+     */
+    protected boolean hasCustomMatching(Resource resource) {
+        try {
+            return resource.getClass().getMethod("matches", URI.class).getDeclaringClass() != Resource.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
     }
 
     // #################################################################################################
@@ -505,18 +520,14 @@ public class RegistryImpl implements Registry {
         try {
             localItems.addSubscription(subscription);
         } finally {
+            localItems.publishSnapshot();
             localItemsLock.writeLock().unlock();
         }
     }
 
     @Override
     public LocalGENASubscription getLocalSubscription(String subscriptionId) {
-        localItemsLock.readLock().lock();
-        try {
-            return localItems.getSubscription(subscriptionId);
-        } finally {
-            localItemsLock.readLock().unlock();
-        }
+        return localItems.getSnapshot().getSubscription(subscriptionId);
     }
 
     @Override
@@ -525,6 +536,7 @@ public class RegistryImpl implements Registry {
         try {
             return localItems.updateSubscription(subscription);
         } finally {
+            localItems.publishSnapshot();
             localItemsLock.writeLock().unlock();
         }
     }
@@ -535,6 +547,7 @@ public class RegistryImpl implements Registry {
         try {
             return localItems.removeSubscription(subscription);
         } finally {
+            localItems.publishSnapshot();
             localItemsLock.writeLock().unlock();
         }
     }
@@ -545,18 +558,14 @@ public class RegistryImpl implements Registry {
         try {
             remoteItems.addSubscription(subscription);
         } finally {
+            remoteItems.publishSnapshot();
             remoteItemsLock.writeLock().unlock();
         }
     }
 
     @Override
     public RemoteGENASubscription getRemoteSubscription(String subscriptionId) {
-        remoteItemsLock.readLock().lock();
-        try {
-            return remoteItems.getSubscription(subscriptionId);
-        } finally {
-            remoteItemsLock.readLock().unlock();
-        }
+        return remoteItems.getSnapshot().getSubscription(subscriptionId);
     }
 
     @Override
@@ -565,6 +574,7 @@ public class RegistryImpl implements Registry {
         try {
             remoteItems.updateSubscription(subscription);
         } finally {
+            remoteItems.publishSnapshot();
             remoteItemsLock.writeLock().unlock();
         }
     }
@@ -575,6 +585,7 @@ public class RegistryImpl implements Registry {
         try {
             remoteItems.removeSubscription(subscription);
         } finally {
+            remoteItems.publishSnapshot();
             remoteItemsLock.writeLock().unlock();
         }
     }
@@ -623,6 +634,7 @@ public class RegistryImpl implements Registry {
         try {
             remoteItems.shutdown();
         } finally {
+            remoteItems.publishSnapshot();
             remoteItemsLock.writeLock().unlock();
         }
 
@@ -630,12 +642,15 @@ public class RegistryImpl implements Registry {
         try {
             localItems.shutdown();
         } finally {
+            localItems.publishSnapshot();
             localItemsLock.writeLock().unlock();
         }
 
         for (RegistryListener listener : registryListeners) {
             listener.afterShutdown();
         }
+
+        unregisterGauges(getMetrics());
     }
 
     @Override
@@ -664,6 +679,7 @@ public class RegistryImpl implements Registry {
                         localItemsLock.readLock().unlock();
                     }
                 } finally {
+                    remoteItems.publishSnapshot();
                     remoteItemsLock.writeLock().unlock();
                 }
 
@@ -687,6 +703,7 @@ public class RegistryImpl implements Registry {
     void maintain() {
 
         logger.trace("Maintaining registry...");
+        long start = System.nanoTime();
 
         // Remove expired resources
         Iterator<RegistryItem<URI, Resource>> it = resourceItems.iterator();
@@ -695,6 +712,8 @@ public class RegistryImpl implements Registry {
             if (item.getExpirationDetails().hasExpired()) {
                 logger.trace("Removing expired resource: {}", item);
                 it.remove();
+                resourcesByPathQuery.remove(item.getKey(), item.getItem());
+                matchingResources.remove(item.getItem());
             }
         }
 
@@ -710,6 +729,7 @@ public class RegistryImpl implements Registry {
         try {
             remoteItems.maintain();
         } finally {
+            remoteItems.publishSnapshot();
             remoteItemsLock.writeLock().unlock();
         }
 
@@ -717,11 +737,14 @@ public class RegistryImpl implements Registry {
         try {
             localItems.maintain();
         } finally {
+            localItems.publishSnapshot();
             localItemsLock.writeLock().unlock();
         }
 
         // We now run the queue asynchronously so the maintenance thread can continue its loop undisturbed
         runPendingExecutions(true);
+
+        getMetrics().registryMaintained(System.nanoTime() - start);
     }
 
     void executeAsyncProtocol(Runnable runnable) {
@@ -753,25 +776,15 @@ public class RegistryImpl implements Registry {
             logger.trace(
                     "====================================    REMOTE   ================================================");
 
-            remoteItemsLock.readLock().lock();
-            try {
-                for (RemoteDevice remoteDevice : remoteItems.get()) {
-                    logger.trace(remoteDevice.toString());
-                }
-            } finally {
-                remoteItemsLock.readLock().unlock();
+            for (RemoteDevice remoteDevice : remoteItems.getSnapshot().getDevices()) {
+                logger.trace(remoteDevice.toString());
             }
 
             logger.trace(
                     "====================================    LOCAL    ================================================");
 
-            localItemsLock.readLock().lock();
-            try {
-                for (LocalDevice localDevice : localItems.get()) {
-                    logger.trace(localDevice.toString());
-                }
-            } finally {
-                localItemsLock.readLock().unlock();
+            for (LocalDevice localDevice : localItems.getSnapshot().getDevices()) {
+                logger.trace(localDevice.toString());
             }
 
             logger.trace(
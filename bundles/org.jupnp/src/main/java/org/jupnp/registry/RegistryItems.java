@@ -15,10 +15,12 @@
  */
 package org.jupnp.registry;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.jupnp.UpnpServiceConfiguration;
 import org.jupnp.model.ValidationException;
@@ -31,6 +33,16 @@ import org.jupnp.model.types.UDN;
 
 /**
  * Internal class, required by {@link RegistryImpl}.
+ * <p>
+ * Root devices and subscriptions are stored in maps keyed by UDN and subscription identifier, together with
+ * their expiration details. These maps and the working {@link RegistrySnapshot} of indexes are only accessed
+ * while holding the write lock of the items. The lookup methods of this class operate on the working indexes,
+ * lock-free readers use the last published {@link #getSnapshot() snapshot} instead.
+ * </p>
+ * <p>
+ * Device and subscription items are also scheduled in {@link ExpirationQueue}s whenever they are stored, so
+ * maintenance only visits the items which are due.
+ * </p>
  *
  * @author Christian Bauer
  */
@@ -38,19 +50,140 @@ abstract class RegistryItems<D extends Device, S extends GENASubscription> {
 
     protected final RegistryImpl registry;
 
-    protected final Set<RegistryItem<UDN, D>> deviceItems = new HashSet<>();
-    protected final Set<RegistryItem<String, S>> subscriptionItems = new HashSet<>();
+    protected final Map<UDN, RegistryItem<UDN, D>> deviceItems = new HashMap<>();
+    protected final Map<String, RegistryItem<String, S>> subscriptionItems = new HashMap<>();
 
-    RegistryItems(RegistryImpl registry) {
+    protected final RegistrySnapshot<D, S> index = new RegistrySnapshot<>();
+    protected volatile RegistrySnapshot<D, S> snapshot = index.copy(0);
+    protected long snapshotVersion;
+    protected boolean modified;
+
+    protected final ExpirationQueue<UDN> deviceExpirations;
+    protected final ExpirationQueue<String> subscriptionExpirations;
+
+    /**
+     * @param deviceHalfTime If <code>true</code> then devices are due for maintenance at half of their maximum age.
+     * @param subscriptionHalfTime If <code>true</code> then subscriptions are due for maintenance at half of their
+     *            maximum age.
+     */
+    RegistryItems(RegistryImpl registry, boolean deviceHalfTime, boolean subscriptionHalfTime) {
         this.registry = registry;
+        this.deviceExpirations = new ExpirationQueue<>(deviceHalfTime);
+        this.subscriptionExpirations = new ExpirationQueue<>(subscriptionHalfTime);
     }
 
-    Set<RegistryItem<UDN, D>> getDeviceItems() {
-        return deviceItems;
+    Collection<RegistryItem<UDN, D>> getDeviceItems() {
+        return Collections.unmodifiableCollection(deviceItems.values());
     }
 
-    Set<RegistryItem<String, S>> getSubscriptionItems() {
-        return subscriptionItems;
+    Collection<RegistryItem<String, S>> getSubscriptionItems() {
+        return Collections.unmodifiableCollection(subscriptionItems.values());
+    }
+
+    /**
+     * @return The indexes as of the last completed modification, never modified and safe to read without locking.
+     */
+    RegistrySnapshot<D, S> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Makes all modifications since the last call visible to readers of {@link #getSnapshot()}.
+     * <p>
+     * Called once before the write lock is released, so bulk modifications only copy the indexes once.
+     * </p>
+     */
+    void publishSnapshot() {
+        if (modified) {
+            snapshot = index.copy(++snapshotVersion);
+            modified = false;
+        }
+    }
+
+    /**
+     * Stores the item of a root device, replacing any existing item with the same UDN, and updates the indexes.
+     */
+    void putDeviceItem(RegistryItem<UDN, D> item) {
+        RegistryItem<UDN, D> previous = deviceItems.put(item.getKey(), item);
+        deviceExpirations.schedule(item.getKey(), item.getExpirationDetails());
+        if (previous != null) {
+            if (previous.getItem() == item.getItem()) {
+                // Only the expiration details changed, the device graph is still indexed
+                return;
+            }
+            index.removeDevice(previous.getItem());
+        }
+        index.addDevice(item.getItem());
+        modified = true;
+    }
+
+    /**
+     * Removes the item of a root device and all of its root and embedded devices from the indexes.
+     */
+    RegistryItem<UDN, D> removeDeviceItem(UDN udn) {
+        RegistryItem<UDN, D> removed = deviceItems.remove(udn);
+        deviceExpirations.cancel(udn);
+        if (removed != null) {
+            index.removeDevice(removed.getItem());
+            modified = true;
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the device items which are due from the expiration schedule.
+     * <p>
+     * Items which have been refreshed without being rescheduled are scheduled again and not returned.
+     * </p>
+     *
+     * @return The expired device items, callers have to {@link #rescheduleDeviceItem(RegistryItem) reschedule}
+     *         items they keep.
+     */
+    List<RegistryItem<UDN, D>> pollExpiredDeviceItems() {
+        List<RegistryItem<UDN, D>> expired = new ArrayList<>();
+        for (UDN udn : deviceExpirations.poll(getCurrentTimestampSeconds())) {
+            RegistryItem<UDN, D> item = deviceItems.get(udn);
+            if (item == null) {
+                continue;
+            }
+            if (item.getExpirationDetails().hasExpired(deviceExpirations.isHalfTime())) {
+                expired.add(item);
+            } else {
+                deviceExpirations.schedule(udn, item.getExpirationDetails());
+            }
+        }
+        return expired;
+    }
+
+    void rescheduleDeviceItem(RegistryItem<UDN, D> item) {
+        if (deviceItems.get(item.getKey()) == item) {
+            deviceExpirations.schedule(item.getKey(), item.getExpirationDetails());
+        }
+    }
+
+    /**
+     * Removes the subscription items which are due from the expiration schedule.
+     *
+     * @return The expired subscription items, see {@link #pollExpiredDeviceItems()}.
+     */
+    List<RegistryItem<String, S>> pollExpiredSubscriptionItems() {
+        List<RegistryItem<String, S>> expired = new ArrayList<>();
+        for (String subscriptionId : subscriptionExpirations.poll(getCurrentTimestampSeconds())) {
+            RegistryItem<String, S> item = subscriptionItems.get(subscriptionId);
+            if (item == null) {
+                continue;
+            }
+            if (item.getExpirationDetails().hasExpired(subscriptionExpirations.isHalfTime())) {
+                expired.add(item);
+            } else {
+                subscriptionExpirations.schedule(subscriptionId, item.getExpirationDetails());
+            }
+        }
+        return expired;
+    }
+
+    protected long getCurrentTimestampSeconds() {
+        return System.currentTimeMillis() / 1000;
     }
 
     abstract void add(D device);
@@ -72,19 +205,7 @@ abstract class RegistryItems<D extends Device, S extends GENASubscription> {
      *         no device with the given UDN has been registered.
      */
     D get(UDN udn, boolean rootOnly) {
-        for (RegistryItem<UDN, D> item : deviceItems) {
-            D device = item.getItem();
-            if (device.getIdentity().getUdn().equals(udn)) {
-                return device;
-            }
-            if (!rootOnly) {
-                D foundDevice = (D) item.getItem().findDevice(udn);
-                if (foundDevice != null) {
-                    return foundDevice;
-                }
-            }
-        }
-        return null;
+        return index.getDevice(udn, rootOnly);
     }
 
     /**
@@ -97,14 +218,7 @@ abstract class RegistryItems<D extends Device, S extends GENASubscription> {
      * @return Any registered root or embedded device with a compatible type.
      */
     Collection<D> get(DeviceType deviceType) {
-        Collection<D> devices = new HashSet<>();
-        for (RegistryItem<UDN, D> item : deviceItems) {
-            D[] d = (D[]) item.getItem().findDevices(deviceType);
-            if (d != null) {
-                devices.addAll(Arrays.asList(d));
-            }
-        }
-        return devices;
+        return index.getDevices(deviceType);
     }
 
     /**
@@ -114,23 +228,11 @@ abstract class RegistryItems<D extends Device, S extends GENASubscription> {
      * @return Any registered root or embedded device with at least one matching service.
      */
     Collection<D> get(ServiceType serviceType) {
-        Collection<D> devices = new HashSet<>();
-        for (RegistryItem<UDN, D> item : deviceItems) {
-
-            D[] d = (D[]) item.getItem().findDevices(serviceType);
-            if (d != null) {
-                devices.addAll(Arrays.asList(d));
-            }
-        }
-        return devices;
+        return index.getDevices(serviceType);
     }
 
     Collection<D> get() {
-        Collection<D> devices = new HashSet<>();
-        for (RegistryItem<UDN, D> item : deviceItems) {
-            devices.add(item.getItem());
-        }
-        return devices;
+        return index.getDevices();
     }
 
     boolean contains(D device) {
@@ -138,7 +240,7 @@ abstract class RegistryItems<D extends Device, S extends GENASubscription> {
     }
 
     boolean contains(UDN udn) {
-        return deviceItems.contains(new RegistryItem<UDN, D>(udn));
+        return deviceItems.containsKey(udn);
     }
 
     void addSubscription(S subscription) {
@@ -146,7 +248,10 @@ abstract class RegistryItems<D extends Device, S extends GENASubscription> {
         RegistryItem<String, S> subscriptionItem = new RegistryItem<>(subscription.getSubscriptionId(), subscription,
                 subscription.getActualDurationSeconds());
 
-        subscriptionItems.add(subscriptionItem);
+        subscriptionItems.put(subscriptionItem.getKey(), subscriptionItem);
+        subscriptionExpirations.schedule(subscriptionItem.getKey(), subscriptionItem.getExpirationDetails());
+        index.addSubscription(subscription);
+        modified = true;
     }
 
     boolean updateSubscription(S subscription) {
@@ -158,16 +263,24 @@ abstract class RegistryItems<D extends Device, S extends GENASubscription> {
     }
 
     boolean removeSubscription(S subscription) {
-        return subscriptionItems.remove(new RegistryItem<String, S>(subscription.getSubscriptionId()));
+        if (subscriptionItems.remove(subscription.getSubscriptionId()) != null) {
+            subscriptionExpirations.cancel(subscription.getSubscriptionId());
+            index.removeSubscription(subscription.getSubscriptionId());
+            modified = true;
+            return true;
+        }
+        return false;
+    }
+
+    void removeAllSubscriptions() {
+        subscriptionItems.clear();
+        subscriptionExpirations.clear();
+        index.removeAllSubscriptions();
+        modified = true;
     }
 
     S getSubscription(String subscriptionId) {
-        for (RegistryItem<String, S> registryItem : subscriptionItems) {
-            if (registryItem.getKey().equals(subscriptionId)) {
-                return registryItem.getItem();
-            }
-        }
-        return null;
+        return index.getSubscription(subscriptionId);
     }
 
     Resource[] getResources(Device device) throws RegistrationException {
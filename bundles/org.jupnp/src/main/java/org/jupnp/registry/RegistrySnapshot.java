@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.registry;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jupnp.model.gena.GENASubscription;
+import org.jupnp.model.meta.Device;
+import org.jupnp.model.meta.Service;
+import org.jupnp.model.types.DeviceType;
+import org.jupnp.model.types.ServiceType;
+import org.jupnp.model.types.UDN;
+
+/**
+ * Internal class, required by {@link RegistryImpl}.
+ * <p>
+ * Indexes root and embedded devices by UDN, device type, and service type, and subscriptions by identifier.
+ * The type indexes ignore the version and are filtered on lookup, as described by the UDA. Each
+ * {@link RegistryItems} modifies its own working instance while holding the write lock, and publishes
+ * a {@link #copy(long) copy} for readers after every modification. Published instances are never modified,
+ * so they can be read without any locking.
+ * </p>
+ * <p>
+ * A copy shares all maps with the working instance. The working instance copies a map before its first
+ * modification after a copy, and in the type indexes only the device sets of the modified types. So a
+ * modification only costs a copy of the indexes it changes, and unchanged indexes are shared by all versions.
+ * </p>
+ */
+class RegistrySnapshot<D extends Device, S extends GENASubscription> {
+
+    private final long version;
+
+    // Package visible for tests, published instances never reassign or modify them
+    Map<UDN, D> rootDevices;
+    Map<UDN, D> devices;
+    Map<String, Set<D>> devicesByDeviceType;
+    Map<String, Set<D>> devicesByServiceType;
+    Map<String, S> subscriptions;
+
+    // Only used by the working instance, the maps and type keys shared with the last published copy
+    private boolean rootDevicesShared;
+    private boolean devicesShared;
+    private boolean devicesByDeviceTypeShared;
+    private boolean devicesByServiceTypeShared;
+    private boolean subscriptionsShared;
+    private final Set<String> ownedDeviceTypes = new HashSet<>();
+    private final Set<String> ownedServiceTypes = new HashSet<>();
+
+    RegistrySnapshot() {
+        this(0, new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>());
+    }
+
+    private RegistrySnapshot(long version, Map<UDN, D> rootDevices, Map<UDN, D> devices,
+            Map<String, Set<D>> devicesByDeviceType, Map<String, Set<D>> devicesByServiceType,
+            Map<String, S> subscriptions) {
+        this.version = version;
+        this.rootDevices = rootDevices;
+        this.devices = devices;
+        this.devicesByDeviceType = devicesByDeviceType;
+        this.devicesByServiceType = devicesByServiceType;
+        this.subscriptions = subscriptions;
+    }
+
+    /**
+     * @return The number of snapshots published before this snapshot.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param version The version of the copy.
+     * @return A copy of the indexes, which is not affected by later modifications of this instance.
+     */
+    RegistrySnapshot<D, S> copy(long version) {
+        rootDevicesShared = true;
+        devicesShared = true;
+        devicesByDeviceTypeShared = true;
+        devicesByServiceTypeShared = true;
+        subscriptionsShared = true;
+        ownedDeviceTypes.clear();
+        ownedServiceTypes.clear();
+        return new RegistrySnapshot<>(version, rootDevices, devices, devicesByDeviceType, devicesByServiceType,
+                subscriptions);
+    }
+
+    /* ############################################################################################################ */
+
+    D getDevice(UDN udn, boolean rootOnly) {
+        return rootOnly ? rootDevices.get(udn) : devices.get(udn);
+    }
+
+    Collection<D> getDevices() {
+        return new HashSet<>(rootDevices.values());
+    }
+
+    int getDeviceCount() {
+        return rootDevices.size();
+    }
+
+    int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    Collection<D> getDevices(DeviceType deviceType) {
+        Collection<D> result = new HashSet<>();
+        Set<D> candidates = devicesByDeviceType.get(getTypeKey(deviceType));
+        if (candidates != null) {
+            for (D candidate : candidates) {
+                if (candidate.getType().implementsVersion(deviceType)) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    Collection<D> getDevices(ServiceType serviceType) {
+        Collection<D> result = new HashSet<>();
+        if (serviceType == null) {
+            // Any device with at least one service
+            for (Set<D> candidates : devicesByServiceType.values()) {
+                result.addAll(candidates);
+            }
+            return result;
+        }
+        Set<D> candidates = devicesByServiceType.get(getTypeKey(serviceType));
+        if (candidates != null) {
+            for (D candidate : candidates) {
+                for (Service service : candidate.getServices()) {
+                    if (service.getServiceType().implementsVersion(serviceType)) {
+                        result.add(candidate);
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    S getSubscription(String subscriptionId) {
+        return subscriptions.get(subscriptionId);
+    }
+
+    /* ############################################################################################################ */
+
+    void addDevice(D rootDevice) {
+        writableRootDevices().put(rootDevice.getIdentity().getUdn(), rootDevice);
+        index(rootDevice);
+    }
+
+    void removeDevice(D rootDevice) {
+        if (rootDevice.equals(rootDevices.get(rootDevice.getIdentity().getUdn()))) {
+            writableRootDevices().remove(rootDevice.getIdentity().getUdn());
+        }
+        unindex(rootDevice);
+    }
+
+    void addSubscription(S subscription) {
+        writableSubscriptions().put(subscription.getSubscriptionId(), subscription);
+    }
+
+    void removeSubscription(String subscriptionId) {
+        if (subscriptions.containsKey(subscriptionId)) {
+            writableSubscriptions().remove(subscriptionId);
+        }
+    }
+
+    void removeAllSubscriptions() {
+        subscriptions = new HashMap<>();
+        subscriptionsShared = false;
+    }
+
+    protected void index(D device) {
+        writableDevices().put(device.getIdentity().getUdn(), device);
+        // Type might be null if we just discovered the device and it hasn't yet been hydrated
+        if (device.getType() != null) {
+            writableTypeSet(true, getTypeKey(device.getType())).add(device);
+        }
+        if (device.hasServices()) {
+            for (Service service : device.getServices()) {
+                writableTypeSet(false, getTypeKey(service.getServiceType())).add(device);
+            }
+        }
+        if (device.hasEmbeddedDevices()) {
+            for (Device embeddedDevice : device.getEmbeddedDevices()) {
+                index((D) embeddedDevice);
+            }
+        }
+    }
+
+    protected void unindex(D device) {
+        if (device.equals(devices.get(device.getIdentity().getUdn()))) {
+            writableDevices().remove(device.getIdentity().getUdn());
+        }
+        if (device.getType() != null) {
+            removeFromIndex(true, getTypeKey(device.getType()), device);
+        }
+        if (device.hasServices()) {
+            for (Service service : device.getServices()) {
+                removeFromIndex(false, getTypeKey(service.getServiceType()), device);
+            }
+        }
+        if (device.hasEmbeddedDevices()) {
+            for (Device embeddedDevice : device.getEmbeddedDevices()) {
+                unindex((D) embeddedDevice);
+            }
+        }
+    }
+
+    protected void removeFromIndex(boolean deviceType, String key, D device) {
+        Set<D> indexed = (deviceType ? devicesByDeviceType : devicesByServiceType).get(key);
+        if (indexed == null || !indexed.contains(device)) {
+            return;
+        }
+        if (indexed.size() == 1) {
+            writableTypeIndex(deviceType).remove(key);
+            (deviceType ? ownedDeviceTypes : ownedServiceTypes).remove(key);
+        } else {
+            writableTypeSet(deviceType, key).remove(device);
+        }
+    }
+
+    /* ############################################################################################################ */
+
+    protected Map<UDN, D> writableRootDevices() {
+        if (rootDevicesShared) {
+            rootDevices = new HashMap<>(rootDevices);
+            rootDevicesShared = false;
+        }
+        return rootDevices;
+    }
+
+    protected Map<UDN, D> writableDevices() {
+        if (devicesShared) {
+            devices = new HashMap<>(devices);
+            devicesShared = false;
+        }
+        return devices;
+    }
+
+    protected Map<String, S> writableSubscriptions() {
+        if (subscriptionsShared) {
+            subscriptions = new HashMap<>(subscriptions);
+            subscriptionsShared = false;
+        }
+        return subscriptions;
+    }
+
+    protected Map<String, Set<D>> writableTypeIndex(boolean deviceType) {
+        if (deviceType) {
+            if (devicesByDeviceTypeShared) {
+                devicesByDeviceType = new HashMap<>(devicesByDeviceType);
+                devicesByDeviceTypeShared = false;
+            }
+            return devicesByDeviceType;
+        }
+        if (devicesByServiceTypeShared) {
+            devicesByServiceType = new HashMap<>(devicesByServiceType);
+            devicesByServiceTypeShared = false;
+        }
+        return devicesByServiceType;
+    }
+
+    /**
+     * @return The devices of the type, copied if the set is shared with a published copy.
+     */
+    protected Set<D> writableTypeSet(boolean deviceType, String key) {
+        Map<String, Set<D>> index = writableTypeIndex(deviceType);
+        Set<String> owned = deviceType ? ownedDeviceTypes : ownedServiceTypes;
+        Set<D> indexed = index.get(key);
+        if (indexed == null) {
+            indexed = new HashSet<>();
+            index.put(key, indexed);
+            owned.add(key);
+        } else if (owned.add(key)) {
+            indexed = new HashSet<>(indexed);
+            index.put(key, indexed);
+        }
+        return indexed;
+    }
+
+    protected String getTypeKey(DeviceType deviceType) {
+        return deviceType.getNamespace() + ":" + deviceType.getType();
+    }
+
+    protected String getTypeKey(ServiceType serviceType) {
+        return serviceType.getNamespace() + ":" + serviceType.getType();
+    }
+}
@@ -17,17 +17,14 @@ package org.jupnp.registry;
 
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.jupnp.model.ExpirationDetails;
 import org.jupnp.model.gena.CancelReason;
 import org.jupnp.model.gena.RemoteGENASubscription;
-import org.jupnp.model.meta.LocalDevice;
 import org.jupnp.model.meta.RemoteDevice;
 import org.jupnp.model.meta.RemoteDeviceIdentity;
 import org.jupnp.model.resource.Resource;
@@ -44,8 +41,28 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
 
     private final Logger logger = LoggerFactory.getLogger(Registry.class);
 
+    // Read without holding the lock of the remote items, see refreshAlive()
+    protected final Map<UDN, AliveEntry> aliveIndex = new ConcurrentHashMap<>();
+
+    /**
+     * The registered root device item of a root or embedded device UDN, and the descriptor location it was
+     * retrieved from.
+     */
+    static class AliveEntry {
+
+        final RegistryItem<UDN, RemoteDevice> item;
+        final String location;
+        final AtomicReference<String> bootId = new AtomicReference<>();
+
+        AliveEntry(RegistryItem<UDN, RemoteDevice> item, String location) {
+            this.item = item;
+            this.location = location;
+        }
+    }
+
     RemoteItems(RegistryImpl registry) {
-        super(registry);
+        // Devices are removed when they expire, outgoing subscriptions are renewed at half time
+        super(registry, false, true);
     }
 
     /**
@@ -92,10 +109,11 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
             maxAgeSeconds = device.getIdentity().getMaxAgeSeconds();
         }
 
-        RegistryItem item = new RegistryItem(device.getIdentity().getUdn(), device, maxAgeSeconds);
+        RegistryItem<UDN, RemoteDevice> item = new RegistryItem<>(device.getIdentity().getUdn(), device,
+                maxAgeSeconds);
         logger.trace("Adding hydrated remote device to registry with {} seconds expiration: {}",
                 item.getExpirationDetails().getMaxAgeSeconds(), device);
-        getDeviceItems().add(item);
+        putDeviceItem(item);
 
         if (logger.isTraceEnabled()) {
             StringBuilder sb = new StringBuilder();
@@ -108,7 +126,8 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
             logger.trace(sb.toString());
         }
 
-        // Only notify the listeners when the device is fully usable
+        // Only notify the listeners when the device is fully usable, and visible to lock-free readers
+        publishSnapshot();
         logger.trace("Completely hydrated remote device graph available, calling listeners: {}", device);
         for (final RegistryListener listener : registry.getListeners()) {
             registry.getConfiguration().getRemoteListenerExecutor()
@@ -118,11 +137,9 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
 
     boolean update(RemoteDeviceIdentity rdIdentity) {
 
-        for (LocalDevice localDevice : registry.getLocalDevices()) {
-            if (localDevice.findDevice(rdIdentity.getUdn()) != null) {
-                logger.trace("Ignoring update, a local device graph contains UDN");
-                return true;
-            }
+        if (registry.getLocalDevice(rdIdentity.getUdn(), false) != null) {
+            logger.trace("Ignoring update, a local device graph contains UDN");
+            return true;
         }
 
         RemoteDevice registeredRemoteDevice = get(rdIdentity.getUdn(), false);
@@ -155,8 +172,7 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
                             : rdIdentity.getMaxAgeSeconds());
 
             logger.trace("Updating expiration of: {}", registeredRemoteDevice);
-            getDeviceItems().remove(item);
-            getDeviceItems().add(item);
+            putDeviceItem(item);
 
             logger.trace("Remote device updated, calling listeners: {}", registeredRemoteDevice);
             for (final RegistryListener listener : registry.getListeners()) {
@@ -170,6 +186,86 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
         return false;
     }
 
+    /**
+     * Refreshes the expiration of a registered device from the raw header values of an ALIVE notification,
+     * without holding the lock of the remote items.
+     * <p>
+     * Only notifications with the same descriptor location, maximum age and boot identifier as the registered
+     * device are handled here, everything else has to be processed by {@link #update(RemoteDeviceIdentity)}.
+     * </p>
+     *
+     * @return <code>true</code> if the device expiration was refreshed and listeners have been notified.
+     */
+    boolean refreshAlive(UDN udn, String location, String bootId, int maxAgeSeconds) {
+        AliveEntry entry = aliveIndex.get(udn);
+        if (entry == null || !entry.location.equals(location)) {
+            return false;
+        }
+
+        if (bootId != null) {
+            String previousBootId = entry.bootId.getAndSet(bootId);
+            if (previousBootId != null && !previousBootId.equals(bootId)) {
+                logger.trace("Boot identifier of device has changed: {}", udn);
+                return false;
+            }
+        }
+
+        Integer configuredMaxAgeSeconds = registry.getConfiguration().getRemoteDeviceMaxAgeSeconds();
+        ExpirationDetails expirationDetails = entry.item.getExpirationDetails();
+        if (expirationDetails.getMaxAgeSeconds() != (configuredMaxAgeSeconds != null ? configuredMaxAgeSeconds
+                : maxAgeSeconds)) {
+            return false;
+        }
+
+        // The expiration queue reschedules refreshed items when they are polled
+        expirationDetails.stampLastRefresh();
+        if (aliveIndex.get(udn) != entry) {
+            // Removed or replaced concurrently
+            return false;
+        }
+
+        final RemoteDevice device = entry.item.getItem();
+        logger.trace("Remote device refreshed, calling listeners: {}", device);
+        for (final RegistryListener listener : registry.getListeners()) {
+            registry.getConfiguration().getRemoteListenerExecutor()
+                    .execute(() -> listener.remoteDeviceUpdated(registry, device));
+        }
+        return true;
+    }
+
+    @Override
+    void putDeviceItem(RegistryItem<UDN, RemoteDevice> item) {
+        RegistryItem<UDN, RemoteDevice> previous = deviceItems.get(item.getKey());
+        super.putDeviceItem(item);
+        if (previous != null) {
+            removeAliveEntries(previous.getItem());
+        }
+        URL descriptorURL = item.getItem().getIdentity().getDescriptorURL();
+        if (descriptorURL != null) {
+            AliveEntry entry = new AliveEntry(item, descriptorURL.toString());
+            aliveIndex.put(item.getKey(), entry);
+            for (RemoteDevice embedded : item.getItem().findEmbeddedDevices()) {
+                aliveIndex.put(embedded.getIdentity().getUdn(), entry);
+            }
+        }
+    }
+
+    @Override
+    RegistryItem<UDN, RemoteDevice> removeDeviceItem(UDN udn) {
+        RegistryItem<UDN, RemoteDevice> removed = super.removeDeviceItem(udn);
+        if (removed != null) {
+            removeAliveEntries(removed.getItem());
+        }
+        return removed;
+    }
+
+    private void removeAliveEntries(RemoteDevice device) {
+        aliveIndex.remove(device.getIdentity().getUdn());
+        for (RemoteDevice embedded : device.findEmbeddedDevices()) {
+            aliveIndex.remove(embedded.getIdentity().getUdn());
+        }
+    }
+
     /**
      * Removes the given device from the registry and notifies registry listeners.
      *
@@ -195,15 +291,14 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
             }
 
             // Active subscriptions
-            Iterator<RegistryItem<String, RemoteGENASubscription>> it = getSubscriptionItems().iterator();
-            while (it.hasNext()) {
-                final RegistryItem<String, RemoteGENASubscription> outgoingSubscription = it.next();
+            for (final RegistryItem<String, RemoteGENASubscription> outgoingSubscription : new ArrayList<>(
+                    getSubscriptionItems())) {
 
                 UDN subscriptionForUDN = outgoingSubscription.getItem().getService().getDevice().getIdentity().getUdn();
 
                 if (subscriptionForUDN.equals(registeredDevice.getIdentity().getUdn())) {
                     logger.trace("Removing outgoing subscription: {}", outgoingSubscription.getKey());
-                    it.remove();
+                    removeSubscription(outgoingSubscription.getItem());
                     if (!shuttingDown) {
                         registry.getConfiguration().getRemoteListenerExecutor().execute(
                                 () -> outgoingSubscription.getItem().end(CancelReason.DEVICE_WAS_REMOVED, null));
@@ -211,17 +306,18 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
                 }
             }
 
+            // Remove the device from the registry
+            removeDeviceItem(registeredDevice.getIdentity().getUdn());
+
             // Only notify listeners if we are NOT in the process of shutting down the registry
             if (!shuttingDown) {
+                publishSnapshot();
                 for (final RegistryListener listener : registry.getListeners()) {
                     registry.getConfiguration().getRemoteListenerExecutor()
                             .execute(() -> listener.remoteDeviceRemoved(registry, registeredDevice));
                 }
             }
 
-            // Finally, remove the device from the registry
-            getDeviceItems().remove(new RegistryItem<>(registeredDevice.getIdentity().getUdn()));
-
             return true;
         }
 
@@ -254,32 +350,20 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
         }
 
         // Remove expired remote devices
-        Map<UDN, RemoteDevice> expiredRemoteDevices = new HashMap<>();
-        for (RegistryItem<UDN, RemoteDevice> remoteItem : getDeviceItems()) {
-            logger.trace("Device '{}' expires in seconds: {}", remoteItem.getItem(),
-                    remoteItem.getExpirationDetails().getSecondsUntilExpiration());
-            if (remoteItem.getExpirationDetails().hasExpired(false)) {
-                expiredRemoteDevices.put(remoteItem.getKey(), remoteItem.getItem());
-            }
-        }
-        for (RemoteDevice remoteDevice : expiredRemoteDevices.values()) {
-            logger.trace("Removing expired: {}", remoteDevice);
-            remove(remoteDevice);
+        for (RegistryItem<UDN, RemoteDevice> expiredItem : pollExpiredDeviceItems()) {
+            logger.trace("Removing expired: {}", expiredItem.getItem());
+            remove(expiredItem.getItem());
         }
 
-        // Renew outgoing subscriptions
-        Set<RemoteGENASubscription> expiredOutgoingSubscriptions = new HashSet<>();
-        for (RegistryItem<String, RemoteGENASubscription> item : getSubscriptionItems()) {
+        // Renew outgoing subscriptions, a successful renewal updates and reschedules the subscription
+        for (RegistryItem<String, RemoteGENASubscription> item : pollExpiredSubscriptionItems()) {
             ExpirationDetails expirationDetails = item.getExpirationDetails();
-            if (expirationDetails.getRenewAttempts() < 1 && expirationDetails.hasExpired(true)) {
-                expiredOutgoingSubscriptions.add(item.getItem());
+            if (expirationDetails.getRenewAttempts() < 1) {
                 expirationDetails.renewAttempted();
+                logger.trace("Renewing outgoing subscription: {}", item.getItem());
+                renewOutgoingSubscription(item.getItem());
             }
         }
-        for (RemoteGENASubscription subscription : expiredOutgoingSubscriptions) {
-            logger.trace("Renewing outgoing subscription: {}", subscription);
-            renewOutgoingSubscription(subscription);
-        }
     }
 
     public void resume() {
@@ -17,6 +17,7 @@ package org.jupnp.transport;
 
 import java.net.InetAddress;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.jupnp.UpnpServiceConfiguration;
 import org.jupnp.model.NetworkAddress;
@@ -25,6 +26,7 @@ import org.jupnp.model.message.OutgoingDatagramMessage;
 import org.jupnp.model.message.StreamRequestMessage;
 import org.jupnp.model.message.StreamResponseMessage;
 import org.jupnp.protocol.ProtocolFactory;
+import org.jupnp.transport.spi.HostHealthTracker;
 import org.jupnp.transport.spi.InitializationException;
 import org.jupnp.transport.spi.UpnpStream;
 
@@ -153,6 +155,33 @@ public interface Router {
      */
     StreamResponseMessage send(StreamRequestMessage msg) throws RouterException;
 
+    /**
+     * <p>
+     * Call this method to send a TCP (HTTP) stream message without blocking the calling thread.
+     * </p>
+     *
+     * @param msg The TCP (HTTP) stream message to send.
+     * @return The future response received from the server, completed exceptionally with a
+     *         {@link RouterException} if a recoverable error occurs.
+     */
+    default CompletableFuture<StreamResponseMessage> sendAsync(StreamRequestMessage msg) {
+        try {
+            return CompletableFuture.completedFuture(send(msg));
+        } catch (RouterException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Protocols can skip requests to hosts which are backed off after failed requests.
+     *
+     * @return The health of the remote hosts tracked by the {@link org.jupnp.transport.spi.StreamClient}, or
+     *         <code>null</code> if failed requests aren't tracked.
+     */
+    default HostHealthTracker getHostHealthTracker() {
+        return null;
+    }
+
     /**
      * <p>
      * Call this method to broadcast a UDP message to all hosts on the network.
@@ -24,10 +24,12 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.jupnp.UpnpMetrics;
 import org.jupnp.UpnpServiceConfiguration;
 import org.jupnp.model.NetworkAddress;
 import org.jupnp.model.message.IncomingDatagramMessage;
@@ -38,6 +40,7 @@ import org.jupnp.protocol.ProtocolCreationException;
 import org.jupnp.protocol.ProtocolFactory;
 import org.jupnp.protocol.ReceivingAsync;
 import org.jupnp.transport.spi.DatagramIO;
+import org.jupnp.transport.spi.HostHealthTracker;
 import org.jupnp.transport.spi.InitializationException;
 import org.jupnp.transport.spi.MulticastReceiver;
 import org.jupnp.transport.spi.NetworkAddressFactory;
@@ -136,6 +139,7 @@ public class RouterImpl implements Router {
                     streamClient = getConfiguration().createStreamClient();
 
                     enabled = true;
+                    invalidateDiscoveryMessages();
                     return true;
                 } catch (InitializationException e) {
                     handleStartFailure(e);
@@ -180,6 +184,7 @@ public class RouterImpl implements Router {
 
                 networkAddressFactory = null;
                 enabled = false;
+                invalidateDiscoveryMessages();
                 return true;
             }
             return false;
@@ -188,6 +193,16 @@ public class RouterImpl implements Router {
         }
     }
 
+    /**
+     * The advertised descriptor locations depend on the stream servers, which changed when the router has been
+     * enabled or disabled.
+     */
+    protected void invalidateDiscoveryMessages() {
+        if (protocolFactory != null) {
+            protocolFactory.invalidateDiscoveryMessages(null);
+        }
+    }
+
     @Override
     public void shutdown() throws RouterException {
         disable();
@@ -251,6 +266,7 @@ public class RouterImpl implements Router {
      */
     @Override
     public void received(IncomingDatagramMessage msg) {
+        getConfiguration().getMetrics().datagramReceived();
         if (!enabled) {
             logger.debug("Router disabled, ignoring incoming message: {}", msg);
             return;
@@ -262,14 +278,15 @@ public class RouterImpl implements Router {
                 return;
             }
             logger.debug("Received asynchronous message: {}", msg);
-            getConfiguration().getRemoteListenerExecutor().execute(protocol);
+            getConfiguration().getMetrics().datagramDispatched();
+            getConfiguration().getAsyncProtocolExecutor().execute(protocol);
         } catch (ProtocolCreationException e) {
             logger.warn("Handling received datagram failed", e);
         }
     }
 
     /**
-     * Obtains the synchronous protocol {@code Executor} and runs the
+     * Obtains the stream request {@code Executor} and runs the
      * {@link org.jupnp.transport.spi.UpnpStream} directly.
      *
      * @param stream The received {@link org.jupnp.transport.spi.UpnpStream}.
@@ -281,7 +298,8 @@ public class RouterImpl implements Router {
             return;
         }
         logger.debug("Received synchronous stream: {}", stream);
-        getConfiguration().getSyncProtocolExecutorService().execute(stream);
+        getConfiguration().getMetrics().streamRequestReceived();
+        getConfiguration().getStreamRequestExecutorService().execute(stream);
     }
 
     /**
@@ -297,6 +315,7 @@ public class RouterImpl implements Router {
                 for (DatagramIO datagramIO : datagramIOs.values()) {
                     datagramIO.send(msg);
                 }
+                getConfiguration().getMetrics().datagramSent();
             } else {
                 logger.debug("Router disabled, not sending datagram: {}", msg);
             }
@@ -322,10 +341,16 @@ public class RouterImpl implements Router {
                     return null;
                 }
                 logger.debug("Sending via TCP unicast stream: {}", msg);
+                long start = System.nanoTime();
+                StreamResponseMessage response = null;
                 try {
-                    return streamClient.sendRequest(msg);
+                    response = streamClient.sendRequest(msg);
+                    return response;
                 } catch (InterruptedException e) {
                     throw new RouterException("Sending stream request was interrupted", e);
+                } finally {
+                    getConfiguration().getMetrics().streamRequestSent(msg.getOperation().getHttpMethodName(),
+                            System.nanoTime() - start, response != null);
                 }
             } else {
                 logger.debug("Router disabled, not sending stream request: {}", msg);
@@ -336,6 +361,63 @@ public class RouterImpl implements Router {
         }
     }
 
+    /**
+     * Starts sending the TCP stream request with the {@link org.jupnp.transport.spi.StreamClient}, the router lock
+     * isn't held while waiting for the response.
+     *
+     * @param msg The TCP (HTTP) stream message to send.
+     * @return The return value of the
+     *         {@link org.jupnp.transport.spi.StreamClient#sendRequestAsync(StreamRequestMessage)} method or a
+     *         <code>null</code> response if no <code>StreamClient</code> is available.
+     */
+    @Override
+    public CompletableFuture<StreamResponseMessage> sendAsync(StreamRequestMessage msg) {
+        try {
+            lock(readLock);
+        } catch (RouterException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            if (enabled) {
+                if (streamClient == null) {
+                    logger.debug("No StreamClient available, not sending: {}", msg);
+                    return CompletableFuture.completedFuture(null);
+                }
+                logger.debug("Sending asynchronously via TCP unicast stream: {}", msg);
+                UpnpMetrics metrics = getConfiguration().getMetrics();
+                long start = System.nanoTime();
+                CompletableFuture<StreamResponseMessage> future = streamClient.sendRequestAsync(msg);
+                // Returns the original future, cancelling it still cancels the request
+                future.whenComplete((response, failure) -> metrics.streamRequestSent(
+                        msg.getOperation().getHttpMethodName(), System.nanoTime() - start, response != null));
+                return future;
+            } else {
+                logger.debug("Router disabled, not sending stream request: {}", msg);
+                return CompletableFuture.completedFuture(null);
+            }
+        } finally {
+            unlock(readLock);
+        }
+    }
+
+    /**
+     * @return The tracker of the {@link org.jupnp.transport.spi.StreamClient}, or <code>null</code> if no
+     *         <code>StreamClient</code> is available.
+     */
+    @Override
+    public HostHealthTracker getHostHealthTracker() {
+        try {
+            lock(readLock);
+        } catch (RouterException e) {
+            return null;
+        }
+        try {
+            return streamClient != null ? streamClient.getHostHealthTracker() : null;
+        } finally {
+            unlock(readLock);
+        }
+    }
+
     /**
      * Sends the given bytes as a broadcast on all bound {@link org.jupnp.transport.spi.DatagramIO}s,
      * using source port 9.
@@ -110,12 +110,14 @@ public class DatagramIOImpl implements DatagramIO<DatagramIOConfigurationImpl> {
         logger.debug("Entering blocking receiving loop, listening for UDP datagrams on: {}:{}",
                 socket.getLocalAddress(), socket.getPort());
 
+        // The processor parses the datagram before the next receive, so a single buffer is reused
+        byte[] buf = new byte[getConfiguration().getMaxDatagramBytes()];
+        DatagramPacket datagram = new DatagramPacket(buf, buf.length);
+
         while (true) {
 
             try {
-                byte[] buf = new byte[getConfiguration().getMaxDatagramBytes()];
-                DatagramPacket datagram = new DatagramPacket(buf, buf.length);
-
+                datagram.setLength(buf.length);
                 socket.receive(datagram);
 
                 logger.debug("UDP datagram received from: {}:{} on: {}", datagram.getAddress().getHostAddress(),
@@ -127,6 +129,7 @@ public class DatagramIOImpl implements DatagramIO<DatagramIOConfigurationImpl> {
                 logger.debug("Socket closed");
                 break;
             } catch (UnsupportedDataException e) {
+                router.getConfiguration().getMetrics().datagramReadFailed();
                 logger.info("Could not read datagram: {}", e.getMessage());
             } catch (Exception e) {
                 throw new RuntimeException(e);
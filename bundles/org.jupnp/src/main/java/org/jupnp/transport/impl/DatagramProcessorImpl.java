@@ -15,13 +15,11 @@
  */
 package org.jupnp.transport.impl;
 
-import java.io.ByteArrayInputStream;
 import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.nio.charset.StandardCharsets;
-import java.util.Locale;
+import java.util.Arrays;
 
-import org.jupnp.http.Headers;
 import org.jupnp.model.UnsupportedDataException;
 import org.jupnp.model.message.IncomingDatagramMessage;
 import org.jupnp.model.message.OutgoingDatagramMessage;
@@ -35,6 +33,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Default implementation.
+ * <p>
+ * Datagrams are tokenized directly on the received bytes, only header names and values are decoded into strings.
+ * </p>
  * 
  * @author Christian Bauer
  */
@@ -42,38 +43,80 @@ public class DatagramProcessorImpl implements DatagramProcessor {
 
     private final Logger logger = LoggerFactory.getLogger(DatagramProcessor.class);
 
+    private static final byte[] HTTP_1 = "HTTP/1.".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HTTP_1_1 = "HTTP/1.1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] METHOD_NAMES = new byte[UpnpRequest.Method.values().length][];
+
+    static {
+        for (UpnpRequest.Method method : UpnpRequest.Method.values()) {
+            METHOD_NAMES[method.ordinal()] = method.getHttpName().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
     @Override
     public IncomingDatagramMessage read(InetAddress receivedOnAddress, DatagramPacket datagram)
             throws UnsupportedDataException {
 
+        byte[] data = datagram.getData();
+        int offset = datagram.getOffset();
+        int end = offset + datagram.getLength();
+
         try {
 
             if (logger.isTraceEnabled()) {
                 logger.trace(
                         "===================================== DATAGRAM BEGIN ============================================");
-                logger.trace(new String(datagram.getData()));
+                logger.trace(new String(data, offset, datagram.getLength(), StandardCharsets.ISO_8859_1));
                 logger.trace(
                         "-===================================== DATAGRAM END =============================================");
             }
 
-            ByteArrayInputStream is = new ByteArrayInputStream(datagram.getData());
+            // The start line has three tokens separated by a single space, the last one ends with the line
+            int lineEnd = indexOf(data, offset, end, (byte) '\n');
+            int headersStart = lineEnd < end ? lineEnd + 1 : end;
+            if (lineEnd > offset && data[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            int firstSpace = indexOf(data, offset, lineEnd, (byte) ' ');
+            int secondSpace = indexOf(data, firstSpace + 1, lineEnd, (byte) ' ');
+            if (secondSpace >= lineEnd) {
+                throw new IllegalArgumentException("Invalid start line, expected three tokens");
+            }
+            int thirdSpace = indexOf(data, secondSpace + 1, lineEnd, (byte) ' ');
+
+            UpnpHeaders headers = new UpnpHeaders(data, headersStart, end - headersStart);
 
-            String[] startLine = Headers.readLine(is).split(" ");
-            if (startLine[0].startsWith("HTTP/1.")) {
-                return readResponseMessage(receivedOnAddress, datagram, is, Integer.parseInt(startLine[1]),
-                        startLine[2], startLine[0]);
+            if (startsWith(data, offset, firstSpace, HTTP_1)) {
+                return readResponseMessage(receivedOnAddress, datagram,
+                        parseStatusCode(data, firstSpace + 1, secondSpace),
+                        new String(data, secondSpace + 1, thirdSpace - secondSpace - 1, StandardCharsets.ISO_8859_1),
+                        equalsIgnoreCase(data, offset, firstSpace, HTTP_1_1) ? 1 : 0, headers);
             } else {
-                return readRequestMessage(receivedOnAddress, datagram, is, startLine[0], startLine[2]);
+                return readRequestMessage(receivedOnAddress, datagram, getMethod(data, offset, firstSpace),
+                        equalsIgnoreCase(data, secondSpace + 1, thirdSpace, HTTP_1_1) ? 1 : 0, headers);
             }
 
         } catch (Exception e) {
-            throw new UnsupportedDataException("Could not parse headers", e, datagram.getData());
+            // The datagram buffer might be reused by the receiver, keep a copy of the invalid data
+            throw new UnsupportedDataException("Could not parse headers", e, Arrays.copyOfRange(data, offset, end));
         }
     }
 
     @Override
     public DatagramPacket write(OutgoingDatagramMessage message) throws UnsupportedDataException {
 
+        byte[] data = message.getEncoded();
+        if (data == null) {
+            data = encode(message);
+            message.setEncoded(data);
+        } else {
+            logger.trace("Writing new datagram packet with {} encoded bytes for: {}", data.length, message);
+        }
+        return new DatagramPacket(data, data.length, message.getDestinationAddress(), message.getDestinationPort());
+    }
+
+    protected byte[] encode(OutgoingDatagramMessage message) throws UnsupportedDataException {
+
         StringBuilder statusLine = new StringBuilder();
 
         UpnpOperation operation = message.getOperation();
@@ -113,19 +156,16 @@ public class DatagramProcessorImpl implements DatagramProcessor {
         byte[] data = messageData.toString().getBytes(StandardCharsets.US_ASCII);
 
         logger.trace("Writing new datagram packet with {} bytes for: {}", data.length, message);
-        return new DatagramPacket(data, data.length, message.getDestinationAddress(), message.getDestinationPort());
+        return data;
     }
 
     protected IncomingDatagramMessage readRequestMessage(InetAddress receivedOnAddress, DatagramPacket datagram,
-            ByteArrayInputStream is, String requestMethod, String httpProtocol) throws Exception {
-
-        // Headers
-        UpnpHeaders headers = new UpnpHeaders(is);
+            UpnpRequest.Method requestMethod, int httpMinorVersion, UpnpHeaders headers) throws Exception {
 
         // Assemble message
         IncomingDatagramMessage requestMessage;
-        UpnpRequest upnpRequest = new UpnpRequest(UpnpRequest.Method.getByHttpName(requestMethod));
-        upnpRequest.setHttpMinorVersion(httpProtocol.toUpperCase(Locale.ENGLISH).equals("HTTP/1.1") ? 1 : 0);
+        UpnpRequest upnpRequest = new UpnpRequest(requestMethod);
+        upnpRequest.setHttpMinorVersion(httpMinorVersion);
         requestMessage = new IncomingDatagramMessage(upnpRequest, datagram.getAddress(), datagram.getPort(),
                 receivedOnAddress);
 
@@ -135,15 +175,12 @@ public class DatagramProcessorImpl implements DatagramProcessor {
     }
 
     protected IncomingDatagramMessage readResponseMessage(InetAddress receivedOnAddress, DatagramPacket datagram,
-            ByteArrayInputStream is, int statusCode, String statusMessage, String httpProtocol) throws Exception {
-
-        // Headers
-        UpnpHeaders headers = new UpnpHeaders(is);
+            int statusCode, String statusMessage, int httpMinorVersion, UpnpHeaders headers) throws Exception {
 
         // Assemble the message
         IncomingDatagramMessage responseMessage;
         UpnpResponse upnpResponse = new UpnpResponse(statusCode, statusMessage);
-        upnpResponse.setHttpMinorVersion(httpProtocol.toUpperCase(Locale.ENGLISH).equals("HTTP/1.1") ? 1 : 0);
+        upnpResponse.setHttpMinorVersion(httpMinorVersion);
         responseMessage = new IncomingDatagramMessage(upnpResponse, datagram.getAddress(), datagram.getPort(),
                 receivedOnAddress);
 
@@ -151,4 +188,67 @@ public class DatagramProcessorImpl implements DatagramProcessor {
 
         return responseMessage;
     }
+
+    protected UpnpRequest.Method getMethod(byte[] data, int start, int end) {
+        for (UpnpRequest.Method method : UpnpRequest.Method.values()) {
+            if (equalsIgnoreCase(data, start, end, METHOD_NAMES[method.ordinal()])) {
+                return method;
+            }
+        }
+        return UpnpRequest.Method.UNKNOWN;
+    }
+
+    protected int parseStatusCode(byte[] data, int start, int end) {
+        if (start == end || end - start > 3) {
+            throw new NumberFormatException(
+                    "Invalid status code: " + new String(data, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+        int statusCode = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException(
+                        "Invalid status code: " + new String(data, start, end - start, StandardCharsets.ISO_8859_1));
+            }
+            statusCode = statusCode * 10 + digit;
+        }
+        return statusCode;
+    }
+
+    protected static int indexOf(byte[] data, int start, int end, byte b) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    protected static boolean startsWith(byte[] data, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected static boolean equalsIgnoreCase(byte[] data, int start, int end, byte[] ascii) {
+        if (end - start != ascii.length) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length; i++) {
+            if (toUpperCase(data[start + i]) != toUpperCase(ascii[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toUpperCase(byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - ('a' - 'A')) : b;
+    }
 }
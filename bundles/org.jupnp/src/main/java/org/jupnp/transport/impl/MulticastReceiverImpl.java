@@ -113,12 +113,14 @@ public class MulticastReceiverImpl implements MulticastReceiver<MulticastReceive
     public void run() {
 
         logger.debug("Entering blocking receiving loop, listening for UDP datagrams on: {}", socket.getLocalAddress());
+        // The processor parses the datagram before the next receive, so a single buffer is reused
+        byte[] buf = new byte[getConfiguration().getMaxDatagramBytes()];
+        DatagramPacket datagram = new DatagramPacket(buf, buf.length);
+
         while (true) {
 
             try {
-                byte[] buf = new byte[getConfiguration().getMaxDatagramBytes()];
-                DatagramPacket datagram = new DatagramPacket(buf, buf.length);
-
+                datagram.setLength(buf.length);
                 socket.receive(datagram);
 
                 InetAddress receivedOnLocalAddress = networkAddressFactory.getLocalAddress(multicastInterface,
@@ -134,6 +136,7 @@ public class MulticastReceiverImpl implements MulticastReceiver<MulticastReceive
                 logger.debug("Socket closed");
                 break;
             } catch (UnsupportedDataException e) {
+                router.getConfiguration().getMetrics().datagramReadFailed();
                 logger.info("Could not read datagram: {}", e.getMessage());
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport.impl;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.jupnp.model.Constants;
+import org.jupnp.model.UnsupportedDataException;
+import org.jupnp.model.message.UpnpMessage;
+import org.jupnp.model.message.gena.IncomingEventRequestMessage;
+import org.jupnp.model.message.gena.OutgoingEventRequestMessage;
+import org.jupnp.model.meta.RemoteService;
+import org.jupnp.model.meta.StateVariable;
+import org.jupnp.model.state.StateVariableValue;
+import org.jupnp.model.types.InvalidValueException;
+import org.jupnp.transport.spi.GENAEventProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation based on the <em>StAX</em> pull parser API, reading and writing property sets without a DOM.
+ * <p>
+ * State variable values are read from and written to the message text directly, like
+ * {@link GENAEventProcessorImpl} does it. Use it by overriding
+ * {@link org.jupnp.DefaultUpnpServiceConfiguration#createGENAEventProcessor()}, it is not available on Android.
+ * </p>
+ */
+public class StreamingGENAEventProcessorImpl extends StreamingXmlProcessor implements GENAEventProcessor {
+
+    private final Logger logger = LoggerFactory.getLogger(GENAEventProcessor.class);
+
+    @Override
+    public void writeBody(OutgoingEventRequestMessage requestMessage) throws UnsupportedDataException {
+        logger.trace("Writing body of: {}", requestMessage);
+
+        try {
+            StringBuilder b = new StringBuilder(256);
+            b.append(XML_PROLOG);
+            b.append("<e:propertyset xmlns:e=\"").append(Constants.NS_UPNP_EVENT_10).append("\">");
+            for (StateVariableValue stateVariableValue : requestMessage.getStateVariableValues()) {
+                b.append("<e:property>");
+                appendElement(b, stateVariableValue.getStateVariable().getName(), stateVariableValue.toString());
+                b.append("</e:property>");
+            }
+            b.append("</e:propertyset>");
+
+            requestMessage.setBody(UpnpMessage.BodyType.STRING, b.toString());
+
+            if (logger.isTraceEnabled()) {
+                logger.trace(
+                        "===================================== GENA BODY BEGIN ============================================");
+                logger.trace(requestMessage.getBody().toString());
+                logger.trace(
+                        "====================================== GENA BODY END =============================================");
+            }
+
+        } catch (Exception e) {
+            throw new UnsupportedDataException("Can't transform message payload: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void readBody(IncomingEventRequestMessage requestMessage) throws UnsupportedDataException {
+
+        logger.trace("Reading body of: {}", requestMessage);
+        if (logger.isTraceEnabled()) {
+            logger.trace(
+                    "===================================== GENA BODY BEGIN ============================================");
+            logger.trace(requestMessage.getBody() != null ? requestMessage.getBody().toString() : "null");
+            logger.trace(
+                    "-===================================== GENA BODY END ============================================");
+        }
+
+        String body = getMessageBody(requestMessage);
+        try {
+            XMLStreamReader reader = readDocument(body);
+            if (!reader.getLocalName().equals("propertyset")) {
+                throw new RuntimeException("Root element was not 'propertyset'");
+            }
+
+            while (nextChildElement(reader)) {
+                if (reader.getLocalName().equals("property")) {
+                    readProperty(reader, requestMessage);
+                } else {
+                    skipElement(reader);
+                }
+            }
+            readToEnd(reader);
+
+        } catch (Exception e) {
+            throw new UnsupportedDataException("Can't transform message payload: " + e.getMessage(), e, body);
+        }
+    }
+
+    /* ##################################################################################################### */
+
+    /**
+     * Reads the state variable values of a <code>property</code> element, unknown state variables and invalid values
+     * are ignored.
+     */
+    protected void readProperty(XMLStreamReader reader, IncomingEventRequestMessage message) throws Exception {
+        RemoteService service = message.getService();
+        while (nextChildElement(reader)) {
+            String stateVariableName = reader.getLocalName();
+            StateVariable<RemoteService> stateVariable = service.getStateVariable(stateVariableName);
+            if (stateVariable == null || stateVariable.getService() != service) {
+                // Not one of the service's state variables, e.g. a virtual query variable
+                skipElement(reader);
+                continue;
+            }
+            logger.trace("Reading state variable value: {}", stateVariableName);
+            String value = readTextContent(reader);
+            try {
+                message.getStateVariableValues().add(new StateVariableValue<>(stateVariable, value));
+            } catch (InvalidValueException e) {
+                logger.debug("Value {} for the state variable {} ignored: {}", value, stateVariableName,
+                        e.getMessage());
+            }
+        }
+    }
+
+    protected String getMessageBody(UpnpMessage message) throws UnsupportedDataException {
+        if (!message.isBodyNonEmptyString()) {
+            throw new UnsupportedDataException("Can't transform null or non-string/zero-length body of: " + message);
+        }
+        return message.getBodyString().trim();
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jupnp.model.Constants;
+import org.jupnp.model.UnsupportedDataException;
+import org.jupnp.model.action.ActionArgumentValue;
+import org.jupnp.model.action.ActionException;
+import org.jupnp.model.action.ActionInvocation;
+import org.jupnp.model.message.control.ActionMessage;
+import org.jupnp.model.message.control.ActionRequestMessage;
+import org.jupnp.model.message.control.ActionResponseMessage;
+import org.jupnp.model.meta.ActionArgument;
+import org.jupnp.model.types.ErrorCode;
+import org.jupnp.model.types.InvalidValueException;
+import org.jupnp.transport.spi.SOAPActionProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation based on the <em>StAX</em> pull parser API, reading and writing SOAP envelopes without a DOM.
+ * <p>
+ * Messages are read and written like {@link SOAPActionProcessorImpl} does, with the same fault handling and the
+ * same leniency: action arguments can be in any order and may use their aliases, and only the text directly
+ * contained in an argument element is its value. Use it by overriding
+ * {@link org.jupnp.DefaultUpnpServiceConfiguration#createSOAPActionProcessor()}, it is not available on Android.
+ * </p>
+ */
+public class StreamingSOAPActionProcessorImpl extends StreamingXmlProcessor implements SOAPActionProcessor {
+
+    private final Logger logger = LoggerFactory.getLogger(SOAPActionProcessor.class);
+
+    /**
+     * An argument element and its text, read before the argument values are created.
+     */
+    protected static class ArgumentElement {
+
+        protected final String name;
+        protected final String value;
+
+        protected ArgumentElement(String name, String value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    @Override
+    public void writeBody(ActionRequestMessage requestMessage, ActionInvocation actionInvocation)
+            throws UnsupportedDataException {
+
+        logger.trace("Writing body of {} for: {}", requestMessage, actionInvocation);
+
+        try {
+            StringBuilder b = new StringBuilder(512);
+            writeEnvelopeStart(b);
+
+            String actionElement = "u:" + actionInvocation.getAction().getName();
+            logger.trace("Writing action request element: {}", actionInvocation.getAction().getName());
+            b.append('<').append(actionElement).append(" xmlns:u=\"").append(requestMessage.getActionNamespace())
+                    .append("\">");
+            for (ActionArgument argument : actionInvocation.getAction().getInputArguments()) {
+                logger.trace("Writing action input argument: {}", argument.getName());
+                ActionArgumentValue value = actionInvocation.getInput(argument);
+                appendElement(b, argument.getName(), value != null ? value.toString() : "");
+            }
+            b.append("</").append(actionElement).append('>');
+
+            writeEnvelopeEnd(b);
+            requestMessage.setBody(b.toString());
+
+            logBody(requestMessage);
+        } catch (Exception e) {
+            throw new UnsupportedDataException("Can't transform message payload", e);
+        }
+    }
+
+    @Override
+    public void writeBody(ActionResponseMessage responseMessage, ActionInvocation actionInvocation)
+            throws UnsupportedDataException {
+
+        logger.trace("Writing body of {} for: {}", responseMessage, actionInvocation);
+
+        try {
+            StringBuilder b = new StringBuilder(512);
+            writeEnvelopeStart(b);
+
+            if (actionInvocation.getFailure() != null) {
+                writeFault(b, actionInvocation);
+            } else {
+                String actionElement = "u:" + actionInvocation.getAction().getName() + "Response";
+                logger.trace("Writing action response element: {}", actionInvocation.getAction().getName());
+                b.append('<').append(actionElement).append(" xmlns:u=\"")
+                        .append(responseMessage.getActionNamespace()).append("\">");
+                for (ActionArgument argument : actionInvocation.getAction().getOutputArguments()) {
+                    logger.trace("Writing action output argument: {}", argument.getName());
+                    ActionArgumentValue value = actionInvocation.getOutput(argument);
+                    appendElement(b, argument.getName(), value != null ? value.toString() : "");
+                }
+                b.append("</").append(actionElement).append('>');
+            }
+
+            writeEnvelopeEnd(b);
+            responseMessage.setBody(b.toString());
+
+            logBody(responseMessage);
+        } catch (Exception e) {
+            throw new UnsupportedDataException("Can't transform message payload", e);
+        }
+    }
+
+    @Override
+    public void readBody(ActionRequestMessage requestMessage, ActionInvocation actionInvocation)
+            throws UnsupportedDataException {
+
+        logger.trace("Reading body of {} for: {}", requestMessage, actionInvocation);
+        logBody(requestMessage);
+
+        String body = getMessageBody(requestMessage);
+        try {
+            XMLStreamReader reader = readDocument(body);
+            readBodyElement(reader);
+
+            List<ArgumentElement> arguments = null;
+            logger.trace("Looking for action request element matching namespace: {}",
+                    requestMessage.getActionNamespace());
+            while (nextChildElement(reader)) {
+                if (arguments == null && reader.getLocalName().equals(actionInvocation.getAction().getName())) {
+                    if (reader.getNamespaceURI() == null
+                            || !reader.getNamespaceURI().equals(requestMessage.getActionNamespace())) {
+                        throw new UnsupportedDataException(
+                                "Illegal or missing namespace on action request element: " + reader.getName());
+                    }
+                    logger.trace("Reading action request element: {}", reader.getLocalName());
+                    arguments = readArgumentElements(reader, actionInvocation.getAction().getInputArguments());
+                } else {
+                    skipElement(reader);
+                }
+            }
+            readToEnd(reader);
+
+            if (arguments == null) {
+                throw new UnsupportedDataException("Could not read action request element matching namespace: "
+                        + requestMessage.getActionNamespace());
+            }
+            actionInvocation
+                    .setInput(readArgumentValues(arguments, actionInvocation.getAction().getInputArguments()));
+        } catch (Exception e) {
+            throw new UnsupportedDataException("Can't transform message payload", e, body);
+        }
+    }
+
+    @Override
+    public void readBody(ActionResponseMessage responseMsg, ActionInvocation actionInvocation)
+            throws UnsupportedDataException {
+
+        logger.trace("Reading body of {} for: {}", responseMsg, actionInvocation);
+        logBody(responseMsg);
+
+        String body = getMessageBody(responseMsg);
+        try {
+            XMLStreamReader reader = readDocument(body);
+            readBodyElement(reader);
+
+            String responseElementName = actionInvocation.getAction().getName() + "Response";
+            List<ArgumentElement> arguments = null;
+            Fault fault = null;
+            while (nextChildElement(reader)) {
+                String name = reader.getLocalName();
+                if (name.equals("Fault")) {
+                    fault = readFault(reader, fault != null ? fault : new Fault());
+                } else if (arguments == null && name.equals(responseElementName)) {
+                    logger.trace("Reading action response element: {}", name);
+                    arguments = readArgumentElements(reader, actionInvocation.getAction().getOutputArguments());
+                } else {
+                    skipElement(reader);
+                }
+            }
+            readToEnd(reader);
+
+            ActionException failure = fault != null ? fault.toActionException() : null;
+            if (failure != null) {
+                actionInvocation.setFailure(failure);
+            } else if (arguments == null) {
+                throw new UnsupportedDataException("Could not read action response element");
+            } else {
+                actionInvocation
+                        .setOutput(readArgumentValues(arguments, actionInvocation.getAction().getOutputArguments()));
+            }
+        } catch (Exception e) {
+            throw new UnsupportedDataException("Can't transform message payload", e, body);
+        }
+    }
+
+    /* ##################################################################################################### */
+
+    protected void writeEnvelopeStart(StringBuilder b) {
+        b.append(XML_PROLOG);
+        b.append("<s:Envelope s:encodingStyle=\"").append(Constants.SOAP_URI_ENCODING_STYLE)
+                .append("\" xmlns:s=\"").append(Constants.SOAP_NS_ENVELOPE).append("\"><s:Body>");
+    }
+
+    protected void writeEnvelopeEnd(StringBuilder b) {
+        b.append("</s:Body></s:Envelope>");
+    }
+
+    protected void writeFault(StringBuilder b, ActionInvocation actionInvocation) {
+        int errorCode = actionInvocation.getFailure().getErrorCode();
+        String errorDescription = actionInvocation.getFailure().getMessage();
+
+        logger.trace("Writing fault element: {} - {}", errorCode, errorDescription);
+
+        b.append("<s:Fault>");
+        appendElement(b, "faultcode", "s:Client");
+        appendElement(b, "faultstring", "UPnPError");
+        b.append("<detail><UPnPError xmlns=\"").append(Constants.NS_UPNP_CONTROL_10).append("\">");
+        appendElement(b, "errorCode", Integer.toString(errorCode));
+        appendElement(b, "errorDescription", errorDescription);
+        b.append("</UPnPError></detail></s:Fault>");
+    }
+
+    /**
+     * Moves the reader from the root element to the start of the <code>Body</code> element.
+     */
+    protected void readBodyElement(XMLStreamReader reader) throws XMLStreamException {
+        if (!reader.getLocalName().equals("Envelope")) {
+            throw new RuntimeException("Response root element was not 'Envelope'");
+        }
+        while (nextChildElement(reader)) {
+            if (reader.getLocalName().equals("Body")) {
+                return;
+            }
+            skipElement(reader);
+        }
+        throw new RuntimeException("Response envelope did not contain 'Body' child element");
+    }
+
+    /**
+     * Reads all child elements of the current element that match any argument name or alias, in document order.
+     */
+    protected List<ArgumentElement> readArgumentElements(XMLStreamReader reader, ActionArgument[] args)
+            throws XMLStreamException {
+        List<ArgumentElement> elements = new ArrayList<>(args.length);
+        while (nextChildElement(reader)) {
+            String name = reader.getLocalName();
+            if (isArgumentName(name, args)) {
+                elements.add(new ArgumentElement(name, readTextContent(reader)));
+            } else {
+                skipElement(reader);
+            }
+        }
+        return elements;
+    }
+
+    protected boolean isArgumentName(String name, ActionArgument[] args) {
+        for (ActionArgument arg : args) {
+            if (arg.isNameOrAlias(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The UPnP spec says that action arguments must be in the order as declared
+     * by the service. This method however is lenient, the action argument elements
+     * in the XML can be in any order, as long as they are all there everything
+     * is OK.
+     */
+    protected ActionArgumentValue[] readArgumentValues(List<ArgumentElement> elements, ActionArgument[] args)
+            throws ActionException {
+
+        if (elements.size() < args.length) {
+            throw new ActionException(ErrorCode.ARGUMENT_VALUE_INVALID,
+                    "Invalid number of input or output arguments in XML message, expected " + args.length
+                            + " but found " + elements.size());
+        }
+
+        ActionArgumentValue[] values = new ActionArgumentValue[args.length];
+        for (int i = 0; i < args.length; i++) {
+            ActionArgument arg = args[i];
+            ArgumentElement element = findArgumentElement(elements, arg);
+            if (element == null) {
+                throw new ActionException(ErrorCode.ARGUMENT_VALUE_INVALID,
+                        "Could not find argument '" + arg.getName() + "' node");
+            }
+            logger.trace("Reading action argument: {}", arg.getName());
+            values[i] = createValue(arg, element.value);
+        }
+        return values;
+    }
+
+    protected ArgumentElement findArgumentElement(List<ArgumentElement> elements, ActionArgument arg) {
+        for (ArgumentElement element : elements) {
+            if (arg.isNameOrAlias(element.name)) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates an instance of {@link ActionArgumentValue} and wraps an
+     * {@link InvalidValueException} as an {@link ActionException} with the
+     * appropriate {@link ErrorCode}.
+     */
+    protected ActionArgumentValue createValue(ActionArgument arg, String value) throws ActionException {
+        try {
+            return new ActionArgumentValue(arg, value);
+        } catch (InvalidValueException e) {
+            throw new ActionException(ErrorCode.ARGUMENT_VALUE_INVALID,
+                    "Wrong type or invalid value for '" + arg.getName() + "': " + e.getMessage(), e);
+        }
+    }
+
+    /* ##################################################################################################### */
+
+    /**
+     * The error code and description of <code>Fault</code> elements, later elements override earlier ones.
+     */
+    protected static class Fault {
+
+        protected String errorCode;
+        protected String errorDescription;
+
+        protected ActionException toActionException() {
+            if (errorCode == null) {
+                throw new RuntimeException("Received fault element but no error code");
+            }
+            try {
+                int numericCode = Integer.parseInt(errorCode);
+                ErrorCode standardErrorCode = ErrorCode.getByCode(numericCode);
+                if (standardErrorCode != null) {
+                    return new ActionException(standardErrorCode, errorDescription, false);
+                } else {
+                    return new ActionException(numericCode, errorDescription);
+                }
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Error code was not a number", e);
+            }
+        }
+    }
+
+    protected Fault readFault(XMLStreamReader reader, Fault fault) throws XMLStreamException {
+        while (nextChildElement(reader)) {
+            if (!reader.getLocalName().equals("detail")) {
+                skipElement(reader);
+                continue;
+            }
+            while (nextChildElement(reader)) {
+                if (!reader.getLocalName().equals("UPnPError")) {
+                    skipElement(reader);
+                    continue;
+                }
+                while (nextChildElement(reader)) {
+                    String name = reader.getLocalName();
+                    if (name.equals("errorCode")) {
+                        fault.errorCode = readTextContent(reader);
+                    } else if (name.equals("errorDescription")) {
+                        fault.errorDescription = readTextContent(reader);
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            }
+        }
+        logger.trace("Reading fault element: {} - {}", fault.errorCode, fault.errorDescription);
+        return fault;
+    }
+
+    /* ##################################################################################################### */
+
+    protected String getMessageBody(ActionMessage message) throws UnsupportedDataException {
+        if (!message.isBodyNonEmptyString()) {
+            throw new UnsupportedDataException("Can't transform null or non-string/zero-length body of: " + message);
+        }
+        return message.getBodyString().trim();
+    }
+
+    protected void logBody(ActionMessage message) {
+        if (logger.isTraceEnabled()) {
+            logger.trace(
+                    "===================================== SOAP BODY BEGIN ============================================");
+            logger.trace(message.getBodyString());
+            logger.trace(
+                    "-===================================== SOAP BODY END ============================================");
+        }
+    }
+}
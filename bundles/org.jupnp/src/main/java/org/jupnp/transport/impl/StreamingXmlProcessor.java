@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport.impl;
+
+import java.io.StringReader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Abstract class for processors which read XML messages with a <em>StAX</em> pull parser and write them directly
+ * as text, without building a {@link org.w3c.dom.Document}.
+ * <p>
+ * Text content is read and written like {@link org.jupnp.model.XMLUtil} does for DOM documents, so that the
+ * messages are equivalent to the ones of the DOM based processors.
+ * </p>
+ */
+public abstract class StreamingXmlProcessor {
+
+    public static final String XML_PROLOG = "<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"yes\"?>";
+
+    private static final String REPORT_CDATA_EVENT = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    // Thread-safe once configured
+    private final XMLInputFactory inputFactory;
+
+    protected StreamingXmlProcessor() {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            // The JDK parser reports CDATA sections as characters, DOM text content doesn't include them
+            inputFactory.setProperty(REPORT_CDATA_EVENT, true);
+        } catch (IllegalArgumentException e) {
+            // Another StAX implementation, which hopefully reports CDATA events by default
+        }
+    }
+
+    /**
+     * @return A reader positioned on the root element of the document.
+     */
+    protected XMLStreamReader readDocument(String xml) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+        reader.nextTag();
+        return reader;
+    }
+
+    /**
+     * Reads the rest of the document, so that it is rejected like a parsed DOM document if it isn't well-formed.
+     */
+    protected void readToEnd(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            reader.next();
+        }
+        reader.close();
+    }
+
+    /**
+     * Moves to the next child element of the current element.
+     *
+     * @return <code>false</code> if the reader is on the end of the current element.
+     */
+    protected boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the text children of the current element like {@link org.jupnp.model.XMLUtil#getTextContent}, ignoring
+     * the content of nested elements, and moves to the end of the element.
+     */
+    protected String readTextContent(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = null;
+        String firstText = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.SPACE) {
+                if (firstText == null) {
+                    firstText = reader.getText();
+                } else {
+                    if (text == null) {
+                        text = new StringBuilder(firstText);
+                    }
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                skipElement(reader);
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+        if (text != null) {
+            return text.toString();
+        }
+        return firstText != null ? firstText : "";
+    }
+
+    /**
+     * Moves to the end of the current element.
+     */
+    protected void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Appends element text like {@link org.jupnp.model.XMLUtil#encodeText(String, boolean)} without quotes, nothing
+     * if the text is <code>null</code>.
+     */
+    protected static StringBuilder appendText(StringBuilder b, String s) {
+        if (s == null) {
+            return b;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&':
+                    b.append("&amp;");
+                    break;
+                case '<':
+                    b.append("&lt;");
+                    break;
+                case '>':
+                    b.append("&gt;");
+                    break;
+                default:
+                    b.append(c);
+            }
+        }
+        return b;
+    }
+
+    protected static StringBuilder appendElement(StringBuilder b, String name, String text) {
+        b.append('<').append(name).append('>');
+        appendText(b, text);
+        return b.append("</").append(name).append('>');
+    }
+}
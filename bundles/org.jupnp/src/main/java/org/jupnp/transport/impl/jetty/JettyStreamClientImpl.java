@@ -17,16 +17,27 @@ package org.jupnp.transport.impl.jetty;
 
 import static org.eclipse.jetty.http.HttpHeader.CONNECTION;
 
+import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.ContentProvider;
 import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.eclipse.jetty.client.util.BytesContentProvider;
 import org.eclipse.jetty.client.util.StringContentProvider;
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.io.ConnectionStatistics;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.jupnp.model.message.StreamRequestMessage;
 import org.jupnp.model.message.StreamResponseMessage;
@@ -57,6 +68,11 @@ public class JettyStreamClientImpl extends AbstractStreamClient<StreamClientConf
     protected final HttpClient httpClient;
     protected final HttpFields defaultHttpFields = new HttpFields();
 
+    // Hosts which sent a response with a blacklisted SERVER or USER-AGENT header
+    protected final Set<String> keepAliveBlacklistedHosts = ConcurrentHashMap.newKeySet();
+    protected final ConnectionStatistics connectionStatistics = new ConnectionStatistics();
+    protected final LongAdder requestCount = new LongAdder();
+
     public JettyStreamClientImpl(StreamClientConfigurationImpl configuration) throws InitializationException {
         this.configuration = configuration;
 
@@ -65,7 +81,16 @@ public class JettyStreamClientImpl extends AbstractStreamClient<StreamClientConf
         // These are some safety settings, we should never run into these timeouts as we
         // do our own expiration checking
         httpClient.setConnectTimeout((getConfiguration().getTimeoutSeconds() + 5) * 1000);
-        httpClient.setMaxConnectionsPerDestination(2);
+        httpClient.setMaxConnectionsPerDestination(getConfiguration().getMaxConnectionsPerHost());
+
+        if (getConfiguration().isKeepAlive()) {
+            // Evict pooled connections before the device closes them on its end, requests override this timeout
+            // while they wait for the response, see createRequest()
+            httpClient.setIdleTimeout(getConfiguration().getKeepAliveIdleTimeoutSeconds() * 1000L);
+        }
+
+        // Every new connection is counted, see getConnectionReuseRatio()
+        httpClient.addBean(connectionStatistics);
 
         int cpus = Runtime.getRuntime().availableProcessors();
         int maxThreads = 5 * cpus;
@@ -130,14 +155,24 @@ public class JettyStreamClientImpl extends AbstractStreamClient<StreamClientConf
             request.version(HttpVersion.HTTP_1_0);
         } else {
             request.version(HttpVersion.HTTP_1_1);
-            // This closes the http connection immediately after the call.
-            //
-            // Even though jetty client is able to close connections properly,
-            // it still takes ~30 seconds to do so. This may cause too many
-            // connections for installations with many upnp devices.
-            request.header(CONNECTION, "close");
+            if (!isKeepAlive(request.getHost())) {
+                // This closes the http connection immediately after the call.
+                //
+                // Even though jetty client is able to close connections properly,
+                // it still takes ~30 seconds to do so. This may cause too many
+                // connections for installations with many upnp devices.
+                request.header(CONNECTION, "close");
+            }
+        }
+
+        if (getConfiguration().isKeepAlive()) {
+            // The connection is idle while the device prepares the response, the client's idle timeout of pooled
+            // connections would expire slow responses
+            request.idleTimeout(getConfiguration().getTimeoutSeconds(), TimeUnit.SECONDS);
         }
 
+        request.onRequestBegin(r -> requestCount.increment());
+
         // Add the default user agent if not already set on the message
         if (!requestMessage.getHeaders().containsKey(UpnpHeader.Type.USER_AGENT)) {
             request.agent(getConfiguration().getUserAgentValue(requestMessage.getUdaMajorVersion(),
@@ -157,41 +192,122 @@ public class JettyStreamClientImpl extends AbstractStreamClient<StreamClientConf
             logger.trace("Sending HTTP request: {}", requestMessage);
             try {
                 final ContentResponse httpResponse = request.send();
+                return createResponse(httpResponse, httpResponse.getContent());
+            } catch (final RuntimeException e) {
+                logger.error("Request: {} failed", request, e);
+                throw e;
+            }
+        };
+    }
 
-                logger.trace("Received HTTP response: {}", httpResponse.getReason());
+    @Override
+    protected CompletableFuture<StreamResponseMessage> sendAsync(final StreamRequestMessage requestMessage,
+            final Request request) {
+        final CompletableFuture<StreamResponseMessage> future = new CompletableFuture<>();
+        logger.trace("Sending asynchronous HTTP request: {}", requestMessage);
+        request.send(new BufferingResponseListener() {
+            @Override
+            public void onComplete(Result result) {
+                if (result.isFailed()) {
+                    future.completeExceptionally(result.getFailure());
+                    return;
+                }
+                try {
+                    future.complete(createResponse(result.getResponse(), getContent()));
+                } catch (final RuntimeException e) {
+                    logger.error("Request: {} failed", request, e);
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
 
-                // Status
-                final UpnpResponse responseOperation = new UpnpResponse(httpResponse.getStatus(),
-                        httpResponse.getReason());
+    protected StreamResponseMessage createResponse(final Response httpResponse, final byte[] bytes) {
+        logger.trace("Received HTTP response: {}", httpResponse.getReason());
 
-                // Message
-                final StreamResponseMessage responseMessage = new StreamResponseMessage(responseOperation);
+        if (getConfiguration().isKeepAlive()) {
+            checkKeepAliveBlacklist(httpResponse);
+        }
 
-                // Headers
-                responseMessage.setHeaders(new UpnpHeaders(HeaderUtil.get(httpResponse)));
+        // Status
+        final UpnpResponse responseOperation = new UpnpResponse(httpResponse.getStatus(), httpResponse.getReason());
 
-                // Body
-                final byte[] bytes = httpResponse.getContent();
-                if (bytes == null || 0 == bytes.length) {
-                    logger.trace("HTTP response message has no entity");
+        // Message
+        final StreamResponseMessage responseMessage = new StreamResponseMessage(responseOperation);
 
-                    return responseMessage;
-                }
+        // Headers
+        responseMessage.setHeaders(new UpnpHeaders(HeaderUtil.get(httpResponse)));
 
-                if (responseMessage.isContentTypeMissingOrText()) {
-                    logger.trace("HTTP response message contains text entity");
-                } else {
-                    logger.trace("HTTP response message contains binary entity");
-                }
+        // Body
+        if (bytes == null || 0 == bytes.length) {
+            logger.trace("HTTP response message has no entity");
 
-                responseMessage.setBodyCharacters(bytes);
+            return responseMessage;
+        }
 
-                return responseMessage;
-            } catch (final RuntimeException e) {
-                logger.error("Request: {} failed", request, e);
-                throw e;
+        if (responseMessage.isContentTypeMissingOrText()) {
+            logger.trace("HTTP response message contains text entity");
+        } else {
+            logger.trace("HTTP response message contains binary entity");
+        }
+
+        responseMessage.setBodyCharacters(bytes);
+
+        return responseMessage;
+    }
+
+    /**
+     * @param host The host name or address of the request URI.
+     * @return <code>true</code> if the connection to the host should be kept open after the request.
+     */
+    protected boolean isKeepAlive(String host) {
+        return getConfiguration().isKeepAlive() && !getConfiguration().getKeepAliveBlacklistedHosts().contains(host)
+                && !keepAliveBlacklistedHosts.contains(host);
+    }
+
+    protected void checkKeepAliveBlacklist(final Response httpResponse) {
+        String host = httpResponse.getRequest().getHost();
+        if (keepAliveBlacklistedHosts.contains(host)) {
+            return;
+        }
+        String server = httpResponse.getHeaders().get(HttpHeader.SERVER);
+        String userAgent = httpResponse.getHeaders().get(HttpHeader.USER_AGENT);
+        for (String token : getConfiguration().getKeepAliveBlacklistedUserAgents()) {
+            String lowerCaseToken = token.toLowerCase(Locale.ROOT);
+            if ((server != null && server.toLowerCase(Locale.ROOT).contains(lowerCaseToken))
+                    || (userAgent != null && userAgent.toLowerCase(Locale.ROOT).contains(lowerCaseToken))) {
+                logger.debug("Disabling keep-alive for host '{}', its user agent matches '{}'", host, token);
+                keepAliveBlacklistedHosts.add(host);
+                return;
             }
-        };
+        }
+    }
+
+    /**
+     * @return The number of HTTP requests sent so far.
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * @return The number of HTTP connections opened so far.
+     */
+    public long getConnectionCount() {
+        return connectionStatistics.getConnectionsTotal();
+    }
+
+    /**
+     * @return The share of requests which were sent on an already open connection, <code>0</code> if every
+     *         request opened a new connection.
+     */
+    public double getConnectionReuseRatio() {
+        long requests = getRequestCount();
+        if (requests == 0) {
+            return 0;
+        }
+        return Math.max(0, requests - getConnectionCount()) / (double) requests;
     }
 
     @Override
@@ -15,6 +15,8 @@
  */
 package org.jupnp.transport.impl.jetty;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 import org.jupnp.transport.spi.AbstractStreamClientConfiguration;
@@ -55,4 +57,50 @@ public class StreamClientConfigurationImpl extends AbstractStreamClientConfigura
     public int getSocketBufferSize() {
         return -1;
     }
+
+    /**
+     * Persistent connections are disabled by default, every HTTP/1.1 request is sent with
+     * <code>Connection: close</code>. Many devices have broken keep-alive handling, enable this
+     * only together with a blacklist of the devices known to mis-handle persistent connections.
+     *
+     * @return By default <code>false</code>.
+     */
+    public boolean isKeepAlive() {
+        return false;
+    }
+
+    /**
+     * @return By default <code>2</code>, the maximum number of (pooled) connections to a single host.
+     */
+    public int getMaxConnectionsPerHost() {
+        return 2;
+    }
+
+    /**
+     * Idle pooled connections are closed after this time, this should be shorter than the keep-alive
+     * timeout of most devices so that we don't send requests on connections the device already closed.
+     *
+     * @return By default <code>4</code>, the time in seconds after which idle connections are evicted.
+     */
+    public int getKeepAliveIdleTimeoutSeconds() {
+        return 4;
+    }
+
+    /**
+     * @return By default an empty set, the host names or addresses which are always sent
+     *         <code>Connection: close</code>, even if keep-alive is enabled.
+     */
+    public Set<String> getKeepAliveBlacklistedHosts() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * A host is blacklisted for keep-alive once one of its responses has a <code>SERVER</code> or
+     * <code>USER-AGENT</code> header containing any of these (case-insensitive) tokens.
+     *
+     * @return By default an empty set, the product tokens of devices which mis-handle persistent connections.
+     */
+    public Set<String> getKeepAliveBlacklistedUserAgents() {
+        return Collections.emptySet();
+    }
 }
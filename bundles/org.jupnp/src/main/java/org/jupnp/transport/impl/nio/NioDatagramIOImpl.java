@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport.impl.nio;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+import org.jupnp.model.UnsupportedDataException;
+import org.jupnp.model.message.IncomingDatagramMessage;
+import org.jupnp.model.message.OutgoingDatagramMessage;
+import org.jupnp.transport.Router;
+import org.jupnp.transport.impl.DatagramIOConfigurationImpl;
+import org.jupnp.transport.spi.DatagramIO;
+import org.jupnp.transport.spi.DatagramProcessor;
+import org.jupnp.transport.spi.InitializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation based on a non-blocking <code>DatagramChannel</code> bound to one local address.
+ * <p>
+ * Received datagrams are read by the shared {@link NioDatagramSelector}. Sending never blocks, a datagram is
+ * dropped if the send buffer of the channel is full.
+ * </p>
+ */
+public class NioDatagramIOImpl implements DatagramIO<DatagramIOConfigurationImpl>, NioDatagramSelector.Handler {
+
+    private final Logger logger = LoggerFactory.getLogger(NioDatagramIOImpl.class);
+
+    protected final DatagramIOConfigurationImpl configuration;
+    protected final NioDatagramSelector selector;
+
+    protected Router router;
+    protected DatagramProcessor datagramProcessor;
+
+    protected InetSocketAddress localAddress;
+    protected DatagramChannel channel; // For sending unicast & multicast, and receiving unicast
+
+    public NioDatagramIOImpl(DatagramIOConfigurationImpl configuration, NioDatagramSelector selector) {
+        this.configuration = configuration;
+        this.selector = selector;
+    }
+
+    @Override
+    public DatagramIOConfigurationImpl getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public synchronized void init(InetAddress bindAddress, int bindPort, Router router,
+            DatagramProcessor datagramProcessor) throws InitializationException {
+
+        this.router = router;
+        this.datagramProcessor = datagramProcessor;
+
+        try {
+
+            logger.debug("Creating bound channel (for datagram input/output) on: {}:{}", bindAddress, bindPort);
+            localAddress = new InetSocketAddress(bindAddress, bindPort);
+            channel = DatagramChannel.open(
+                    bindAddress instanceof Inet6Address ? StandardProtocolFamily.INET6 : StandardProtocolFamily.INET);
+            channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, configuration.getTimeToLive());
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, 262144); // Keep a backlog of incoming datagrams
+            // Like a DatagramSocket, the router also broadcasts with this service
+            channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+            channel.bind(localAddress);
+            channel.configureBlocking(false);
+
+            selector.register(this);
+
+        } catch (Exception e) {
+            if (channel != null) {
+                selector.unregister(this);
+            }
+            throw new InitializationException("Could not initialize " + getClass().getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (channel != null && channel.isOpen()) {
+            selector.unregister(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        selector.run();
+    }
+
+    @Override
+    public DatagramChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public int getMaxDatagramBytes() {
+        return getConfiguration().getMaxDatagramBytes();
+    }
+
+    @Override
+    public void received(DatagramPacket datagram) throws UnsupportedDataException {
+        logger.debug("UDP datagram received from: {}:{} on: {}", datagram.getAddress().getHostAddress(),
+                datagram.getPort(), localAddress);
+
+        IncomingDatagramMessage message;
+        try {
+            message = datagramProcessor.read(localAddress.getAddress(), datagram);
+        } catch (UnsupportedDataException e) {
+            router.getConfiguration().getMetrics().datagramReadFailed();
+            throw e;
+        }
+        router.received(message);
+    }
+
+    @Override
+    public synchronized void send(OutgoingDatagramMessage message) {
+        logger.debug("Sending message from address: {}", localAddress);
+
+        DatagramPacket packet = datagramProcessor.write(message);
+
+        logger.debug("Sending UDP datagram packet to: {}:{}", message.getDestinationAddress(),
+                message.getDestinationPort());
+
+        send(packet);
+    }
+
+    @Override
+    public synchronized void send(DatagramPacket datagram) {
+        logger.debug("Sending message from address: {}", localAddress);
+
+        try {
+            int sent = channel.send(ByteBuffer.wrap(datagram.getData(), datagram.getOffset(), datagram.getLength()),
+                    datagram.getSocketAddress());
+            if (sent == 0) {
+                logger.debug("Send buffer full, dropping datagram to: {}", datagram.getSocketAddress());
+            }
+        } catch (ClosedChannelException e) {
+            logger.debug("Channel closed, aborting datagram send to: {}", datagram.getAddress());
+        } catch (IOException e) {
+            logger.error("Exception sending datagram to: {}", datagram.getAddress(), e);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport.impl.nio;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jupnp.model.UnsupportedDataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives datagrams of many non-blocking channels on a single thread.
+ * <p>
+ * One instance is shared by all {@link NioMulticastReceiverImpl} and {@link NioDatagramIOImpl} services created by
+ * a configuration, for example:
+ * </p>
+ *
+ * <pre>
+ * new DefaultUpnpServiceConfiguration() {
+ *
+ *     final NioDatagramSelector selector = new NioDatagramSelector();
+ *
+ *     public MulticastReceiver createMulticastReceiver(NetworkAddressFactory networkAddressFactory) {
+ *         return new NioMulticastReceiverImpl(new MulticastReceiverConfigurationImpl(
+ *                 networkAddressFactory.getMulticastGroup(), networkAddressFactory.getMulticastPort()), selector);
+ *     }
+ *
+ *     public DatagramIO createDatagramIO(NetworkAddressFactory networkAddressFactory) {
+ *         return new NioDatagramIOImpl(new DatagramIOConfigurationImpl(), selector);
+ *     }
+ * };
+ * </pre>
+ * <p>
+ * The router executes every service, the first one entering {@link #run()} runs the selection loop, all others
+ * return immediately and don't occupy a thread. The loop ends when the last channel has been unregistered, a later
+ * call of {@link #run()} starts it again.
+ * </p>
+ * <p>
+ * All channels are read into the same buffer, the {@link DatagramPacket} handed to a {@link Handler} is only valid
+ * until the handler returns.
+ * </p>
+ */
+public class NioDatagramSelector implements Runnable {
+
+    /**
+     * Receives the datagrams of a registered channel on the selection thread.
+     */
+    public interface Handler {
+
+        DatagramChannel getChannel();
+
+        int getMaxDatagramBytes();
+
+        void received(DatagramPacket datagram) throws UnsupportedDataException;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(NioDatagramSelector.class);
+
+    private final List<Handler> pendingRegistrations = new ArrayList<>();
+
+    private Selector selector;
+    private boolean running;
+    private boolean unregistered;
+
+    // Only accessed by the selection thread
+    private ByteBuffer buffer = ByteBuffer.allocate(0);
+    private final DatagramPacket datagram = new DatagramPacket(new byte[0], 0);
+
+    /**
+     * Registers the channel of the handler, which must be in non-blocking mode.
+     */
+    public synchronized void register(Handler handler) throws IOException {
+        if (selector == null) {
+            selector = Selector.open();
+        }
+        // Registering blocks while another thread is selecting, so the selection thread registers
+        pendingRegistrations.add(handler);
+        selector.wakeup();
+    }
+
+    /**
+     * Closes the channel of the handler, it will no longer be selected.
+     */
+    public synchronized void unregister(Handler handler) {
+        pendingRegistrations.remove(handler);
+        try {
+            handler.getChannel().close();
+        } catch (IOException e) {
+            logger.debug("Could not close datagram channel", e);
+        }
+        unregistered = true;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+        Selector currentSelector;
+        synchronized (this) {
+            if (running || selector == null) {
+                logger.trace("Selection loop already running or nothing registered");
+                return;
+            }
+            running = true;
+            currentSelector = selector;
+        }
+
+        logger.debug("Entering selection loop, receiving UDP datagrams of all registered channels");
+        try {
+            while (true) {
+                if (!registerPending(currentSelector)) {
+                    break;
+                }
+                currentSelector.select();
+
+                Iterator<SelectionKey> it = currentSelector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (key.isValid() && key.isReadable()) {
+                        receive(key, (Handler) key.attachment());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Selection loop failed, closing all registered channels", e);
+            closeAll(currentSelector);
+            throw new RuntimeException(e);
+        }
+        logger.debug("Selection loop finished, no registered channels");
+    }
+
+    /**
+     * @return <code>false</code> if the loop has to end because there are no channels left.
+     */
+    protected boolean registerPending(Selector currentSelector) throws IOException {
+        synchronized (this) {
+            for (Handler handler : pendingRegistrations) {
+                try {
+                    handler.getChannel().register(currentSelector, SelectionKey.OP_READ, handler);
+                    if (buffer.capacity() < handler.getMaxDatagramBytes()) {
+                        buffer = ByteBuffer.allocate(handler.getMaxDatagramBytes());
+                    }
+                } catch (ClosedChannelException e) {
+                    logger.debug("Channel closed before registration: {}", handler);
+                }
+            }
+            pendingRegistrations.clear();
+
+            if (unregistered) {
+                // Keys of closed channels are removed by a selection, selection is level-triggered so any readable
+                // channel is selected again by the next blocking select
+                unregistered = false;
+                currentSelector.selectNow();
+                currentSelector.selectedKeys().clear();
+            }
+
+            if (currentSelector.keys().isEmpty()) {
+                running = false;
+                selector = null;
+                currentSelector.close();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Closes the selector and the channels of all handlers after the loop failed, the services are initialized
+     * again when the router restarts.
+     */
+    protected synchronized void closeAll(Selector currentSelector) {
+        List<Handler> handlers = new ArrayList<>(pendingRegistrations);
+        pendingRegistrations.clear();
+        try {
+            for (SelectionKey key : currentSelector.keys()) {
+                handlers.add((Handler) key.attachment());
+            }
+        } catch (ClosedSelectorException e) {
+            logger.trace("Selector already closed");
+        }
+        for (Handler handler : handlers) {
+            try {
+                handler.getChannel().close();
+            } catch (IOException e) {
+                logger.debug("Could not close datagram channel", e);
+            }
+        }
+        try {
+            currentSelector.close();
+        } catch (IOException e) {
+            logger.debug("Could not close selector", e);
+        }
+        if (selector == currentSelector) {
+            selector = null;
+        }
+        unregistered = false;
+        running = false;
+    }
+
+    protected void receive(SelectionKey key, Handler handler) {
+        DatagramChannel channel = handler.getChannel();
+        try {
+            SocketAddress source;
+            // Drain the channel, a storm should not cost a select per datagram
+            while ((source = channel.receive(prepareBuffer())) != null) {
+                datagram.setData(buffer.array(), 0, buffer.position());
+                datagram.setSocketAddress(source);
+                try {
+                    handler.received(datagram);
+                } catch (UnsupportedDataException e) {
+                    logger.info("Could not read datagram: {}", e.getMessage());
+                } catch (RuntimeException e) {
+                    // A single datagram must not end the loop shared by all channels
+                    logger.warn("Could not handle datagram from: {}", source, e);
+                }
+            }
+        } catch (ClosedChannelException e) {
+            logger.debug("Channel closed");
+            key.cancel();
+        } catch (IOException e) {
+            logger.debug("Could not receive on channel, closing it: {}", channel, e);
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                logger.trace("Could not close channel", ex);
+            }
+        }
+    }
+
+    private ByteBuffer prepareBuffer() {
+        buffer.clear();
+        return buffer;
+    }
+}
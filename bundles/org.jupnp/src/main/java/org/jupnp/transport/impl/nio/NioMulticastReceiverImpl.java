@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport.impl.nio;
+
+import java.net.DatagramPacket;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.MembershipKey;
+
+import org.jupnp.model.UnsupportedDataException;
+import org.jupnp.model.message.IncomingDatagramMessage;
+import org.jupnp.transport.Router;
+import org.jupnp.transport.impl.MulticastReceiverConfigurationImpl;
+import org.jupnp.transport.spi.DatagramProcessor;
+import org.jupnp.transport.spi.InitializationException;
+import org.jupnp.transport.spi.MulticastReceiver;
+import org.jupnp.transport.spi.NetworkAddressFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation based on a non-blocking <code>DatagramChannel</code> which joins the multicast group on one
+ * network interface.
+ * <p>
+ * The channel is read by the shared {@link NioDatagramSelector}, so receivers on any number of interfaces
+ * need only one thread.
+ * </p>
+ */
+public class NioMulticastReceiverImpl
+        implements MulticastReceiver<MulticastReceiverConfigurationImpl>, NioDatagramSelector.Handler {
+
+    private final Logger logger = LoggerFactory.getLogger(MulticastReceiver.class);
+
+    protected final MulticastReceiverConfigurationImpl configuration;
+    protected final NioDatagramSelector selector;
+
+    protected Router router;
+    protected NetworkAddressFactory networkAddressFactory;
+    protected DatagramProcessor datagramProcessor;
+
+    protected NetworkInterface multicastInterface;
+    protected InetSocketAddress multicastAddress;
+    protected DatagramChannel channel;
+    protected MembershipKey membershipKey;
+
+    public NioMulticastReceiverImpl(MulticastReceiverConfigurationImpl configuration, NioDatagramSelector selector) {
+        this.configuration = configuration;
+        this.selector = selector;
+    }
+
+    @Override
+    public MulticastReceiverConfigurationImpl getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public synchronized void init(NetworkInterface networkInterface, Router router,
+            NetworkAddressFactory networkAddressFactory, DatagramProcessor datagramProcessor)
+            throws InitializationException {
+
+        this.router = router;
+        this.networkAddressFactory = networkAddressFactory;
+        this.datagramProcessor = datagramProcessor;
+        this.multicastInterface = networkInterface;
+
+        try {
+
+            logger.debug("Creating wildcard channel (for receiving multicast datagrams) on port: {}",
+                    configuration.getPort());
+            multicastAddress = new InetSocketAddress(configuration.getGroup(), configuration.getPort());
+
+            channel = DatagramChannel.open(configuration.getGroup() instanceof Inet6Address
+                    ? StandardProtocolFamily.INET6
+                    : StandardProtocolFamily.INET);
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, 32768); // Keep a backlog of incoming datagrams
+            channel.bind(new InetSocketAddress(configuration.getPort()));
+            channel.configureBlocking(false);
+
+            logger.debug("Joining multicast group: {} on network interface: {}", multicastAddress,
+                    multicastInterface.getDisplayName());
+            membershipKey = channel.join(configuration.getGroup(), multicastInterface);
+
+            selector.register(this);
+
+        } catch (Exception e) {
+            if (channel != null) {
+                selector.unregister(this);
+            }
+            throw new InitializationException("Could not initialize " + getClass().getSimpleName() + ": " + e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (channel != null && channel.isOpen()) {
+            if (membershipKey != null) {
+                logger.debug("Leaving multicast group");
+                membershipKey.drop();
+            }
+            selector.unregister(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        selector.run();
+    }
+
+    @Override
+    public DatagramChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public int getMaxDatagramBytes() {
+        return getConfiguration().getMaxDatagramBytes();
+    }
+
+    @Override
+    public void received(DatagramPacket datagram) throws UnsupportedDataException {
+        InetAddress receivedOnLocalAddress = networkAddressFactory.getLocalAddress(multicastInterface,
+                multicastAddress.getAddress() instanceof Inet6Address, datagram.getAddress());
+
+        logger.debug("UDP datagram received from: {}:{} on local interface: {} and address: {}",
+                datagram.getAddress().getHostAddress(), datagram.getPort(), multicastInterface.getDisplayName(),
+                receivedOnLocalAddress.getHostAddress());
+
+        IncomingDatagramMessage message;
+        try {
+            message = datagramProcessor.read(receivedOnLocalAddress, datagram);
+        } catch (UnsupportedDataException e) {
+            router.getConfiguration().getMetrics().datagramReadFailed();
+            throw e;
+        }
+        router.received(message);
+    }
+}
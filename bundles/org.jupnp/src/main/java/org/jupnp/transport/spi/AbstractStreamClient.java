@@ -15,11 +15,9 @@
  */
 package org.jupnp.transport.spi;
 
-import java.net.URI;
-import java.util.Iterator;
-import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -41,44 +39,17 @@ public abstract class AbstractStreamClient<C extends StreamClientConfiguration,
 
     private final Logger logger = LoggerFactory.getLogger(StreamClient.class);
 
-    private static final int FAILED_REQUESTS_MAX_SIZE = 100;
-    private Map<URI, Long> failedRequests = new ConcurrentHashMap<>();
-    private Map<URI, Long> failedTries = new ConcurrentHashMap<>();
+    private volatile HostHealthTracker hostHealthTracker;
 
     @Override
     public StreamResponseMessage sendRequest(StreamRequestMessage requestMessage) throws InterruptedException {
         logger.trace("Preparing HTTP request: {}", requestMessage);
 
-        String[] split = requestMessage.getUri().toString().split(":");
-        String protocol = split[0];
-
-        if (protocol.equals("https")) {
-            SpecificationViolationReporter.report("HTTPS invalid.  Ignoring call " + requestMessage.getUri());
-            return null;
-        }
-
         // We want to track how long it takes
         long start = System.nanoTime();
 
-        failedTries.putIfAbsent(requestMessage.getUri(), (long) 0);
-
-        final Long previeousFailureTime = failedRequests.get(requestMessage.getUri());
-        final Long numberOfTries = failedTries.get(requestMessage.getUri());
-
-        if (getConfiguration().getRetryAfterSeconds() > 0 && previeousFailureTime != null) {
-            if (start - previeousFailureTime < TimeUnit.SECONDS.toNanos(getConfiguration().getRetryAfterSeconds())
-                    && numberOfTries >= getConfiguration().getRetryIterations()) {
-                logger.debug("Will not attempt request because it failed {} times in the last {} seconds: {}",
-                        numberOfTries, getConfiguration().getRetryAfterSeconds(), requestMessage);
-                return null;
-            } else if (start - previeousFailureTime < TimeUnit.SECONDS
-                    .toNanos(getConfiguration().getRetryAfterSeconds()) && numberOfTries > 0) {
-                logger.debug("Previous attempt failed {} times.  Will retry {}", numberOfTries, requestMessage);
-            } else {
-                logger.debug("Clearing failed attempt after {} tries", numberOfTries);
-                failedRequests.remove(requestMessage.getUri());
-                failedTries.put(requestMessage.getUri(), (long) 0);
-            }
+        if (!isRequestAllowed(requestMessage, start)) {
+            return null;
         }
 
         REQUEST request = createRequest(requestMessage);
@@ -98,14 +69,8 @@ public abstract class AbstractStreamClient<C extends StreamClientConfiguration,
                     requestMessage);
             StreamResponseMessage response = future.get(getConfiguration().getTimeoutSeconds(), TimeUnit.SECONDS);
 
-            // Log a warning if it took too long
-            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
-            logger.trace("Got HTTP response in {} ms: {}", elapsed, requestMessage);
-            if (getConfiguration().getLogWarningSeconds() > 0
-                    && elapsed > TimeUnit.SECONDS.toMillis(getConfiguration().getLogWarningSeconds())) {
-                logger.warn("HTTP request took a long time ({} ms): {}", elapsed, requestMessage);
-            }
-
+            logElapsedTime(requestMessage, start);
+            handleResponse(requestMessage, response);
             return response;
 
         } catch (InterruptedException e) {
@@ -119,23 +84,11 @@ public abstract class AbstractStreamClient<C extends StreamClientConfiguration,
                     getConfiguration().getTimeoutSeconds(), requestMessage);
             abort(request);
 
-            handleRequestTimeout(requestMessage, requestWrapper);
+            handleRequestTimeout(requestMessage, requestWrapper.startTime);
             return null;
 
         } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (!logExecutionException(cause)) {
-                String message = "HTTP request failed: " + requestMessage;
-
-                if (logger.isDebugEnabled()) {
-                    // if debug then the warning will additionally contain the stacktrace of the causing exception
-                    logger.warn(message, Exceptions.unwrap(cause));
-                } else {
-                    // compact logging
-                    logger.warn("{} ({})", message, Exceptions.unwrap(cause).getMessage());
-                }
-            }
-
+            logRequestFailure(requestMessage, e.getCause());
             handleRequestFailure(requestMessage);
             return null;
         } finally {
@@ -143,6 +96,148 @@ public abstract class AbstractStreamClient<C extends StreamClientConfiguration,
         }
     }
 
+    /**
+     * Sends the request with {@link #sendAsync(StreamRequestMessage, Object)}, no thread waits for the response.
+     * The request is aborted when it expires, the returned future is then completed with <code>null</code>.
+     * Cancelling the returned future also aborts the request.
+     */
+    @Override
+    public CompletableFuture<StreamResponseMessage> sendRequestAsync(StreamRequestMessage requestMessage) {
+        logger.trace("Preparing asynchronous HTTP request: {}", requestMessage);
+
+        long start = System.nanoTime();
+
+        if (!isRequestAllowed(requestMessage, start)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        REQUEST request = createRequest(requestMessage);
+        if (request == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<StreamResponseMessage> sending;
+        try {
+            sending = sendAsync(requestMessage, request);
+        } catch (RuntimeException e) {
+            sending = CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<StreamResponseMessage> result = new CompletableFuture<>();
+        sending.orTimeout(getConfiguration().getTimeoutSeconds(), TimeUnit.SECONDS)
+                .whenComplete((response, failure) -> {
+                    try {
+                        result.complete(handleAsyncResult(requestMessage, request, start, response, failure, result));
+                    } finally {
+                        onFinally(request);
+                    }
+                });
+
+        // Cancelling the returned future aborts the request
+        result.whenComplete((response, failure) -> {
+            if (result.isCancelled()) {
+                abort(request);
+            }
+        });
+        return result;
+    }
+
+    private StreamResponseMessage handleAsyncResult(StreamRequestMessage requestMessage, REQUEST request, long start,
+            StreamResponseMessage response, Throwable failure, CompletableFuture<StreamResponseMessage> result) {
+        if (result.isCancelled()) {
+            logger.trace("Request cancelled and aborted: {}", requestMessage);
+            return null;
+        }
+        if (failure == null) {
+            logElapsedTime(requestMessage, start);
+            handleResponse(requestMessage, response);
+            return response;
+        }
+
+        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        if (cause instanceof TimeoutException) {
+            logger.info("Timeout of {} seconds while waiting for HTTP request to complete, aborting: {}",
+                    getConfiguration().getTimeoutSeconds(), requestMessage);
+            abort(request);
+            handleRequestTimeout(requestMessage, start);
+        } else {
+            logRequestFailure(requestMessage, cause);
+            handleRequestFailure(requestMessage);
+        }
+        return null;
+    }
+
+    /**
+     * @return <code>false</code> if the request must not be sent, because it is invalid or its host is backed off
+     *         after failed requests.
+     */
+    protected boolean isRequestAllowed(StreamRequestMessage requestMessage, long start) {
+        String[] split = requestMessage.getUri().toString().split(":");
+        String protocol = split[0];
+
+        if (protocol.equals("https")) {
+            SpecificationViolationReporter.report("HTTPS invalid.  Ignoring call " + requestMessage.getUri());
+            return false;
+        }
+
+        HostHealthTracker tracker = getHostHealthTracker();
+        if (tracker != null && !tracker.tryAcquire(HostHealthTracker.getHost(requestMessage.getUri()))) {
+            logger.debug("Will not attempt request because its host is backed off after failed requests: {}",
+                    requestMessage);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * The tracker is created on first use, with the retry settings of the {@link StreamClientConfiguration}.
+     */
+    @Override
+    public HostHealthTracker getHostHealthTracker() {
+        HostHealthTracker tracker = hostHealthTracker;
+        if (tracker == null && getConfiguration().getRetryAfterSeconds() > 0) {
+            synchronized (this) {
+                tracker = hostHealthTracker;
+                if (tracker == null) {
+                    hostHealthTracker = tracker = createHostHealthTracker();
+                }
+            }
+        }
+        return tracker;
+    }
+
+    protected HostHealthTracker createHostHealthTracker() {
+        StreamClientConfiguration config = getConfiguration();
+        return new HostHealthTracker(config.getRetryIterations(),
+                TimeUnit.SECONDS.toMillis(config.getRetryBackoffSeconds()),
+                TimeUnit.SECONDS.toMillis(config.getRetryAfterSeconds()),
+                TimeUnit.SECONDS.toMillis(config.getTimeoutSeconds()), config.getMaxTrackedHosts());
+    }
+
+    private void logElapsedTime(StreamRequestMessage requestMessage, long start) {
+        // Log a warning if it took too long
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.trace("Got HTTP response in {} ms: {}", elapsed, requestMessage);
+        if (getConfiguration().getLogWarningSeconds() > 0
+                && elapsed > TimeUnit.SECONDS.toMillis(getConfiguration().getLogWarningSeconds())) {
+            logger.warn("HTTP request took a long time ({} ms): {}", elapsed, requestMessage);
+        }
+    }
+
+    private void logRequestFailure(StreamRequestMessage requestMessage, Throwable cause) {
+        if (!logExecutionException(cause)) {
+            String message = "HTTP request failed: " + requestMessage;
+
+            if (logger.isDebugEnabled()) {
+                // if debug then the warning will additionally contain the stacktrace of the causing exception
+                logger.warn(message, Exceptions.unwrap(cause));
+            } else {
+                // compact logging
+                logger.warn("{} ({})", message, Exceptions.unwrap(cause).getMessage());
+            }
+        }
+    }
+
     /**
      * Create a proprietary representation of this request, log warnings and
      * return <code>null</code> if creation fails.
@@ -155,6 +250,27 @@ public abstract class AbstractStreamClient<C extends StreamClientConfiguration,
     protected abstract Callable<StreamResponseMessage> createCallable(StreamRequestMessage requestMessage,
             REQUEST request);
 
+    /**
+     * Start the request without waiting for the response, with the non-blocking API of the HTTP client.
+     * <p>
+     * This default implementation runs the procedure of {@link #createCallable(StreamRequestMessage, Object)} on the
+     * {@link StreamClientConfiguration#getRequestExecutorService()}.
+     * </p>
+     */
+    protected CompletableFuture<StreamResponseMessage> sendAsync(StreamRequestMessage requestMessage,
+            REQUEST request) {
+        Callable<StreamResponseMessage> callable = createCallable(requestMessage, request);
+        CompletableFuture<StreamResponseMessage> future = new CompletableFuture<>();
+        getConfiguration().getRequestExecutorService().execute(() -> {
+            try {
+                future.complete(callable.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
     /**
      * Cancel and abort the request immediately, with the proprietary API.
      */
@@ -169,45 +285,24 @@ public abstract class AbstractStreamClient<C extends StreamClientConfiguration,
         // Do nothing
     }
 
-    private void handleRequestFailure(StreamRequestMessage requestMessage) {
-        if (getConfiguration().getRetryAfterSeconds() <= 0) {
-            return;
-        }
-
-        final long currentTime = System.nanoTime();
-        failedRequests.put(requestMessage.getUri(), currentTime);
-        failedTries.put(requestMessage.getUri(), failedTries.get(requestMessage.getUri()) + 1);
-        if (failedRequests.size() > FAILED_REQUESTS_MAX_SIZE) {
-            cleanOldFailedRequests(currentTime);
+    private void handleResponse(StreamRequestMessage requestMessage, StreamResponseMessage response) {
+        HostHealthTracker tracker = getHostHealthTracker();
+        if (tracker != null && response != null) {
+            tracker.recordSuccess(HostHealthTracker.getHost(requestMessage.getUri()));
         }
     }
 
-    private void handleRequestTimeout(StreamRequestMessage requestMessage, RequestWrapper requestWrapper) {
-        if (getConfiguration().getRetryAfterSeconds() <= 0) {
-            return;
-        }
-
-        final long currentTime = System.nanoTime();
-        if (requestWrapper.startTime != null && currentTime - requestWrapper.startTime > TimeUnit.SECONDS
-                .toNanos(getConfiguration().getTimeoutSeconds())) {
-            failedRequests.put(requestMessage.getUri(), currentTime);
+    private void handleRequestFailure(StreamRequestMessage requestMessage) {
+        HostHealthTracker tracker = getHostHealthTracker();
+        if (tracker != null) {
+            tracker.recordFailure(HostHealthTracker.getHost(requestMessage.getUri()));
         }
-
-        failedTries.put(requestMessage.getUri(), failedTries.get(requestMessage.getUri()) + 1);
-        cleanOldFailedRequests(currentTime);
     }
 
-    private void cleanOldFailedRequests(long currentTime) {
-        if (failedRequests.size() <= FAILED_REQUESTS_MAX_SIZE) {
-            return;
-        }
-
-        Iterator<Map.Entry<URI, Long>> it = failedRequests.entrySet().iterator();
-        while (it.hasNext()) {
-            long elapsedTime = currentTime - it.next().getValue();
-            if (elapsedTime > TimeUnit.SECONDS.toNanos(getConfiguration().getRetryAfterSeconds())) {
-                it.remove();
-            }
+    private void handleRequestTimeout(StreamRequestMessage requestMessage, Long startTime) {
+        // A request which expired while waiting in the executor queue isn't a failure of the host
+        if (startTime != null) {
+            handleRequestFailure(requestMessage);
         }
     }
 
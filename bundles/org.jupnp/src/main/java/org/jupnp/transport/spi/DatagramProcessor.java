@@ -38,6 +38,10 @@ public interface DatagramProcessor {
      * The message is either a {@link org.jupnp.model.message.UpnpRequest} or
      * a {@link org.jupnp.model.message.UpnpResponse} operation type.
      * </p>
+     * <p>
+     * Only the bytes between the offset and the length of the datagram are read. The buffer of the datagram is
+     * reused by the receiver after this method returns, implementations must not keep references to it.
+     * </p>
      *
      * @param receivedOnAddress The address of the socket on which this datagram was received.
      * @param datagram The received UDP datagram.
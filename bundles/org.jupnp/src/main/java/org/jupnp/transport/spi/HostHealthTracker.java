@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport.spi;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the failed requests of each remote host and backs off further requests to unreachable hosts.
+ * <p>
+ * A host is {@link State#HEALTHY} until the configured number of consecutive requests failed. No requests are then
+ * sent to the host while it is {@link State#BACKING_OFF}. When the backoff expired, a single request is allowed to
+ * probe the host, all other requests are rejected while it is {@link State#PROBING}. A successful probe resets the
+ * host, a failed probe doubles the backoff up to the maximum. A random jitter of up to a fifth of the backoff is
+ * added, so requests to many hosts which failed at the same time are spread out.
+ * </p>
+ * <p>
+ * Only hosts with failed requests are tracked, at most the configured number of hosts are kept, the least recently
+ * used hosts are dropped first.
+ * </p>
+ * <p>
+ * The tracker of the stream client is shared with the protocols through
+ * {@link org.jupnp.transport.Router#getHostHealthTracker()}.
+ * </p>
+ */
+public class HostHealthTracker {
+
+    private final Logger logger = LoggerFactory.getLogger(HostHealthTracker.class);
+
+    public enum State {
+        HEALTHY,
+        BACKING_OFF,
+        PROBING
+    }
+
+    /**
+     * Snapshot of the health of a host.
+     */
+    public static class HostState {
+
+        private final String host;
+        private final State state;
+        private final int consecutiveFailures;
+        private final long backoffMillis;
+        private final long retryInMillis;
+
+        public HostState(String host, State state, int consecutiveFailures, long backoffMillis, long retryInMillis) {
+            this.host = host;
+            this.state = state;
+            this.consecutiveFailures = consecutiveFailures;
+            this.backoffMillis = backoffMillis;
+            this.retryInMillis = retryInMillis;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        /**
+         * @return The current backoff without jitter, <code>0</code> if the host is not backed off.
+         */
+        public long getBackoffMillis() {
+            return backoffMillis;
+        }
+
+        /**
+         * @return The time until the host will be probed, <code>0</code> if requests are allowed.
+         */
+        public long getRetryInMillis() {
+            return retryInMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + getClass().getSimpleName() + ") " + host + " " + state + ", failures: "
+                    + consecutiveFailures + ", retry in ms: " + retryInMillis;
+        }
+    }
+
+    protected static class HostEntry {
+        int consecutiveFailures;
+        long backoffMillis;
+        long retryAtNanos;
+        boolean probing;
+        long probeStartNanos;
+    }
+
+    private final int failureThreshold;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long probeTimeoutMillis;
+
+    // Guarded by itself, access order for LRU eviction
+    private final Map<String, HostEntry> entries;
+
+    /**
+     * @param failureThreshold The number of consecutive failed requests before a host is backed off.
+     * @param initialBackoffMillis The backoff after the threshold was reached.
+     * @param maxBackoffMillis The maximum backoff of failed probes.
+     * @param probeTimeoutMillis Another probe is allowed if a probe didn't complete in this time.
+     * @param maxHosts The maximum number of tracked hosts.
+     */
+    public HostHealthTracker(int failureThreshold, long initialBackoffMillis, long maxBackoffMillis,
+            long probeTimeoutMillis, final int maxHosts) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+        this.probeTimeoutMillis = probeTimeoutMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, HostEntry> eldest) {
+                return size() > maxHosts;
+            }
+        };
+    }
+
+    /**
+     * Called before a request is sent, starts a probe if the backoff of the host expired.
+     *
+     * @return <code>false</code> if no request must be sent to the host now.
+     */
+    public boolean tryAcquire(String host) {
+        if (host == null) {
+            return true;
+        }
+        synchronized (entries) {
+            HostEntry entry = entries.get(host);
+            if (entry == null || entry.consecutiveFailures < failureThreshold) {
+                return true;
+            }
+            long now = currentTimeNanos();
+            if (isProbing(entry, now) || now - entry.retryAtNanos < 0) {
+                return false;
+            }
+            logger.debug("Probing host after backoff of {} ms: {}", entry.backoffMillis, host);
+            entry.probing = true;
+            entry.probeStartNanos = now;
+            return true;
+        }
+    }
+
+    /**
+     * Unlike {@link #tryAcquire(String)} this doesn't start a probe, use it to skip work before requests are sent.
+     *
+     * @return <code>false</code> if requests to the host are currently rejected.
+     */
+    public boolean isAvailable(String host) {
+        HostState state = getHostState(host);
+        return state.getState() == State.HEALTHY
+                || state.getState() == State.BACKING_OFF && state.getRetryInMillis() == 0;
+    }
+
+    /**
+     * Any response of the host, regardless of its status, resets the host.
+     */
+    public void recordSuccess(String host) {
+        if (host == null) {
+            return;
+        }
+        synchronized (entries) {
+            HostEntry entry = entries.remove(host);
+            if (entry != null && entry.consecutiveFailures >= failureThreshold) {
+                logger.debug("Host is reachable again after {} failed requests: {}", entry.consecutiveFailures, host);
+            }
+        }
+    }
+
+    public void recordFailure(String host) {
+        if (host == null) {
+            return;
+        }
+        synchronized (entries) {
+            HostEntry entry = entries.computeIfAbsent(host, h -> new HostEntry());
+            entry.consecutiveFailures++;
+            entry.probing = false;
+            if (entry.consecutiveFailures < failureThreshold) {
+                return;
+            }
+            entry.backoffMillis = entry.backoffMillis == 0 ? initialBackoffMillis
+                    : Math.min(entry.backoffMillis * 2, maxBackoffMillis);
+            long delayMillis = entry.backoffMillis + ThreadLocalRandom.current().nextLong(entry.backoffMillis / 5 + 1);
+            entry.retryAtNanos = currentTimeNanos() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            logger.debug("Backing off requests to host for {} ms after {} failed requests: {}", delayMillis,
+                    entry.consecutiveFailures, host);
+        }
+    }
+
+    public State getState(String host) {
+        return getHostState(host).getState();
+    }
+
+    public HostState getHostState(String host) {
+        synchronized (entries) {
+            HostEntry entry = host != null ? entries.get(host) : null;
+            return createHostState(host, entry, currentTimeNanos());
+        }
+    }
+
+    /**
+     * @return A snapshot of all hosts with failed requests, ordered from least to most recently used.
+     */
+    public Map<String, HostState> getHostStates() {
+        synchronized (entries) {
+            long now = currentTimeNanos();
+            Map<String, HostState> states = new LinkedHashMap<>();
+            for (Map.Entry<String, HostEntry> entry : entries.entrySet()) {
+                states.put(entry.getKey(), createHostState(entry.getKey(), entry.getValue(), now));
+            }
+            return Collections.unmodifiableMap(states);
+        }
+    }
+
+    public void reset(String host) {
+        synchronized (entries) {
+            entries.remove(host);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    protected HostState createHostState(String host, HostEntry entry, long now) {
+        if (entry == null) {
+            return new HostState(host, State.HEALTHY, 0, 0, 0);
+        }
+        if (entry.consecutiveFailures < failureThreshold) {
+            return new HostState(host, State.HEALTHY, entry.consecutiveFailures, 0, 0);
+        }
+        if (isProbing(entry, now)) {
+            return new HostState(host, State.PROBING, entry.consecutiveFailures, entry.backoffMillis, 0);
+        }
+        return new HostState(host, State.BACKING_OFF, entry.consecutiveFailures, entry.backoffMillis,
+                Math.max(0, TimeUnit.NANOSECONDS.toMillis(entry.retryAtNanos - now)));
+    }
+
+    protected boolean isProbing(HostEntry entry, long now) {
+        return entry.probing && now - entry.probeStartNanos < TimeUnit.MILLISECONDS.toNanos(probeTimeoutMillis);
+    }
+
+    protected long currentTimeNanos() {
+        return System.nanoTime();
+    }
+
+    public static String getHost(URI uri) {
+        return uri != null ? uri.getHost() : null;
+    }
+
+    public static String getHost(URL url) {
+        return url != null ? url.getHost() : null;
+    }
+}
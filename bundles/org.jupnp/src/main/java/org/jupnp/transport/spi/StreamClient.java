@@ -15,6 +15,8 @@
  */
 package org.jupnp.transport.spi;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.jupnp.model.message.StreamRequestMessage;
 import org.jupnp.model.message.StreamResponseMessage;
 
@@ -69,6 +71,38 @@ public interface StreamClient<C extends StreamClientConfiguration> {
      */
     StreamResponseMessage sendRequest(StreamRequestMessage message) throws InterruptedException;
 
+    /**
+     * Sends the given request via TCP (HTTP) without blocking the calling thread.
+     * <p>
+     * The returned future follows the rules of {@link #sendRequest(StreamRequestMessage)}, it completes with
+     * <code>null</code> if the request expires or fails. This default implementation calls
+     * {@link #sendRequest(StreamRequestMessage)} on the {@link StreamClientConfiguration#getRequestExecutorService()},
+     * implementations should send the request with the non-blocking API of their HTTP client instead.
+     * </p>
+     *
+     * @param message The message to send.
+     * @return The future response, completed with <code>null</code> if no response has been received or an error
+     *         occurred.
+     */
+    default CompletableFuture<StreamResponseMessage> sendRequestAsync(StreamRequestMessage message) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sendRequest(message);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }, getConfiguration().getRequestExecutorService());
+    }
+
+    /**
+     * @return The health of the remote hosts, shared with the protocols, or <code>null</code> if failed requests
+     *         aren't tracked.
+     */
+    default HostHealthTracker getHostHealthTracker() {
+        return null;
+    }
+
     /**
      * Stops the service, closes any connection pools etc.
      */
@@ -39,7 +39,8 @@ public interface StreamClientConfiguration {
     int getTimeoutSeconds();
 
     /**
-     * @return Configured value or default of 5 retries.
+     * @return The number of consecutive failed requests to a host before further requests are backed off,
+     *         configured value or default of 5 retries.
      */
     int getRetryIterations();
 
@@ -49,10 +50,26 @@ public interface StreamClientConfiguration {
     int getLogWarningSeconds();
 
     /**
-     * @return A request will not be executed again if it has failed in the last X seconds ({@code 0} to disable)
+     * @return The maximum time in seconds requests to an unreachable host are backed off ({@code 0} to disable
+     *         tracking of failed requests)
      */
     int getRetryAfterSeconds();
 
+    /**
+     * @return The initial time in seconds requests to an unreachable host are backed off, it is doubled for each
+     *         failed probe of the host.
+     */
+    default int getRetryBackoffSeconds() {
+        return 5;
+    }
+
+    /**
+     * @return The maximum number of hosts with failed requests which are tracked.
+     */
+    default int getMaxTrackedHosts() {
+        return 256;
+    }
+
     /**
      * Used for outgoing HTTP requests if no other value was already set on messages.
      *
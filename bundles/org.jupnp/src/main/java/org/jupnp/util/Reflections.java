@@ -16,12 +16,16 @@
 package org.jupnp.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
@@ -109,6 +113,136 @@ public class Reflections {
 
     // ####################
 
+    /**
+     * Creates a method handle which calls the method on a target with an array of arguments, without the access
+     * checks and argument array copies of {@link #invoke(Method, Object, Object...)}.
+     * <p>
+     * Calls with a target or arguments which don't exactly match the method are passed to
+     * {@link #invoke(Method, Object, Object...)}, which widens primitive arguments or reports why they can't be used.
+     * </p>
+     *
+     * @return A handle of type <code>(Object, Object[])Object</code>, or <code>null</code> if the method can't be
+     *         made accessible.
+     */
+    public static MethodHandle createInvoker(Method method) {
+        try {
+            // The handle keeps the access granted here
+            method.setAccessible(true);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(method).asFixedArity();
+            Class<?> targetType = null;
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            } else {
+                targetType = method.getDeclaringClass();
+            }
+            handle = handle.asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            boolean[] primitive = new boolean[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                primitive[i] = parameterTypes[i].isPrimitive();
+                parameterTypes[i] = MethodType.methodType(parameterTypes[i]).wrap().returnType();
+            }
+            MethodHandle test = MethodHandles.insertArguments(
+                    lookup.findStatic(Reflections.class, "isInvocable", MethodType.methodType(boolean.class,
+                            Class.class, Class[].class, boolean[].class, Object.class, Object[].class)),
+                    0, targetType, parameterTypes, primitive);
+            MethodHandle fallback = lookup.findStatic(Reflections.class, "invoke",
+                    MethodType.methodType(Object.class, Method.class, Object.class, Object[].class)).bindTo(method);
+            return MethodHandles.guardWithTest(test, handle, fallback);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a method handle which reads the value of the field from a target.
+     * <p>
+     * Targets which aren't an instance of the declaring class are passed to {@link #get(Field, Object)}.
+     * </p>
+     *
+     * @return A handle of type <code>(Object)Object</code>, or <code>null</code> if the field can't be made
+     *         accessible.
+     */
+    public static MethodHandle createGetter(Field field) {
+        try {
+            // The handle keeps the access granted here
+            field.setAccessible(true);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                return MethodHandles.dropArguments(handle, 0, Object.class)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            }
+            MethodHandle test = lookup
+                    .findVirtual(Class.class, "isInstance", MethodType.methodType(boolean.class, Object.class))
+                    .bindTo(field.getDeclaringClass());
+            MethodHandle fallback = lookup.findStatic(Reflections.class, "get",
+                    MethodType.methodType(Object.class, Field.class, Object.class)).bindTo(field);
+            return MethodHandles.guardWithTest(test, handle.asType(MethodType.methodType(Object.class, Object.class)),
+                    fallback);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calls the method of the handle, with the same results and exceptions as
+     * {@link #invoke(Method, Object, Object...)}.
+     *
+     * @param invoker A handle created with {@link #createInvoker(Method)}.
+     */
+    public static Object invoke(MethodHandle invoker, Object target, Object... args) throws Exception {
+        try {
+            return (Object) invoker.invokeExact(target, args);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * Reads the field of the handle, with the same results and exceptions as {@link #get(Field, Object)}.
+     *
+     * @param getter A handle created with {@link #createGetter(Field)}.
+     */
+    public static Object get(MethodHandle getter, Object target) throws Exception {
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * @param targetType The declaring class of the method, <code>null</code> if the method is static.
+     * @param parameterTypes The parameter types of the method, primitive types replaced by their wrapper types.
+     * @param primitive Which parameters are of a primitive type and don't accept <code>null</code>.
+     */
+    private static boolean isInvocable(Class<?> targetType, Class<?>[] parameterTypes, boolean[] primitive,
+            Object target, Object[] args) {
+        if (targetType != null && !targetType.isInstance(target)) {
+            return false;
+        }
+        if ((args != null ? args.length : 0) != parameterTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Object arg = args[i];
+            if (arg != null ? !parameterTypes[i].isInstance(arg) : primitive[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ####################
+
     public static String getMethodPropertyName(String methodName) {
         String methodPropertyName = null;
         if (methodName.startsWith("get")) {
@@ -18,6 +18,8 @@ package org.jupnp.control;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
 import org.jupnp.controlpoint.ActionCallback;
@@ -25,6 +27,7 @@ import org.jupnp.data.SampleData;
 import org.jupnp.data.SampleServiceOne;
 import org.jupnp.mock.MockRouter;
 import org.jupnp.mock.MockUpnpService;
+import org.jupnp.model.action.ActionCancelledException;
 import org.jupnp.model.action.ActionInvocation;
 import org.jupnp.model.message.StreamRequestMessage;
 import org.jupnp.model.message.StreamResponseMessage;
@@ -194,6 +197,99 @@ class ActionInvokeOutgoingTest {
                 actionInvocation.getFailure().getMessage());
     }
 
+    @Test
+    void callRemoteGetAsync() throws Exception {
+        final CompletableFuture<StreamResponseMessage> pendingResponse = new CompletableFuture<>();
+        MockUpnpService upnpService = new MockUpnpService() {
+            @Override
+            protected MockRouter createRouter() {
+                return new MockRouter(getConfiguration(), getProtocolFactory()) {
+                    @Override
+                    public CompletableFuture<StreamResponseMessage> sendAsync(StreamRequestMessage msg) {
+                        getSentStreamRequestMessages().add(msg);
+                        return pendingResponse;
+                    }
+                };
+            }
+        };
+        upnpService.startup();
+
+        RemoteDevice device = SampleData.createRemoteDevice();
+        Service<RemoteDevice, RemoteService> service = SampleData.getFirstService(device);
+        upnpService.getRegistry().addDevice(device);
+
+        ActionInvocation actionInvocation = new ActionInvocation(service.getAction("GetTarget"));
+
+        final boolean[] assertions = new boolean[2];
+        ActionCallback callback = new ActionCallback(actionInvocation) {
+            @Override
+            public void success(ActionInvocation invocation) {
+                assertions[0] = true;
+            }
+
+            @Override
+            public void failure(ActionInvocation invocation, UpnpResponse operation, String defaultMsg) {
+                assertions[1] = true;
+            }
+        };
+
+        Future<?> future = upnpService.getControlPoint().execute(callback);
+
+        // The request has been sent, nothing waits for the response
+        assertEquals(1, upnpService.getRouter().getSentStreamRequestMessages().size());
+        assertFalse(future.isDone());
+        assertFalse(assertions[0] || assertions[1]);
+
+        pendingResponse.complete(new StreamResponseMessage(RESPONSE_SUCCESSFUL));
+
+        assertSame(actionInvocation, future.get());
+        assertTrue(assertions[0]);
+        assertFalse(assertions[1]);
+        assertEquals("0", actionInvocation.getOutput()[0].toString());
+    }
+
+    @Test
+    void cancelRemoteAsync() throws Exception {
+        final CompletableFuture<StreamResponseMessage> pendingResponse = new CompletableFuture<>();
+        MockUpnpService upnpService = new MockUpnpService() {
+            @Override
+            protected MockRouter createRouter() {
+                return new MockRouter(getConfiguration(), getProtocolFactory()) {
+                    @Override
+                    public CompletableFuture<StreamResponseMessage> sendAsync(StreamRequestMessage msg) {
+                        return pendingResponse;
+                    }
+                };
+            }
+        };
+        upnpService.startup();
+
+        RemoteDevice device = SampleData.createRemoteDevice();
+        Service<RemoteDevice, RemoteService> service = SampleData.getFirstService(device);
+        upnpService.getRegistry().addDevice(device);
+
+        ActionInvocation actionInvocation = new ActionInvocation(service.getAction("GetTarget"));
+
+        final boolean[] assertions = new boolean[1];
+        ActionCallback callback = new ActionCallback(actionInvocation) {
+            @Override
+            public void success(ActionInvocation invocation) {
+            }
+
+            @Override
+            public void failure(ActionInvocation invocation, UpnpResponse operation, String defaultMsg) {
+                assertions[0] = invocation.getFailure() instanceof ActionCancelledException;
+            }
+        };
+
+        Future<?> future = upnpService.getControlPoint().execute(callback);
+        future.cancel(true);
+
+        // The transport future has been cancelled, the callback was notified
+        assertTrue(pendingResponse.isCancelled());
+        assertTrue(assertions[0]);
+    }
+
     @Test
     void callRemoteGet() {
         MockUpnpService upnpService = new MockUpnpService() {
@@ -44,6 +44,7 @@ import org.jupnp.model.meta.LocalService;
 import org.jupnp.model.types.ErrorCode;
 import org.jupnp.model.types.SoapActionType;
 import org.jupnp.transport.impl.SOAPActionProcessorImpl;
+import org.jupnp.transport.impl.StreamingSOAPActionProcessorImpl;
 import org.jupnp.transport.spi.SOAPActionProcessor;
 
 class ActionXMLProcessingTest {
@@ -62,8 +63,17 @@ class ActionXMLProcessingTest {
             + "       <SomeValue1>This is encoded: &lt;</SomeValue1>\n" + "     </u:SetSomeValue>\n" + "   </s:Body>\n"
             + " </s:Envelope>";
 
+    public static final String MIXED_CONTENT_REQUEST = "<?xml version=\"1.0\"?>\n" + " <s:Envelope\n"
+            + "     xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"\n"
+            + "     s:encodingStyle=\"http://schemas.xmlsoap.org/soap/encoding/\">\n" + "   <s:Header/>\n"
+            + "   <s:Body>\n" + "     <u:SetSomeValue xmlns:u=\"urn:schemas-upnp-org:service:SwitchPower:1\">\n"
+            + "       <Unknown>Ignored</Unknown>\n"
+            + "       <SomeValue>This <![CDATA[ignored ]]>is<b> ignored</b> mixed</SomeValue>\n"
+            + "     </u:SetSomeValue>\n" + "   </s:Body>\n" + " </s:Envelope>";
+
     static SOAPActionProcessor[][] getProcessors() {
-        return new SOAPActionProcessor[][] { { new SOAPActionProcessorImpl() } };
+        return new SOAPActionProcessor[][] { { new SOAPActionProcessorImpl() },
+                { new StreamingSOAPActionProcessorImpl() } };
     }
 
     @ParameterizedTest
@@ -229,6 +239,31 @@ class ActionXMLProcessingTest {
         assertEquals("This is encoded: <", actionInvocation.getInput("SomeValue").toString());
     }
 
+    @ParameterizedTest
+    @MethodSource("getProcessors")
+    void readMixedContentRequest(final SOAPActionProcessor processor) throws Exception {
+        LocalDevice ld = ActionSampleData.createTestDevice(ActionSampleData.LocalTestServiceExtended.class);
+        LocalService svc = ld.getServices()[0];
+
+        Action action = svc.getAction("SetSomeValue");
+        ActionInvocation actionInvocation = new ActionInvocation(action);
+
+        StreamRequestMessage streamRequest = new StreamRequestMessage(UpnpRequest.Method.POST,
+                URI.create("http://some.uri"));
+        streamRequest.getHeaders().add(UpnpHeader.Type.CONTENT_TYPE,
+                new ContentTypeHeader(ContentTypeHeader.DEFAULT_CONTENT_TYPE_UTF8));
+        streamRequest.getHeaders().add(UpnpHeader.Type.SOAPACTION,
+                new SoapActionHeader(new SoapActionType(action.getService().getServiceType(), action.getName())));
+        streamRequest.setBody(UpnpMessage.BodyType.STRING, MIXED_CONTENT_REQUEST);
+
+        IncomingActionRequestMessage request = new IncomingActionRequestMessage(streamRequest, svc);
+
+        processor.readBody(request, actionInvocation);
+
+        // Only the text nodes of the argument element are its value
+        assertEquals("This is mixed", actionInvocation.getInput()[0].toString());
+    }
+
     @ParameterizedTest
     @MethodSource("getProcessors")
     void writeDecodedResponse(final SOAPActionProcessor processor) throws Exception {
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.gena;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.jupnp.data.SampleData;
+import org.jupnp.mock.MockRouter;
+import org.jupnp.mock.MockUpnpService;
+import org.jupnp.mock.MockUpnpServiceConfiguration;
+import org.jupnp.model.Namespace;
+import org.jupnp.model.gena.LocalGENASubscription;
+import org.jupnp.model.message.StreamRequestMessage;
+import org.jupnp.model.message.StreamResponseMessage;
+import org.jupnp.model.message.UpnpRequest;
+import org.jupnp.model.message.UpnpResponse;
+import org.jupnp.model.message.gena.OutgoingSubscribeResponseMessage;
+import org.jupnp.model.message.header.CallbackHeader;
+import org.jupnp.model.message.header.EventSequenceHeader;
+import org.jupnp.model.message.header.NTEventHeader;
+import org.jupnp.model.message.header.SubscriptionIdHeader;
+import org.jupnp.model.message.header.UpnpHeader;
+import org.jupnp.model.meta.LocalDevice;
+import org.jupnp.model.meta.LocalService;
+import org.jupnp.protocol.sync.ReceivingSubscribe;
+import org.jupnp.util.URIUtil;
+
+/**
+ * Verifies ordering, merging, and failure handling of the local GENA event delivery.
+ */
+class EventDeliveryTest {
+
+    @Test
+    void mergeQueuedEvents() throws Exception {
+        CountDownLatch paused = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.execute(() -> {
+            try {
+                paused.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        MockUpnpService upnpService = new MockUpnpService(new MockUpnpServiceConfiguration() {
+            @Override
+            public ExecutorService getSyncProtocolExecutorService() {
+                return executor;
+            }
+
+            @Override
+            public int getMaxQueuedEventsPerSubscription() {
+                return 2;
+            }
+        }) {
+            @Override
+            protected MockRouter createRouter() {
+                return new MockRouter(getConfiguration(), getProtocolFactory()) {
+                    @Override
+                    public StreamResponseMessage getStreamResponseMessage(StreamRequestMessage request) {
+                        return new StreamResponseMessage(UpnpResponse.Status.OK);
+                    }
+                };
+            }
+        };
+        upnpService.startup();
+
+        LocalService<?> service = registerService(upnpService);
+        String subscriptionId = subscribe(upnpService, service);
+
+        // The initial event and the first change are queued, all further changes are merged into the last event
+        for (int i = 0; i < 5; i++) {
+            service.getManager().getPropertyChangeSupport().firePropertyChange("Status", false, true);
+        }
+        paused.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<StreamRequestMessage> sentMessages = upnpService.getRouter().getSentStreamRequestMessages();
+        assertEquals(2, sentMessages.size());
+        for (int i = 0; i < sentMessages.size(); i++) {
+            assertEquals(subscriptionId, sentMessages.get(i).getHeaders()
+                    .getFirstHeader(UpnpHeader.Type.SID, SubscriptionIdHeader.class).getValue());
+            assertEquals(i, sentMessages.get(i).getHeaders()
+                    .getFirstHeader(UpnpHeader.Type.SEQ, EventSequenceHeader.class).getValue().getValue());
+        }
+        assertNotNull(upnpService.getRegistry().getLocalSubscription(subscriptionId));
+
+        upnpService.shutdown();
+    }
+
+    @Test
+    void retryRejectedDelivery() throws Exception {
+        AtomicInteger rejections = new AtomicInteger(3);
+        ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                if (rejections.getAndDecrement() > 0) {
+                    throw new RejectedExecutionException("Busy");
+                }
+                super.execute(command);
+            }
+        };
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        List<Thread> sendingThreads = new CopyOnWriteArrayList<>();
+
+        MockUpnpService upnpService = new MockUpnpService(new MockUpnpServiceConfiguration() {
+            @Override
+            public ExecutorService getEventDeliveryExecutorService() {
+                return executor;
+            }
+
+            @Override
+            public ScheduledExecutorService getScheduledExecutorService() {
+                return scheduler;
+            }
+        }) {
+            @Override
+            protected MockRouter createRouter() {
+                return new MockRouter(getConfiguration(), getProtocolFactory()) {
+                    @Override
+                    public StreamResponseMessage getStreamResponseMessage(StreamRequestMessage request) {
+                        sendingThreads.add(Thread.currentThread());
+                        return new StreamResponseMessage(UpnpResponse.Status.OK);
+                    }
+                };
+            }
+        };
+        upnpService.startup();
+
+        LocalService<?> service = registerService(upnpService);
+        String subscriptionId = subscribe(upnpService, service);
+        service.getManager().getPropertyChangeSupport().firePropertyChange("Status", false, true);
+
+        // The executor rejected the initial event and the retries, the events were never sent by the caller
+        assertTrue(sendingThreads.isEmpty());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (sendingThreads.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(-1, rejections.get());
+
+        List<StreamRequestMessage> sentMessages = upnpService.getRouter().getSentStreamRequestMessages();
+        assertEquals(2, sentMessages.size());
+        for (int i = 0; i < sentMessages.size(); i++) {
+            assertEquals(subscriptionId, sentMessages.get(i).getHeaders()
+                    .getFirstHeader(UpnpHeader.Type.SID, SubscriptionIdHeader.class).getValue());
+            assertEquals(i, sentMessages.get(i).getHeaders()
+                    .getFirstHeader(UpnpHeader.Type.SEQ, EventSequenceHeader.class).getValue().getValue());
+            assertNotSame(Thread.currentThread(), sendingThreads.get(i));
+        }
+
+        upnpService.shutdown();
+        executor.shutdown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void removeFailingSubscription() throws Exception {
+        // The mock router doesn't return any responses, each delivery fails
+        MockUpnpService upnpService = new MockUpnpService();
+        upnpService.startup();
+
+        LocalService<?> service = registerService(upnpService);
+        String subscriptionId = subscribe(upnpService, service);
+        LocalGENASubscription subscription = upnpService.getRegistry().getLocalSubscription(subscriptionId);
+        assertNotNull(subscription);
+
+        for (int i = 0; i < 5; i++) {
+            service.getManager().getPropertyChangeSupport().firePropertyChange("Status", false, true);
+        }
+
+        // Initial event and two changes, later changes are not sent after the subscription was removed
+        int maxFailures = upnpService.getConfiguration().getMaxEventDeliveryFailures();
+        assertEquals(maxFailures, upnpService.getRouter().getSentStreamRequestMessages().size());
+        assertNull(upnpService.getRegistry().getLocalSubscription(subscriptionId));
+
+        upnpService.shutdown();
+    }
+
+    protected LocalService<?> registerService(MockUpnpService upnpService) throws Exception {
+        LocalDevice device = GenaSampleData.createTestDevice(GenaSampleData.LocalTestService.class);
+        upnpService.getRegistry().addDevice(device);
+        return SampleData.getFirstService(device);
+    }
+
+    protected String subscribe(MockUpnpService upnpService, LocalService<?> service) throws Exception {
+        Namespace ns = upnpService.getConfiguration().getNamespace();
+        URL callbackURL = URIUtil.createAbsoluteURL(SampleData.getLocalBaseURL(), ns.getEventCallbackPath(service));
+
+        StreamRequestMessage subscribeRequestMessage = new StreamRequestMessage(UpnpRequest.Method.SUBSCRIBE,
+                ns.getEventSubscriptionPath(service));
+        subscribeRequestMessage.getHeaders().add(UpnpHeader.Type.CALLBACK, new CallbackHeader(callbackURL));
+        subscribeRequestMessage.getHeaders().add(UpnpHeader.Type.NT, new NTEventHeader());
+
+        ReceivingSubscribe subscribeProt = new ReceivingSubscribe(upnpService, subscribeRequestMessage);
+        subscribeProt.run();
+        OutgoingSubscribeResponseMessage subscribeResponseMessage = subscribeProt.getOutputMessage();
+        subscribeProt.responseSent(subscribeResponseMessage);
+        return subscribeResponseMessage.getHeaders().getFirstHeader(UpnpHeader.Type.SID, SubscriptionIdHeader.class)
+                .getValue();
+    }
+}
@@ -19,6 +19,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.net.URI;
 import java.net.URL;
 import java.util.List;
 
@@ -27,12 +28,16 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
 import org.jupnp.data.SampleData;
 import org.jupnp.mock.MockUpnpService;
 import org.jupnp.mock.MockUpnpServiceConfiguration;
 import org.jupnp.model.gena.CancelReason;
+import org.jupnp.model.UnsupportedDataException;
 import org.jupnp.model.gena.LocalGENASubscription;
 import org.jupnp.model.message.StreamRequestMessage;
+import org.jupnp.model.message.UpnpRequest;
 import org.jupnp.model.message.gena.IncomingEventRequestMessage;
 import org.jupnp.model.message.gena.OutgoingEventRequestMessage;
 import org.jupnp.model.meta.LocalDevice;
@@ -41,7 +46,9 @@ import org.jupnp.model.meta.RemoteDevice;
 import org.jupnp.model.meta.RemoteService;
 import org.jupnp.model.state.StateVariableValue;
 import org.jupnp.transport.impl.GENAEventProcessorImpl;
+import org.jupnp.transport.impl.StreamingGENAEventProcessorImpl;
 import org.jupnp.transport.spi.GENAEventProcessor;
+import org.jupnp.util.io.IO;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -65,6 +72,59 @@ class EventXMLProcessingTest {
         writeReadRequest(upnpService);
     }
 
+    @Test
+    void writeReadRequestStreaming() throws Exception {
+        MockUpnpService upnpService = new MockUpnpService(new MockUpnpServiceConfiguration() {
+            @Override
+            public GENAEventProcessor getGenaEventProcessor() {
+                return new StreamingGENAEventProcessorImpl();
+            }
+        });
+        writeReadRequest(upnpService);
+    }
+
+    static GENAEventProcessor[][] getProcessors() {
+        return new GENAEventProcessor[][] { { new GENAEventProcessorImpl() },
+                { new StreamingGENAEventProcessorImpl() } };
+    }
+
+    @ParameterizedTest
+    @MethodSource("getProcessors")
+    void readInvalidRequest(GENAEventProcessor processor) throws Exception {
+        RemoteService remoteService = SampleData.getFirstService(SampleData.createRemoteDevice());
+
+        for (String invalidXMLFile : List.of("/invalidxml/event/invalid_root_element.xml",
+                "/invalidxml/event/truncated.xml")) {
+            StreamRequestMessage message = new StreamRequestMessage(UpnpRequest.Method.NOTIFY,
+                    URI.create("http://some.uri"));
+            message.setBody(IO.readLines(getClass().getResourceAsStream(invalidXMLFile)));
+            IncomingEventRequestMessage request = new IncomingEventRequestMessage(message, remoteService);
+
+            assertThrows(UnsupportedDataException.class, () -> processor.readBody(request));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getProcessors")
+    void readUnknownStateVariables(GENAEventProcessor processor) throws Exception {
+        RemoteService remoteService = SampleData.getFirstService(SampleData.createRemoteDevice());
+
+        StreamRequestMessage message = new StreamRequestMessage(UpnpRequest.Method.NOTIFY,
+                URI.create("http://some.uri"));
+        message.setBody("<?xml version=\"1.0\"?>" + "<e:propertyset xmlns:e=\"urn:schemas-upnp-org:event-1-0\">"
+                + "<e:property><Unknown>1</Unknown></e:property>" + "<e:other><Status>1</Status></e:other>"
+                + "<e:property><Status>1<![CDATA[0]]><x>0</x></Status><Target>1</Target></e:property>"
+                + "</e:propertyset>");
+        IncomingEventRequestMessage request = new IncomingEventRequestMessage(message, remoteService);
+
+        processor.readBody(request);
+
+        assertEquals(2, request.getStateVariableValues().size());
+        assertEquals("Status", request.getStateVariableValues().get(0).getStateVariable().getName());
+        assertEquals(true, request.getStateVariableValues().get(0).getValue());
+        assertEquals("Target", request.getStateVariableValues().get(1).getStateVariable().getName());
+    }
+
     void writeReadRequest(MockUpnpService upnpService) throws Exception {
 
         LocalDevice localDevice = GenaSampleData.createTestDevice(GenaSampleData.LocalTestService.class);
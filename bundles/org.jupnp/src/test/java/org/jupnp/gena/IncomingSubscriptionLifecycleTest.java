@@ -141,4 +141,51 @@ class IncomingSubscriptionLifecycleTest {
         // The subscription should be removed from the registry!
         assertNull(upnpService.getRegistry().getLocalSubscription(subscriptionId));
     }
+
+    @Test
+    void eventBodySharedBySubscribers() throws Exception {
+        MockUpnpService upnpService = new MockUpnpService();
+        upnpService.startup();
+
+        LocalDevice device = GenaSampleData.createTestDevice(GenaSampleData.LocalTestService.class);
+        upnpService.getRegistry().addDevice(device);
+
+        Namespace ns = upnpService.getConfiguration().getNamespace();
+        LocalService<?> service = SampleData.getFirstService(device);
+
+        String[] subscriptionIds = new String[2];
+        for (int i = 0; i < subscriptionIds.length; i++) {
+            URL callbackURL = URIUtil.createAbsoluteURL(SampleData.getLocalBaseURL(), "/callback" + i);
+            StreamRequestMessage subscribeRequestMessage = new StreamRequestMessage(UpnpRequest.Method.SUBSCRIBE,
+                    ns.getEventSubscriptionPath(service));
+            subscribeRequestMessage.getHeaders().add(UpnpHeader.Type.CALLBACK, new CallbackHeader(callbackURL));
+            subscribeRequestMessage.getHeaders().add(UpnpHeader.Type.NT, new NTEventHeader());
+
+            ReceivingSubscribe subscribeProt = new ReceivingSubscribe(upnpService, subscribeRequestMessage);
+            subscribeProt.run();
+            OutgoingSubscribeResponseMessage subscribeResponseMessage = subscribeProt.getOutputMessage();
+            subscriptionIds[i] = subscribeResponseMessage.getHeaders()
+                    .getFirstHeader(UpnpHeader.Type.SID, SubscriptionIdHeader.class).getValue();
+            subscribeProt.responseSent(subscribeResponseMessage);
+        }
+
+        service.getManager().getPropertyChangeSupport().firePropertyChange("Status", false, true);
+
+        List<StreamRequestMessage> sentMessages = upnpService.getRouter().getSentStreamRequestMessages();
+        assertEquals(4, sentMessages.size());
+
+        // The state change is written once, the subscription headers differ
+        StreamRequestMessage first = sentMessages.get(2);
+        StreamRequestMessage second = sentMessages.get(3);
+        assertSame(first.getBody(), second.getBody());
+        assertTrue(first.getBodyString().contains("<Status>"));
+        assertNotEquals(first.getHeaders().getFirstHeader(UpnpHeader.Type.SID, SubscriptionIdHeader.class).getValue(),
+                second.getHeaders().getFirstHeader(UpnpHeader.Type.SID, SubscriptionIdHeader.class).getValue());
+        for (StreamRequestMessage sentMessage : sentMessages.subList(2, 4)) {
+            assertEquals(1L, sentMessage.getHeaders()
+                    .getFirstHeader(UpnpHeader.Type.SEQ, EventSequenceHeader.class).getValue().getValue());
+        }
+
+        upnpService.shutdown();
+    }
 }
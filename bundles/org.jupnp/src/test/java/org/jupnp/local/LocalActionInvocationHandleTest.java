@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.local;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+import org.jupnp.binding.annotations.UpnpAction;
+import org.jupnp.binding.annotations.UpnpInputArgument;
+import org.jupnp.binding.annotations.UpnpOutputArgument;
+import org.jupnp.binding.annotations.UpnpService;
+import org.jupnp.binding.annotations.UpnpServiceId;
+import org.jupnp.binding.annotations.UpnpServiceType;
+import org.jupnp.binding.annotations.UpnpStateVariable;
+import org.jupnp.data.SampleData;
+import org.jupnp.model.action.ActionException;
+import org.jupnp.model.action.ActionInvocation;
+import org.jupnp.model.meta.DeviceDetails;
+import org.jupnp.model.meta.LocalDevice;
+import org.jupnp.model.meta.LocalService;
+import org.jupnp.model.state.StateVariableValue;
+import org.jupnp.model.types.ErrorCode;
+import org.jupnp.model.types.UDADeviceType;
+import org.jupnp.util.Reflections;
+
+/**
+ * Invokes actions and reads state of non-public members of a service class through the method handles created at bind time.
+ */
+class LocalActionInvocationHandleTest {
+
+    @Test
+    void invokeActions() throws Exception {
+        LocalDevice device = new LocalDevice(SampleData.createLocalDeviceIdentity(), new UDADeviceType("SomeDevice", 1),
+                new DeviceDetails("Some Device"), SampleData.readService(LocalTestServiceOne.class));
+        LocalService<LocalTestServiceOne> svc = SampleData.getFirstService(device);
+
+        ActionInvocation invocation = new ActionInvocation(svc.getAction("SetTarget"));
+        invocation.setInput("NewTargetValue", "1");
+        svc.getExecutor(invocation.getAction()).execute(invocation);
+        assertNull(invocation.getFailure());
+
+        // Output argument read from the private field
+        invocation = new ActionInvocation(svc.getAction("GetTarget"));
+        svc.getExecutor(invocation.getAction()).execute(invocation);
+        assertNull(invocation.getFailure());
+        assertEquals(true, invocation.getOutput("RetTargetValue").getValue());
+
+        // Output argument returned by a getter
+        invocation = new ActionInvocation(svc.getAction("GetStatus"));
+        svc.getExecutor(invocation.getAction()).execute(invocation);
+        assertNull(invocation.getFailure());
+        assertEquals(true, invocation.getOutput("ResultStatus").getValue());
+
+        // Exceptions thrown by the action method are not wrapped
+        invocation = new ActionInvocation(svc.getAction("Fail"));
+        svc.getExecutor(invocation.getAction()).execute(invocation);
+        assertEquals(ErrorCode.ACTION_FAILED.getCode(), invocation.getFailure().getErrorCode());
+        assertTrue(invocation.getFailure().getMessage().endsWith("Always fails."));
+
+        // Errors thrown by the action method are returned as a failure as well
+        invocation = new ActionInvocation(svc.getAction("Crash"));
+        svc.getExecutor(invocation.getAction()).execute(invocation);
+        assertEquals(ErrorCode.ACTION_FAILED.getCode(), invocation.getFailure().getErrorCode());
+        assertTrue(invocation.getFailure().getMessage().endsWith("Always crashes."));
+
+        // Evented state is read through the accessors as well
+        StateVariableValue status = svc.getManager().getCurrentState().iterator().next();
+        assertEquals("Status", status.getStateVariable().getName());
+        assertEquals(true, status.getValue());
+    }
+
+    @Test
+    void createHandles() throws Exception {
+        Method method = LocalTestServiceOne.class.getDeclaredMethod("getStatus");
+        Field field = LocalTestServiceOne.class.getDeclaredField("target");
+
+        LocalTestServiceOne service = new LocalTestServiceOne();
+        service.setTarget(true);
+        assertEquals(true, Reflections.invoke(Reflections.createInvoker(method), service));
+        assertEquals(true, Reflections.get(Reflections.createGetter(field), service));
+    }
+
+    @Test
+    void invalidArguments() throws Exception {
+        Method method = LocalTestServiceOne.class.getDeclaredMethod("setTarget", boolean.class);
+        MethodHandle invoker = Reflections.createInvoker(method);
+        LocalTestServiceOne service = new LocalTestServiceOne();
+
+        Reflections.invoke(invoker, service, Boolean.TRUE);
+        assertTrue(service.getStatus());
+
+        // Same exceptions as core reflection
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Reflections.invoke(invoker, service, "true"));
+        assertTrue(e.getMessage().startsWith("Could not invoke method by reflection"));
+        assertThrows(IllegalArgumentException.class, () -> Reflections.invoke(invoker, service, (Object) null));
+        assertThrows(IllegalArgumentException.class, () -> Reflections.invoke(invoker, service));
+        assertThrows(IllegalArgumentException.class, () -> Reflections.invoke(invoker, "service", true));
+
+        Field field = LocalTestServiceOne.class.getDeclaredField("target");
+        e = assertThrows(IllegalArgumentException.class,
+                () -> Reflections.get(Reflections.createGetter(field), "service"));
+        assertTrue(e.getMessage().startsWith("Could not get field value by reflection"));
+
+        // Widening conversions are applied as well
+        Method widening = LocalTestServiceOne.class.getDeclaredMethod("setVolume", long.class);
+        Reflections.invoke(Reflections.createInvoker(widening), service, 7);
+        assertEquals(7L, service.volume);
+
+        // Errors thrown by the method are wrapped
+        Method crash = LocalTestServiceOne.class.getDeclaredMethod("crash");
+        InvocationTargetException ite = assertThrows(InvocationTargetException.class,
+                () -> Reflections.invoke(Reflections.createInvoker(crash), service));
+        assertInstanceOf(LinkageError.class, ite.getCause());
+    }
+
+    @UpnpService(serviceId = @UpnpServiceId("SwitchPower"), serviceType = @UpnpServiceType(value = "SwitchPower", version = 1))
+    public static class LocalTestServiceOne {
+
+        @UpnpStateVariable(sendEvents = false)
+        private boolean target = false;
+
+        @UpnpStateVariable
+        private boolean status = false;
+
+        @UpnpAction
+        public void setTarget(@UpnpInputArgument(name = "NewTargetValue") boolean newTargetValue) {
+            target = newTargetValue;
+            status = newTargetValue;
+        }
+
+        @UpnpAction(out = @UpnpOutputArgument(name = "RetTargetValue", stateVariable = "Target"))
+        public void getTarget() {
+        }
+
+        @UpnpAction(out = @UpnpOutputArgument(name = "ResultStatus"))
+        boolean getStatus() {
+            return status;
+        }
+
+        @UpnpAction
+        public void fail() throws ActionException {
+            throw new ActionException(ErrorCode.ACTION_FAILED, "Always fails");
+        }
+
+        @UpnpAction
+        public void crash() {
+            throw new LinkageError("Always crashes");
+        }
+
+        private long volume;
+
+        void setVolume(long volume) {
+            this.volume = volume;
+        }
+    }
+}
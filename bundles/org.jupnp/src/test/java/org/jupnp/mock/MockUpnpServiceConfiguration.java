@@ -22,9 +22,11 @@ import java.util.List;
 import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.jupnp.DefaultUpnpServiceConfiguration;
+import org.jupnp.PrioritizedExecutor;
 import org.jupnp.transport.impl.NetworkAddressFactoryImpl;
 import org.jupnp.transport.spi.NetworkAddressFactory;
 
@@ -89,6 +91,23 @@ public class MockUpnpServiceConfiguration extends DefaultUpnpServiceConfiguratio
         return getDefaultExecutorService();
     }
 
+    @Override
+    public ScheduledExecutorService getScheduledExecutorService() {
+        if (isMultiThreaded()) {
+            return super.getScheduledExecutorService();
+        }
+        // Delayed protocol steps wait on the calling thread
+        return null;
+    }
+
+    @Override
+    protected ExecutorService getExecutorService(PrioritizedExecutor.Lane lane) {
+        if (isMultiThreaded()) {
+            return super.getExecutorService(lane);
+        }
+        return getDefaultExecutorService();
+    }
+
     @Override
     protected ExecutorService getDefaultExecutorService() {
         if (isMultiThreaded()) {
@@ -28,6 +28,7 @@ import org.jupnp.data.SampleDeviceRoot;
 import org.jupnp.model.message.OutgoingDatagramMessage;
 import org.jupnp.model.message.UpnpMessage;
 import org.jupnp.model.message.UpnpRequest;
+import org.jupnp.model.message.UpnpResponse;
 import org.jupnp.model.message.discovery.OutgoingNotificationRequestRootDevice;
 import org.jupnp.model.message.header.EXTHeader;
 import org.jupnp.model.message.header.HostHeader;
@@ -124,4 +125,53 @@ class DatagramParsingTest {
                 readMsg.getHeaders().getFirstHeader(UpnpHeader.Type.USN).getString());
         assertNotNull(readMsg.getHeaders().getFirstHeader(UpnpHeader.Type.EXT));
     }
+
+    @Test
+    void readReusedBuffer() throws Exception {
+        String first = "NOTIFY * HTTP/1.1\r\n" + "HOST: 239.255.255.250:1900\r\n" + "NT: upnp:rootdevice\r\n"
+                + "NTS: ssdp:byebye\r\n" + "USN: " + SampleDeviceRoot.getRootUDN() + "::upnp:rootdevice\r\n"
+                + "X-STALE: this must not be read\r\n\r\n";
+        String second = "HTTP/1.1 200 OK\r\n" + "CACHE-CONTROL: max-age=1800\r\n" + "EXT:\r\n"
+                + "ST: upnp:rootdevice\r\n" + "USN: " + SampleDeviceRoot.getRootUDN() + "::upnp:rootdevice\r\n";
+
+        byte[] buf = new byte[1024];
+        System.arraycopy(first.getBytes(), 0, buf, 0, first.length());
+        int offset = 16;
+        System.arraycopy(second.getBytes(), 0, buf, offset, second.length());
+
+        DatagramPacket packet = new DatagramPacket(buf, offset, second.length(),
+                new InetSocketAddress("123.123.123.123", 1234));
+
+        DatagramProcessor processor = new DefaultUpnpServiceConfiguration().getDatagramProcessor();
+
+        UpnpMessage<UpnpResponse> msg = processor.read(InetAddress.getByName("127.0.0.1"), packet);
+
+        assertEquals(200, msg.getOperation().getStatusCode());
+        assertEquals("OK", msg.getOperation().getStatusMessage());
+        assertEquals(1, msg.getOperation().getHttpMinorVersion());
+        assertEquals("1800",
+                msg.getHeaders().getFirstHeader(UpnpHeader.Type.MAX_AGE, MaxAgeHeader.class).getValue().toString());
+        assertEquals(SampleDeviceRoot.getRootUDN().getIdentifierString(), msg.getHeaders()
+                .getFirstHeader(UpnpHeader.Type.USN, USNRootDeviceHeader.class).getValue().getIdentifierString());
+        assertNotNull(msg.getHeaders().getFirstHeader(UpnpHeader.Type.EXT));
+        assertNull(msg.getHeaders().get("X-STALE"));
+        assertNull(msg.getHeaders().getFirstHeader(UpnpHeader.Type.NTS));
+
+        // Overwrite the buffer, the message must not see the new data
+        System.arraycopy(first.getBytes(), 0, buf, 0, first.length());
+        assertEquals("OK", msg.getOperation().getStatusMessage());
+        assertEquals("upnp:rootdevice", msg.getHeaders().getFirstHeader(UpnpHeader.Type.ST).getString());
+    }
+
+    @Test
+    void readInvalidStartLine() throws Exception {
+        byte[] data = "NOTIFY\r\nHOST: 239.255.255.250:1900\r\n\r\n".getBytes();
+        DatagramPacket packet = new DatagramPacket(data, data.length, new InetSocketAddress("123.123.123.123", 1234));
+
+        DatagramProcessor processor = new DefaultUpnpServiceConfiguration().getDatagramProcessor();
+
+        UnsupportedDataException e = assertThrows(UnsupportedDataException.class,
+                () -> processor.read(InetAddress.getByName("127.0.0.1"), packet));
+        assertArrayEquals(data, (byte[]) e.getData());
+    }
 }
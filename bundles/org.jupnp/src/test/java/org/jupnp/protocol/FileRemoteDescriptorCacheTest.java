@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.protocol;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jupnp.model.types.UDN;
+
+/**
+ * Verifies that the descriptor files are bounded by age and number.
+ */
+class FileRemoteDescriptorCacheTest {
+
+    static final RemoteDescriptorCache.Descriptor DESCRIPTOR = new RemoteDescriptorCache.Descriptor("<root/>",
+            "\"1\"", null);
+
+    @Test
+    void pruneOldDescriptorsOnStartup(@TempDir Path directory) throws Exception {
+        FileRemoteDescriptorCache cache = new FileRemoteDescriptorCache(directory);
+        UDN oldUDN = UDN.uniqueSystemIdentifier("old");
+        UDN recentUDN = UDN.uniqueSystemIdentifier("recent");
+        URL url = new URL("http://127.0.0.1:8080/description.xml");
+        cache.put(oldUDN, url, DESCRIPTOR);
+        cache.put(recentUDN, url, DESCRIPTOR);
+        setAge(cache, oldUDN, url, FileRemoteDescriptorCache.DEFAULT_MAX_AGE_SECONDS + 60);
+
+        cache = new FileRemoteDescriptorCache(directory);
+        assertNull(cache.get(oldUDN, url));
+        assertEquals("<root/>", cache.get(recentUDN, url).getXml());
+        assertEquals(1, countFiles(directory));
+    }
+
+    @Test
+    void evictLeastRecentlyUsedDescriptors(@TempDir Path directory) throws Exception {
+        FileRemoteDescriptorCache cache = new FileRemoteDescriptorCache(directory, 2, 3600);
+        UDN first = UDN.uniqueSystemIdentifier("first");
+        UDN second = UDN.uniqueSystemIdentifier("second");
+        UDN third = UDN.uniqueSystemIdentifier("third");
+        URL url = new URL("http://127.0.0.1:8080/description.xml");
+        cache.put(first, url, DESCRIPTOR);
+        cache.put(second, url, DESCRIPTOR);
+        setAge(cache, first, url, 20);
+        setAge(cache, second, url, 10);
+
+        // Reading the first descriptor makes the second one the least recently used
+        assertNotNull(cache.get(first, url));
+        cache.put(third, url, DESCRIPTOR);
+
+        assertEquals(2, countFiles(directory));
+        assertNotNull(cache.get(first, url));
+        assertNull(cache.get(second, url));
+        assertNotNull(cache.get(third, url));
+    }
+
+    void setAge(FileRemoteDescriptorCache cache, UDN udn, URL url, long ageSeconds) throws Exception {
+        Path file = cache.getFile(cache.getKey(udn, url));
+        Files.setLastModifiedTime(file,
+                FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(ageSeconds)));
+    }
+
+    long countFiles(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.protocol;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jupnp.UpnpServiceConfiguration;
+import org.jupnp.data.SampleData;
+import org.jupnp.mock.MockRouter;
+import org.jupnp.mock.MockUpnpService;
+import org.jupnp.mock.MockUpnpServiceConfiguration;
+import org.jupnp.model.message.StreamRequestMessage;
+import org.jupnp.model.message.StreamResponseMessage;
+import org.jupnp.model.message.UpnpResponse;
+import org.jupnp.model.message.header.ContentTypeHeader;
+import org.jupnp.model.meta.RemoteDevice;
+import org.jupnp.model.meta.RemoteService;
+import org.jupnp.model.profile.RemoteClientInfo;
+import org.jupnp.protocol.sync.ReceivingRetrieval;
+
+class RetrieveRemoteDescriptorsTest {
+
+    @Test
+    void describeServicesConcurrently() throws Exception {
+        final RemoteDevice discoveredDevice = new RemoteDevice(SampleData.createRemoteDeviceIdentity());
+        final RemoteDevice hydratedDevice = SampleData.createRemoteDevice();
+
+        AtomicInteger serviceRequests = new AtomicInteger();
+        AtomicInteger activeServiceRequests = new AtomicInteger();
+        AtomicInteger maxActiveServiceRequests = new AtomicInteger();
+        CountDownLatch concurrentServiceRequests = new CountDownLatch(2);
+
+        MockUpnpService upnpService = new MockUpnpService(new MockUpnpServiceConfiguration(false, true)) {
+            @Override
+            protected MockRouter createRouter() {
+                return new MockRouter(getConfiguration(), getProtocolFactory()) {
+                    @Override
+                    public StreamResponseMessage send(StreamRequestMessage msg) {
+                        try {
+                            String url = msg.getUri().toString();
+                            if (url.equals(discoveredDevice.getIdentity().getDescriptorURL().toString())) {
+                                return new StreamResponseMessage(
+                                        getConfiguration().getDeviceDescriptorBinderUDA10().generate(hydratedDevice,
+                                                new RemoteClientInfo(), getConfiguration().getNamespace()),
+                                        ContentTypeHeader.DEFAULT_CONTENT_TYPE_UTF8);
+                            }
+                            for (RemoteService service : hydratedDevice.findServices()) {
+                                if (url.equals(
+                                        service.getDevice().normalizeURI(service.getDescriptorURI()).toString())) {
+                                    serviceRequests.incrementAndGet();
+                                    maxActiveServiceRequests.accumulateAndGet(
+                                            activeServiceRequests.incrementAndGet(), Math::max);
+                                    // Wait for a second request to the same host
+                                    concurrentServiceRequests.countDown();
+                                    concurrentServiceRequests.await(5, TimeUnit.SECONDS);
+                                    activeServiceRequests.decrementAndGet();
+                                    return new StreamResponseMessage(
+                                            getConfiguration().getServiceDescriptorBinderUDA10().generate(service),
+                                            ContentTypeHeader.DEFAULT_CONTENT_TYPE_UTF8);
+                                }
+                            }
+                            return null;
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                };
+            }
+        };
+        upnpService.startup();
+
+        new RetrieveRemoteDescriptors(upnpService, discoveredDevice).run();
+
+        assertEquals(3, serviceRequests.get());
+        assertEquals(2, maxActiveServiceRequests.get());
+
+        RemoteDevice registeredDevice = upnpService.getRegistry().getRemoteDevice(discoveredDevice.getIdentity().getUdn(),
+                true);
+        assertNotNull(registeredDevice);
+        assertEquals(3, registeredDevice.findServices().length);
+
+        upnpService.shutdown();
+    }
+
+    @Test
+    void describeFromCache(@TempDir Path directory) throws Exception {
+        final RemoteDevice discoveredDevice = new RemoteDevice(SampleData.createRemoteDeviceIdentity());
+        final RemoteDevice hydratedDevice = SampleData.createRemoteDevice();
+        RemoteDescriptorCache cache = new FileRemoteDescriptorCache(directory);
+
+        AtomicInteger deviceRequests = new AtomicInteger();
+        AtomicInteger notModifiedResponses = new AtomicInteger();
+        AtomicInteger serviceRequests = new AtomicInteger();
+
+        // Cold start retrieves all descriptors and stores them in the cache
+        describe(discoveredDevice, hydratedDevice, cache, deviceRequests, notModifiedResponses, serviceRequests);
+        assertEquals(1, deviceRequests.get());
+        assertEquals(0, notModifiedResponses.get());
+        assertEquals(3, serviceRequests.get());
+
+        RemoteDescriptorCache.Descriptor cached = cache.get(discoveredDevice.getIdentity().getUdn(),
+                discoveredDevice.getIdentity().getDescriptorURL());
+        assertNotNull(cached);
+        assertEquals("\"device\"", cached.getEntityTag());
+
+        // Warm restart revalidates the device descriptor only
+        describe(discoveredDevice, hydratedDevice, cache, deviceRequests, notModifiedResponses, serviceRequests);
+        assertEquals(2, deviceRequests.get());
+        assertEquals(1, notModifiedResponses.get());
+        assertEquals(3, serviceRequests.get());
+
+        // A broken cached descriptor is removed, the device is described again on the next retrieval
+        cache.put(discoveredDevice.getIdentity().getUdn(), discoveredDevice.getIdentity().getDescriptorURL(),
+                new RemoteDescriptorCache.Descriptor("<root/>", "\"device\"", null));
+        assertNull(describe(discoveredDevice, hydratedDevice, cache, deviceRequests, notModifiedResponses,
+                serviceRequests));
+        assertNull(cache.get(discoveredDevice.getIdentity().getUdn(),
+                discoveredDevice.getIdentity().getDescriptorURL()));
+
+        // The cached service descriptors are revalidated
+        assertNotNull(describe(discoveredDevice, hydratedDevice, cache, deviceRequests, notModifiedResponses,
+                serviceRequests));
+        assertEquals(6, serviceRequests.get());
+        assertEquals(5, notModifiedResponses.get());
+    }
+
+    private RemoteDevice describe(RemoteDevice discoveredDevice, RemoteDevice hydratedDevice,
+            RemoteDescriptorCache cache, AtomicInteger deviceRequests, AtomicInteger notModifiedResponses,
+            AtomicInteger serviceRequests) {
+        MockUpnpService upnpService = new MockUpnpService(new MockUpnpServiceConfiguration(false, true) {
+            @Override
+            public RemoteDescriptorCache getRemoteDescriptorCache() {
+                return cache;
+            }
+        }) {
+            @Override
+            protected MockRouter createRouter() {
+                return new MockRouter(getConfiguration(), getProtocolFactory()) {
+                    @Override
+                    public StreamResponseMessage send(StreamRequestMessage msg) {
+                        try {
+                            UpnpServiceConfiguration config = getConfiguration();
+                            String url = msg.getUri().toString();
+                            String entityTag;
+                            String body;
+                            if (url.equals(discoveredDevice.getIdentity().getDescriptorURL().toString())) {
+                                deviceRequests.incrementAndGet();
+                                entityTag = "\"device\"";
+                                body = config.getDeviceDescriptorBinderUDA10().generate(hydratedDevice,
+                                        new RemoteClientInfo(), config.getNamespace());
+                            } else {
+                                serviceRequests.incrementAndGet();
+                                entityTag = "\"" + url.hashCode() + "\"";
+                                body = null;
+                                for (RemoteService service : hydratedDevice.findServices()) {
+                                    if (url.equals(
+                                            service.getDevice().normalizeURI(service.getDescriptorURI()).toString())) {
+                                        body = config.getServiceDescriptorBinderUDA10().generate(service);
+                                    }
+                                }
+                                if (body == null) {
+                                    return null;
+                                }
+                            }
+                            if (entityTag.equals(msg.getHeaders().getFirstHeader(
+                                    ReceivingRetrieval.HEADER_IF_NONE_MATCH))) {
+                                notModifiedResponses.incrementAndGet();
+                                return new StreamResponseMessage(UpnpResponse.Status.NOT_MODIFIED);
+                            }
+                            StreamResponseMessage response = new StreamResponseMessage(body,
+                                    ContentTypeHeader.DEFAULT_CONTENT_TYPE_UTF8);
+                            response.getHeaders().add(ReceivingRetrieval.HEADER_ETAG, entityTag);
+                            return response;
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                };
+            }
+        };
+        upnpService.startup();
+        new RetrieveRemoteDescriptors(upnpService, discoveredDevice).run();
+        RemoteDevice registeredDevice = upnpService.getRegistry()
+                .getRemoteDevice(discoveredDevice.getIdentity().getUdn(), true);
+        if (registeredDevice != null) {
+            assertEquals(3, registeredDevice.findServices().length);
+        }
+        upnpService.shutdown();
+        return registeredDevice;
+    }
+}
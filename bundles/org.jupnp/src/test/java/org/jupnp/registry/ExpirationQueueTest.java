@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.jupnp.model.ExpirationDetails;
+
+class ExpirationQueueTest {
+
+    @Test
+    void pollDueKeysInOrder() {
+        ExpirationQueue<String> queue = new ExpirationQueue<>(false);
+        queue.schedule("b", createExpirationDetails(1000, 20));
+        queue.schedule("a", createExpirationDetails(1000, 10));
+        queue.schedule("c", createExpirationDetails(1000, 30));
+
+        assertEquals(3, queue.size());
+        assertTrue(queue.poll(1010).isEmpty());
+        assertEquals(List.of("a", "b"), queue.poll(1021));
+        assertEquals(1, queue.size());
+        assertEquals(List.of("c"), queue.poll(2000));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void halfTime() {
+        ExpirationQueue<String> queue = new ExpirationQueue<>(true);
+        ExpirationDetails expirationDetails = createExpirationDetails(1000, 60);
+        queue.schedule("a", expirationDetails);
+
+        assertEquals(1031, expirationDetails.getExpirationTimestampSeconds(true));
+        assertTrue(queue.poll(1030).isEmpty());
+        assertEquals(List.of("a"), queue.poll(1031));
+    }
+
+    @Test
+    void rescheduleAndCancel() {
+        ExpirationQueue<String> queue = new ExpirationQueue<>(false);
+        queue.schedule("a", createExpirationDetails(1000, 10));
+        queue.schedule("b", createExpirationDetails(1000, 10));
+
+        // Refreshed, replaces the previous schedule
+        queue.schedule("a", createExpirationDetails(1100, 10));
+        queue.cancel("b");
+
+        assertEquals(1, queue.size());
+        assertTrue(queue.poll(1020).isEmpty());
+        assertEquals(List.of("a"), queue.poll(1111));
+    }
+
+    @Test
+    void unlimitedAgeIsNeverScheduled() {
+        ExpirationQueue<String> queue = new ExpirationQueue<>(false);
+        queue.schedule("a", createExpirationDetails(1000, 10));
+        queue.schedule("a", createExpirationDetails(1000, ExpirationDetails.UNLIMITED_AGE));
+
+        assertEquals(0, queue.size());
+        assertTrue(queue.poll(Long.MAX_VALUE - 1).isEmpty());
+    }
+
+    protected ExpirationDetails createExpirationDetails(long lastRefreshTimestampSeconds, int maxAgeSeconds) {
+        ExpirationDetails expirationDetails = new ExpirationDetails(maxAgeSeconds);
+        expirationDetails.setLastRefreshTimestampSeconds(lastRefreshTimestampSeconds);
+        return expirationDetails;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.Collection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jupnp.data.SampleData;
+import org.jupnp.mock.MockUpnpService;
+import org.jupnp.model.gena.CancelReason;
+import org.jupnp.model.gena.RemoteGENASubscription;
+import org.jupnp.model.message.UpnpResponse;
+import org.jupnp.model.meta.Device;
+import org.jupnp.model.meta.DeviceDetails;
+import org.jupnp.model.meta.RemoteDevice;
+import org.jupnp.model.meta.RemoteDeviceIdentity;
+import org.jupnp.model.meta.RemoteService;
+import org.jupnp.model.resource.Resource;
+import org.jupnp.model.types.UDADeviceType;
+import org.jupnp.model.types.UDAServiceId;
+import org.jupnp.model.types.UDAServiceType;
+import org.jupnp.model.types.UDN;
+import org.jupnp.model.UnsupportedDataException;
+
+/**
+ * Verifies the UDN, device type, service type, and subscription indexes of the registry.
+ */
+class RegistryIndexTest {
+
+    private MockUpnpService upnpService;
+
+    @BeforeEach
+    void setUp() {
+        upnpService = new MockUpnpService();
+        upnpService.startup();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upnpService.shutdown();
+    }
+
+    @Test
+    void lookupRootAndEmbeddedDevices() throws Exception {
+        RemoteDevice device = createRemoteDevice(1, 2);
+        upnpService.getRegistry().addDevice(device);
+
+        RemoteDevice embedded = device.getEmbeddedDevices()[0];
+
+        assertEquals(device, upnpService.getRegistry().getRemoteDevice(getRootUDN(1), true));
+        assertEquals(device, upnpService.getRegistry().getRemoteDevice(getRootUDN(1), false));
+        assertNull(upnpService.getRegistry().getRemoteDevice(getEmbeddedUDN(1), true));
+        assertEquals(embedded, upnpService.getRegistry().getRemoteDevice(getEmbeddedUDN(1), false));
+        assertEquals(embedded, upnpService.getRegistry().getDevice(getEmbeddedUDN(1), false));
+        assertNull(upnpService.getRegistry().getRemoteDevice(getRootUDN(2), false));
+
+        // Device types are compatible with lower versions only
+        assertEquals(1, upnpService.getRegistry().getDevices(new UDADeviceType("Renderer1", 1)).size());
+        assertEquals(1, upnpService.getRegistry().getDevices(new UDADeviceType("Renderer1", 2)).size());
+        assertEquals(0, upnpService.getRegistry().getDevices(new UDADeviceType("Renderer1", 3)).size());
+        assertEquals(0, upnpService.getRegistry().getDevices(new UDADeviceType("Renderer2", 1)).size());
+
+        Collection<Device> withEmbeddedType = upnpService.getRegistry().getDevices(new UDADeviceType("Embedded", 1));
+        assertEquals(1, withEmbeddedType.size());
+        assertEquals(embedded, withEmbeddedType.iterator().next());
+
+        // Service types are also compatible with lower versions only
+        Collection<Device> withService = upnpService.getRegistry().getDevices(new UDAServiceType("Transport1", 1));
+        assertEquals(1, withService.size());
+        assertEquals(device, withService.iterator().next());
+        assertEquals(0, upnpService.getRegistry().getDevices(new UDAServiceType("Transport1", 3)).size());
+
+        Collection<Device> withEmbeddedService = upnpService.getRegistry()
+                .getDevices(new UDAServiceType("Rendering", 1));
+        assertEquals(1, withEmbeddedService.size());
+        assertEquals(embedded, withEmbeddedService.iterator().next());
+    }
+
+    @Test
+    void removeDeviceClearsIndexes() throws Exception {
+        RemoteDevice first = createRemoteDevice(1, 1);
+        RemoteDevice second = createRemoteDevice(2, 1);
+        upnpService.getRegistry().addDevice(first);
+        upnpService.getRegistry().addDevice(second);
+
+        assertEquals(2, upnpService.getRegistry().getDevices(new UDADeviceType("Embedded", 1)).size());
+        assertEquals(2, upnpService.getRegistry().getDevices(new UDAServiceType("Rendering", 1)).size());
+
+        assertTrue(upnpService.getRegistry().removeDevice(first));
+
+        assertNull(upnpService.getRegistry().getRemoteDevice(getRootUDN(1), false));
+        assertNull(upnpService.getRegistry().getRemoteDevice(getEmbeddedUDN(1), false));
+        assertEquals(0, upnpService.getRegistry().getDevices(new UDADeviceType("Renderer1", 1)).size());
+        assertEquals(0, upnpService.getRegistry().getDevices(new UDAServiceType("Transport1", 1)).size());
+        assertEquals(1, upnpService.getRegistry().getDevices(new UDADeviceType("Embedded", 1)).size());
+        assertEquals(1, upnpService.getRegistry().getDevices(new UDAServiceType("Rendering", 1)).size());
+        assertEquals(second.getEmbeddedDevices()[0],
+                upnpService.getRegistry().getRemoteDevice(getEmbeddedUDN(2), false));
+
+        upnpService.getRegistry().removeAllRemoteDevices();
+        assertEquals(0, upnpService.getRegistry().getDevices(new UDADeviceType("Embedded", 1)).size());
+        assertEquals(0, upnpService.getRegistry().getDevices(new UDAServiceType("Rendering", 1)).size());
+    }
+
+    @Test
+    void updateKeepsIndexes() throws Exception {
+        RemoteDevice device = createRemoteDevice(1, 1);
+        upnpService.getRegistry().addDevice(device);
+
+        // An update through the embedded device refreshes the root device
+        assertTrue(upnpService.getRegistry()
+                .update(new RemoteDeviceIdentity(getEmbeddedUDN(1), device.getIdentity())));
+
+        assertEquals(1, upnpService.getRegistry().getRemoteDevices().size());
+        assertEquals(device, upnpService.getRegistry().getRemoteDevice(getRootUDN(1), true));
+        assertEquals(device.getEmbeddedDevices()[0],
+                upnpService.getRegistry().getRemoteDevice(getEmbeddedUDN(1), false));
+        assertEquals(1, upnpService.getRegistry().getDevices(new UDAServiceType("Rendering", 1)).size());
+    }
+
+    @Test
+    void lookupSubscriptions() throws Exception {
+        RemoteDevice device = createRemoteDevice(1, 1);
+        upnpService.getRegistry().addDevice(device);
+
+        TestSubscription subscription = new TestSubscription(device.getServices()[0]);
+        subscription.setSubscriptionId("uuid:sub-1");
+        upnpService.getRegistry().addRemoteSubscription(subscription);
+
+        assertEquals(subscription, upnpService.getRegistry().getRemoteSubscription("uuid:sub-1"));
+        assertNull(upnpService.getRegistry().getRemoteSubscription("uuid:sub-2"));
+
+        upnpService.getRegistry().removeRemoteSubscription(subscription);
+        assertNull(upnpService.getRegistry().getRemoteSubscription("uuid:sub-1"));
+    }
+
+    @Test
+    void routeResources() {
+        Registry registry = upnpService.getRegistry();
+        Resource<String> descriptor = new Resource<>(URI.create("/dev/uuid:1/desc"), "descriptor");
+        Resource<String> prefixed = new Resource<>(URI.create("/files"), "files") {
+            @Override
+            public boolean matches(URI pathQuery) {
+                return pathQuery.getPath().startsWith("/files/");
+            }
+        };
+        registry.addResource(descriptor);
+        registry.addResource(prefixed);
+
+        assertSame(descriptor, registry.getResource(URI.create("/dev/uuid:1/desc")));
+        assertSame(descriptor, registry.getResource(URI.create("/dev/uuid:1/desc/")));
+        assertNull(registry.getResource(URI.create("/dev/uuid:1/desc?foo=bar")));
+        assertSame(prefixed, registry.getResource(URI.create("/files/image.png")));
+        assertNull(registry.getResource(URI.create("/files")));
+
+        Resource<String> replacement = new Resource<>(URI.create("/dev/uuid:1/desc"), "replacement");
+        registry.addResource(replacement);
+        assertSame(replacement, registry.getResource(URI.create("/dev/uuid:1/desc")));
+
+        assertTrue(registry.removeResource(replacement));
+        assertTrue(registry.removeResource(prefixed));
+        assertNull(registry.getResource(URI.create("/dev/uuid:1/desc")));
+        assertNull(registry.getResource(URI.create("/files/image.png")));
+        assertTrue(registry.getResources().isEmpty());
+    }
+
+    @Test
+    void lookupCostIsIndependentOfRegistrySize() throws Exception {
+        double small = measureLookupNanos(10);
+        double large = measureLookupNanos(10000);
+
+        // A linear scan would be roughly 1000 times slower, allow for cache misses and timer noise
+        assertTrue(large < small * 20 + 1000,
+                "Lookup cost not flat, 10 devices: " + small + "ns, 10000 devices: " + large + "ns");
+    }
+
+    protected double measureLookupNanos(int deviceCount) throws Exception {
+        RegistryImpl registry = new RegistryImpl(upnpService) {
+            @Override
+            protected RegistryMaintainer createRegistryMaintainer() {
+                return null;
+            }
+        };
+        for (int i = 0; i < deviceCount; i++) {
+            RemoteDevice device = createRemoteDevice(i, 1);
+            // Directly index the device, the namespace resources aren't under test here
+            registry.remoteItems.putDeviceItem(new RegistryItem<>(device.getIdentity().getUdn(), device, 1800));
+        }
+        registry.remoteItems.publishSnapshot();
+        assertEquals(deviceCount, registry.getRemoteDevices().size());
+
+        int lookups = 20000;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                int index = i % deviceCount;
+                assertNotNull(registry.getRemoteDevice(getRootUDN(index), true));
+                assertNotNull(registry.getRemoteDevice(getEmbeddedUDN(index), false));
+                assertEquals(1, registry.getDevices(new UDADeviceType("Renderer" + index, 1)).size());
+                assertEquals(1, registry.getDevices(new UDAServiceType("Transport" + index, 1)).size());
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return (double) best / lookups;
+    }
+
+    protected static UDN getRootUDN(int index) {
+        return new UDN("uuid:root-" + index);
+    }
+
+    protected static UDN getEmbeddedUDN(int index) {
+        return new UDN("uuid:embedded-" + index);
+    }
+
+    protected static RemoteDevice createRemoteDevice(int index, int version) throws Exception {
+        RemoteDeviceIdentity identity = new RemoteDeviceIdentity(getRootUDN(index), 1800,
+                new URL("http://127.0.0.1:8080/" + index + "/desc.xml"), null, SampleData.getLocalBaseAddress());
+
+        RemoteService embeddedService = new RemoteService(new UDAServiceType("Rendering", version),
+                new UDAServiceId("Rendering"), URI.create("/" + index + "/embedded/scpd.xml"),
+                URI.create("/" + index + "/embedded/control"), URI.create("/" + index + "/embedded/event"));
+        RemoteDevice embedded = new RemoteDevice(new RemoteDeviceIdentity(getEmbeddedUDN(index), identity),
+                new UDADeviceType("Embedded", version), new DeviceDetails("Embedded " + index), embeddedService);
+
+        RemoteService service = new RemoteService(new UDAServiceType("Transport" + index, version),
+                new UDAServiceId("Transport"), URI.create("/" + index + "/scpd.xml"),
+                URI.create("/" + index + "/control"), URI.create("/" + index + "/event"));
+        return new RemoteDevice(identity, new UDADeviceType("Renderer" + index, version),
+                new DeviceDetails("Renderer " + index), service, embedded);
+    }
+
+    static class TestSubscription extends RemoteGENASubscription {
+
+        TestSubscription(RemoteService service) {
+            super(service, 1800);
+        }
+
+        @Override
+        public void invalidMessage(UnsupportedDataException e) {
+        }
+
+        @Override
+        public void failed(UpnpResponse responseStatus) {
+        }
+
+        @Override
+        public void ended(CancelReason reason, UpnpResponse responseStatus) {
+        }
+
+        @Override
+        public void eventsMissed(int numberOfMissedEvents) {
+        }
+
+        @Override
+        public void established() {
+        }
+
+        @Override
+        public void eventReceived() {
+        }
+    }
+}
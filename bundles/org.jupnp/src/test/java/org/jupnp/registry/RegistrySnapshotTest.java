@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jupnp.data.SampleData;
+import org.jupnp.data.SampleDeviceRoot;
+import org.jupnp.mock.MockUpnpService;
+import org.jupnp.model.gena.GENASubscription;
+import org.jupnp.model.meta.DeviceDetails;
+import org.jupnp.model.meta.RemoteDevice;
+import org.jupnp.model.meta.RemoteDeviceIdentity;
+import org.jupnp.model.meta.RemoteService;
+import org.jupnp.model.types.UDADeviceType;
+import org.jupnp.model.types.UDN;
+
+/**
+ * Verifies that registry reads use published snapshots and never wait for writers, and that snapshots share the
+ * indexes a modification didn't change.
+ */
+class RegistrySnapshotTest {
+
+    private MockUpnpService upnpService;
+    private RegistryImpl registry;
+
+    @BeforeEach
+    void setUp() {
+        upnpService = new MockUpnpService();
+        upnpService.startup();
+        registry = (RegistryImpl) upnpService.getRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upnpService.shutdown();
+    }
+
+    @Test
+    void readersDontBlockOnWriters() throws Exception {
+        RemoteDevice device = SampleData.createRemoteDevice();
+        registry.addDevice(device);
+
+        registry.remoteItemsLock.writeLock().lock();
+        registry.localItemsLock.writeLock().lock();
+        try {
+            CompletableFuture<RemoteDevice> read = CompletableFuture
+                    .supplyAsync(() -> registry.getRemoteDevice(SampleDeviceRoot.getRootUDN(), true));
+            assertEquals(device, read.get(5, TimeUnit.SECONDS));
+
+            CompletableFuture<Integer> count = CompletableFuture.supplyAsync(() -> registry.getDevices().size());
+            assertEquals(1, count.get(5, TimeUnit.SECONDS));
+        } finally {
+            registry.localItemsLock.writeLock().unlock();
+            registry.remoteItemsLock.writeLock().unlock();
+        }
+    }
+
+    @Test
+    void modificationsArePublished() throws Exception {
+        long version = registry.remoteItems.getSnapshot().getVersion();
+        RegistrySnapshot<RemoteDevice, ?> empty = registry.remoteItems.getSnapshot();
+
+        RemoteDevice device = SampleData.createRemoteDevice();
+        registry.addDevice(device);
+
+        RegistrySnapshot<RemoteDevice, ?> added = registry.remoteItems.getSnapshot();
+        assertTrue(added.getVersion() > version);
+        assertEquals(device, added.getDevice(SampleDeviceRoot.getRootUDN(), true));
+
+        // Published snapshots are never modified
+        assertNull(empty.getDevice(SampleDeviceRoot.getRootUDN(), true));
+
+        // Refreshing the expiration of a known device doesn't publish a new snapshot
+        registry.update(device.getIdentity());
+        assertSame(added, registry.remoteItems.getSnapshot());
+
+        registry.removeDevice(device);
+        assertNull(registry.getRemoteDevice(SampleDeviceRoot.getRootUDN(), false));
+        assertEquals(device, added.getDevice(SampleDeviceRoot.getRootUDN(), true));
+    }
+
+    @Test
+    void unchangedIndexesAreShared() throws Exception {
+        RegistrySnapshot<RemoteDevice, GENASubscription> index = new RegistrySnapshot<>();
+        RemoteDevice device = SampleData.createRemoteDevice();
+        index.addDevice(device);
+        RegistrySnapshot<RemoteDevice, GENASubscription> withDevice = index.copy(1);
+
+        // A subscription change only copies the subscriptions
+        GENASubscription subscription = new GENASubscription(SampleData.getFirstService(device)) {
+            @Override
+            public void established() {
+            }
+
+            @Override
+            public void eventReceived() {
+            }
+        };
+        subscription.setSubscriptionId("uuid:subscription");
+        index.addSubscription(subscription);
+        RegistrySnapshot<RemoteDevice, GENASubscription> withSubscription = index.copy(2);
+        assertSame(withDevice.rootDevices, withSubscription.rootDevices);
+        assertSame(withDevice.devices, withSubscription.devices);
+        assertSame(withDevice.devicesByDeviceType, withSubscription.devicesByDeviceType);
+        assertSame(withDevice.devicesByServiceType, withSubscription.devicesByServiceType);
+        assertNotSame(withDevice.subscriptions, withSubscription.subscriptions);
+        assertNull(withDevice.getSubscription("uuid:subscription"));
+        assertEquals(subscription, withSubscription.getSubscription("uuid:subscription"));
+
+        // Removing an unknown subscription doesn't copy anything
+        index.removeSubscription("uuid:unknown");
+        assertSame(withSubscription.subscriptions, index.copy(3).subscriptions);
+
+        // A device without services only copies the device sets of its own type
+        RemoteDeviceIdentity identity = new RemoteDeviceIdentity(new UDN("other"), 1800,
+                SampleDeviceRoot.getDeviceDescriptorURL(), null, SampleData.getLocalBaseAddress());
+        RemoteDevice other = new RemoteDevice(identity, new UDADeviceType("Other", 1), new DeviceDetails("Other"),
+                new RemoteService[0]);
+        index.addDevice(other);
+        RegistrySnapshot<RemoteDevice, GENASubscription> withOther = index.copy(4);
+        assertNotSame(withSubscription.devices, withOther.devices);
+        assertNotSame(withSubscription.devicesByDeviceType, withOther.devicesByDeviceType);
+        assertSame(withSubscription.devicesByServiceType, withOther.devicesByServiceType);
+        assertSame(withSubscription.subscriptions, withOther.subscriptions);
+        String rootType = device.getType().getNamespace() + ":" + device.getType().getType();
+        assertSame(withSubscription.devicesByDeviceType.get(rootType), withOther.devicesByDeviceType.get(rootType));
+        assertEquals(2, withOther.getDevices().size());
+        assertEquals(1, withSubscription.getDevices().size());
+
+        // Removing a device leaves the published copies intact
+        index.removeDevice(device);
+        RegistrySnapshot<RemoteDevice, GENASubscription> removed = index.copy(5);
+        assertTrue(removed.getDevices(device.getType()).isEmpty());
+        assertEquals(1, withOther.getDevices(device.getType()).size());
+        assertEquals(other, removed.getDevice(new UDN("other"), true));
+        assertSame(withOther.devicesByDeviceType.get("urn:schemas-upnp-org:Other"),
+                removed.devicesByDeviceType.get("urn:schemas-upnp-org:Other"));
+    }
+}
@@ -17,19 +17,36 @@ package org.jupnp.resources;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.junit.jupiter.api.Test;
+import org.jupnp.binding.xml.DescriptorBindingException;
 import org.jupnp.binding.xml.DeviceDescriptorBinder;
+import org.jupnp.binding.xml.UDA10DeviceDescriptorBinderImpl;
 import org.jupnp.data.SampleData;
 import org.jupnp.data.SampleDeviceRoot;
+import org.jupnp.data.SampleServiceOne;
 import org.jupnp.mock.MockUpnpService;
+import org.jupnp.mock.MockUpnpServiceConfiguration;
+import org.jupnp.model.Namespace;
 import org.jupnp.model.message.StreamRequestMessage;
 import org.jupnp.model.message.StreamResponseMessage;
 import org.jupnp.model.message.UpnpRequest;
+import org.jupnp.model.message.UpnpResponse;
 import org.jupnp.model.message.header.ContentTypeHeader;
 import org.jupnp.model.message.header.HostHeader;
 import org.jupnp.model.message.header.UpnpHeader;
+import org.jupnp.model.message.header.UserAgentHeader;
+import org.jupnp.model.meta.Device;
+import org.jupnp.model.meta.DeviceDetails;
 import org.jupnp.model.meta.LocalDevice;
 import org.jupnp.model.meta.RemoteDevice;
+import org.jupnp.model.profile.HeaderDeviceDetailsProvider;
+import org.jupnp.model.profile.RemoteClientInfo;
+import org.jupnp.model.types.UDADeviceType;
+import org.jupnp.protocol.ReceivingSync;
 import org.jupnp.protocol.sync.ReceivingRetrieval;
 
 class DeviceDescriptorRetrievalTest {
@@ -65,6 +82,129 @@ class DeviceDescriptorRetrievalTest {
                 .assertLocalResourcesMatch(upnpService.getConfiguration().getNamespace().getResources(returnedDevice));
     }
 
+    @Test
+    void retrieveCachedDescriptor() throws Exception {
+        MockUpnpService upnpService = new MockUpnpService();
+        upnpService.startup();
+
+        LocalDevice localDevice = SampleData.createLocalDevice();
+        upnpService.getRegistry().addDevice(localDevice);
+
+        StreamResponseMessage descriptorMessage = retrieveDescriptor(upnpService, null);
+        assertEquals(UpnpResponse.Status.OK.getStatusCode(), descriptorMessage.getOperation().getStatusCode());
+        String entityTag = descriptorMessage.getHeaders().getFirstHeader(ReceivingRetrieval.HEADER_ETAG);
+        assertNotNull(entityTag);
+
+        // The descriptor is generated once
+        StreamResponseMessage cachedMessage = retrieveDescriptor(upnpService, "\"other\"");
+        assertSame(descriptorMessage.getBody(), cachedMessage.getBody());
+        assertEquals(entityTag, cachedMessage.getHeaders().getFirstHeader(ReceivingRetrieval.HEADER_ETAG));
+
+        // The requester already has the descriptor
+        StreamResponseMessage notModifiedMessage = retrieveDescriptor(upnpService, "\"other\", " + entityTag);
+        assertEquals(UpnpResponse.Status.NOT_MODIFIED.getStatusCode(),
+                notModifiedMessage.getOperation().getStatusCode());
+        assertFalse(notModifiedMessage.hasBody());
+        assertEquals(entityTag, notModifiedMessage.getHeaders().getFirstHeader(ReceivingRetrieval.HEADER_ETAG));
+
+        // Registering the device again generates the descriptor again
+        upnpService.getRegistry().removeDevice(localDevice);
+        upnpService.getRegistry().addDevice(localDevice);
+        StreamResponseMessage regeneratedMessage = retrieveDescriptor(upnpService, null);
+        assertNotSame(descriptorMessage.getBody(), regeneratedMessage.getBody());
+        assertEquals(descriptorMessage.getBodyString(), regeneratedMessage.getBodyString());
+        assertEquals(entityTag, regeneratedMessage.getHeaders().getFirstHeader(ReceivingRetrieval.HEADER_ETAG));
+    }
+
+    @Test
+    void cacheDescriptorsByClient() throws Exception {
+        MockUpnpService upnpService = new MockUpnpService(new MockUpnpServiceConfiguration() {
+            @Override
+            protected DeviceDescriptorBinder createDeviceDescriptorBinderUDA10() {
+                return new UDA10DeviceDescriptorBinderImpl() {
+                    @Override
+                    public String generate(Device deviceModel, RemoteClientInfo info, Namespace namespace)
+                            throws DescriptorBindingException {
+                        // Works around quirks of some control points
+                        return super.generate(deviceModel, info, namespace) + "<!-- " + info.getRequestUserAgent()
+                                + " -->";
+                    }
+                };
+            }
+        });
+        upnpService.startup();
+
+        Map<HeaderDeviceDetailsProvider.Key, DeviceDetails> headerDetails = new HashMap<>();
+        headerDetails.put(new HeaderDeviceDetailsProvider.Key("X-AV-Client-Info", ".*PLAYSTATION 3.*"),
+                new DeviceDetails("PS3 Server"));
+        LocalDevice localDevice = new LocalDevice(SampleData.createLocalDeviceIdentity(),
+                new UDADeviceType("MediaServer", 1),
+                new HeaderDeviceDetailsProvider(new DeviceDetails("Server"), headerDetails),
+                new SampleServiceOne().newInstanceLocal(SampleData.getLocalServiceConstructor()));
+        upnpService.getRegistry().addDevice(localDevice);
+        URI descriptorURI = upnpService.getConfiguration().getNamespace().getDescriptorPath(localDevice);
+
+        StreamResponseMessage wmp = retrieveDescriptor(upnpService, descriptorURI, null, "Windows-Media-Player/12.0");
+        StreamResponseMessage xbox = retrieveDescriptor(upnpService, descriptorURI, null, "Xbox/2.0.4548.0");
+        StreamResponseMessage ps3 = retrieveDescriptor(upnpService, descriptorURI, "PLAYSTATION 3", "UPnP/1.0");
+        assertTrue(wmp.getBodyString().contains("Windows-Media-Player/12.0"));
+        assertTrue(xbox.getBodyString().contains("Xbox/2.0.4548.0"));
+        assertTrue(wmp.getBodyString().contains("<friendlyName>Server</friendlyName>"));
+        assertTrue(ps3.getBodyString().contains("<friendlyName>PS3 Server</friendlyName>"));
+
+        // Cached for each user agent and header value read by the details provider
+        assertSame(wmp.getBody(),
+                retrieveDescriptor(upnpService, descriptorURI, null, "Windows-Media-Player/12.0").getBody());
+        assertSame(ps3.getBody(), retrieveDescriptor(upnpService, descriptorURI, "PLAYSTATION 3", "UPnP/1.0").getBody());
+        assertNotSame(ps3.getBody(), retrieveDescriptor(upnpService, descriptorURI, null, "UPnP/1.0").getBody());
+    }
+
+    @Test
+    void dontCacheDescriptorsOfUnknownProviders() throws Exception {
+        MockUpnpService upnpService = new MockUpnpService();
+        upnpService.startup();
+
+        // The sample provider creates new details for every request
+        LocalDevice localDevice = SampleData.createLocalDevice(true);
+        upnpService.getRegistry().addDevice(localDevice);
+
+        StreamResponseMessage descriptorMessage = retrieveDescriptor(upnpService, null);
+        StreamResponseMessage generatedMessage = retrieveDescriptor(upnpService, null);
+        assertNotSame(descriptorMessage.getBody(), generatedMessage.getBody());
+        assertEquals(descriptorMessage.getBodyString(), generatedMessage.getBodyString());
+        assertEquals(descriptorMessage.getHeaders().getFirstHeader(ReceivingRetrieval.HEADER_ETAG),
+                generatedMessage.getHeaders().getFirstHeader(ReceivingRetrieval.HEADER_ETAG));
+    }
+
+    protected StreamResponseMessage retrieveDescriptor(MockUpnpService upnpService, String ifNoneMatch)
+            throws Exception {
+        StreamRequestMessage descRetrievalMessage = new StreamRequestMessage(UpnpRequest.Method.GET,
+                SampleDeviceRoot.getDeviceDescriptorURI());
+        if (ifNoneMatch != null) {
+            descRetrievalMessage.getHeaders().add(ReceivingRetrieval.HEADER_IF_NONE_MATCH, ifNoneMatch);
+        }
+        return sendRetrieval(upnpService, descRetrievalMessage);
+    }
+
+    protected StreamResponseMessage retrieveDescriptor(MockUpnpService upnpService, URI descriptorURI,
+            String clientInfo, String userAgent) throws Exception {
+        StreamRequestMessage descRetrievalMessage = new StreamRequestMessage(UpnpRequest.Method.GET, descriptorURI);
+        descRetrievalMessage.getHeaders().add(UpnpHeader.Type.USER_AGENT, new UserAgentHeader(userAgent));
+        if (clientInfo != null) {
+            descRetrievalMessage.getHeaders().add("X-AV-Client-Info", clientInfo);
+        }
+        return sendRetrieval(upnpService, descRetrievalMessage);
+    }
+
+    protected StreamResponseMessage sendRetrieval(MockUpnpService upnpService,
+            StreamRequestMessage descRetrievalMessage) throws Exception {
+        descRetrievalMessage.getHeaders().add(UpnpHeader.Type.HOST, new HostHeader("localhost", 1234));
+        ReceivingSync<StreamRequestMessage, StreamResponseMessage> prot = upnpService.getProtocolFactory()
+                .createReceivingSync(descRetrievalMessage);
+        prot.run();
+        return prot.getOutputMessage();
+    }
+
     @Test
     void retrieveNonExistentDescriptor() {
         MockUpnpService upnpService = new MockUpnpService();
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.jupnp.DefaultUpnpServiceConfiguration;
+import org.jupnp.PrioritizedExecutor;
+import org.jupnp.PrioritizedExecutor.Lane;
+import org.jupnp.PrioritizedExecutor.LaneSettings;
+import org.jupnp.PrioritizedExecutor.RejectionPolicy;
+
+class PrioritizedExecutorTest {
+
+    PrioritizedExecutor executor;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (executor != null) {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    PrioritizedExecutor createExecutor(int maxThreads, int laneThreads, int queueCapacity, RejectionPolicy policy) {
+        Map<Lane, LaneSettings> lanes = new EnumMap<>(Lane.class);
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneSettings(laneThreads, queueCapacity, policy));
+        }
+        executor = new PrioritizedExecutor(new DefaultUpnpServiceConfiguration.JUPnPThreadFactory("test-lane-"),
+                maxThreads, lanes);
+        return executor;
+    }
+
+    Runnable block(CountDownLatch started, CountDownLatch release) {
+        return () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    @Test
+    void runsHigherPriorityLanesFirst() throws Exception {
+        createExecutor(1, 1, 100, RejectionPolicy.ABORT);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.getLane(Lane.LISTENER).execute(block(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<Lane> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        for (Lane lane : new Lane[] { Lane.LISTENER, Lane.DISCOVERY, Lane.OUTBOUND, Lane.INBOUND }) {
+            executor.getLane(lane).execute(() -> {
+                order.add(lane);
+                done.countDown();
+            });
+        }
+        assertEquals(1, executor.getQueueSize(Lane.INBOUND));
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(Lane.INBOUND, Lane.OUTBOUND, Lane.DISCOVERY, Lane.LISTENER), order);
+        assertEquals(1, executor.getPoolSize());
+    }
+
+    @Test
+    void lowerLanesAreNotStarved() throws Exception {
+        createExecutor(1, 1, 100, RejectionPolicy.ABORT);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.getLane(Lane.INBOUND).execute(block(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<Lane> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(21);
+        executor.getLane(Lane.LISTENER).execute(() -> {
+            order.add(Lane.LISTENER);
+            done.countDown();
+        });
+        for (int i = 0; i < 20; i++) {
+            executor.getLane(Lane.INBOUND).execute(() -> {
+                order.add(Lane.INBOUND);
+                done.countDown();
+            });
+        }
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(order.indexOf(Lane.LISTENER) < PrioritizedExecutor.FAIRNESS_INTERVAL, order.toString());
+    }
+
+    @Test
+    void limitsThreadsOfLane() throws Exception {
+        createExecutor(4, 2, 100, RejectionPolicy.ABORT);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            executor.getLane(Lane.LISTENER).execute(block(started, release));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(2, executor.getActiveCount(Lane.LISTENER));
+        assertEquals(1, executor.getQueueSize(Lane.LISTENER));
+
+        // Other lanes still run while the listener lane is busy
+        CountDownLatch inbound = new CountDownLatch(1);
+        executor.getLane(Lane.INBOUND).execute(inbound::countDown);
+        assertTrue(inbound.await(5, TimeUnit.SECONDS));
+
+        release.countDown();
+        ExecutorService lane = executor.getLane(Lane.LISTENER);
+        lane.submit(() -> null).get(5, TimeUnit.SECONDS);
+        assertTrue(executor.getCompletedTaskCount(Lane.LISTENER) >= 3);
+    }
+
+    @Test
+    void rejectionPolicies() throws Exception {
+        for (RejectionPolicy policy : RejectionPolicy.values()) {
+            createExecutor(1, 1, 1, policy);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService lane = executor.getLane(Lane.DISCOVERY);
+            lane.execute(block(started, release));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<String> ran = new CopyOnWriteArrayList<>();
+            lane.execute(() -> ran.add("first"));
+            Runnable second = () -> ran.add("second:" + Thread.currentThread().getName());
+            if (policy == RejectionPolicy.ABORT) {
+                assertThrows(RejectedExecutionException.class, () -> lane.execute(second));
+            } else {
+                lane.execute(second);
+            }
+            assertEquals(1, executor.getRejectedTaskCount(Lane.DISCOVERY));
+
+            // Queued tasks are still run after shutdown
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            switch (policy) {
+                case ABORT:
+                case DISCARD:
+                    assertEquals(List.of("first"), ran);
+                    break;
+                case DISCARD_OLDEST:
+                    assertEquals(1, ran.size());
+                    assertTrue(ran.get(0).startsWith("second:test-lane-"));
+                    break;
+                default:
+                    assertEquals(List.of("second:" + Thread.currentThread().getName(), "first"), ran);
+                    break;
+            }
+            tearDown();
+        }
+        executor = null;
+    }
+
+    @Test
+    void overrideRejectionPolicy() throws Exception {
+        createExecutor(1, 1, 1, RejectionPolicy.CALLER_RUNS);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.getLane(Lane.OUTBOUND).execute(block(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<String> ran = new CopyOnWriteArrayList<>();
+        ExecutorService rejecting = executor.getLane(Lane.OUTBOUND, RejectionPolicy.ABORT);
+        rejecting.execute(() -> ran.add("queued"));
+        assertEquals(1, executor.getQueueSize(Lane.OUTBOUND));
+
+        // The queue of the lane is full, only the lane itself runs the task on the calling thread
+        assertThrows(RejectedExecutionException.class, () -> rejecting.execute(() -> ran.add("rejected")));
+        executor.getLane(Lane.OUTBOUND).execute(() -> ran.add("caller"));
+        assertEquals(List.of("caller"), ran);
+        assertEquals(2, executor.getRejectedTaskCount(Lane.OUTBOUND));
+
+        release.countDown();
+        rejecting.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(List.of("caller", "queued"), ran);
+    }
+
+    @Test
+    void shutdown() throws Exception {
+        createExecutor(1, 1, 100, RejectionPolicy.ABORT);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.getLane(Lane.OUTBOUND).execute(block(started, new CountDownLatch(1)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.getLane(Lane.LISTENER).execute(() -> {
+        });
+
+        List<Runnable> queued = executor.getLane(Lane.INBOUND).shutdownNow();
+        assertEquals(1, queued.size());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(executor.getLane(Lane.DISCOVERY).isTerminated());
+        assertThrows(RejectedExecutionException.class, () -> executor.getLane(Lane.INBOUND).execute(() -> {
+        }));
+    }
+}
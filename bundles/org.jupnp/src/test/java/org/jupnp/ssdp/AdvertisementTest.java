@@ -17,17 +17,26 @@ package org.jupnp.ssdp;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.Test;
 import org.jupnp.data.SampleData;
 import org.jupnp.data.SampleDeviceRoot;
 import org.jupnp.data.SampleUSNHeaders;
 import org.jupnp.mock.MockUpnpService;
+import org.jupnp.mock.MockUpnpServiceConfiguration;
 import org.jupnp.model.ServerClientTokens;
 import org.jupnp.model.message.OutgoingDatagramMessage;
 import org.jupnp.model.message.UpnpMessage;
 import org.jupnp.model.message.header.UpnpHeader;
 import org.jupnp.model.meta.LocalDevice;
 import org.jupnp.model.types.NotificationSubtype;
+import org.jupnp.protocol.async.DiscoveryMessageCache;
 import org.jupnp.protocol.async.SendingNotificationAlive;
 import org.jupnp.protocol.async.SendingNotificationByebye;
 
@@ -73,6 +82,85 @@ class AdvertisementTest {
                 embeddedDevice, UpnpHeader.Type.NT);
     }
 
+    @Test
+    void sendScheduledRepetitions() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        MockUpnpService upnpService = new MockUpnpService(new MockUpnpServiceConfiguration() {
+            @Override
+            public ScheduledExecutorService getScheduledExecutorService() {
+                return scheduler;
+            }
+        });
+        upnpService.startup();
+
+        LocalDevice rootDevice = SampleData.createLocalDevice();
+
+        // Hold the scheduler thread until the protocols returned
+        CountDownLatch executed = new CountDownLatch(1);
+        scheduler.execute(() -> {
+            try {
+                executed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Only the first bulk is sent before the protocol returns
+        SendingNotificationAlive alive = new SendingNotificationAlive(upnpService, rootDevice);
+        alive.run();
+        int bulkSize = upnpService.getRouter().getOutgoingDatagramMessages().size();
+        assertTrue(bulkSize > 0);
+
+        // A blocking protocol sends all bulks before it returns
+        SendingNotificationByebye byebye = new SendingNotificationByebye(upnpService, rootDevice);
+        byebye.setBlocking(true);
+        byebye.run();
+        assertEquals(bulkSize * 4, upnpService.getRouter().getOutgoingDatagramMessages().size());
+        executed.countDown();
+
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(bulkSize * 6, upnpService.getRouter().getOutgoingDatagramMessages().size());
+        for (OutgoingDatagramMessage msg : upnpService.getRouter().getOutgoingDatagramMessages()
+                .subList(bulkSize * 4, bulkSize * 6)) {
+            assertAliveMsgBasics(msg);
+        }
+    }
+
+    @Test
+    void sendCachedAliveMessages() {
+        MockUpnpService upnpService = new MockUpnpService();
+        upnpService.startup();
+
+        LocalDevice rootDevice = SampleData.createLocalDevice();
+        LocalDevice embeddedDevice = rootDevice.getEmbeddedDevices()[0];
+        DiscoveryMessageCache cache = new DiscoveryMessageCache();
+
+        new SendingNotificationAlive(upnpService, rootDevice, cache).run();
+        List<OutgoingDatagramMessage> sent = new ArrayList<>(upnpService.getRouter().getOutgoingDatagramMessages());
+        SampleUSNHeaders.assertUSNHeaders(sent, rootDevice, embeddedDevice, UpnpHeader.Type.NT);
+
+        // Every bulk sends the same encoded messages
+        int bulkSize = sent.size() / 3;
+        for (int i = 0; i < sent.size(); i++) {
+            OutgoingDatagramMessage msg = sent.get(i);
+            assertAliveMsgBasics(msg);
+            assertTrue(new String(msg.getEncoded()).startsWith("NOTIFY * HTTP/1.1\r\n"));
+            assertSame(sent.get(i % bulkSize), msg);
+        }
+
+        // The next advertisement is not created again
+        upnpService.getRouter().getOutgoingDatagramMessages().clear();
+        new SendingNotificationAlive(upnpService, rootDevice, cache).run();
+        assertSame(sent.get(0), upnpService.getRouter().getOutgoingDatagramMessages().get(0));
+
+        cache.invalidate(embeddedDevice);
+        upnpService.getRouter().getOutgoingDatagramMessages().clear();
+        new SendingNotificationAlive(upnpService, rootDevice, cache).run();
+        assertNotSame(sent.get(0), upnpService.getRouter().getOutgoingDatagramMessages().get(0));
+    }
+
     protected void assertAliveMsgBasics(UpnpMessage msg) {
         assertEquals(NotificationSubtype.ALIVE, msg.getHeaders().getFirstHeader(UpnpHeader.Type.NTS).getValue());
         assertEquals(SampleDeviceRoot.getDeviceDescriptorURL().toString(),
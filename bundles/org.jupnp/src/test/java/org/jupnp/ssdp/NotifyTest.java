@@ -18,7 +18,10 @@ package org.jupnp.ssdp;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.net.InetAddress;
+import java.net.URL;
 import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 import org.jupnp.UpnpService;
@@ -39,7 +42,12 @@ import org.jupnp.model.message.header.USNRootDeviceHeader;
 import org.jupnp.model.message.header.UpnpHeader;
 import org.jupnp.model.meta.LocalDevice;
 import org.jupnp.model.meta.RemoteDevice;
+import org.jupnp.model.meta.RemoteDeviceIdentity;
 import org.jupnp.model.types.NotificationSubtype;
+import org.jupnp.model.types.UDN;
+import org.jupnp.protocol.async.ReceivingNotification;
+import org.jupnp.registry.DefaultRegistryListener;
+import org.jupnp.registry.Registry;
 
 class NotifyTest {
 
@@ -169,11 +177,12 @@ class NotifyTest {
         msg.getHeaders().add(UpnpHeader.Type.LOCATION, new LocationHeader(SampleDeviceRoot.getDeviceDescriptorURL()));
         msg.getHeaders().add(UpnpHeader.Type.MAX_AGE, new MaxAgeHeader(rd.getIdentity().getMaxAgeSeconds()));
 
+        // The device is known, the registry refreshes it without creating a protocol
         Thread.sleep(1000);
-        upnpService.getProtocolFactory().createReceivingAsync(msg).run();
+        assertNull(upnpService.getProtocolFactory().createReceivingAsync(msg));
 
         Thread.sleep(1000);
-        upnpService.getProtocolFactory().createReceivingAsync(msg).run();
+        assertNull(upnpService.getProtocolFactory().createReceivingAsync(msg));
 
         Thread.sleep(1000);
         assertEquals(1, upnpService.getRegistry().getRemoteDevices().size());
@@ -181,6 +190,85 @@ class NotifyTest {
         upnpService.shutdown();
     }
 
+    @Test
+    void receivedKnownAlive() throws Exception {
+        UpnpService upnpService = new MockUpnpService();
+        upnpService.startup();
+
+        AtomicInteger updates = new AtomicInteger();
+        upnpService.getRegistry().addListener(new DefaultRegistryListener() {
+            @Override
+            public void remoteDeviceUpdated(Registry registry, RemoteDevice device) {
+                updates.incrementAndGet();
+            }
+        });
+
+        RemoteDevice rd = SampleData.createRemoteDevice();
+        upnpService.getRegistry().addDevice(rd);
+
+        IncomingNotificationRequest msg = createAliveMessage(rd, SampleDeviceRoot.getDeviceDescriptorURL(),
+                rd.getIdentity().getMaxAgeSeconds());
+        assertNull(upnpService.getProtocolFactory().createReceivingAsync(msg));
+        assertEquals(1, updates.get());
+
+        // Raw header values are matched, the USN of a service advertisement contains the UDN
+        msg.getHeaders().put(UpnpHeader.Type.USN.getHttpName(),
+                List.of(rd.getIdentity().getUdn().toString() + "::urn:schemas-upnp-org:service:SwitchPower:1"));
+        msg.getHeaders().put(UpnpHeader.Type.MAX_AGE.getHttpName(),
+                List.of("no-cache=\"Ext\", max-age = " + rd.getIdentity().getMaxAgeSeconds()));
+        assertNull(upnpService.getProtocolFactory().createReceivingAsync(msg));
+        assertEquals(2, updates.get());
+    }
+
+    @Test
+    void receivedChangedAlive() throws Exception {
+        UpnpService upnpService = new MockUpnpService();
+        upnpService.startup();
+
+        RemoteDevice rd = SampleData.createRemoteDevice();
+        upnpService.getRegistry().addDevice(rd);
+        int maxAgeSeconds = rd.getIdentity().getMaxAgeSeconds();
+
+        // Unknown device
+        IncomingNotificationRequest msg = createAliveMessage(SampleData.createRemoteDevice(
+                new RemoteDeviceIdentity(new UDN("unknown"), maxAgeSeconds, SampleDeviceRoot.getDeviceDescriptorURL(),
+                        null, SampleData.getLocalBaseAddress())),
+                SampleDeviceRoot.getDeviceDescriptorURL(), maxAgeSeconds);
+        assertInstanceOf(ReceivingNotification.class, upnpService.getProtocolFactory().createReceivingAsync(msg));
+
+        // Changed location
+        msg = createAliveMessage(rd, SampleDeviceRoot.getSecondDeviceDescriptorURL(), maxAgeSeconds);
+        assertInstanceOf(ReceivingNotification.class, upnpService.getProtocolFactory().createReceivingAsync(msg));
+
+        // Changed maximum age
+        msg = createAliveMessage(rd, SampleDeviceRoot.getDeviceDescriptorURL(), maxAgeSeconds + 1);
+        assertInstanceOf(ReceivingNotification.class, upnpService.getProtocolFactory().createReceivingAsync(msg));
+
+        // Changed boot identifier, the first one is recorded
+        msg = createAliveMessage(rd, SampleDeviceRoot.getDeviceDescriptorURL(), maxAgeSeconds);
+        msg.getHeaders().add("BOOTID.UPNP.ORG", "1");
+        assertNull(upnpService.getProtocolFactory().createReceivingAsync(msg));
+        assertNull(upnpService.getProtocolFactory().createReceivingAsync(msg));
+        msg.getHeaders().put("BOOTID.UPNP.ORG", List.of("2"));
+        assertInstanceOf(ReceivingNotification.class, upnpService.getProtocolFactory().createReceivingAsync(msg));
+        assertNull(upnpService.getProtocolFactory().createReceivingAsync(msg));
+
+        // Removed device
+        upnpService.getRegistry().removeDevice(rd);
+        assertInstanceOf(ReceivingNotification.class, upnpService.getProtocolFactory().createReceivingAsync(msg));
+    }
+
+    protected IncomingNotificationRequest createAliveMessage(RemoteDevice rd, URL location, int maxAgeSeconds)
+            throws UnknownHostException {
+        IncomingNotificationRequest msg = createRequestMessage();
+        msg.getHeaders().add(UpnpHeader.Type.NTS, new NTSHeader(NotificationSubtype.ALIVE));
+        msg.getHeaders().add(UpnpHeader.Type.NT, new RootDeviceHeader());
+        msg.getHeaders().add(UpnpHeader.Type.USN, new USNRootDeviceHeader(rd.getIdentity().getUdn()));
+        msg.getHeaders().add(UpnpHeader.Type.LOCATION, new LocationHeader(location));
+        msg.getHeaders().add(UpnpHeader.Type.MAX_AGE, new MaxAgeHeader(maxAgeSeconds));
+        return msg;
+    }
+
     protected IncomingNotificationRequest createRequestMessage() throws UnknownHostException {
         IncomingNotificationRequest msg = new IncomingNotificationRequest(new IncomingDatagramMessage<>(
                 new UpnpRequest(UpnpRequest.Method.NOTIFY), InetAddress.getByName("127.0.0.1"),
@@ -19,12 +19,20 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
 import org.jupnp.UpnpService;
 import org.jupnp.data.SampleData;
 import org.jupnp.data.SampleUSNHeaders;
 import org.jupnp.mock.MockUpnpService;
+import org.jupnp.mock.MockUpnpServiceConfiguration;
 import org.jupnp.model.Constants;
 import org.jupnp.model.DiscoveryOptions;
 import org.jupnp.model.Namespace;
@@ -258,6 +266,102 @@ class SearchReceivedTest {
         assertEquals(10, upnpService.getRouter().getOutgoingDatagramMessages().size());
     }
 
+    @Test
+    void receivedSearchScheduledAndCoalesced() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        MockUpnpService upnpService = new MockUpnpService(new MockUpnpServiceConfiguration() {
+            @Override
+            public ScheduledExecutorService getScheduledExecutorService() {
+                return scheduler;
+            }
+        });
+        upnpService.startup();
+
+        LocalDevice localDevice = SampleData.createLocalDevice();
+        upnpService.getRegistry().addDevice(localDevice);
+
+        IncomingSearchRequest searchMsg = createRequestMessage();
+        searchMsg.getHeaders().add(UpnpHeader.Type.MAN, new MANHeader(NotificationSubtype.DISCOVER.getHeaderString()));
+        searchMsg.getHeaders().add(UpnpHeader.Type.MX, new MXHeader(1));
+        searchMsg.getHeaders().add(UpnpHeader.Type.ST, new STAllHeader());
+        searchMsg.getHeaders().add(UpnpHeader.Type.HOST, new HostHeader());
+
+        // Hold the scheduler thread until both searches have been received
+        CountDownLatch received = new CountDownLatch(1);
+        scheduler.execute(() -> {
+            try {
+                received.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // The same search received twice within MX is answered once, without blocking the receiving thread
+        Set<String> pendingResponses = ConcurrentHashMap.newKeySet();
+        new ReceivingSearch(upnpService, searchMsg, pendingResponses).run();
+        new ReceivingSearch(upnpService, searchMsg, pendingResponses).run();
+        assertEquals(1, pendingResponses.size());
+        assertEquals(0, upnpService.getRouter().getOutgoingDatagramMessages().size());
+        received.countDown();
+
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(10, upnpService.getRouter().getOutgoingDatagramMessages().size());
+        assertTrue(pendingResponses.isEmpty());
+    }
+
+    @Test
+    void receivedSearchCached() throws Exception {
+        MockUpnpService upnpService = new MockUpnpService();
+        upnpService.startup();
+
+        LocalDevice localDevice = SampleData.createLocalDevice();
+        LocalDevice embeddedDevice = localDevice.getEmbeddedDevices()[0];
+        upnpService.getRegistry().addDevice(localDevice);
+
+        IncomingSearchRequest firstSearch = createRequestMessage();
+        IncomingSearchRequest secondSearch = new IncomingSearchRequest(
+                new IncomingDatagramMessage<>(new UpnpRequest(UpnpRequest.Method.MSEARCH),
+                        InetAddress.getByName("127.0.0.1"), 50000, InetAddress.getByName("127.0.0.1")));
+        for (IncomingSearchRequest searchMsg : new IncomingSearchRequest[] { firstSearch, secondSearch }) {
+            searchMsg.getHeaders().add(UpnpHeader.Type.MAN,
+                    new MANHeader(NotificationSubtype.DISCOVER.getHeaderString()));
+            searchMsg.getHeaders().add(UpnpHeader.Type.MX, new MXHeader(1));
+            searchMsg.getHeaders().add(UpnpHeader.Type.ST, new STAllHeader());
+            searchMsg.getHeaders().add(UpnpHeader.Type.HOST, new HostHeader());
+        }
+
+        // The protocol factory shares its cache with all search protocols
+        upnpService.getProtocolFactory().createReceivingAsync(firstSearch).run();
+        upnpService.getProtocolFactory().createReceivingAsync(secondSearch).run();
+
+        List<OutgoingDatagramMessage> sent = upnpService.getRouter().getOutgoingDatagramMessages();
+        assertEquals(20, sent.size());
+        SampleUSNHeaders.assertUSNHeaders(sent.subList(10, 20), localDevice, embeddedDevice, UpnpHeader.Type.ST);
+
+        // The responses to the second requester are copies with the same encoded payload
+        for (int i = 0; i < 10; i++) {
+            OutgoingDatagramMessage first = sent.get(i);
+            OutgoingDatagramMessage second = sent.get(i + 10);
+            assertSearchResponseBasics(upnpService.getConfiguration().getNamespace(), second, localDevice);
+            assertEquals(Constants.UPNP_MULTICAST_PORT, first.getDestinationPort());
+            assertEquals(50000, second.getDestinationPort());
+            assertNotNull(first.getEncoded());
+            assertSame(first.getEncoded(), second.getEncoded());
+        }
+
+        // Adding the device again discards its responses
+        byte[] encoded = sent.get(0).getEncoded();
+        upnpService.getRegistry().removeDevice(localDevice);
+        upnpService.getRegistry().addDevice(localDevice);
+        sent.clear();
+        upnpService.getProtocolFactory().createReceivingAsync(firstSearch).run();
+        assertEquals(10, sent.size());
+        assertNotSame(encoded, sent.get(0).getEncoded());
+        assertArrayEquals(encoded, sent.get(0).getEncoded());
+    }
+
     protected ReceivingSearch createProtocol(UpnpService upnpService, IncomingSearchRequest searchMsg) {
         return new ReceivingSearch(upnpService, searchMsg);
     }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.jupnp.transport.spi.HostHealthTracker;
+import org.jupnp.transport.spi.HostHealthTracker.State;
+
+class HostHealthTrackerTest {
+
+    static class TestHostHealthTracker extends HostHealthTracker {
+
+        long nowMillis = 1000;
+
+        TestHostHealthTracker(int maxHosts) {
+            super(2, 1000, 4000, 500, maxHosts);
+        }
+
+        @Override
+        protected long currentTimeNanos() {
+            return TimeUnit.MILLISECONDS.toNanos(nowMillis);
+        }
+    }
+
+    @Test
+    void backOffAndProbe() {
+        TestHostHealthTracker tracker = new TestHostHealthTracker(10);
+        String host = "10.0.0.1";
+
+        assertTrue(tracker.tryAcquire(host));
+        tracker.recordFailure(host);
+        assertEquals(State.HEALTHY, tracker.getState(host));
+        assertTrue(tracker.tryAcquire(host));
+
+        // Threshold reached, backoff of one second plus jitter
+        tracker.recordFailure(host);
+        assertEquals(State.BACKING_OFF, tracker.getState(host));
+        assertFalse(tracker.isAvailable(host));
+        assertFalse(tracker.tryAcquire(host));
+        long retryIn = tracker.getHostState(host).getRetryInMillis();
+        assertTrue(retryIn >= 1000 && retryIn <= 1200, "Retry in " + retryIn);
+
+        // A single probe is allowed when the backoff expired
+        tracker.nowMillis += 1200;
+        assertTrue(tracker.isAvailable(host));
+        assertTrue(tracker.tryAcquire(host));
+        assertEquals(State.PROBING, tracker.getState(host));
+        assertFalse(tracker.isAvailable(host));
+        assertFalse(tracker.tryAcquire(host));
+
+        // The failed probe doubles the backoff
+        tracker.recordFailure(host);
+        assertEquals(State.BACKING_OFF, tracker.getState(host));
+        assertEquals(2000, tracker.getHostState(host).getBackoffMillis());
+        assertEquals(3, tracker.getHostState(host).getConsecutiveFailures());
+
+        // Up to the maximum
+        for (int i = 0; i < 3; i++) {
+            tracker.nowMillis += 5000;
+            assertTrue(tracker.tryAcquire(host));
+            tracker.recordFailure(host);
+        }
+        assertEquals(4000, tracker.getHostState(host).getBackoffMillis());
+
+        // A probe which didn't complete in time is replaced by another probe
+        tracker.nowMillis += 5000;
+        assertTrue(tracker.tryAcquire(host));
+        tracker.nowMillis += 500;
+        assertTrue(tracker.tryAcquire(host));
+
+        // Any response resets the host
+        tracker.recordSuccess(host);
+        assertEquals(State.HEALTHY, tracker.getState(host));
+        assertEquals(0, tracker.getHostState(host).getConsecutiveFailures());
+        assertTrue(tracker.getHostStates().isEmpty());
+    }
+
+    @Test
+    void boundedHosts() {
+        TestHostHealthTracker tracker = new TestHostHealthTracker(2);
+        tracker.recordFailure("10.0.0.1");
+        tracker.recordFailure("10.0.0.2");
+        tracker.recordFailure("10.0.0.1");
+        tracker.recordFailure("10.0.0.3");
+
+        // The least recently used host was dropped
+        assertEquals(2, tracker.getHostStates().size());
+        assertEquals(State.BACKING_OFF, tracker.getState("10.0.0.1"));
+        assertEquals(0, tracker.getHostState("10.0.0.2").getConsecutiveFailures());
+        assertEquals(1, tracker.getHostState("10.0.0.3").getConsecutiveFailures());
+
+        tracker.reset("10.0.0.1");
+        assertEquals(State.HEALTHY, tracker.getState("10.0.0.1"));
+        tracker.clear();
+        assertTrue(tracker.getHostStates().isEmpty());
+        assertTrue(tracker.tryAcquire(null));
+    }
+}
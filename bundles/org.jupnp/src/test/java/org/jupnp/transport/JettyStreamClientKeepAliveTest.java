@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jupnp.model.message.StreamRequestMessage;
+import org.jupnp.model.message.StreamResponseMessage;
+import org.jupnp.model.message.UpnpRequest;
+import org.jupnp.transport.impl.jetty.JettyStreamClientImpl;
+import org.jupnp.transport.impl.jetty.StreamClientConfigurationImpl;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Checks connection reuse of the Jetty client against a plain HTTP/1.1 server.
+ */
+class JettyStreamClientKeepAliveTest {
+
+    private static final int REQUESTS = 5;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private HttpServer server;
+    private final List<String> connectionHeaders = new CopyOnWriteArrayList<>();
+    private String serverHeader = "Linux/5.10 UPnP/1.0 GoodDevice/1.0";
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            if (exchange.getRequestURI().getPath().startsWith("/slow")) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String connection = exchange.getRequestHeaders().getFirst("Connection");
+            connectionHeaders.add(connection != null ? connection : "");
+            byte[] body = "<ok/>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Server", serverHeader);
+            exchange.getResponseHeaders().add("Content-Type", "text/xml");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void closesConnectionsByDefault() throws Exception {
+        JettyStreamClientImpl client = new JettyStreamClientImpl(new StreamClientConfigurationImpl(executor, 3));
+        try {
+            sendRequests(client);
+            assertEquals(REQUESTS, client.getRequestCount());
+            assertEquals(REQUESTS, client.getConnectionCount());
+            assertEquals(0, client.getConnectionReuseRatio());
+            assertTrue(connectionHeaders.stream().allMatch("close"::equalsIgnoreCase));
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void reusesConnections() throws Exception {
+        JettyStreamClientImpl client = new JettyStreamClientImpl(
+                new KeepAliveConfiguration(executor, Set.of(), Set.of()));
+        try {
+            sendRequests(client);
+            assertEquals(REQUESTS, client.getRequestCount());
+            assertEquals(1, client.getConnectionCount());
+            assertEquals((REQUESTS - 1) / (double) REQUESTS, client.getConnectionReuseRatio());
+            assertTrue(connectionHeaders.stream().noneMatch("close"::equalsIgnoreCase));
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void waitsForSlowResponses() throws Exception {
+        JettyStreamClientImpl client = new JettyStreamClientImpl(
+                new KeepAliveConfiguration(executor, Set.of(), Set.of()) {
+                    @Override
+                    public int getKeepAliveIdleTimeoutSeconds() {
+                        return 1;
+                    }
+                });
+        try {
+            // The response takes longer than the idle timeout of pooled connections
+            StreamResponseMessage response = client
+                    .sendRequest(new StreamRequestMessage(UpnpRequest.Method.GET, createURI("/slow/description.xml")));
+            assertNotNull(response);
+            assertEquals(200, response.getOperation().getStatusCode());
+            assertEquals(1, client.getConnectionCount());
+
+            // The idle connection is still evicted
+            Thread.sleep(2000);
+            sendRequests(client);
+            assertEquals(2, client.getConnectionCount());
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void closesConnectionsToBlacklistedHost() throws Exception {
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        JettyStreamClientImpl client = new JettyStreamClientImpl(
+                new KeepAliveConfiguration(executor, Set.of(host), Set.of()));
+        try {
+            sendRequests(client);
+            assertEquals(REQUESTS, client.getConnectionCount());
+            assertTrue(connectionHeaders.stream().allMatch("close"::equalsIgnoreCase));
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void closesConnectionsToBlacklistedUserAgent() throws Exception {
+        serverHeader = "Linux/2.6 UPnP/1.0 BrokenRenderer/2.1";
+        JettyStreamClientImpl client = new JettyStreamClientImpl(
+                new KeepAliveConfiguration(executor, Set.of(), Set.of("brokenrenderer")));
+        try {
+            sendRequests(client);
+            // The device is only known after its first response
+            assertEquals("", connectionHeaders.get(0));
+            assertTrue(connectionHeaders.subList(1, REQUESTS).stream().allMatch("close"::equalsIgnoreCase));
+        } finally {
+            client.stop();
+        }
+    }
+
+    private void sendRequests(JettyStreamClientImpl client) throws Exception {
+        URI uri = createURI("/description.xml");
+        for (int i = 0; i < REQUESTS; i++) {
+            StreamResponseMessage response = client
+                    .sendRequest(new StreamRequestMessage(UpnpRequest.Method.GET, uri));
+            assertNotNull(response);
+            assertEquals(200, response.getOperation().getStatusCode());
+        }
+    }
+
+    private URI createURI(String path) {
+        return URI.create(
+                "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getAddress().getPort() + path);
+    }
+
+    private static class KeepAliveConfiguration extends StreamClientConfigurationImpl {
+
+        private final Set<String> blacklistedHosts;
+        private final Set<String> blacklistedUserAgents;
+
+        KeepAliveConfiguration(ExecutorService executor, Set<String> blacklistedHosts,
+                Set<String> blacklistedUserAgents) {
+            super(executor, 3);
+            this.blacklistedHosts = blacklistedHosts;
+            this.blacklistedUserAgents = blacklistedUserAgents;
+        }
+
+        @Override
+        public boolean isKeepAlive() {
+            return true;
+        }
+
+        @Override
+        public Set<String> getKeepAliveBlacklistedHosts() {
+            return blacklistedHosts;
+        }
+
+        @Override
+        public Set<String> getKeepAliveBlacklistedUserAgents() {
+            return blacklistedUserAgents;
+        }
+    }
+}
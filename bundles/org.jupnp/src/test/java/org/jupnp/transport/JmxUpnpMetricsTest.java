@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+
+import org.junit.jupiter.api.Test;
+import org.jupnp.JmxUpnpMetrics;
+import org.jupnp.UpnpMetrics;
+import org.jupnp.data.SampleData;
+import org.jupnp.mock.MockUpnpService;
+import org.jupnp.mock.MockUpnpServiceConfiguration;
+import org.jupnp.model.message.IncomingDatagramMessage;
+import org.jupnp.model.message.StreamRequestMessage;
+import org.jupnp.model.message.StreamResponseMessage;
+import org.jupnp.model.message.UpnpRequest;
+import org.jupnp.model.message.UpnpResponse;
+import org.jupnp.model.types.ServiceType;
+import org.jupnp.transport.impl.DatagramProcessorImpl;
+import org.jupnp.transport.spi.StreamClient;
+import org.jupnp.transport.spi.StreamClientConfiguration;
+
+class JmxUpnpMetricsTest {
+
+    @Test
+    void exposesAttributes() throws Exception {
+        MBeanServer mbeanServer = MBeanServerFactory.newMBeanServer();
+        JmxUpnpMetrics metrics = new JmxUpnpMetrics("test", mbeanServer).register();
+        assertTrue(mbeanServer.isRegistered(metrics.getObjectName()));
+
+        metrics.streamRequestSent("GET", TimeUnit.MILLISECONDS.toNanos(3), true);
+        metrics.streamRequestSent("GET", TimeUnit.MILLISECONDS.toNanos(200), false);
+        metrics.datagramReadFailed();
+        metrics.registerGauge("Test.Gauge", () -> 42);
+
+        assertEquals(2L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.GET.Count"));
+        assertEquals(1L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.GET.Failures"));
+        assertEquals(0L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.GET.LE1ms"));
+        assertEquals(1L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.GET.LE5ms"));
+        assertEquals(1L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.GET.LE100ms"));
+        assertEquals(2L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.GET.LE500ms"));
+        assertEquals(200L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.GET.MaxMillis"));
+        assertEquals(1L, mbeanServer.getAttribute(metrics.getObjectName(), "Datagram.ReadFailures"));
+        assertEquals(42L, mbeanServer.getAttribute(metrics.getObjectName(), "Test.Gauge"));
+        assertTrue(Arrays.stream(mbeanServer.getMBeanInfo(metrics.getObjectName()).getAttributes())
+                .map(MBeanAttributeInfo::getName).anyMatch("GENA.EventLag.Count"::equals));
+
+        // Durations at a bound are counted in its bucket, longer ones in the next
+        metrics.streamRequestSent("POST", TimeUnit.MILLISECONDS.toNanos(100), true);
+        metrics.streamRequestSent("POST", TimeUnit.MILLISECONDS.toNanos(100) + 1, true);
+        metrics.streamRequestSent("POST", TimeUnit.MILLISECONDS.toNanos(1), true);
+        assertEquals(1L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.POST.LE1ms"));
+        assertEquals(1L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.POST.LE50ms"));
+        assertEquals(2L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.POST.LE100ms"));
+        assertEquals(3L, mbeanServer.getAttribute(metrics.getObjectName(), "StreamClient.POST.LE500ms"));
+
+        metrics.unregisterGauge("Test.Gauge");
+        assertFalse(metrics.getValues().containsKey("Test.Gauge"));
+
+        metrics.shutdown();
+        assertFalse(mbeanServer.isRegistered(metrics.getObjectName()));
+    }
+
+    @Test
+    void routerAndRegistryReportMetrics() throws Exception {
+        MBeanServer mbeanServer = MBeanServerFactory.newMBeanServer();
+        MockUpnpServiceConfiguration configuration = new MockUpnpServiceConfiguration() {
+            @Override
+            protected UpnpMetrics createMetrics() {
+                return new JmxUpnpMetrics("router", mbeanServer).register();
+            }
+
+            @Override
+            public ServiceType[] getExclusiveServiceTypes() {
+                // Ignore advertisements
+                return null;
+            }
+        };
+        JmxUpnpMetrics metrics = (JmxUpnpMetrics) configuration.getMetrics();
+        assertTrue(metrics.getValues().containsKey("Executor.Default.QueueSize"));
+
+        MockUpnpService upnpService = new MockUpnpService(configuration);
+        upnpService.startup();
+        assertEquals(0L, metrics.getValues().get(UpnpMetrics.GAUGE_REMOTE_DEVICES));
+        upnpService.getRegistry().addDevice(SampleData.createRemoteDevice());
+        assertEquals(1L, metrics.getValues().get(UpnpMetrics.GAUGE_REMOTE_DEVICES));
+
+        RouterImpl router = new RouterImpl(configuration, upnpService.getProtocolFactory());
+        router.enabled = true;
+        router.streamClient = new StreamClient<StreamClientConfiguration>() {
+            @Override
+            public StreamResponseMessage sendRequest(StreamRequestMessage message) {
+                return new StreamResponseMessage(UpnpResponse.Status.OK);
+            }
+
+            @Override
+            public CompletableFuture<StreamResponseMessage> sendRequestAsync(StreamRequestMessage message) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public void stop() {
+            }
+
+            @Override
+            public StreamClientConfiguration getConfiguration() {
+                return null;
+            }
+        };
+        // Every datagram passed to the router is counted, even if it doesn't need a protocol
+        router.received(createDatagram("M-SEARCH * HTTP/1.1\r\nHOST: 239.255.255.250:1900\r\n"
+                + "MAN: \"ssdp:discover\"\r\nMX: 3\r\nST: ssdp:all\r\n\r\n"));
+        router.received(createDatagram("NOTIFY * HTTP/1.1\r\nHOST: 239.255.255.250:1900\r\n"
+                + "CACHE-CONTROL: max-age=1800\r\nLOCATION: http://127.0.0.1:1234/description.xml\r\n"
+                + "NT: upnp:rootdevice\r\nNTS: ssdp:alive\r\nUSN: uuid:MY-DEVICE-123::upnp:rootdevice\r\n\r\n"));
+        assertEquals(2L, metrics.getValues().get("Datagram.Received"));
+        assertEquals(1L, metrics.getValues().get("Datagram.Dispatched"));
+
+        URI uri = URI.create("http://127.0.0.1:1234/description.xml");
+        assertNotNull(router.send(new StreamRequestMessage(UpnpRequest.Method.GET, uri)));
+        assertNull(router.sendAsync(new StreamRequestMessage(UpnpRequest.Method.POST, uri)).get());
+
+        Map<String, Long> values = metrics.getValues();
+        assertEquals(1L, values.get("StreamClient.GET.Count"));
+        assertEquals(0L, values.get("StreamClient.GET.Failures"));
+        assertEquals(1L, values.get("StreamClient.POST.Count"));
+        assertEquals(1L, values.get("StreamClient.POST.Failures"));
+
+        // Shuts down the registry and the configuration
+        upnpService.shutdown();
+        assertFalse(metrics.getValues().containsKey(UpnpMetrics.GAUGE_REMOTE_DEVICES));
+        assertFalse(mbeanServer.isRegistered(metrics.getObjectName()));
+    }
+
+    private IncomingDatagramMessage createDatagram(String message) throws Exception {
+        byte[] data = message.getBytes(StandardCharsets.US_ASCII);
+        return new DatagramProcessorImpl().read(InetAddress.getLoopbackAddress(), new DatagramPacket(data, data.length,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 1900)));
+    }
+}
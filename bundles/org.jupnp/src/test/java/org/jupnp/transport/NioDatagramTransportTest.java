@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.jupnp.mock.MockRouter;
+import org.jupnp.mock.MockUpnpServiceConfiguration;
+import org.jupnp.model.message.IncomingDatagramMessage;
+import org.jupnp.model.message.UpnpRequest;
+import org.jupnp.transport.impl.DatagramIOConfigurationImpl;
+import org.jupnp.transport.impl.DatagramProcessorImpl;
+import org.jupnp.transport.impl.nio.NioDatagramIOImpl;
+import org.jupnp.transport.impl.nio.NioDatagramSelector;
+
+class NioDatagramTransportTest {
+
+    static final String MSEARCH = "M-SEARCH * HTTP/1.1\r\n" + "HOST: 239.255.255.250:1900\r\n"
+            + "MAN: \"ssdp:discover\"\r\n" + "MX: 3\r\n" + "ST: ssdp:all\r\n\r\n";
+
+    @Test
+    void receiveOnOneThread() throws Exception {
+        BlockingQueue<IncomingDatagramMessage> received = new LinkedBlockingQueue<>();
+        BlockingQueue<Thread> receivingThreads = new LinkedBlockingQueue<>();
+        MockRouter router = new MockRouter(new MockUpnpServiceConfiguration(), null) {
+            @Override
+            public void received(IncomingDatagramMessage msg) {
+                receivingThreads.add(Thread.currentThread());
+                received.add(msg);
+            }
+        };
+
+        NioDatagramSelector selector = new NioDatagramSelector();
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        NioDatagramIOImpl first = new NioDatagramIOImpl(new DatagramIOConfigurationImpl(), selector);
+        NioDatagramIOImpl second = new NioDatagramIOImpl(new DatagramIOConfigurationImpl(), selector);
+        first.init(loopback, 0, router, new DatagramProcessorImpl());
+        second.init(loopback, 0, router, new DatagramProcessorImpl());
+
+        Thread loop = new Thread(first);
+        loop.start();
+        for (int i = 0; i < 50 && !selector.isRunning(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(selector.isRunning());
+        // Only the first service occupies a thread
+        second.run();
+        assertTrue(loop.isAlive());
+
+        try (DatagramSocket socket = new DatagramSocket()) {
+            byte[] data = MSEARCH.getBytes(StandardCharsets.US_ASCII);
+            socket.send(new DatagramPacket(data, data.length, first.getChannel().getLocalAddress()));
+            socket.send(new DatagramPacket(data, data.length, second.getChannel().getLocalAddress()));
+
+            for (int i = 0; i < 2; i++) {
+                IncomingDatagramMessage msg = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(msg);
+                assertEquals(UpnpRequest.Method.MSEARCH, ((UpnpRequest) msg.getOperation()).getMethod());
+                assertEquals(socket.getLocalPort(), msg.getSourcePort());
+                assertSame(loop, receivingThreads.poll());
+            }
+
+            // Sending is done by the channel of the service
+            DatagramPacket response = new DatagramPacket(new byte[640], 640);
+            socket.setSoTimeout(5000);
+            first.send(new DatagramPacket(data, data.length, new InetSocketAddress(loopback, socket.getLocalPort())));
+            socket.receive(response);
+            assertEquals(MSEARCH, new String(response.getData(), 0, response.getLength(), StandardCharsets.US_ASCII));
+            assertEquals(first.getChannel().getLocalAddress(), response.getSocketAddress());
+        }
+
+        first.stop();
+        assertTrue(loop.isAlive());
+        second.stop();
+        loop.join(5000);
+        assertFalse(loop.isAlive());
+        assertFalse(selector.isRunning());
+
+        // Restarting the router initializes and runs the services again
+        first.init(loopback, 0, router, new DatagramProcessorImpl());
+        loop = new Thread(first);
+        loop.start();
+        try (DatagramSocket socket = new DatagramSocket()) {
+            byte[] data = MSEARCH.getBytes(StandardCharsets.US_ASCII);
+            socket.send(new DatagramPacket(data, data.length, first.getChannel().getLocalAddress()));
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        }
+        first.stop();
+        loop.join(5000);
+        assertFalse(loop.isAlive());
+    }
+
+    @Test
+    void handlerFailureKeepsLoopRunning() throws Exception {
+        BlockingQueue<IncomingDatagramMessage> received = new LinkedBlockingQueue<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        MockRouter router = new MockRouter(new MockUpnpServiceConfiguration(), null) {
+            @Override
+            public void received(IncomingDatagramMessage msg) {
+                if (failed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("Can't find any IPv4 or IPv6 address on interface");
+                }
+                received.add(msg);
+            }
+        };
+
+        NioDatagramSelector selector = new NioDatagramSelector();
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        NioDatagramIOImpl service = new NioDatagramIOImpl(new DatagramIOConfigurationImpl(), selector);
+        service.init(loopback, 0, router, new DatagramProcessorImpl());
+
+        Thread loop = new Thread(service);
+        loop.start();
+        try (DatagramSocket socket = new DatagramSocket()) {
+            byte[] data = MSEARCH.getBytes(StandardCharsets.US_ASCII);
+            socket.send(new DatagramPacket(data, data.length, service.getChannel().getLocalAddress()));
+            socket.send(new DatagramPacket(data, data.length, service.getChannel().getLocalAddress()));
+
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+            assertTrue(failed.get());
+            assertTrue(loop.isAlive());
+            assertTrue(selector.isRunning());
+        }
+        service.stop();
+        loop.join(5000);
+        assertFalse(loop.isAlive());
+    }
+}
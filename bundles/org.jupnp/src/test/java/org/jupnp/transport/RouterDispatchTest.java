@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.jupnp.PrioritizedExecutor;
+import org.jupnp.mock.MockUpnpService;
+import org.jupnp.mock.MockUpnpServiceConfiguration;
+import org.jupnp.protocol.async.ReceivingSearch;
+import org.jupnp.transport.impl.DatagramProcessorImpl;
+
+class RouterDispatchTest {
+
+    static final String MSEARCH = "M-SEARCH * HTTP/1.1\r\n" + "HOST: 239.255.255.250:1900\r\n"
+            + "MAN: \"ssdp:discover\"\r\n" + "MX: 3\r\n" + "ST: ssdp:all\r\n\r\n";
+
+    @Test
+    void receivedDatagramsRunOnDiscoveryLane() throws Exception {
+        List<PrioritizedExecutor.Lane> lanes = new ArrayList<>();
+        List<Runnable> tasks = new ArrayList<>();
+        MockUpnpServiceConfiguration configuration = new MockUpnpServiceConfiguration() {
+            @Override
+            protected ExecutorService getExecutorService(PrioritizedExecutor.Lane lane) {
+                ExecutorService executor = super.getExecutorService(lane);
+                return new AbstractExecutorService() {
+                    @Override
+                    public void execute(Runnable command) {
+                        lanes.add(lane);
+                        tasks.add(command);
+                    }
+
+                    @Override
+                    public void shutdown() {
+                        executor.shutdown();
+                    }
+
+                    @Override
+                    public List<Runnable> shutdownNow() {
+                        return executor.shutdownNow();
+                    }
+
+                    @Override
+                    public boolean isShutdown() {
+                        return executor.isShutdown();
+                    }
+
+                    @Override
+                    public boolean isTerminated() {
+                        return executor.isTerminated();
+                    }
+
+                    @Override
+                    public boolean awaitTermination(long timeout, TimeUnit unit)
+                            throws InterruptedException {
+                        return executor.awaitTermination(timeout, unit);
+                    }
+                };
+            }
+        };
+        MockUpnpService upnpService = new MockUpnpService(configuration);
+        upnpService.startup();
+
+        RouterImpl router = new RouterImpl(configuration, upnpService.getProtocolFactory());
+        router.enabled = true;
+
+        byte[] data = MSEARCH.getBytes(StandardCharsets.US_ASCII);
+        DatagramPacket packet = new DatagramPacket(data, data.length,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 1900));
+        router.received(new DatagramProcessorImpl().read(InetAddress.getLoopbackAddress(), packet));
+
+        // Discovery isn't queued behind listener callbacks
+        assertEquals(List.of(PrioritizedExecutor.Lane.DISCOVERY), lanes);
+        assertInstanceOf(ReceivingSearch.class, tasks.get(0));
+
+        upnpService.shutdown();
+    }
+}
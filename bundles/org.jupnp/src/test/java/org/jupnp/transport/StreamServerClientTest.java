@@ -22,6 +22,8 @@ import java.io.UncheckedIOException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
@@ -152,6 +154,34 @@ public abstract class StreamServerClientTest {
         assertFalse(lastExecutedServerProtocol.isComplete);
     }
 
+    @Test
+    void basicAsync() throws Exception {
+        CompletableFuture<StreamResponseMessage> first = client
+                .sendRequestAsync(createRequestMessage(OKBodyResponse.PATH));
+        CompletableFuture<StreamResponseMessage> second = client
+                .sendRequestAsync(createRequestMessage(NoResponse.PATH));
+
+        StreamResponseMessage responseMessage = first.get(clientTimeoutMillis, TimeUnit.MILLISECONDS);
+        assertNotNull(responseMessage, "responseMessage");
+        assertEquals(200, responseMessage.getOperation().getStatusCode());
+        assertEquals("foo", responseMessage.getBodyString());
+
+        responseMessage = second.get(clientTimeoutMillis, TimeUnit.MILLISECONDS);
+        assertNotNull(responseMessage, "responseMessage");
+        assertEquals(404, responseMessage.getOperation().getStatusCode());
+        assertFalse(responseMessage.hasBody());
+    }
+
+    @Test
+    void expiredAsync() throws Exception {
+        CompletableFuture<StreamResponseMessage> future = client
+                .sendRequestAsync(createRequestMessage(TooLongResponse.PATH));
+        assertNull(future.get(clientTimeoutMillis + 1000, TimeUnit.MILLISECONDS));
+        assertFalse(lastExecutedServerProtocol.isComplete);
+        Thread.sleep(TooLongResponse.SLEEP_MS + 1000);
+        assertTrue(lastExecutedServerProtocol.isComplete);
+    }
+
     @Test
     void cancelled() throws Exception {
         final AtomicBoolean interrupted = new AtomicBoolean(false);
@@ -238,6 +268,7 @@ public abstract class StreamServerClientTest {
     @ValueSource(strings = { "", "http:///", "http:///descriptor.xml", "http://:8081/descriptor.xml" })
     void returnNullForInvalidURI(String uri) throws Exception {
         assertNull(client.sendRequest(createRequestMessage(new URI(uri))));
+        assertNull(client.sendRequestAsync(createRequestMessage(new URI(uri))).get());
     }
 
     protected StreamRequestMessage createRequestMessage(String path) {
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2011-2026 4th Line GmbH, Switzerland and others
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License Version 1 or later
+ * ("CDDL") (collectively, the "License"). You may not use this file
+ * except in compliance with the License. See LICENSE.txt for more
+ * information.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: CDDL-1.0
+ */
+package org.jupnp.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.jupnp.DefaultUpnpServiceConfiguration;
+import org.jupnp.util.VirtualThreads;
+
+/**
+ * The virtual thread executor mode falls back to platform threads before Java 21.
+ */
+class VirtualThreadExecutorTest {
+
+    @Test
+    void availableOnJava21() {
+        assertEquals(Runtime.version().feature() >= 21, VirtualThreads.isAvailable());
+        ExecutorService executorService = VirtualThreads.newExecutorService("test-");
+        assertEquals(VirtualThreads.isAvailable(), executorService != null);
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void runsBlockingTasks() throws Exception {
+        DefaultUpnpServiceConfiguration configuration = new DefaultUpnpServiceConfiguration() {
+            @Override
+            protected boolean isVirtualThreadsEnabled() {
+                return true;
+            }
+        };
+        try {
+            ExecutorService executorService = configuration.getSyncProtocolExecutorService();
+            // Without virtual threads, protocols run on a lane of the prioritized platform thread pool
+            String threadName = executorService.submit(() -> Thread.currentThread().getName()).get(5,
+                    TimeUnit.SECONDS);
+            assertEquals(VirtualThreads.isAvailable(), !threadName.startsWith("jupnp-lane-"));
+
+            // The platform lane runs at most 100 tasks at a time
+            int tasks = VirtualThreads.isAvailable() ? 1000 : 16;
+            CountDownLatch started = new CountDownLatch(tasks);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<?> last = null;
+            for (int i = 0; i < tasks; i++) {
+                last = executorService.submit(() -> {
+                    started.countDown();
+                    release.await();
+                    return null;
+                });
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            release.countDown();
+            last.get(5, TimeUnit.SECONDS);
+        } finally {
+            configuration.shutdown();
+        }
+    }
+}